@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api;
+
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Compares the throughput of many concurrent small document GETs over HTTP/1.1 connections
+ * against HTTP/2 streams, using a local server that adds a fixed delay to each response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class Http2Benchmark {
+
+    private static final String DOCUMENT = "{\"_id\":\"aardvark\",\"_rev\":\"1-a\"," +
+            "\"class\":\"mammal\",\"diet\":\"omnivore\"}";
+
+    @Param({"HTTP_1_1", "HTTP_2"})
+    public String protocol;
+
+    // The server's response time in milliseconds
+    @Param({"1"})
+    public long delayMillis;
+
+    private MockWebServer server;
+    private CloudantClient client;
+    private Database db;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new MockWebServer();
+        if ("HTTP_2".equals(protocol)) {
+            server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(DOCUMENT).setHeadersDelay(delayMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+        ClientBuilder builder = ClientBuilder.url(server.url("/").url());
+        if ("HTTP_2".equals(protocol)) {
+            builder.http2(100);
+        }
+        client = builder.build();
+        db = client.database("animaldb", false);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public JsonObject getDocument() {
+        return db.find(JsonObject.class, "aardvark");
+    }
+}
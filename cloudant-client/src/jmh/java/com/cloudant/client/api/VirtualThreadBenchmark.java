@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api;
+
+import com.google.gson.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Measures the throughput of {@value #CLIENTS} concurrent callers, each reading a document, when
+ * each caller is a virtual thread compared to a platform thread. The client is given the same
+ * executor for its background work. A local server adds a fixed delay to each response, so
+ * that the callers spend most of their time blocked in network I/O.
+ * <p>
+ * Virtual threads need Java 21 or later, on earlier versions run only the platform threads with
+ * {@code -p threads=platform}. Run with enough file descriptors and processes for a connection and server thread
+ * per caller, for example {@code ulimit -n 32768}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    private static final int CLIENTS = 10000;
+
+    private static final String DOCUMENT = "{\"_id\":\"aardvark\",\"_rev\":\"1-a\"," +
+            "\"class\":\"mammal\",\"diet\":\"omnivore\"}";
+
+    @Param({"virtual", "platform"})
+    public String threads;
+
+    // The server's response time in milliseconds
+    @Param({"10"})
+    public long delayMillis;
+
+    private ExecutorService executor;
+    private MockWebServer server;
+    private CloudantClient client;
+    private Database db;
+
+    @Setup
+    public void setup() throws Exception {
+        executor = "virtual".equals(threads) ? newVirtualThreadPerTaskExecutor() : Executors
+                .newCachedThreadPool();
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(DOCUMENT).setHeadersDelay(delayMillis,
+                        TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+        // Keep a connection for every caller so that each iteration reuses them
+        client = ClientBuilder.url(server.url("/").url()).maxConnections(CLIENTS).executor
+                (executor).build();
+        db = client.database("animaldb", false);
+    }
+
+    /**
+     * The executor is created reflectively so that the benchmarks compile for Java 8.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads need Java 21 or later.", e);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public void concurrentReads() throws Exception {
+        List<Future<JsonObject>> reads = new ArrayList<Future<JsonObject>>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            reads.add(executor.submit(new Callable<JsonObject>() {
+                @Override
+                public JsonObject call() {
+                    return db.find(JsonObject.class, "aardvark");
+                }
+            }));
+        }
+        for (Future<JsonObject> read : reads) {
+            read.get();
+        }
+    }
+}
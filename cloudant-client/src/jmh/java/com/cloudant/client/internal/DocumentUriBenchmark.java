@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.internal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building document URIs with a {@link DatabaseURIHelper} per request against a shared
+ * {@link DocumentUriTemplate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentUriBenchmark {
+
+    @Param({"a5c1f8e0b3d44e8f9a2b7c6d1e0f3a4b", "_design/views101", "doc with spaces/é"})
+    public String documentId;
+
+    private URI databaseUri;
+    private DocumentUriTemplate template;
+
+    @Setup
+    public void setup() throws Exception {
+        databaseUri = new URI("https://account.cloudant.com/animaldb");
+        template = new DocumentUriTemplate(databaseUri);
+    }
+
+    @Benchmark
+    public URI helperDocumentUri() {
+        return new DatabaseURIHelper(databaseUri).documentUri(documentId);
+    }
+
+    @Benchmark
+    public URI templateDocumentUri() {
+        return template.documentUri(documentId);
+    }
+
+    @Benchmark
+    public URI helperRevisionUri() {
+        return new DatabaseURIHelper(databaseUri).documentUri(documentId, "rev", "3-917fa23");
+    }
+
+    @Benchmark
+    public URI templateRevisionUri() {
+        return template.documentUri(documentId, "rev", "3-917fa23");
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2015, 2021 IBM Corp. All rights reserved.
+ * Copyright © 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -23,6 +23,7 @@ import com.cloudant.client.internal.util.ShardDeserializer;
 import com.cloudant.client.org.lightcouch.CouchDbException;
 import com.cloudant.client.org.lightcouch.CouchDbProperties;
 import com.cloudant.client.org.lightcouch.internal.CouchDbUtil;
+import com.cloudant.http.HttpCompression;
 import com.cloudant.http.HttpConnectionInterceptor;
 import com.cloudant.http.HttpConnectionRequestInterceptor;
 import com.cloudant.http.HttpConnectionResponseInterceptor;
@@ -51,6 +52,7 @@ import java.net.URLDecoder;
 import java.security.Security;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -159,6 +161,10 @@ public class ClientBuilder {
      * Defaults to {@link #DEFAULT_MAX_CONNECTIONS}
      **/
     private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private long connectionKeepAliveNanos = TimeUnit.MINUTES.toNanos(3);
+    private int prewarmConnections = 0;
+    private int http2MaxConcurrentStreams = 0;
+    private ExecutorService executor = null;
     private URL proxyURL;
     private String proxyUser;
     private String proxyPassword;
@@ -171,6 +177,18 @@ public class ClientBuilder {
     private String iamApiKey;
     private String iamServerClientId;
     private String iamServerClientSecret;
+    private boolean coalesceGetRequests = false;
+    private HttpCompression compression = null;
+    private double hedgePercentile = 0;
+    private double maxHedgeRatio = 0;
+    private long requestDeadlineNanos = 0;
+    private double circuitBreakerThreshold = 0;
+    private long circuitBreakerSlowCallNanos = 0;
+    private long circuitBreakerOpenNanos = 0;
+    private int queryPlanCacheSize = 0;
+    private double slowQueryRatio = 0;
+    private int slowQuerySampling = 0;
+    private List<URL> endpoints = new ArrayList<URL>();
 
     /**
      * Constructs a new ClientBuilder for building a CloudantClient instance to connect to the
@@ -202,13 +220,6 @@ public class ClientBuilder {
 
     private ClientBuilder(URL url) {
         logger.config("URL: " + url);
-        String urlProtocol = url.getProtocol();
-        String urlHost = url.getHost();
-        //Check if port exists
-        int urlPort = url.getPort();
-        if (urlPort < 0) {
-            urlPort = url.getDefaultPort();
-        }
         if (url.getUserInfo() != null) {
             //Get username and password and replace credential variables
             try {
@@ -223,13 +234,27 @@ public class ClientBuilder {
                 throw new RuntimeException(e);
             }
         }
-        
+        this.url = withoutCredentials(url);
+    }
+
+    /**
+     * Reconstruct a URL with an explicit port and without user credentials or a trailing /.
+     */
+    private static URL withoutCredentials(URL url) {
+        String urlProtocol = url.getProtocol();
+        String urlHost = url.getHost();
+        //Check if port exists
+        int urlPort = url.getPort();
+        if (urlPort < 0) {
+            urlPort = url.getDefaultPort();
+        }
+
         // Check if a path exists and sanitize it by removing whitespace and any trailing /
         String urlPath = url.getPath().trim();
         urlPath = urlPath.endsWith("/") ? urlPath.substring(0, urlPath.length() - 1) : urlPath;
 
         // Reconstruct URL without user credentials
-        this.url = convertStringToURL(urlProtocol
+        return convertStringToURL(urlProtocol
                 + "://"
                 + urlHost
                 + ":"
@@ -253,42 +278,33 @@ public class ClientBuilder {
 
         props.addRequestInterceptors(USER_AGENT_INTERCEPTOR);
 
-        if (this.iamApiKey != null) {
-
-            // Create IAM cookie interceptor and set in HttpConnection interceptors
-            IamCookieInterceptor cookieInterceptor = new IamCookieInterceptor(this.iamApiKey,
-                    this.url.toString(), this.proxyURL);
-
-            props.addRequestInterceptors(cookieInterceptor);
-            props.addResponseInterceptors(cookieInterceptor);
-            logger.config("Added IAM cookie interceptor");
-
-            if (this.iamServerClientId != null && this.iamServerClientSecret != null) {
-                props.addRequestInterceptors(new IamServerBasicAuthInterceptor(
-                        cookieInterceptor.getIamServerUrl(), iamServerClientId, iamServerClientSecret));
-            }
-
+        if (this.iamApiKey == null && (this.username != null ^ this.password != null)) {
+            //Username and password both have to contain values
+            throw new CouchDbException("Either a username and password must be provided, or " +
+                    "both values must be null. Please check the credentials and try again.");
         }
-        //Create cookie interceptor
-        else if (this.username != null && this.password != null) {
-            //make interceptor if both username and password are not null
-
-            //Create cookie interceptor and set in HttpConnection interceptors
-            CookieInterceptor cookieInterceptor = new CookieInterceptor(username, password,
-                    this.url.toString(), this.proxyURL);
-
-
-            props.addRequestInterceptors(cookieInterceptor);
-            props.addResponseInterceptors(cookieInterceptor);
-            logger.config("Added cookie interceptor");
+        HttpConnectionInterceptor sessionInterceptor = newSessionInterceptor(this.url);
+        if (this.endpoints.isEmpty()) {
+            if (sessionInterceptor != null) {
+                props.addRequestInterceptors((HttpConnectionRequestInterceptor)
+                        sessionInterceptor);
+                props.addResponseInterceptors((HttpConnectionResponseInterceptor)
+                        sessionInterceptor);
+            }
         } else {
-            //If username or password is null, throw an exception
-            if (username != null || password != null) {
-                //Username and password both have to contain values
-                throw new CouchDbException("Either a username and password must be provided, or " +
-                        "both values must be null. Please check the credentials and try again.");
+            // Each endpoint has its own session, the primary is the first endpoint
+            props.addEndpoint(this.url, sessionInterceptor);
+            for (URL endpoint : this.endpoints) {
+                logger.config("Added endpoint: " + endpoint);
+                props.addEndpoint(endpoint, newSessionInterceptor(endpoint));
             }
         }
+        if (sessionInterceptor instanceof IamCookieInterceptor && this.iamServerClientId !=
+                null && this.iamServerClientSecret != null) {
+            props.addRequestInterceptors(new IamServerBasicAuthInterceptor(
+                    ((IamCookieInterceptor) sessionInterceptor).getIamServerUrl(),
+                    iamServerClientId, iamServerClientSecret));
+        }
 
         //If setter methods for read and connection timeout are not called, default values
         // are used.
@@ -336,7 +352,25 @@ public class ClientBuilder {
 
         //Set connect options
         props.setMaxConnections(maxConnections);
+        props.setConnectionKeepAliveNanos(connectionKeepAliveNanos);
+        props.setPrewarmConnections(prewarmConnections);
+        // Requests wait for an HTTP/2 stream for up to the read timeout or default deadline
+        long streamWaitNanos = (readTimeout > 0) ? readTimeoutUnit.toNanos(readTimeout) : Long
+                .MAX_VALUE;
+        if (requestDeadlineNanos > 0) {
+            streamWaitNanos = Math.min(streamWaitNanos, requestDeadlineNanos);
+        }
+        props.setHttp2(http2MaxConcurrentStreams, streamWaitNanos);
+        props.setExecutor(executor);
         props.setProxyURL(proxyURL);
+        props.setCoalesceGetRequests(coalesceGetRequests);
+        props.setCompression(compression);
+        props.setHedging(hedgePercentile, maxHedgeRatio);
+        props.setRequestDeadlineNanos(requestDeadlineNanos);
+        props.setCircuitBreaker(circuitBreakerThreshold, circuitBreakerSlowCallNanos,
+                circuitBreakerOpenNanos);
+        props.setQueryPlanCacheSize(queryPlanCacheSize);
+        props.setQueryStatistics(slowQueryRatio, slowQuerySampling);
         if (proxyUser != null) {
             //if there was proxy auth information set up proxy auth
             if ("http".equals(url.getProtocol())) {
@@ -396,6 +430,26 @@ public class ClientBuilder {
         return new CloudantClient(props, gsonBuilder);
     }
 
+    /**
+     * @param endpointUrl the URL of the endpoint
+     * @return a new session interceptor for the endpoint, or {@code null} if there are no
+     * credentials
+     */
+    private HttpConnectionInterceptor newSessionInterceptor(URL endpointUrl) {
+        if (this.iamApiKey != null) {
+            // Create IAM cookie interceptor and set in HttpConnection interceptors
+            logger.config("Added IAM cookie interceptor");
+            return new IamCookieInterceptor(this.iamApiKey, endpointUrl.toString(),
+                    this.proxyURL);
+        } else if (this.username != null && this.password != null) {
+            //Create cookie interceptor and set in HttpConnection interceptors
+            logger.config("Added cookie interceptor");
+            return new CookieInterceptor(username, password, endpointUrl.toString(),
+                    this.proxyURL);
+        }
+        return null;
+    }
+
     /**
      * Sets a username or API key for the client connection.
      *
@@ -439,7 +493,10 @@ public class ClientBuilder {
      * <P>
      * Note: this setting only applies if using the optional OkHttp dependency. If OkHttp is not
      * present then the JVM configuration is used for pooling. Consult the JVM documentation for
-     * the {@code http.maxConnections} property for further details.
+     * the {@code http.maxConnections} property for further details. On Java 11 and later
+     * requests are sent with {@code java.net.http.HttpClient} when OkHttp is not present, unless
+     * a custom SSL socket factory is set or SSL authentication is disabled; consult the JVM
+     * documentation for the {@code jdk.httpclient.connectionPoolSize} property.
      * </P>
      * Defaults to {@link #DEFAULT_MAX_CONNECTIONS}
      *
@@ -451,6 +508,356 @@ public class ClientBuilder {
         return this;
     }
 
+    /**
+     * Set how long an idle connection is kept in the connection pool before it is closed.
+     * <P>
+     * Note: this setting only applies if using the optional OkHttp dependency and
+     * {@link #maxConnections(int)} is greater than 0. If OkHttp is not present then the JVM
+     * configuration is used for pooling. Consult the JVM documentation for the
+     * {@code http.keepAlive} property for further details.
+     * </P>
+     * Defaults to 3 minutes, which is longer than the server keeps an idle connection open.
+     *
+     * @param keepAlive     how long to keep an idle connection open
+     * @param keepAliveUnit unit of measurement of the keepAlive parameter
+     * @return this ClientBuilder object for setting additional options
+     * @throws IllegalArgumentException if the keep alive duration is not greater than 0
+     * @since 2.21.0
+     */
+    public ClientBuilder connectionKeepAlive(long keepAlive, TimeUnit keepAliveUnit) {
+        if (keepAlive <= 0) {
+            throw new IllegalArgumentException("The keep alive duration must be greater than 0.");
+        }
+        this.connectionKeepAliveNanos = keepAliveUnit.toNanos(keepAlive);
+        return this;
+    }
+
+    /**
+     * <P>
+     * Use HTTP/2 so that concurrent requests are multiplexed as streams over a single connection
+     * instead of each needing its own connection, with at most {@code maxConcurrentStreams}
+     * requests of the client in flight. Requests beyond the limit wait for a stream to finish,
+     * up to the read timeout or the {@link #requestDeadline(long, TimeUnit) request deadline} if
+     * it is shorter, then fail. A stream is only finished when its response has been read or
+     * closed.
+     * </P>
+     * <P>
+     * For https URLs HTTP/2 is negotiated with ALPN, which requires Java 9 or later or Java 8
+     * update 252 or later, and falls back to HTTP/1.1 if the server does not support it. For
+     * http URLs HTTP/2 is used with prior knowledge so the server must support cleartext HTTP/2.
+     * </P>
+     * <P>
+     * Note: this setting only applies if using the optional OkHttp dependency.
+     * </P>
+     * Disabled by default.
+     *
+     * @param maxConcurrentStreams the maximum number of requests of the client in flight
+     * @return this ClientBuilder object for setting additional options
+     * @throws IllegalArgumentException if maxConcurrentStreams is not greater than 0
+     * @since 2.21.0
+     */
+    public ClientBuilder http2(int maxConcurrentStreams) {
+        if (maxConcurrentStreams <= 0) {
+            throw new IllegalArgumentException("The maximum number of concurrent streams must " +
+                    "be greater than 0.");
+        }
+        this.http2MaxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    /**
+     * <P>
+     * Open connections to the server when the client is built, so that the first requests reuse
+     * an open connection instead of each waiting for a new TCP connection and TLS handshake.
+     * </P>
+     * <P>
+     * The connections are opened concurrently by {@code GET} requests for the welcome document
+     * of the server, and of each endpoint of a client built with {@link #endpoints(URL...)},
+     * before {@link #build()} returns. Each request has a deadline of a few seconds; a
+     * connection that cannot be opened in time is logged and does not stop the client being
+     * built. No more connections are opened than the {@link #maxConnections(int)} the pool
+     * keeps.
+     * </P>
+     * Disabled by default.
+     *
+     * @param connections the number of connections to open to each endpoint
+     * @return this ClientBuilder object for setting additional options
+     * @throws IllegalArgumentException if the number of connections is negative
+     * @since 2.21.0
+     */
+    public ClientBuilder prewarmConnections(int connections) {
+        if (connections < 0) {
+            throw new IllegalArgumentException("The number of connections must not be " +
+                    "negative.");
+        }
+        this.prewarmConnections = connections;
+        return this;
+    }
+
+    /**
+     * <P>
+     * Run the client's background work with an executor instead of threads created by the
+     * client. The executor sends the requests of the OkHttp or {@code java.net.http} client, runs
+     * the hedge requests of {@link #hedgeReads(double, double)} and opens the connections of
+     * {@link #prewarmConnections(int)}. For example on Java 21
+     * {@code Executors.newVirtualThreadPerTaskExecutor()} runs each of them on a virtual
+     * thread.
+     * </P>
+     * <P>
+     * The client does not hold a monitor while waiting for network I/O or backing off, so
+     * requests can also be made from virtual threads without blocking their carrier threads.
+     * The exception is OkHttp's {@code HttpURLConnection}, which waits in a monitor for the
+     * response to a request with a body, such as a document update, and so pins the calling
+     * virtual thread to its carrier on Java versions before 24.
+     * Without {@code okhttp-urlconnection} on the classpath the client uses
+     * {@code java.net.http} on Java 11 and later, which does not.
+     * </P>
+     * <P>
+     * The executor is not shut down by {@link CloudantClient#shutdown()}.
+     * </P>
+     * Disabled by default.
+     *
+     * @param executor the executor for the client's background work
+     * @return this ClientBuilder object for setting additional options
+     * @since 2.21.0
+     */
+    public ClientBuilder executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * <P>
+     * Coalesce identical concurrent GET requests. When a GET request is made for the same URL and
+     * request headers as a GET request that is already in flight no further request is sent to
+     * the server; instead every caller receives a copy of the in-flight request's response, or
+     * the exception it caused. This reduces server load and tail latency when many threads read
+     * the same hot document or view at the same time.
+     * </P>
+     * <P>
+     * Coalesced responses are buffered in memory so this option is not suitable for clients that
+     * read large attachments. Continuous and long-poll changes feeds are never coalesced.
+     * </P>
+     * Disabled by default.
+     *
+     * @return this ClientBuilder object for setting additional options
+     * @since 2.21.0
+     */
+    public ClientBuilder coalesceGetRequests() {
+        this.coalesceGetRequests = true;
+        return this;
+    }
+
+    /**
+     * <P>
+     * Use gzip compression for requests and responses. Every request advertises
+     * {@code Accept-Encoding: gzip} and compressed responses are decompressed as they are read.
+     * JSON request bodies, such as {@code _bulk_docs} payloads, larger than the minimum size of
+     * the {@link HttpCompression} are compressed as they are sent.
+     * </P>
+     * <P>
+     * The {@link HttpCompression} instance accumulates the compression ratios and the time spent
+     * compressing and decompressing for all the requests made by the client.
+     * </P>
+     * Disabled by default.
+     *
+     * @param compression the compression to use for the client's requests
+     * @return this ClientBuilder object for setting additional options
+     * @since 2.21.0
+     */
+    public ClientBuilder compression(HttpCompression compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * <P>
+     * Hedge slow GET requests, such as document reads and view queries, to reduce tail latency.
+     * If there is no response to a request after a delay equal to the given percentile of recent
+     * response times a second identical request is sent. The first response to arrive is used and
+     * the other request is cancelled, or its response discarded. Whichever request wins, the
+     * response is read from the request that was passed to
+     * {@link CloudantClient#executeRequest(com.cloudant.http.HttpConnection)}.
+     * </P>
+     * <P>
+     * To avoid adding load to an overloaded server the number of hedge requests is limited to a
+     * fraction of the GET requests, allowing for short bursts. Requests for continuous, longpoll
+     * and eventsource changes feeds are never hedged. No requests are hedged until enough
+     * responses have been received to calculate the percentile.
+     * </P>
+     * <P>
+     * The hedging counters are available from {@link CloudantClient#getHedgeStatistics()}.
+     * </P>
+     * Disabled by default.
+     *
+     * @param percentile    the percentile of response times to wait before hedging, greater than
+     *                      0 and at most 100, for example 95
+     * @param maxHedgeRatio the maximum number of hedge requests as a fraction of GET requests,
+     *                      greater than 0 and at most 1, for example 0.05
+     * @return this ClientBuilder object for setting additional options
+     * @throws IllegalArgumentException if the percentile or ratio is out of range
+     * @since 2.21.0
+     */
+    public ClientBuilder hedgeReads(double percentile, double maxHedgeRatio) {
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("The hedging percentile must be greater than 0 " +
+                    "and at most 100.");
+        }
+        if (!(maxHedgeRatio > 0 && maxHedgeRatio <= 1)) {
+            throw new IllegalArgumentException("The maximum hedge ratio must be greater than 0 " +
+                    "and at most 1.");
+        }
+        this.hedgePercentile = percentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+        return this;
+    }
+
+    /**
+     * <P>
+     * Fail requests immediately, instead of waiting for timeouts, while an endpoint is failing or
+     * slow. A circuit breaker is kept for each endpoint and class of request: document reads,
+     * queries such as views, {@code _find} and {@code _all_docs}, and writes.
+     * </P>
+     * <P>
+     * Each breaker records the outcomes of the last {@code 100} requests. A request fails if it
+     * has an I/O error or a 5xx status code and is slow if the response takes at least the slow
+     * call duration. Once at least {@code 20} requests are recorded, if the fraction that failed
+     * or the fraction that were slow reaches the threshold the breaker opens. While open,
+     * requests fail with a {@link com.cloudant.client.org.lightcouch.CircuitBreakerOpenException}
+     * without being sent. After the open duration {@code 3} probe requests are let through; if
+     * they all succeed and are not slow the breaker closes, otherwise it opens again. When the
+     * client has several {@link #endpoints(URL...) endpoints} requests skip an endpoint whose
+     * breaker is open. Streaming changes feeds are never tracked.
+     * </P>
+     * <P>
+     * The state and transition counters of each breaker are available from
+     * {@link CloudantClient#getCircuitBreakerStatistics()}.
+     * </P>
+     * Disabled by default.
+     *
+     * @param threshold        the failure or slow call rate at which to open, greater than 0 and
+     *                         at most 1, for example 0.5
+     * @param slowCallDuration the duration at or above which a request is slow
+     * @param openDuration     how long to fail requests before letting probes through
+     * @param unit             the unit of the durations
+     * @return this ClientBuilder object for setting additional options
+     * @throws IllegalArgumentException if the threshold or a duration is out of range
+     * @since 2.21.0
+     */
+    public ClientBuilder circuitBreaker(double threshold, long slowCallDuration, long
+            openDuration, TimeUnit unit) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("The circuit breaker threshold must be greater " +
+                    "than 0 and at most 1.");
+        }
+        if (slowCallDuration <= 0 || openDuration <= 0) {
+            throw new IllegalArgumentException("The circuit breaker durations must be positive.");
+        }
+        this.circuitBreakerThreshold = threshold;
+        this.circuitBreakerSlowCallNanos = unit.toNanos(slowCallDuration);
+        this.circuitBreakerOpenNanos = unit.toNanos(openDuration);
+        return this;
+    }
+
+    /**
+     * <P>
+     * Cache the index the server chooses for each shape of {@code _find} query and send later
+     * queries of the same shape with {@code use_index} set to that index, so that a change in
+     * the server's choice cannot turn a query into a full scan. A shape is the selector without
+     * its values, and the sort. The first query of each shape is explained with a
+     * {@code _explain} request before it is sent. Queries that set their own index are not
+     * changed.
+     * </P>
+     * <P>
+     * A shape served by {@code _all_docs}, a full scan of the database, is logged as a warning
+     * and is not pinned. The cached plans, including the shapes that need an index, are
+     * available from {@link CloudantClient#getQueryPlans()}. If a query fails because its pinned
+     * index no longer exists the plan is discarded and the query is sent again without it.
+     * </P>
+     * Disabled by default.
+     *
+     * @param maxShapes the maximum number of query shapes to cache, the least recently used are
+     *                  discarded first
+     * @return this ClientBuilder object for setting additional options
+     * @throws IllegalArgumentException if the maximum is not positive
+     * @since 2.21.0
+     */
+    public ClientBuilder queryPlanCache(int maxShapes) {
+        if (maxShapes < 1) {
+            throw new IllegalArgumentException("The maximum number of query shapes must be " +
+                    "positive.");
+        }
+        this.queryPlanCacheSize = maxShapes;
+        return this;
+    }
+
+    /**
+     * Record the statistics of {@code _find} queries for each query shape, the selector without
+     * its values and the sort.
+     * <P>
+     * Queries are sent with {@code execution_stats} set, unless they set it themselves, and the
+     * client latency, index keys examined, documents examined, results returned and server
+     * execution time of each are recorded in histograms. The statistics are available from
+     * {@link CloudantClient#getQueryStatistics()}.
+     * </P>
+     * <P>
+     * A query is slow if the number of keys or documents it examined for each result it returned
+     * reaches the slow query ratio, which usually means it needs a better index. The first slow
+     * query of each shape is logged as a warning, then one in every {@code slowQuerySampling}.
+     * </P>
+     * Disabled by default.
+     *
+     * @param slowQueryRatio    the number of keys or documents examined for each result returned
+     *                          at which a query is slow
+     * @param slowQuerySampling log one in this many slow queries of each shape
+     * @return this ClientBuilder object for setting additional options
+     * @throws IllegalArgumentException if the ratio is less than 1 or the sampling is not
+     *                                  positive
+     * @since 2.21.0
+     */
+    public ClientBuilder queryStatistics(double slowQueryRatio, int slowQuerySampling) {
+        if (!(slowQueryRatio >= 1)) {
+            throw new IllegalArgumentException("The slow query ratio must be at least 1.");
+        }
+        if (slowQuerySampling < 1) {
+            throw new IllegalArgumentException("The slow query sampling must be positive.");
+        }
+        this.slowQueryRatio = slowQueryRatio;
+        this.slowQuerySampling = slowQuerySampling;
+        return this;
+    }
+
+    /**
+     * <P>
+     * Add endpoints that serve the same data as the URL of this builder, for example replicas of
+     * the account in other regions. The URL of the builder is the primary endpoint and these
+     * endpoints are used in the order they are added.
+     * </P>
+     * <P>
+     * {@code GET} and {@code HEAD} requests are routed to the healthy endpoint with the lowest
+     * moving average response latency. All other requests are sent to the primary while it is
+     * healthy. A request that cannot connect to an endpoint is retried on the next endpoint and
+     * the failed endpoint is not used again until a back off period has passed. Read requests are
+     * also retried after other I/O errors. Each endpoint has its own connection pool and
+     * session, using the credentials of this builder.
+     * </P>
+     * <P>
+     * The routing statistics of each endpoint are available from
+     * {@link CloudantClient#getEndpointStatistics()}.
+     * </P>
+     *
+     * @param urls the URLs of the additional endpoints
+     * @return this ClientBuilder object for setting additional options
+     * @since 2.21.0
+     */
+    public ClientBuilder endpoints(URL... urls) {
+        for (URL endpoint : urls) {
+            CouchDbUtil.assertNotNull(endpoint, "Endpoint URL");
+            this.endpoints.add(withoutCredentials(endpoint));
+        }
+        return this;
+    }
+
     /**
      * <p>
      * Sets a proxy url for the client connection.
@@ -652,6 +1059,36 @@ public class ClientBuilder {
         return this;
     }
 
+    /**
+     * <P>
+     * Sets a deadline for every request made by the client, including any retries and replays
+     * of the request, such as those after a 429 response. Unlike the connect and read timeouts,
+     * which apply to each attempt separately, the deadline bounds the total time of a request.
+     * </P>
+     * <P>
+     * The connect and read timeouts of each attempt are reduced to the time remaining until the
+     * deadline, and retries and replays that could not be made before the deadline are not made.
+     * If the deadline passes before an attempt is sent the request fails with a
+     * {@link com.cloudant.client.org.lightcouch.CouchDbException} caused by a
+     * {@link com.cloudant.http.DeadlineExceededException}.
+     * </P>
+     * <P>
+     * The deadline can be overridden for a database with
+     * {@link Database#setRequestDeadline(long, TimeUnit)} and for a single request with
+     * {@link com.cloudant.http.HttpConnection#setDeadline(long, TimeUnit)}.
+     * </P>
+     * Disabled by default.
+     *
+     * @param deadline     the time from the start of each request by which it must complete
+     * @param deadlineUnit unit of measurement of the deadline parameter
+     * @return this ClientBuilder object for setting additional options
+     * @since 2.21.0
+     */
+    public ClientBuilder requestDeadline(long deadline, TimeUnit deadlineUnit) {
+        this.requestDeadlineNanos = deadlineUnit.toNanos(deadline);
+        return this;
+    }
+
     /**
      * This is the same as calling {@link #bluemix(String, String)} with {@code instanceName} set to
      * {@code null}.
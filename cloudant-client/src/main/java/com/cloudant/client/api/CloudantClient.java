@@ -1,5 +1,5 @@
 /*
- * Copyright © 2015, 2019 IBM Corp. All rights reserved.
+ * Copyright © 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -19,8 +19,15 @@ import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.getRespons
 import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.getResponseList;
 
 import com.cloudant.client.api.model.ApiKey;
+import com.cloudant.client.api.model.CircuitBreakerStatistics;
+import com.cloudant.client.api.model.ConnectionPoolStatistics;
+import com.cloudant.client.api.model.EndpointStatistics;
+import com.cloudant.client.api.model.HedgeStatistics;
 import com.cloudant.client.api.model.IndexField;
 import com.cloudant.client.api.model.Membership;
+import com.cloudant.client.api.model.QueryPlan;
+import com.cloudant.client.api.model.QueryStatistics;
+import com.cloudant.client.api.model.SessionStatistics;
 import com.cloudant.client.api.model.Task;
 import com.cloudant.client.api.scheduler.SchedulerDocsResponse;
 import com.cloudant.client.api.scheduler.SchedulerJobsResponse;
@@ -411,6 +418,111 @@ public class CloudantClient {
         return couchDbClient.execute(request);
     }
 
+    /**
+     * Get the health, latency and routing counters of each endpoint of a client built with
+     * {@link ClientBuilder#endpoints(java.net.URL...)}.
+     *
+     * @return the statistics of each endpoint, primary first, or an empty list if the client was
+     * built with a single endpoint
+     * @since 2.21.0
+     */
+    public List<EndpointStatistics> getEndpointStatistics() {
+        return couchDbClient.getEndpointStatistics();
+    }
+
+    /**
+     * Get the number of idle and active connections in the connection pool of each endpoint and
+     * how long requests waited to acquire a connection.
+     * <P>
+     * Note: connection pool statistics are only available if using the optional OkHttp
+     * dependency.
+     * </P>
+     *
+     * @return the statistics of each endpoint's connection pool, primary first, or an empty list
+     * if OkHttp is not being used for connection pooling
+     * @since 2.21.0
+     */
+    public List<ConnectionPoolStatistics> getConnectionPoolStatistics() {
+        return couchDbClient.getConnectionPoolStatistics();
+    }
+
+    /**
+     * Change the maximum number of connections kept in the connection pool of each endpoint,
+     * as initially set by {@link ClientBuilder#maxConnections(int)}. The idle connections of the
+     * current pool are closed and new connections are opened from a pool of the new size.
+     * Connections in use are not reused once their requests complete and are closed when they
+     * have been idle for the
+     * {@link ClientBuilder#connectionKeepAlive(long, java.util.concurrent.TimeUnit) keep alive}
+     * duration.
+     *
+     * @param maxConnections the maximum number of connections to keep in each pool
+     * @throws IllegalArgumentException      if maxConnections is not greater than 0
+     * @throws UnsupportedOperationException if OkHttp is not being used for connection pooling
+     * @since 2.21.0
+     */
+    public void setMaxConnections(int maxConnections) {
+        couchDbClient.setMaxConnections(maxConnections);
+    }
+
+    /**
+     * Get the counters of a client built with {@link ClientBuilder#hedgeReads(double, double)}.
+     *
+     * @return the hedged request statistics, or {@code null} if GET requests are not hedged
+     * @since 2.21.0
+     */
+    public HedgeStatistics getHedgeStatistics() {
+        return couchDbClient.getHedgeStatistics();
+    }
+
+    /**
+     * Get the state and transition counters of each circuit breaker of a client built with
+     * {@link ClientBuilder#circuitBreaker(double, long, long, java.util.concurrent.TimeUnit)}.
+     *
+     * @return the statistics of each breaker that has been used, or an empty list if circuit
+     * breakers are not enabled
+     * @since 2.21.0
+     */
+    public List<CircuitBreakerStatistics> getCircuitBreakerStatistics() {
+        return couchDbClient.getCircuitBreakerStatistics();
+    }
+
+    /**
+     * Get the session renewal counters of each endpoint of a client built with a
+     * {@link ClientBuilder#username(String) username} and
+     * {@link ClientBuilder#password(String) password} or an
+     * {@link ClientBuilder#iamApiKey(String) IAM API key}.
+     *
+     * @return the statistics of each endpoint, primary first, or an empty list if the client does
+     * not use session authentication
+     * @since 2.21.0
+     */
+    public List<SessionStatistics> getSessionStatistics() {
+        return couchDbClient.getSessionStatistics();
+    }
+
+    /**
+     * Get the index chosen for each query shape of a client built with
+     * {@link ClientBuilder#queryPlanCache(int)}. Plans that are full scans show the query shapes
+     * that need an index.
+     *
+     * @return the cached query plans, or an empty list if query plans are not cached
+     * @since 2.21.0
+     */
+    public List<QueryPlan> getQueryPlans() {
+        return couchDbClient.getQueryPlans();
+    }
+
+    /**
+     * Get the statistics of each {@code _find} query shape of a client built with
+     * {@link ClientBuilder#queryStatistics(double, int)}.
+     *
+     * @return the query statistics, or an empty list if they are not recorded
+     * @since 2.21.0
+     */
+    public List<QueryStatistics> getQueryStatistics() {
+        return couchDbClient.getQueryStatistics();
+    }
+
     /**
      * Shuts down the connection manager used by this client instance.
      */
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2016, 2021 IBM Corp. All rights reserved.
+ * Copyright © 2016, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -22,6 +22,10 @@ import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.getAsStrin
 import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.getResponse;
 import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.getResponseList;
 
+import com.cloudant.client.api.model.AttachmentDownloadOptions;
+import com.cloudant.client.api.model.AttachmentSink;
+import com.cloudant.client.api.model.AttachmentSource;
+import com.cloudant.client.api.model.AttachmentUpload;
 import com.cloudant.client.api.model.DbInfo;
 import com.cloudant.client.api.model.FindByIndexOptions;
 import com.cloudant.client.api.model.Index;
@@ -29,6 +33,8 @@ import com.cloudant.client.api.model.IndexField;
 import com.cloudant.client.api.model.Params;
 import com.cloudant.client.api.model.PartitionInfo;
 import com.cloudant.client.api.model.Permissions;
+import com.cloudant.client.api.query.PartitionedQueryResult;
+import com.cloudant.client.api.query.QueryIterator;
 import com.cloudant.client.api.query.QueryResult;
 import com.cloudant.client.api.model.Shard;
 import com.cloudant.client.api.query.Indexes;
@@ -38,6 +44,8 @@ import com.cloudant.client.api.views.ViewRequestBuilder;
 import com.cloudant.client.internal.DatabaseURIHelper;
 import com.cloudant.client.internal.URIBase;
 import com.cloudant.client.internal.query.Helpers;
+import com.cloudant.client.internal.query.PagedQueryIterator;
+import com.cloudant.client.internal.query.PartitionFanOut;
 import com.cloudant.client.internal.util.DeserializationTypes;
 import com.cloudant.client.internal.views.AllDocsRequestBuilderImpl;
 import com.cloudant.client.internal.views.AllDocsRequestResponse;
@@ -57,17 +65,22 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.reflect.TypeToken;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
@@ -534,14 +547,150 @@ public class Database {
         return this.query(uri, query, classOfT);
     }
 
+    /**
+     * Iterate over every document matching a query, requesting the pages of results in turn
+     * with the bookmark of each page until a page has fewer documents than the query
+     * {@code limit}, or 25 if the query has no limit.
+     * <p>
+     * Without prefetch the documents are decoded from each response as they are iterated. With
+     * prefetch each page is decoded in the background, with the client's executor if it has one,
+     * and the next page is requested as soon as the current one has been decoded.
+     * </p>
+     * <p>Example usage:</p>
+     * <pre>
+     * {@code
+     * QueryIterator<Movie> movies = db.queryIterator(new QueryBuilder(
+     *   gt("Movie_year", 1960)).
+     *   limit(200).
+     *   build(), Movie.class, true);
+     * try {
+     *     while (movies.hasNext()) {
+     *         Movie movie = movies.next();
+     *     }
+     * } finally {
+     *     movies.close();
+     * }
+     * }
+     * </pre>
+     *
+     * @param query    String representation of a JSON object describing criteria used to
+     *                 select documents, which may include a bookmark to start from.
+     * @param classOfT The class of Java objects to be returned.
+     * @param prefetch {@code true} to request the next page while the current page is consumed.
+     * @param <T>      The type of the Java objects to be returned.
+     * @return an iterator over the documents matching the query, which must be closed if it is
+     * not consumed to the end
+     * @see #query(String, Class)
+     * @since 2.21.0
+     */
+    public <T> QueryIterator<T> queryIterator(String query, Class<T> classOfT, boolean
+            prefetch) {
+        URI uri = new DatabaseURIHelper(db.getDBUri()).path("_find").build();
+        return new PagedQueryIterator<T>(client.couchDbClient, uri, query, classOfT, prefetch);
+    }
+
+    /**
+     * Iterate over every document matching a partitioned query, requesting the pages of results
+     * in turn with the bookmark of each page.
+     *
+     * @param partitionKey Database partition to query.
+     * @param query        String representation of a JSON object describing criteria used to
+     *                     select documents, which may include a bookmark to start from.
+     * @param classOfT     The class of Java objects to be returned.
+     * @param prefetch     {@code true} to request the next page while the current page is
+     *                     consumed.
+     * @param <T>          The type of the Java objects to be returned.
+     * @return an iterator over the documents matching the query, which must be closed if it is
+     * not consumed to the end
+     * @see #queryIterator(String, Class, boolean)
+     * @since 2.21.0
+     */
+    public <T> QueryIterator<T> queryIterator(String partitionKey, String query, Class<T>
+            classOfT, boolean prefetch) {
+        URI uri = new DatabaseURIHelper(db.getDBUri()).partition(partitionKey).path("_find")
+                .build();
+        return new PagedQueryIterator<T>(client.couchDbClient, uri, query, classOfT, prefetch);
+    }
+
+    /**
+     * Execute the same query in several partitions of a partitioned database concurrently and
+     * merge the results.
+     * <p>
+     * At most {@code parallelism} partition queries are in flight at once, sent with the
+     * client's executor if it has one. A partition whose query fails does not fail the others,
+     * its exception is returned in {@link PartitionedQueryResult#getErrors()}.
+     * </p>
+     * <p>
+     * The documents of each partition are in the order of the query's {@code sort}. If a merge
+     * order is given the documents of all the partitions are merged into that order, which must
+     * be the same as the query's sort. Otherwise they are concatenated in the order of the
+     * partition keys.
+     * </p>
+     * <p>Example usage:</p>
+     * <pre>
+     * {@code
+     * // Query the latest movies of several directors, most recent first.
+     * PartitionedQueryResult<Movie> movies = db.queryPartitions(Arrays.asList("Coppola",
+     *   "Scorsese"), new QueryBuilder(gt("Movie_year", 1960)).
+     *   sort(Sort.desc("Movie_year")).
+     *   build(), Movie.class, 8, new Comparator<Movie>() {
+     *       public int compare(Movie a, Movie b) {
+     *           return b.getYear() - a.getYear();
+     *       }
+     *   });
+     * }
+     * </pre>
+     *
+     * @param partitionKeys Database partitions to query.
+     * @param query         String representation of a JSON object describing criteria used to
+     *                      select documents.
+     * @param classOfT      The class of Java objects to be returned in the {@code docs} field of
+     *                      result.
+     * @param parallelism   The maximum number of partitions to query concurrently.
+     * @param mergeOrder    The order of the query's sort to merge the documents in, or
+     *                      {@code null} to concatenate the documents of each partition.
+     * @param <T>           The type of the Java object to be returned in the {@code docs} field of
+     *                      result.
+     * @return A {@link PartitionedQueryResult} with the merged documents, the result of each
+     * partition that succeeded and the error of each partition that failed.
+     * @see com.cloudant.client.api.Database#query(String, String, Class)
+     * @since 2.21.0
+     */
+    public <T> PartitionedQueryResult<T> queryPartitions(Collection<String> partitionKeys,
+                                                         String query, Class<T> classOfT,
+                                                         int parallelism, Comparator<? super T>
+                                                                 mergeOrder) {
+        assertNotEmpty(partitionKeys, "partitionKeys");
+        return new PartitionFanOut<T>(client.couchDbClient, db.getDBUri(), partitionKeys, query,
+                classOfT, parallelism).execute(mergeOrder);
+    }
+
     private <T> QueryResult<T> query(URI uri, String query, final Class<T> classOfT) {
+        String pinned = client.couchDbClient.pinQueryIndex(uri, query);
+        try {
+            return executeQuery(uri, pinned, classOfT);
+        } catch (CouchDbException e) {
+            if (pinned.equals(query) || e.getStatusCode() != 400) {
+                throw e;
+            }
+            // The pinned index may have been deleted since the query was explained
+            client.couchDbClient.evictQueryPlan(uri, query);
+            return executeQuery(uri, query, classOfT);
+        }
+    }
+
+    private <T> QueryResult<T> executeQuery(URI uri, String query, final Class<T> classOfT) {
         InputStream stream = null;
         try {
-            stream = client.couchDbClient.executeToInputStream(createPost(uri, query,
-                    "application/json"));
+            long start = System.nanoTime();
+            stream = client.couchDbClient.executeToInputStream(createPost(uri, client
+                    .couchDbClient.requestQueryStatistics(query), "application/json"));
             Reader reader = new InputStreamReader(stream, "UTF-8");
             Type type = TypeToken.getParameterized(QueryResult.class, classOfT).getType();
-            return client.getGson().fromJson(reader, type);
+            QueryResult<T> result = client.getGson().fromJson(reader, type);
+            client.couchDbClient.recordQueryStatistics(uri, query, System.nanoTime() - start,
+                    result.getExecutionStats());
+            return result;
         } catch (UnsupportedEncodingException e) {
             // This should never happen as every implementation of the java platform is required
             // to support UTF-8.
@@ -781,6 +930,73 @@ public class Database {
         return db.find(classType, id, params.getInternalParams());
     }
 
+    /**
+     * Retrieve the document with the specified ID from the database and deserialize to an
+     * instance of the POJO of type T, streaming the data of its inline attachments to sinks.
+     * <P>
+     * The document is requested with its inline attachments. As the response is read the data of
+     * each attachment for which the provider returns a sink is decoded into that sink instead of
+     * being deserialized, so large attachments are never held in memory as base64 strings. The
+     * data of those attachments is {@code null} in the returned object. The data of attachments
+     * for which the provider returns {@code null} is deserialized as usual.
+     * </P>
+     * <P>Example usage to write attachments to files:</P>
+     * <pre>
+     * {@code
+     * Foo foo = db.find(Foo.class, "exampleId", new Params(), new AttachmentSink.Provider() {
+     *     public AttachmentSink get(String name) {
+     *         return AttachmentSink.to(new File(directory, name));
+     *     }
+     * });
+     * }
+     * </pre>
+     *
+     * @param <T>       object type
+     * @param classType the class of type T
+     * @param id        the document id
+     * @param params    extra parameters to append
+     * @param sinks     provides the sink for each attachment's data
+     * @return An object of type T
+     * @throws NoDocumentException if the document is not found in the database.
+     * @see AttachmentSink
+     * @since 2.21.0
+     */
+    public <T> T find(Class<T> classType, String id, Params params, AttachmentSink.Provider
+            sinks) {
+        assertNotEmpty(params, "params");
+        assertNotNull(sinks, "sinks");
+        return db.find(classType, id, params.getInternalParams(), sinks);
+    }
+
+    /**
+     * Retrieve the document with the specified ID and its attachments in a single
+     * {@code multipart/related} response, streaming the data of each attachment to a sink.
+     * <P>
+     * Unlike {@link #find(Class, String, Params, AttachmentSink.Provider)} the attachment data is
+     * received as binary parts, so there is no base64 decoding. The data of each attachment for
+     * which the provider returns a sink is written to the sink as the response is read and is
+     * {@code null} in the returned object. The data of attachments for which the provider returns
+     * {@code null} is base64 encoded into the returned object.
+     * </P>
+     *
+     * @param <T>       object type
+     * @param classType the class of type T
+     * @param id        the document id
+     * @param params    extra parameters to append
+     * @param sinks     provides the sink for each attachment's data
+     * @return An object of type T
+     * @throws NoDocumentException if the document is not found in the database.
+     * @see AttachmentSink
+     * @see Database#saveMultipart(Object)
+     * @since 2.21.0
+     */
+    public <T> T findMultipart(Class<T> classType, String id, Params params, AttachmentSink
+            .Provider sinks) {
+        assertNotEmpty(params, "params");
+        assertNotNull(sinks, "sinks");
+        return db.findMultipart(classType, id, params.getInternalParams(), sinks);
+    }
+
     /**
      * Retrieve the document with the specified ID at the specified revision from the database
      * and deserialize to an instance of the POJO of type T.
@@ -956,7 +1172,43 @@ public class Database {
      * target="_blank">Documents - quorum</a>
      */
     public com.cloudant.client.api.model.Response save(Object object, int writeQuorum) {
-        Response couchDbResponse = client.couchDbClient.put(getDBUri(), object, true, writeQuorum);
+        Response couchDbResponse = db.save(object, writeQuorum);
+        com.cloudant.client.api.model.Response response = new com.cloudant.client.api.model
+                .Response(couchDbResponse);
+        return response;
+    }
+
+    /**
+     * Saves a document in the database similarly to {@link Database#save(Object)} but sending
+     * the data of its attachments in a single {@code multipart/related} request.
+     * <P>
+     * Each attachment created from an {@link AttachmentSource} is sent as a binary part that is
+     * read from the source as the request is sent, so there is no base64 encoding and the
+     * document and all its attachments are written in one request and one revision. Every source
+     * must have a known length because CouchDB does not accept chunked multipart requests.
+     * Attachments without a source are sent in the document as usual.
+     * </P>
+     * <P>Example usage:</P>
+     * <pre>
+     * {@code
+     * Document doc = new Document();
+     * doc.setId("exampleId");
+     * doc.addAttachment("photo.jpg", new Attachment(AttachmentSource.from(photoFile),
+     *         "image/jpeg"));
+     * Response response = db.saveMultipart(doc);
+     * }
+     * </pre>
+     *
+     * @param object the object to save
+     * @return {@link com.cloudant.client.api.model.Response}
+     * @throws DocumentConflictException If a conflict is detected during the save.
+     * @throws IllegalArgumentException  If the length of an attachment source is not known.
+     * @see Database#save(Object)
+     * @see Database#findMultipart(Class, String, Params, AttachmentSink.Provider)
+     * @since 2.21.0
+     */
+    public com.cloudant.client.api.model.Response saveMultipart(Object object) {
+        Response couchDbResponse = db.saveMultipart(object);
         com.cloudant.client.api.model.Response response = new com.cloudant.client.api.model
                 .Response(couchDbResponse);
         return response;
@@ -1085,7 +1337,27 @@ public class Database {
      * target="_blank">Documents - quorum</a>
      */
     public com.cloudant.client.api.model.Response update(Object object, int writeQuorum) {
-        Response couchDbResponse = client.couchDbClient.put(getDBUri(), object, false, writeQuorum);
+        Response couchDbResponse = db.update(object, writeQuorum);
+        com.cloudant.client.api.model.Response response = new com.cloudant.client.api.model
+                .Response(couchDbResponse);
+        return response;
+    }
+
+    /**
+     * Updates an object in the database similarly to {@link #update(Object)}, but sending the
+     * data of its attachments in a single {@code multipart/related} request as described in
+     * {@link #saveMultipart(Object)}.
+     *
+     * @param object the object to update
+     * @return {@link com.cloudant.client.api.model.Response}
+     * @throws DocumentConflictException if a conflict is detected during the update.
+     * @throws IllegalArgumentException  If the length of an attachment source is not known.
+     * @see Database#update(Object)
+     * @see Database#saveMultipart(Object)
+     * @since 2.21.0
+     */
+    public com.cloudant.client.api.model.Response updateMultipart(Object object) {
+        Response couchDbResponse = db.updateMultipart(object);
         com.cloudant.client.api.model.Response response = new com.cloudant.client.api.model
                 .Response(couchDbResponse);
         return response;
@@ -1220,6 +1492,46 @@ public class Database {
         return db.getAttachment(docId, attachmentName, revId);
     }
 
+    /**
+     * Downloads an attachment from the database into a file.
+     * <P>
+     * Unlike {@link #getAttachment(String, String, String)} the download survives dropped
+     * connections: if the server accepts range requests for the attachment, a failed request is
+     * resumed from the last byte received rather than starting again. A large attachment can be
+     * downloaded as several ranges in parallel, each written into the file at its offset, and an
+     * earlier partial download can be resumed with {@link AttachmentDownloadOptions#offset(long)}.
+     * When the download is complete the MD5 digest of the file is verified.
+     * </P>
+     * <P>Example usage:</P>
+     * <pre>
+     * {@code
+     * FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+     * try {
+     *     db.downloadAttachment("exampleId", "video.mp4", null, channel,
+     *             new AttachmentDownloadOptions().ranges(4));
+     * } finally {
+     *     channel.close();
+     * }
+     * }
+     * </pre>
+     *
+     * @param docId          the document id
+     * @param attachmentName the attachment name
+     * @param revId          the document revision id or {@code null}
+     * @param channel        the file to write the attachment to, it is not closed
+     * @param options        the download options
+     * @return the length of the attachment in bytes
+     * @throws NoDocumentException if the attachment is not found
+     * @throws CouchDbException    if the download fails or the digest of the downloaded
+     *                             attachment does not match
+     * @see AttachmentDownloadOptions
+     * @since 2.21.0
+     */
+    public long downloadAttachment(String docId, String attachmentName, String revId,
+                                   FileChannel channel, AttachmentDownloadOptions options) {
+        return db.downloadAttachment(docId, attachmentName, revId, channel, options);
+    }
+
     /**
      * Creates an attachment from the specified InputStream and a new document with a generated
      * document ID.
@@ -1290,6 +1602,114 @@ public class Database {
         return response;
     }
 
+    /**
+     * Creates or updates an attachment from a file on the given document ID and revision.
+     * <P>
+     * If {@code docId} and {@code docRev} are {@code null} a new document will be created.
+     * </P>
+     * <P>
+     * Unlike {@link #saveAttachment(InputStream, String, String, String, String)} the request is
+     * sent with a fixed {@code Content-Length} of the file size and the file is streamed through
+     * a pooled buffer as the request is sent. If the request is retried the file is read again,
+     * so it is never held in memory.
+     * </P>
+     * <P>
+     * Example usage:
+     * </P>
+     * <pre>
+     * {@code
+     * Response response = db.saveAttachment(new File("photo.jpg"), "photo.jpg", "image/jpeg",
+     *         "exampleId", "3-rev");
+     * }
+     * </pre>
+     *
+     * @param file        The file providing the binary data.
+     * @param name        The attachment name.
+     * @param contentType The attachment "Content-Type".
+     * @param docId       The document ID to save the attachment under, or {@code null} to save
+     *                    under a new document with a generated ID.
+     * @param docRev      The document revision to save the attachment under, or {@code null}
+     *                    when saving to a new document.
+     * @return {@link Response}
+     * @throws DocumentConflictException if the attachment cannot be saved because of a conflict
+     * @since 2.21.0
+     */
+    public com.cloudant.client.api.model.Response saveAttachment(File file, String name,
+                                                                 String contentType, String
+                                                                         docId, String docRev) {
+        Response couchDbResponse = db.saveAttachment(file, name, contentType, docId, docRev);
+        com.cloudant.client.api.model.Response response = new com.cloudant.client.api.model
+                .Response(couchDbResponse);
+        return response;
+    }
+
+    /**
+     * Saves an attachment from a file to an existing document unless the current revision of
+     * the document already has an identical attachment of the same name.
+     * <P>Example usage:</P>
+     * <pre>
+     * {@code
+     * Response response = db.saveAttachmentIfChanged(new File("photo.jpg"), "photo.jpg",
+     *         "image/jpeg", "exampleId", "3-rev");
+     * boolean skipped = response.getStatusCode() == 304;
+     * }
+     * </pre>
+     *
+     * @param file        The file providing the binary data.
+     * @param name        The attachment name.
+     * @param contentType The attachment "Content-Type".
+     * @param docId       The document ID to save the attachment under.
+     * @param docRev      The document revision to save the attachment under.
+     * @return {@link Response}, with status code 304 and the current revision of the document if
+     * the attachment was unchanged
+     * @throws DocumentConflictException if the attachment cannot be saved because of a conflict
+     * @see #saveAttachmentsIfChanged(List)
+     * @since 2.21.0
+     */
+    public com.cloudant.client.api.model.Response saveAttachmentIfChanged(File file, String name,
+                                                                          String contentType,
+                                                                          String docId, String
+                                                                                  docRev) {
+        List<AttachmentUpload> uploads = new ArrayList<AttachmentUpload>(1);
+        uploads.add(new AttachmentUpload(file, name, contentType, docId, docRev));
+        return saveAttachmentsIfChanged(uploads).get(0);
+    }
+
+    /**
+     * Saves attachments to existing documents, skipping each attachment that is identical to
+     * the attachment of the same name on the current revision of its document.
+     * <p>
+     * The attachment stubs of the documents are read in batches with a single
+     * {@code _all_docs} request for up to 200 documents. Each attachment is compared with its
+     * stub by Content-Type, length and MD5 digest, and only the attachments that differ are
+     * saved. The server may store compressible attachments compressed, and the digest of such
+     * an attachment is of the compressed data, so it is always saved.
+     * </p>
+     * <p>
+     * Several attachments can be saved to the same document. The first attachment saved to a
+     * document is saved under the revision read with the stubs, and each later one under the
+     * revision of the save before it. The revision of an upload is only used if its document was
+     * not found.
+     * </p>
+     *
+     * @param uploads the attachments to save
+     * @return {@code List<Response>} one per upload, a skipped upload has status code 304 and
+     * the latest revision of its document
+     * @throws DocumentConflictException if a changed attachment cannot be saved because of a
+     *                                   conflict
+     * @since 2.21.0
+     */
+    public List<com.cloudant.client.api.model.Response> saveAttachmentsIfChanged
+            (List<AttachmentUpload> uploads) {
+        List<Response> couchDbResponseList = db.saveAttachmentsIfChanged(uploads);
+        List<com.cloudant.client.api.model.Response> cloudantResponseList = new ArrayList<com
+                .cloudant.client.api.model.Response>(couchDbResponseList.size());
+        for (Response couchDbResponse : couchDbResponseList) {
+            cloudantResponseList.add(new com.cloudant.client.api.model.Response(couchDbResponse));
+        }
+        return cloudantResponseList;
+    }
+
     /**
      * Removes an attachment from the specified document.
      * <p>The object must have the correct {@code _id} and {@code _rev} values.</p>
@@ -1389,6 +1809,21 @@ public class Database {
         return db.getDBUri();
     }
 
+    /**
+     * Sets a deadline for the requests this client makes to this database, in place of any
+     * deadline set with {@link ClientBuilder#requestDeadline(long, TimeUnit)}. The deadline
+     * applies to every {@code Database} instance for this database from the same client.
+     *
+     * @param deadline     the time from the start of each request by which it must complete,
+     *                     or 0 to use the client's deadline
+     * @param deadlineUnit unit of measurement of the deadline parameter
+     * @see ClientBuilder#requestDeadline(long, TimeUnit)
+     * @since 2.21.0
+     */
+    public void setRequestDeadline(long deadline, TimeUnit deadlineUnit) {
+        client.couchDbClient.setDatabaseDeadline(getDBUri(), deadlineUnit.toNanos(deadline));
+    }
+
     /**
      * Get information about this database.
      *
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2015, 2019 IBM Corp. All rights reserved.
+ * Copyright © 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -21,7 +21,9 @@ import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.getAsLong;
 import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.getAsString;
 
 import com.cloudant.client.api.model.SearchResult;
+import com.cloudant.client.api.query.QueryIterator;
 import com.cloudant.client.internal.DatabaseURIHelper;
+import com.cloudant.client.internal.query.PagedSearchIterator;
 import com.cloudant.http.Http;
 import com.cloudant.http.HttpConnection;
 import com.google.gson.JsonArray;
@@ -92,6 +94,7 @@ public class Search {
     // search fields
     private Integer limit;
     private boolean includeDocs = false;
+    private boolean grouped = false;
     private String bookmark;
     private CloudantClient client;
     private DatabaseURIHelper databaseHelper;
@@ -250,6 +253,62 @@ public class Search {
         }
     }
 
+    /**
+     * Performs a Cloudant Search and iterates over the ungrouped rows of every page of results,
+     * requesting each page with the bookmark of the page before. The {@link #limit(Integer)} is
+     * the number of rows in each page.
+     * <p>
+     * The rows are decoded from the response one at a time as they are iterated, so only a single
+     * row is held in memory. The facet {@code counts} and {@code ranges} are not requested, use
+     * {@link #querySearchResult(String, Class)} to get them. Grouped results cannot be iterated,
+     * use {@link #queryGroups(String, Class)} instead.
+     * </p>
+     * <p>
+     * The iterator is closed when it reaches the last row. An iterator that is not consumed to
+     * the end must be closed, otherwise the connection of the current page is not released.
+     * </p>
+     * <p>Example usage:</p>
+     * <pre>
+     * {@code
+     * QueryIterator<SearchResult<Bird>.SearchResultRow> birds = db.search("views101/animals")
+     *     .limit(200)
+     *     .includeDocs(true)
+     *     .queryIterator("class:bird", Bird.class, 1000);
+     * try {
+     *     while (birds.hasNext()) {
+     *         Bird bird = birds.next().getDoc();
+     *     }
+     * } finally {
+     *     birds.close();
+     * }
+     * }
+     * </pre>
+     *
+     * @param <T>      Object type T, an instance into which the rows[].doc and rows[].fields
+     *                 attributes of the Search result response should be deserialized into
+     * @param query    the Lucene query to be passed to the Search index
+     * @param classOfT The class of type T
+     * @param maxRows  the maximum number of rows to read from all of the pages
+     * @return an iterator over the rows of the search
+     * @throws IllegalArgumentException if the maximum number of rows is not positive
+     * @throws IllegalStateException    if {@link #groupField(String, boolean)} has been set
+     * @since 2.21.0
+     */
+    public <T> QueryIterator<SearchResult<T>.SearchResultRow> queryIterator(String query,
+                                                                           Class<T> classOfT,
+                                                                           long maxRows) {
+        if (maxRows < 1) {
+            throw new IllegalArgumentException("The maximum number of rows must be positive.");
+        }
+        if (grouped) {
+            throw new IllegalStateException("Grouped search results cannot be iterated, use " +
+                    "queryGroups() instead.");
+        }
+        key(query);
+        return new PagedSearchIterator<T>(client.couchDbClient, databaseHelper.build(), bookmark,
+                classOfT, includeDocs, limit, maxRows);
+    }
+
     /**
      * @param limit limit the number of documents in the result
      * @return this for additional parameter setting or to query
@@ -300,6 +359,7 @@ public class Search {
      */
     public Search groupField(String fieldName, boolean isNumber) {
         assertNotEmpty(fieldName, "fieldName");
+        grouped = true;
         if (isNumber) {
             databaseHelper.query("group_field", fieldName + "<number>");
         } else {
@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.cache;
+
+/**
+ * A point in time snapshot of the counters of a {@link DatabaseCache}.
+ *
+ * @since 2.21.0
+ */
+public final class CacheStatistics {
+
+    private final long documentHits;
+    private final long documentMisses;
+    private final long viewHits;
+    private final long viewMisses;
+    private final long documentInvalidations;
+    private final long documentRefreshes;
+    private final long viewInvalidations;
+    private final long changesReceived;
+    private final long feedReconnects;
+    private final long sequenceLag;
+    private final long invalidationLagSamples;
+    private final long lastInvalidationLagMillis;
+    private final long maxInvalidationLagMillis;
+    private final long totalInvalidationLagMillis;
+    private final int documentEntries;
+    private final int viewEntries;
+
+    CacheStatistics(long documentHits, long documentMisses, long viewHits, long viewMisses,
+                    long documentInvalidations, long documentRefreshes, long viewInvalidations,
+                    long changesReceived, long feedReconnects, long sequenceLag,
+                    long invalidationLagSamples, long lastInvalidationLagMillis,
+                    long maxInvalidationLagMillis, long totalInvalidationLagMillis,
+                    int documentEntries, int viewEntries) {
+        this.documentHits = documentHits;
+        this.documentMisses = documentMisses;
+        this.viewHits = viewHits;
+        this.viewMisses = viewMisses;
+        this.documentInvalidations = documentInvalidations;
+        this.documentRefreshes = documentRefreshes;
+        this.viewInvalidations = viewInvalidations;
+        this.changesReceived = changesReceived;
+        this.feedReconnects = feedReconnects;
+        this.sequenceLag = sequenceLag;
+        this.invalidationLagSamples = invalidationLagSamples;
+        this.lastInvalidationLagMillis = lastInvalidationLagMillis;
+        this.maxInvalidationLagMillis = maxInvalidationLagMillis;
+        this.totalInvalidationLagMillis = totalInvalidationLagMillis;
+        this.documentEntries = documentEntries;
+        this.viewEntries = viewEntries;
+    }
+
+    /**
+     * @return number of document reads served from the cache
+     */
+    public long getDocumentHits() {
+        return documentHits;
+    }
+
+    /**
+     * @return number of document reads that went to the server
+     */
+    public long getDocumentMisses() {
+        return documentMisses;
+    }
+
+    /**
+     * @return number of view queries served from the cache
+     */
+    public long getViewHits() {
+        return viewHits;
+    }
+
+    /**
+     * @return number of view queries that went to the server
+     */
+    public long getViewMisses() {
+        return viewMisses;
+    }
+
+    /**
+     * @return number of cached documents removed because of a change
+     */
+    public long getDocumentInvalidations() {
+        return documentInvalidations;
+    }
+
+    /**
+     * @return number of cached documents replaced with the content from the changes feed
+     */
+    public long getDocumentRefreshes() {
+        return documentRefreshes;
+    }
+
+    /**
+     * @return number of cached view results removed because of a change
+     */
+    public long getViewInvalidations() {
+        return viewInvalidations;
+    }
+
+    /**
+     * @return number of rows read from the changes feed
+     */
+    public long getChangesReceived() {
+        return changesReceived;
+    }
+
+    /**
+     * @return number of times the changes feed had to be re-connected
+     */
+    public long getFeedReconnects() {
+        return feedReconnects;
+    }
+
+    /**
+     * @return number of updates to the database that the changes feed had not delivered when the
+     * update sequence was last read
+     */
+    public long getSequenceLag() {
+        return sequenceLag;
+    }
+
+    /**
+     * @return number of invalidation lag measurements
+     * @see #getLastInvalidationLagMillis()
+     */
+    public long getInvalidationLagSamples() {
+        return invalidationLagSamples;
+    }
+
+    /**
+     * The invalidation lag is measured from reading the update sequence of the database, when
+     * the feed has not yet delivered it, to receiving a change at or past that sequence from the
+     * feed and invalidating the cache entries it affects. It is the lag of a change written
+     * just before the update sequence was read, including the time the server takes to emit the
+     * change.
+     *
+     * @return invalidation lag of the most recent measurement in milliseconds
+     */
+    public long getLastInvalidationLagMillis() {
+        return lastInvalidationLagMillis;
+    }
+
+    /**
+     * @return the largest invalidation lag measured in milliseconds
+     * @see #getLastInvalidationLagMillis()
+     */
+    public long getMaxInvalidationLagMillis() {
+        return maxInvalidationLagMillis;
+    }
+
+    /**
+     * @return the mean invalidation lag in milliseconds
+     * @see #getLastInvalidationLagMillis()
+     */
+    public double getMeanInvalidationLagMillis() {
+        return (invalidationLagSamples == 0) ? 0d : (double) totalInvalidationLagMillis /
+                invalidationLagSamples;
+    }
+
+    /**
+     * @return number of documents currently cached
+     */
+    public int getDocumentEntries() {
+        return documentEntries;
+    }
+
+    /**
+     * @return number of view results currently cached
+     */
+    public int getViewEntries() {
+        return viewEntries;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStatistics{documentHits=%d, documentMisses=%d, viewHits=%d, " +
+                        "viewMisses=%d, documentInvalidations=%d, documentRefreshes=%d, " +
+                        "viewInvalidations=%d, changesReceived=%d, feedReconnects=%d, " +
+                        "sequenceLag=%d, maxInvalidationLagMillis=%d, documentEntries=%d, " +
+                        "viewEntries=%d}",
+                documentHits, documentMisses, viewHits, viewMisses, documentInvalidations,
+                documentRefreshes, viewInvalidations, changesReceived, feedReconnects,
+                sequenceLag, maxInvalidationLagMillis, documentEntries, viewEntries);
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.cache;
+
+import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.assertNotEmpty;
+
+import com.cloudant.client.api.Changes;
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.ChangesResult;
+import com.cloudant.client.api.views.AllDocsRequest;
+import com.cloudant.client.api.views.AllDocsResponse;
+import com.cloudant.client.api.views.ViewRequest;
+import com.cloudant.client.api.views.ViewResponse;
+import com.cloudant.client.internal.views.ViewResponseCacheSupport;
+import com.cloudant.client.org.lightcouch.internal.CouchDbUtil;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * A read cache for documents and view results of a {@link Database} that is kept coherent by
+ * following the database's continuous changes feed on a background thread.
+ * </p>
+ * <p>
+ * Whenever a change to a document is received the cached copy of that document is removed, or
+ * in refresh mode replaced with the new revision from the feed. Because any document change can
+ * alter the result of any view, a change to a regular document removes all the cached view
+ * results, and a change to a design document removes the cached results for the views of that
+ * design document and for {@code _all_docs}. Staleness is therefore bounded by the lag of the changes feed.
+ * </p>
+ * <p>
+ * Reads are only served from, and stored in, the cache while the feed is connected. If the
+ * feed disconnects the cache is emptied and reads go to the server until it reconnects.
+ * </p>
+ * <p>
+ * The lag of the feed is measured by periodically reading the update sequence of the database
+ * and timing how long the feed takes to deliver a change at or past that sequence, see
+ * {@link CacheStatistics#getLastInvalidationLagMillis()}.
+ * </p>
+ * <pre>
+ * {@code
+ * DatabaseCache cache = DatabaseCache.builder(client, "exampleDb")
+ *     .maxDocuments(1000)
+ *     .maxViewResults(100)
+ *     .build();
+ * cache.start();
+ *
+ * Foo foo = cache.find(Foo.class, "exampleId");
+ * ViewResponse<String, Integer> response = cache.getResponse(db.getViewRequestBuilder("ddoc",
+ *     "view").newRequest(Key.Type.STRING, Integer.class).build());
+ *
+ * CacheStatistics stats = cache.getStatistics();
+ *
+ * cache.stop();
+ * }
+ * </pre>
+ *
+ * @since 2.21.0
+ */
+public class DatabaseCache {
+
+    private static final Logger logger = Logger.getLogger(DatabaseCache.class.getName());
+
+    /**
+     * Default maximum of 1000 cached documents
+     */
+    public static final int DEFAULT_MAX_DOCUMENTS = 1000;
+    /**
+     * Default maximum of 100 cached view results
+     */
+    public static final int DEFAULT_MAX_VIEW_RESULTS = 100;
+    /**
+     * Default changes feed heartbeat of 30 seconds
+     */
+    public static final long DEFAULT_HEARTBEAT = TimeUnit.SECONDS.toMillis(30);
+    /**
+     * Default lag probe interval of 30 seconds
+     */
+    public static final long DEFAULT_LAG_PROBE_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    private static final long INITIAL_RECONNECT_BACKOFF = 250l;
+    private static final long MAX_RECONNECT_BACKOFF = TimeUnit.MINUTES.toMillis(1);
+
+    private final Database database;
+    private final String dbName;
+    private final Gson gson;
+    private final boolean refreshDocuments;
+    private final long heartbeat;
+    private final long lagProbeInterval;
+    private final InvalidatingLruMap<JsonObject> documents;
+    private final InvalidatingLruMap<JsonObject> views;
+
+    private volatile boolean running = false;
+    private volatile boolean following = false;
+    private volatile Changes changes = null;
+    private Thread follower = null;
+    private Thread lagProber = null;
+
+    private final AtomicLong documentHits = new AtomicLong();
+    private final AtomicLong documentMisses = new AtomicLong();
+    private final AtomicLong viewHits = new AtomicLong();
+    private final AtomicLong viewMisses = new AtomicLong();
+    private final AtomicLong documentInvalidations = new AtomicLong();
+    private final AtomicLong documentRefreshes = new AtomicLong();
+    private final AtomicLong viewInvalidations = new AtomicLong();
+    private final AtomicLong changesReceived = new AtomicLong();
+    private final AtomicLong feedReconnects = new AtomicLong();
+    // The sequence number of the last change received, -1 until a change is received
+    private final AtomicLong receivedSeq = new AtomicLong(-1);
+    // The update sequence read by the lag probe that the feed has not yet reached
+    private final AtomicReference<SeqReading> pendingSeq = new AtomicReference<SeqReading>();
+    private final AtomicLong sequenceLag = new AtomicLong();
+    private final AtomicLong invalidationLagSamples = new AtomicLong();
+    private final AtomicLong lastInvalidationLag = new AtomicLong();
+    private final AtomicLong maxInvalidationLag = new AtomicLong();
+    private final AtomicLong totalInvalidationLag = new AtomicLong();
+
+    private DatabaseCache(Builder builder) {
+        this.database = builder.client.database(builder.dbName, false);
+        this.dbName = builder.dbName;
+        this.gson = builder.client.getGson();
+        this.refreshDocuments = builder.refreshDocuments;
+        this.heartbeat = builder.heartbeat;
+        this.lagProbeInterval = builder.lagProbeInterval;
+        this.documents = new InvalidatingLruMap<JsonObject>(builder.maxDocuments);
+        this.views = new InvalidatingLruMap<JsonObject>(builder.maxViewResults);
+    }
+
+    /**
+     * @param client the client to use for requests to the database
+     * @param dbName the name of the database to cache
+     * @return a new builder for a cache of the database
+     */
+    public static Builder builder(CloudantClient client, String dbName) {
+        return new Builder(client, dbName);
+    }
+
+    /**
+     * @return the cached database
+     */
+    public Database getDatabase() {
+        return database;
+    }
+
+    /**
+     * Start following the changes feed on a background thread. Calling this method on a cache
+     * that is already started has no effect.
+     *
+     * @return this cache
+     */
+    public synchronized DatabaseCache start() {
+        if (!running) {
+            running = true;
+            follower = new Thread(new Follower(), "cloudant-cache-" + dbName);
+            follower.setDaemon(true);
+            follower.start();
+            if (lagProbeInterval > 0) {
+                lagProber = new Thread(new LagProber(), "cloudant-cache-lag-" + dbName);
+                lagProber.setDaemon(true);
+                lagProber.start();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Stop following the changes feed and empty the cache. The background threads finish when
+     * the next change or heartbeat is received from the server.
+     */
+    public synchronized void stop() {
+        running = false;
+        Changes current = changes;
+        if (current != null) {
+            current.stop();
+        }
+        if (follower != null) {
+            follower.interrupt();
+            follower = null;
+        }
+        if (lagProber != null) {
+            lagProber.interrupt();
+            lagProber = null;
+        }
+        following = false;
+        invalidateAll();
+    }
+
+    /**
+     * @return {@code true} if the changes feed is connected and reads can be served from the cache
+     */
+    public boolean isFollowing() {
+        return following;
+    }
+
+    /**
+     * Retrieve the latest revision of a document, from the cache if possible.
+     *
+     * @param classType the class of type T
+     * @param id        the document id
+     * @param <T>       the type of the object to return
+     * @return an object of type T
+     * @throws com.cloudant.client.org.lightcouch.NoDocumentException if the document is not found
+     * @see Database#find(Class, String)
+     */
+    public <T> T find(Class<T> classType, String id) {
+        assertNotEmpty(classType, "Class");
+        assertNotEmpty(id, "id");
+        JsonObject json = following ? documents.get(id) : null;
+        if (json != null) {
+            documentHits.incrementAndGet();
+        } else {
+            documentMisses.incrementAndGet();
+            if (following) {
+                InvalidatingLruMap.PendingLoad load = documents.beginLoad(id);
+                try {
+                    json = database.find(JsonObject.class, id);
+                } finally {
+                    documents.completeLoad(id, load, json);
+                }
+            } else {
+                json = database.find(JsonObject.class, id);
+            }
+        }
+        // Convert a copy so that callers never share a mutable object with the cache
+        return gson.fromJson(json, classType);
+    }
+
+    /**
+     * Get the first page of the response to a view request, from the cache if possible.
+     *
+     * @param request a request built by a {@link com.cloudant.client.api.views.ViewRequestBuilder}
+     * @param <K>     the type of the view key
+     * @param <V>     the type of the view value
+     * @return the view response
+     * @throws IOException if there is an error communicating with the server
+     * @see ViewRequest#getResponse()
+     */
+    public <K, V> ViewResponse<K, V> getResponse(ViewRequest<K, V> request) throws IOException {
+        if (!ViewResponseCacheSupport.isCacheable(request)) {
+            return request.getResponse();
+        }
+        return ViewResponseCacheSupport.toResponse(request, viewJson(request));
+    }
+
+    /**
+     * Get the response to an {@code _all_docs} request, from the cache if possible.
+     *
+     * @param request a request built by a
+     *                {@link com.cloudant.client.api.views.AllDocsRequestBuilder}
+     * @return the {@code _all_docs} response
+     * @throws IOException if there is an error communicating with the server
+     * @see AllDocsRequest#getResponse()
+     */
+    public AllDocsResponse getResponse(AllDocsRequest request) throws IOException {
+        if (!ViewResponseCacheSupport.isCacheable(request)) {
+            return request.getResponse();
+        }
+        return ViewResponseCacheSupport.toResponse(request, viewJson(ViewResponseCacheSupport
+                .viewRequest(request)));
+    }
+
+    /**
+     * @return a copy of the cached JSON response to the request, loaded if it is not cached
+     */
+    private JsonObject viewJson(ViewRequest<?, ?> request) throws IOException {
+        String key = ViewResponseCacheSupport.cacheKey(request);
+        JsonObject json = following ? views.get(key) : null;
+        if (json != null) {
+            viewHits.incrementAndGet();
+        } else {
+            viewMisses.incrementAndGet();
+            if (following) {
+                InvalidatingLruMap.PendingLoad load = views.beginLoad(key);
+                try {
+                    json = ViewResponseCacheSupport.fetch(request);
+                } finally {
+                    views.completeLoad(key, load, json);
+                }
+            } else {
+                json = ViewResponseCacheSupport.fetch(request);
+            }
+        }
+        return json.deepCopy();
+    }
+
+    /**
+     * Remove a document from the cache.
+     *
+     * @param id the document id
+     */
+    public void invalidate(String id) {
+        if (documents.invalidate(id)) {
+            documentInvalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Remove all documents and view results from the cache.
+     */
+    public void invalidateAll() {
+        documentInvalidations.addAndGet(documents.invalidateAll());
+        viewInvalidations.addAndGet(views.invalidateAll());
+    }
+
+    /**
+     * @return a snapshot of the cache counters
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(documentHits.get(), documentMisses.get(), viewHits.get(),
+                viewMisses.get(), documentInvalidations.get(), documentRefreshes.get(),
+                viewInvalidations.get(), changesReceived.get(), feedReconnects.get(),
+                sequenceLag.get(), invalidationLagSamples.get(), lastInvalidationLag.get(),
+                maxInvalidationLag.get(), totalInvalidationLag.get(), documents.size(),
+                views.size());
+    }
+
+    void processChange(ChangesResult.Row row) {
+        String id = row.getId();
+        if (id != null) {
+            if (refreshDocuments && !row.isDeleted() && row.getDoc() != null) {
+                if (documents.replace(id, row.getDoc())) {
+                    documentRefreshes.incrementAndGet();
+                }
+            } else {
+                invalidate(id);
+            }
+            if (id.startsWith(CouchDbUtil.DESIGN_PREFIX)) {
+                // Design documents are also rows of _all_docs
+                viewInvalidations.addAndGet(views.invalidatePrefix(ViewResponseCacheSupport
+                        .designDocName(id) + "/") + views.invalidatePrefix(ViewResponseCacheSupport
+                        .ALL_DOCS_PREFIX));
+            } else {
+                viewInvalidations.addAndGet(views.invalidateAll());
+            }
+        }
+        changesReceived.incrementAndGet();
+        long seq = seqNumber(row.getSeq());
+        if (seq >= 0) {
+            receivedSeq.set(seq);
+            SeqReading reading = pendingSeq.get();
+            if (reading != null && seq >= reading.seq && pendingSeq.compareAndSet(reading, null)) {
+                recordLag(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - reading.nanos));
+            }
+        }
+    }
+
+    /**
+     * Read the update sequence of the database. If the feed has not yet delivered it, remember
+     * when it was read so the lag can be recorded when the feed reaches it.
+     */
+    void probeLag() {
+        long received = receivedSeq.get();
+        long updateSeq = seqNumber(database.info().getUpdateSeq());
+        // Until a change is received the feed's position is unknown
+        if (updateSeq < 0 || received < 0 || !following) {
+            return;
+        }
+        sequenceLag.set(Math.max(0, updateSeq - received));
+        if (updateSeq > received) {
+            pendingSeq.compareAndSet(null, new SeqReading(updateSeq, System.nanoTime()));
+        }
+    }
+
+    private void recordLag(long lag) {
+        invalidationLagSamples.incrementAndGet();
+        lastInvalidationLag.set(lag);
+        totalInvalidationLag.addAndGet(lag);
+        long max;
+        while (lag > (max = maxInvalidationLag.get())) {
+            if (maxInvalidationLag.compareAndSet(max, lag)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param seq a sequence as JSON, a number or a string
+     * @return the number at the start of the sequence, which increases with each update to the
+     * database, or -1 if the sequence does not start with a number
+     */
+    private static long seqNumber(String seq) {
+        if (seq == null) {
+            return -1;
+        }
+        int start = seq.startsWith("\"") ? 1 : 0;
+        int end = start;
+        while (end < seq.length() && Character.isDigit(seq.charAt(end))) {
+            end++;
+        }
+        try {
+            return (end == start) ? -1 : Long.parseLong(seq.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class SeqReading {
+
+        private final long seq;
+        private final long nanos;
+
+        private SeqReading(long seq, long nanos) {
+            this.seq = seq;
+            this.nanos = nanos;
+        }
+    }
+
+    private final class LagProber implements Runnable {
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(lagProbeInterval);
+                } catch (InterruptedException e) {
+                    logger.fine("Interrupted during lag probe wait.");
+                    continue;
+                }
+                try {
+                    probeLag();
+                } catch (RuntimeException e) {
+                    logger.log(Level.FINE, "Error reading the update sequence for cache lag.", e);
+                }
+            }
+        }
+    }
+
+    private final class Follower implements Runnable {
+
+        @Override
+        public void run() {
+            // Start from "now", entries are only cached once the feed is connected so there is
+            // nothing earlier that could be stale.
+            String since = "now";
+            long backoff = INITIAL_RECONNECT_BACKOFF;
+            while (running) {
+                try {
+                    Changes feed = database.changes().since(since).heartBeat(heartbeat)
+                            .includeDocs(refreshDocuments);
+                    changes = feed;
+                    feed.continuousChanges();
+                    following = running;
+                    backoff = INITIAL_RECONNECT_BACKOFF;
+                    while (feed.hasNext()) {
+                        ChangesResult.Row row = feed.next();
+                        since = row.getSeq();
+                        processChange(row);
+                    }
+                } catch (RuntimeException e) {
+                    // Any failure, including a row that cannot be parsed, must not end the
+                    // thread or the cache would stay disabled until it is restarted.
+                    logger.log(Level.WARNING, "Error following changes feed for cache " +
+                            "coherence.", e);
+                } finally {
+                    // Without the feed the cache may become stale, so stop using it until the
+                    // feed is reconnected.
+                    following = false;
+                    invalidateAll();
+                }
+                if (running) {
+                    feedReconnects.incrementAndGet();
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(backoff);
+                    } catch (InterruptedException e) {
+                        logger.fine("Interrupted during changes feed reconnect wait.");
+                    }
+                    backoff = Math.min(backoff * 2, MAX_RECONNECT_BACKOFF);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds {@link DatabaseCache} instances.
+     */
+    public static final class Builder {
+
+        private final CloudantClient client;
+        private final String dbName;
+        private int maxDocuments = DEFAULT_MAX_DOCUMENTS;
+        private int maxViewResults = DEFAULT_MAX_VIEW_RESULTS;
+        private boolean refreshDocuments = false;
+        private long heartbeat = DEFAULT_HEARTBEAT;
+        private long lagProbeInterval = DEFAULT_LAG_PROBE_INTERVAL;
+
+        private Builder(CloudantClient client, String dbName) {
+            CouchDbUtil.assertNotNull(client, "client");
+            CouchDbUtil.assertNotEmpty(dbName, "dbName");
+            this.client = client;
+            this.dbName = dbName;
+        }
+
+        /**
+         * Defaults to {@link #DEFAULT_MAX_DOCUMENTS}.
+         *
+         * @param maxDocuments the maximum number of documents to cache, 0 disables the
+         *                     document cache
+         * @return this builder
+         */
+        public Builder maxDocuments(int maxDocuments) {
+            this.maxDocuments = Math.max(0, maxDocuments);
+            return this;
+        }
+
+        /**
+         * Defaults to {@link #DEFAULT_MAX_VIEW_RESULTS}.
+         *
+         * @param maxViewResults the maximum number of view results to cache, 0 disables the view
+         *                       cache
+         * @return this builder
+         */
+        public Builder maxViewResults(int maxViewResults) {
+            this.maxViewResults = Math.max(0, maxViewResults);
+            return this;
+        }
+
+        /**
+         * When refresh is enabled the changes feed is requested with {@code include_docs=true}
+         * and cached documents are replaced by the new revision instead of being removed.
+         * Defaults to {@code false}.
+         *
+         * @param refreshDocuments {@code true} to refresh documents from the changes feed
+         * @return this builder
+         */
+        public Builder refreshDocuments(boolean refreshDocuments) {
+            this.refreshDocuments = refreshDocuments;
+            return this;
+        }
+
+        /**
+         * Defaults to {@link #DEFAULT_HEARTBEAT}. The heartbeat should be shorter than the read
+         * timeout of the client.
+         *
+         * @param heartbeat the changes feed heartbeat in milliseconds
+         * @return this builder
+         */
+        public Builder heartbeat(long heartbeat) {
+            this.heartbeat = heartbeat;
+            return this;
+        }
+
+        /**
+         * Defaults to {@link #DEFAULT_LAG_PROBE_INTERVAL}. Each probe reads the database
+         * information to measure the lag of the changes feed.
+         *
+         * @param lagProbeInterval the interval between lag probes in milliseconds, 0 disables
+         *                         the lag statistics
+         * @return this builder
+         */
+        public Builder lagProbeInterval(long lagProbeInterval) {
+            this.lagProbeInterval = Math.max(0, lagProbeInterval);
+            return this;
+        }
+
+        /**
+         * @return a new, not yet started, cache
+         */
+        public DatabaseCache build() {
+            return new DatabaseCache(this);
+        }
+    }
+}
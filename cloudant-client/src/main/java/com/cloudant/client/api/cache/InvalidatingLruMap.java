@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used map that tracks in-flight loads so that a value read from the
+ * server before an invalidation, but stored after it, is never cached.
+ *
+ * @param <V> the type of the cached values
+ */
+final class InvalidatingLruMap<V> {
+
+    private final Map<String, V> entries;
+    private final Map<String, PendingLoad> pending = new HashMap<String, PendingLoad>();
+
+    InvalidatingLruMap(final int capacity) {
+        this.entries = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized V get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Register a load of the key from the server. The returned token must be passed to
+     * {@link #completeLoad(String, PendingLoad, Object)} after the load, whether it succeeded or
+     * not.
+     */
+    synchronized PendingLoad beginLoad(String key) {
+        PendingLoad load = pending.get(key);
+        if (load == null) {
+            load = new PendingLoad();
+            pending.put(key, load);
+        }
+        load.count++;
+        return load;
+    }
+
+    /**
+     * @param value the loaded value or {@code null} if the load failed
+     * @return {@code true} if the value was stored
+     */
+    synchronized boolean completeLoad(String key, PendingLoad load, V value) {
+        boolean store = value != null && !load.stale;
+        if (store) {
+            entries.put(key, value);
+        }
+        if (--load.count == 0) {
+            pending.remove(key);
+        }
+        return store;
+    }
+
+    /**
+     * Replace the value of a key that is already cached.
+     *
+     * @return {@code true} if there was an entry to replace
+     */
+    synchronized boolean replace(String key, V value) {
+        markStale(key);
+        if (entries.containsKey(key)) {
+            entries.put(key, value);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if there was an entry to remove
+     */
+    synchronized boolean invalidate(String key) {
+        markStale(key);
+        return entries.remove(key) != null;
+    }
+
+    /**
+     * @return the number of entries removed
+     */
+    synchronized int invalidatePrefix(String prefix) {
+        for (Map.Entry<String, PendingLoad> load : pending.entrySet()) {
+            if (load.getKey().startsWith(prefix)) {
+                load.getValue().stale = true;
+            }
+        }
+        int removed = 0;
+        for (Iterator<String> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the number of entries removed
+     */
+    synchronized int invalidateAll() {
+        for (PendingLoad load : pending.values()) {
+            load.stale = true;
+        }
+        int removed = entries.size();
+        entries.clear();
+        return removed;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void markStale(String key) {
+        PendingLoad load = pending.get(key);
+        if (load != null) {
+            load.stale = true;
+        }
+    }
+
+    static final class PendingLoad {
+        private int count = 0;
+        private boolean stale = false;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+/**
+ * <p>
+ * This package provides a read cache for documents and view results that is kept coherent with
+ * the server by following the database
+ * <a
+ * href="https://console.bluemix.net/docs/services/Cloudant/api/database.html#get-changes"
+ * target="_blank">changes feed</a>.
+ * </p>
+ * <h1>Overview</h1>
+ * <p>
+ * A {@link com.cloudant.client.api.cache.DatabaseCache} is created for a database and started.
+ * Reads made through the cache are served from memory where possible and cached entries are
+ * invalidated, or optionally refreshed, as changes arrive on the feed. The effectiveness of the
+ * cache can be monitored using {@link com.cloudant.client.api.cache.CacheStatistics}.
+ * </p>
+ *
+ * @since 2.21.0
+ */
+package com.cloudant.client.api.cache;
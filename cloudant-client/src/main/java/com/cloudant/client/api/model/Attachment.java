@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015 IBM Corp. All rights reserved.
+ * Copyright (c) 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -35,6 +35,20 @@ public class Attachment {
         this.attachement = new com.cloudant.client.org.lightcouch.Attachment(data, contentType);
     }
 
+    /**
+     * An attachment with data that is read from the source and base64 encoded as the document is
+     * sent, instead of being held in memory.
+     *
+     * @param source      The source of the attachment data.
+     * @param contentType The Content-Type of the attachment.
+     * @since 2.21.0
+     */
+    public Attachment(AttachmentSource source, String contentType) {
+        this.attachement = new com.cloudant.client.org.lightcouch.Attachment();
+        attachement.setSource(source);
+        attachement.setContentType(contentType);
+    }
+
     Attachment(com.cloudant.client.org.lightcouch.Attachment attachement) {
         this.attachement = attachement;
     }
@@ -66,6 +80,23 @@ public class Attachment {
         return attachement.isStub();
     }
 
+    /**
+     * @return the encoding the server stored the attachment with, for example {@code gzip}, or
+     * {@code null} if it is stored as it was sent
+     * @since 2.21.0
+     */
+    public String getEncoding() {
+        return attachement.getEncoding();
+    }
+
+    /**
+     * @return The source of the attachment data, or {@code null} if the data is inline.
+     * @since 2.21.0
+     */
+    public AttachmentSource getSource() {
+        return attachement.getSource();
+    }
+
     /**
      * @param contentType the media type of the attachment
      */
@@ -80,6 +111,14 @@ public class Attachment {
         attachement.setData(data);
     }
 
+    /**
+     * @param source The source to read the attachment data from when the document is sent.
+     * @since 2.21.0
+     */
+    public void setSource(AttachmentSource source) {
+        attachement.setSource(source);
+    }
+
     com.cloudant.client.org.lightcouch.Attachment getAttachement() {
         return attachement;
     }
@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import com.cloudant.client.api.Database;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Options for downloading an attachment to a file.
+ * <p>Example:
+ * <pre>
+ * {@code
+ * FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+ * database.downloadAttachment("exampleId", "video.mp4", null, channel,
+ *         new AttachmentDownloadOptions()
+ *         .offset(channel.size())
+ *         .ranges(4)
+ *         .progressListener(listener));
+ * }
+ * </pre>
+ *
+ * @see Database#downloadAttachment(String, String, String, java.nio.channels.FileChannel,
+ * AttachmentDownloadOptions)
+ * @since 2.21.0
+ */
+public class AttachmentDownloadOptions {
+
+    /**
+     * The default minimum size of each range of a parallel download, 8 MiB.
+     */
+    public static final long DEFAULT_MINIMUM_RANGE_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Receives the progress of a download.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called periodically while an attachment is downloaded and once when it is complete.
+         * When an attachment is downloaded in parallel ranges this is called from the threads
+         * downloading the ranges, but never concurrently.
+         *
+         * @param transferred    the number of bytes of the attachment in the file, including any
+         *                       that were there before the download resumed
+         * @param length         the length of the attachment in bytes
+         * @param bytesPerSecond the throughput of this download so far
+         */
+        void progress(long transferred, long length, double bytesPerSecond);
+    }
+
+    private int ranges = 1;
+    private long minimumRangeSize = DEFAULT_MINIMUM_RANGE_SIZE;
+    private int retries = 3;
+    private long offset = 0;
+    private String digest = null;
+    private boolean verifyDigest = true;
+    private Executor executor = null;
+    private ProgressListener progressListener = null;
+
+    /**
+     * Download the attachment in up to this many ranges in parallel. Ranges are only used if the
+     * server accepts range requests for the attachment, and each range is at least the
+     * {@link #minimumRangeSize(long) minimum range size}. Defaults to 1.
+     *
+     * @param ranges the maximum number of ranges to download in parallel
+     * @return this to set additional options
+     */
+    public AttachmentDownloadOptions ranges(int ranges) {
+        if (ranges < 1) {
+            throw new IllegalArgumentException("ranges must be at least 1");
+        }
+        this.ranges = ranges;
+        return this;
+    }
+
+    /**
+     * @param minimumRangeSize the minimum size of each range of a parallel download in bytes
+     * @return this to set additional options
+     */
+    public AttachmentDownloadOptions minimumRangeSize(long minimumRangeSize) {
+        if (minimumRangeSize < 1) {
+            throw new IllegalArgumentException("minimumRangeSize must be at least 1");
+        }
+        this.minimumRangeSize = minimumRangeSize;
+        return this;
+    }
+
+    /**
+     * The number of times a range is requested again, from the last byte received, after a
+     * failure that received no data. A failure after receiving data always resumes. Defaults to
+     * 3.
+     *
+     * @param retries the number of retries
+     * @return this to set additional options
+     */
+    public AttachmentDownloadOptions retries(int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("retries must not be negative");
+        }
+        this.retries = retries;
+        return this;
+    }
+
+    /**
+     * Resume an earlier download that had written the attachment up to this offset, for example
+     * the size of a partially downloaded file. If the server does not accept range requests the
+     * whole attachment is downloaded again. Defaults to 0.
+     *
+     * @param offset the number of bytes already in the file
+     * @return this to set additional options
+     */
+    public AttachmentDownloadOptions offset(long offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * The expected digest of the attachment, as found in the attachment stub of the document,
+     * for example {@code md5-KWwSE7ZwaSLc5GDT8gBmrQ==}. If not set the {@code Content-MD5} of
+     * the attachment response is used.
+     *
+     * @param digest the attachment digest
+     * @return this to set additional options
+     */
+    public AttachmentDownloadOptions digest(String digest) {
+        this.digest = digest;
+        return this;
+    }
+
+    /**
+     * @param verifyDigest {@code false} to skip verifying the MD5 digest of the downloaded
+     *                     attachment, it is verified by default if a digest is available
+     * @return this to set additional options
+     */
+    public AttachmentDownloadOptions verifyDigest(boolean verifyDigest) {
+        this.verifyDigest = verifyDigest;
+        return this;
+    }
+
+    /**
+     * @param executor the executor to download parallel ranges with, by default threads are
+     *                 created for each download
+     * @return this to set additional options
+     */
+    public AttachmentDownloadOptions executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @param progressListener the listener to receive the progress of the download
+     * @return this to set additional options
+     */
+    public AttachmentDownloadOptions progressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    public int getRanges() {
+        return ranges;
+    }
+
+    public long getMinimumRangeSize() {
+        return minimumRangeSize;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public boolean isVerifyDigest() {
+        return verifyDigest;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+}
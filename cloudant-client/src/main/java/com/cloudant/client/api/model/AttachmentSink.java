@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * The destination of the data of an inline attachment received with a document, so that the
+ * data is decoded from the response as it is read rather than held in memory as a base64
+ * string.
+ *
+ * @see com.cloudant.client.api.Database#find(Class, String, com.cloudant.client.api.model.Params,
+ * AttachmentSink.Provider)
+ * @since 2.21.0
+ */
+public abstract class AttachmentSink {
+
+    /**
+     * Chooses where the data of each attachment of a document is written.
+     */
+    public interface Provider {
+
+        /**
+         * @param name the name of the attachment
+         * @return the sink for the attachment's data, or {@code null} to keep the data as a
+         * base64 string in the attachment
+         */
+        AttachmentSink get(String name);
+    }
+
+    /**
+     * Open a stream to write the attachment data to. The stream is closed when all the data has
+     * been written.
+     *
+     * @return a stream for the raw, decoded, attachment data
+     * @throws IOException if the stream cannot be opened
+     */
+    public abstract OutputStream openStream() throws IOException;
+
+    /**
+     * @param out the stream to write the attachment data to, it is flushed but not closed
+     * @return a sink backed by the stream
+     */
+    public static AttachmentSink to(final OutputStream out) {
+        return new AttachmentSink() {
+            @Override
+            public OutputStream openStream() {
+                return new FilterOutputStream(out) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @param file the file to write the attachment data to, it is replaced if it exists
+     * @return a sink backed by the file
+     */
+    public static AttachmentSink to(final File file) {
+        return new AttachmentSink() {
+            @Override
+            public OutputStream openStream() throws IOException {
+                return new FileOutputStream(file);
+            }
+        };
+    }
+
+    /**
+     * @param buffer the buffer to put the attachment data in, from its position; writing more
+     *               data than the buffer has remaining fails with an {@link IOException}
+     * @return a sink backed by the buffer
+     */
+    public static AttachmentSink to(final ByteBuffer buffer) {
+        return new AttachmentSink() {
+            @Override
+            public OutputStream openStream() {
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[]{(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        try {
+                            buffer.put(b, off, len);
+                        } catch (BufferOverflowException e) {
+                            throw new IOException("The attachment is larger than the buffer.", e);
+                        }
+                    }
+                };
+            }
+        };
+    }
+}
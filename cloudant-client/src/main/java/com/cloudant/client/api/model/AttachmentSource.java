@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The data of an inline attachment to be read when the document is sent, rather than held in
+ * memory as a base64 string.
+ * <P>
+ * When a document with an attachment from a source is saved or updated the attachment data is
+ * read from the source and base64 encoded straight into the request body. If the length of every
+ * source is known the request is sent with a fixed length, otherwise it is chunked.
+ * </P>
+ *
+ * @see Attachment#Attachment(AttachmentSource, String)
+ * @since 2.21.0
+ */
+public abstract class AttachmentSource {
+
+    /**
+     * Open a stream of the attachment data. A request that is retried opens the source again.
+     *
+     * @return a stream of the raw, not base64 encoded, attachment data
+     * @throws IOException if the data cannot be read
+     */
+    public abstract InputStream openStream() throws IOException;
+
+    /**
+     * @return the length of the raw attachment data in bytes, or -1 if it is not known
+     */
+    public long getLength() {
+        return -1;
+    }
+
+    /**
+     * A source that can only be read once, so a request that must be retried fails.
+     *
+     * @param in     the stream of the attachment data, it is closed when it has been sent
+     * @param length the length of the data in bytes, or -1 if it is not known
+     * @return a source backed by the stream
+     */
+    public static AttachmentSource from(final InputStream in, final long length) {
+        final AtomicBoolean opened = new AtomicBoolean();
+        return new AttachmentSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                if (!opened.compareAndSet(false, true)) {
+                    throw new IOException("The attachment stream has already been read.");
+                }
+                return in;
+            }
+
+            @Override
+            public long getLength() {
+                return length;
+            }
+        };
+    }
+
+    /**
+     * @param file the file of attachment data
+     * @return a source that reads the file each time it is sent
+     */
+    public static AttachmentSource from(final File file) {
+        return new AttachmentSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                return new FileInputStream(file);
+            }
+
+            @Override
+            public long getLength() {
+                return file.length();
+            }
+        };
+    }
+
+    /**
+     * @param buffer the buffer of attachment data, the bytes between its position and limit are
+     *               sent and its position is not changed
+     * @return a source backed by the buffer
+     */
+    public static AttachmentSource from(ByteBuffer buffer) {
+        final ByteBuffer data = buffer.duplicate();
+        return new AttachmentSource() {
+            @Override
+            public InputStream openStream() {
+                if (data.hasArray()) {
+                    return new ByteArrayInputStream(data.array(), data.arrayOffset() + data
+                            .position(), data.remaining());
+                }
+                return new ByteBufferInputStream(data.duplicate());
+            }
+
+            @Override
+            public long getLength() {
+                return data.remaining();
+            }
+        };
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
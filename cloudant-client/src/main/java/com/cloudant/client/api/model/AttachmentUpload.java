@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import com.cloudant.client.api.Database;
+
+import org.apache.commons.codec.binary.Base64;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An attachment to save to an existing document unless the document already has an identical
+ * attachment of the same name.
+ * <p>
+ * The attachment is compared with the stub of the current revision of the document using the
+ * MD5 digest of its data. The digest of a file is computed from the file when it is needed. The
+ * digest of a stream cannot be computed without consuming it, so it must be supplied, for
+ * example from {@link #md5Digest(InputStream)} or recorded by an earlier upload. A stream without
+ * a digest is always saved.
+ * </p>
+ * <p>Example:
+ * <pre>
+ * {@code
+ * List<AttachmentUpload> uploads = new ArrayList<AttachmentUpload>();
+ * uploads.add(new AttachmentUpload(file, "photo.jpg", "image/jpeg", "exampleId", "1-a"));
+ * List<Response> responses = database.saveAttachmentsIfChanged(uploads);
+ * }
+ * </pre>
+ *
+ * @see Database#saveAttachmentsIfChanged(java.util.List)
+ * @since 2.21.0
+ */
+public class AttachmentUpload {
+
+    private final File file;
+    private final InputStream in;
+    private final String digest;
+    private final String name;
+    private final String contentType;
+    private final String docId;
+    private final String docRev;
+
+    /**
+     * @param file        the file holding the attachment data
+     * @param name        the attachment name
+     * @param contentType the attachment Content-Type
+     * @param docId       the id of the document to save the attachment under
+     * @param docRev      the revision of the document to save the attachment under if its
+     *                    current revision is not found
+     */
+    public AttachmentUpload(File file, String name, String contentType, String docId, String
+            docRev) {
+        this(file, null, null, name, contentType, docId, docRev);
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null");
+        }
+    }
+
+    /**
+     * @param in          the stream of the attachment data
+     * @param digest      the digest of the attachment data, for example
+     *                    {@code md5-KWwSE7ZwaSLc5GDT8gBmrQ==}, or {@code null} to always save the
+     *                    attachment
+     * @param name        the attachment name
+     * @param contentType the attachment Content-Type
+     * @param docId       the id of the document to save the attachment under
+     * @param docRev      the revision of the document to save the attachment under if its
+     *                    current revision is not found
+     */
+    public AttachmentUpload(InputStream in, String digest, String name, String contentType,
+                            String docId, String docRev) {
+        this(null, in, digest, name, contentType, docId, docRev);
+        if (in == null) {
+            throw new IllegalArgumentException("in must not be null");
+        }
+    }
+
+    private AttachmentUpload(File file, InputStream in, String digest, String name, String
+            contentType, String docId, String docRev) {
+        if (name == null || contentType == null || docId == null) {
+            throw new IllegalArgumentException("name, contentType and docId must not be null");
+        }
+        this.file = file;
+        this.in = in;
+        this.digest = digest;
+        this.name = name;
+        this.contentType = contentType;
+        this.docId = docId;
+        this.docRev = docRev;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public InputStream getInputStream() {
+        return in;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getDocId() {
+        return docId;
+    }
+
+    public String getDocRev() {
+        return docRev;
+    }
+
+    /**
+     * Compute the digest of a file in the form used by attachment stubs, reading it in chunks
+     * rather than holding it in memory.
+     *
+     * @param file the file
+     * @return the digest, for example {@code md5-KWwSE7ZwaSLc5GDT8gBmrQ==}
+     * @throws IOException if the file cannot be read
+     */
+    public static String md5Digest(File file) throws IOException {
+        MessageDigest md5 = md5();
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                md5.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            in.close();
+        }
+        return "md5-" + Base64.encodeBase64String(md5.digest());
+    }
+
+    /**
+     * Compute the digest of a stream in the form used by attachment stubs. The stream is read to
+     * the end but not closed.
+     *
+     * @param in the stream
+     * @return the digest, for example {@code md5-KWwSE7ZwaSLc5GDT8gBmrQ==}
+     * @throws IOException if the stream cannot be read
+     */
+    public static String md5Digest(InputStream in) throws IOException {
+        MessageDigest md5 = md5();
+        byte[] buffer = new byte[64 * 1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            md5.update(buffer, 0, n);
+        }
+        return "md5-" + Base64.encodeBase64String(md5.digest());
+    }
+
+    private static MessageDigest md5() throws IOException {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // Every implementation of the Java platform is required to support MD5
+            throw new IOException("MD5 is not available", e);
+        }
+    }
+}
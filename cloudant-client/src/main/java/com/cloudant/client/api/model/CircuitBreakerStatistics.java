@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import java.util.Locale;
+
+/**
+ * A point in time snapshot of the state and counters of the circuit breaker for one endpoint and
+ * request class of a client built with
+ * {@link com.cloudant.client.api.ClientBuilder#circuitBreaker(double, long, long,
+ * java.util.concurrent.TimeUnit)}.
+ *
+ * @since 2.21.0
+ */
+public final class CircuitBreakerStatistics {
+
+    /**
+     * The state of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * Requests are sent and their outcomes recorded.
+         */
+        CLOSED,
+        /**
+         * Requests fail immediately without being sent.
+         */
+        OPEN,
+        /**
+         * A limited number of probe requests are sent to decide whether to close or re-open.
+         */
+        HALF_OPEN
+    }
+
+    private final String endpoint;
+    private final String requestClass;
+    private final State state;
+    private final int calls;
+    private final double failureRate;
+    private final double slowCallRate;
+    private final long opened;
+    private final long halfOpened;
+    private final long closed;
+    private final long rejected;
+
+    public CircuitBreakerStatistics(String endpoint, String requestClass, State state, int calls,
+                                    double failureRate, double slowCallRate, long opened,
+                                    long halfOpened, long closed, long rejected) {
+        this.endpoint = endpoint;
+        this.requestClass = requestClass;
+        this.state = state;
+        this.calls = calls;
+        this.failureRate = failureRate;
+        this.slowCallRate = slowCallRate;
+        this.opened = opened;
+        this.halfOpened = halfOpened;
+        this.closed = closed;
+        this.rejected = rejected;
+    }
+
+    /**
+     * @return the endpoint, as a protocol, host and port, for example
+     * {@code https://example.cloudant.com:443}
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the class of the requests, {@code read}, {@code query} or {@code write}
+     */
+    public String getRequestClass() {
+        return requestClass;
+    }
+
+    /**
+     * @return the current state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return number of requests in the sliding window
+     */
+    public int getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return the fraction of the requests in the sliding window that failed
+     */
+    public double getFailureRate() {
+        return failureRate;
+    }
+
+    /**
+     * @return the fraction of the requests in the sliding window that were slow
+     */
+    public double getSlowCallRate() {
+        return slowCallRate;
+    }
+
+    /**
+     * @return number of transitions to {@link State#OPEN}
+     */
+    public long getOpened() {
+        return opened;
+    }
+
+    /**
+     * @return number of transitions to {@link State#HALF_OPEN}
+     */
+    public long getHalfOpened() {
+        return halfOpened;
+    }
+
+    /**
+     * @return number of transitions from {@link State#HALF_OPEN} to {@link State#CLOSED}
+     */
+    public long getClosed() {
+        return closed;
+    }
+
+    /**
+     * @return number of requests that failed immediately because the breaker was open
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "CircuitBreakerStatistics{endpoint=%s, " +
+                        "requestClass=%s, state=%s, calls=%d, failureRate=%.3f, " +
+                        "slowCallRate=%.3f, opened=%d, halfOpened=%d, closed=%d, rejected=%d}",
+                endpoint, requestClass, state, calls, failureRate, slowCallRate, opened,
+                halfOpened, closed, rejected);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import java.net.URL;
+import java.util.Locale;
+
+/**
+ * A point in time snapshot of the connection pool of one of the endpoints of a client, with the
+ * number of idle and active connections and how long requests waited for a connection.
+ *
+ * @since 2.21.0
+ */
+public final class ConnectionPoolStatistics {
+
+    private final URL url;
+    private final int idleConnections;
+    private final int activeConnections;
+    private final long connectionsOpened;
+    private final long acquisitions;
+    private final double meanAcquireMillis;
+    private final double maxAcquireMillis;
+
+    public ConnectionPoolStatistics(URL url, int idleConnections, int activeConnections, long
+            connectionsOpened, long acquisitions, double meanAcquireMillis, double
+            maxAcquireMillis) {
+        this.url = url;
+        this.idleConnections = idleConnections;
+        this.activeConnections = activeConnections;
+        this.connectionsOpened = connectionsOpened;
+        this.acquisitions = acquisitions;
+        this.meanAcquireMillis = meanAcquireMillis;
+        this.maxAcquireMillis = maxAcquireMillis;
+    }
+
+    /**
+     * @return the URL of the endpoint the pool connects to
+     */
+    public URL getUrl() {
+        return url;
+    }
+
+    /**
+     * @return number of open connections waiting in the pool to be reused
+     */
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /**
+     * @return number of open connections currently carrying a request
+     */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    /**
+     * @return number of new connections opened, including those closed since
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened;
+    }
+
+    /**
+     * @return number of requests that acquired a connection, either from the pool or by opening
+     * a new one
+     */
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    /**
+     * @return the mean time requests waited to acquire a connection in milliseconds, or 0 if no
+     * connection has been acquired
+     */
+    public double getMeanAcquireMillis() {
+        return meanAcquireMillis;
+    }
+
+    /**
+     * @return the longest time a request waited to acquire a connection in milliseconds
+     */
+    public double getMaxAcquireMillis() {
+        return maxAcquireMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "ConnectionPoolStatistics{url=%s, " +
+                        "idleConnections=%d, activeConnections=%d, connectionsOpened=%d, " +
+                        "acquisitions=%d, meanAcquireMillis=%.1f, maxAcquireMillis=%.1f}", url,
+                idleConnections, activeConnections, connectionsOpened, acquisitions,
+                meanAcquireMillis, maxAcquireMillis);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import java.net.URL;
+import java.util.Locale;
+
+/**
+ * A point in time snapshot of the health, latency and routing counters of one of the endpoints
+ * of a client built with {@link com.cloudant.client.api.ClientBuilder#endpoints(URL...)}.
+ *
+ * @since 2.21.0
+ */
+public final class EndpointStatistics {
+
+    private final URL url;
+    private final boolean primary;
+    private final boolean healthy;
+    private final double latencyMillis;
+    private final long reads;
+    private final long writes;
+    private final long failures;
+    private final long failovers;
+
+    public EndpointStatistics(URL url, boolean primary, boolean healthy, double latencyMillis,
+                              long reads, long writes, long failures, long failovers) {
+        this.url = url;
+        this.primary = primary;
+        this.healthy = healthy;
+        this.latencyMillis = latencyMillis;
+        this.reads = reads;
+        this.writes = writes;
+        this.failures = failures;
+        this.failovers = failovers;
+    }
+
+    /**
+     * @return the URL of the endpoint
+     */
+    public URL getUrl() {
+        return url;
+    }
+
+    /**
+     * @return {@code true} if this is the primary endpoint that receives writes
+     */
+    public boolean isPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return {@code false} if the endpoint recently failed and is not currently being routed to
+     */
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * @return the exponentially weighted moving average of the response latency of the
+     * endpoint in milliseconds, or 0 if no response has been received
+     */
+    public double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    /**
+     * @return number of read requests routed to the endpoint
+     */
+    public long getReads() {
+        return reads;
+    }
+
+    /**
+     * @return number of write requests routed to the endpoint
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * @return number of requests to the endpoint that failed to connect or returned a gateway
+     * or unavailable error
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return number of requests that failed on the endpoint and were retried on another
+     */
+    public long getFailovers() {
+        return failovers;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "EndpointStatistics{url=%s, primary=%s, " +
+                        "healthy=%s, latencyMillis=%.1f, reads=%d, writes=%d, failures=%d, " +
+                        "failovers=%d}", url, primary, healthy, latencyMillis, reads, writes,
+                failures, failovers);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import java.util.Locale;
+
+/**
+ * A point in time snapshot of the counters of a client built with
+ * {@link com.cloudant.client.api.ClientBuilder#hedgeReads(double, double)}.
+ *
+ * @since 2.21.0
+ */
+public final class HedgeStatistics {
+
+    private final long requests;
+    private final long hedges;
+    private final long hedgesWon;
+    private final long hedgesThrottled;
+    private final double delayMillis;
+
+    public HedgeStatistics(long requests, long hedges, long hedgesWon, long hedgesThrottled,
+                           double delayMillis) {
+        this.requests = requests;
+        this.hedges = hedges;
+        this.hedgesWon = hedgesWon;
+        this.hedgesThrottled = hedgesThrottled;
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * @return number of requests that were eligible for hedging
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return number of hedge requests sent
+     */
+    public long getHedges() {
+        return hedges;
+    }
+
+    /**
+     * @return number of hedge requests that responded before the original request
+     */
+    public long getHedgesWon() {
+        return hedgesWon;
+    }
+
+    /**
+     * @return number of hedge requests that were not sent because the hedge budget was exhausted
+     */
+    public long getHedgesThrottled() {
+        return hedgesThrottled;
+    }
+
+    /**
+     * @return the current delay before a hedge request is sent in milliseconds, or -1 if too few
+     * responses have been received to calculate it
+     */
+    public double getDelayMillis() {
+        return delayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "HedgeStatistics{requests=%d, hedges=%d, " +
+                "hedgesWon=%d, hedgesThrottled=%d, delayMillis=%.1f}", requests, hedges,
+                hedgesWon, hedgesThrottled, delayMillis);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import java.util.Locale;
+
+/**
+ * A point in time snapshot of a histogram with a fixed number of buckets whose bounds are powers
+ * of two, so that it uses the same memory however many values are recorded. Percentiles are
+ * estimated as the upper bound of the bucket they fall in, so are within a factor of two of the
+ * recorded value.
+ *
+ * @since 2.21.0
+ */
+public final class Histogram {
+
+    private final long[] buckets;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    /**
+     * @param buckets the count of each bucket, bucket 0 holds values of 0 and bucket {@code i}
+     *                values from {@code 2^(i-1)} to {@code 2^i - 1}
+     * @param count   the number of values
+     * @param sum     the sum of the values
+     * @param min     the smallest value
+     * @param max     the largest value
+     */
+    public Histogram(long[] buckets, long count, long sum, long min, long max) {
+        this.buckets = buckets;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @return number of values recorded
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the smallest value recorded, or 0 if there are none
+     */
+    public long getMin() {
+        return (count == 0) ? 0 : min;
+    }
+
+    /**
+     * @return the largest value recorded, or 0 if there are none
+     */
+    public long getMax() {
+        return (count == 0) ? 0 : max;
+    }
+
+    /**
+     * @return the mean of the values recorded, or 0 if there are none
+     */
+    public double getMean() {
+        return (count == 0) ? 0 : sum / (double) count;
+    }
+
+    /**
+     * @param percentile the percentile, greater than 0 and at most 100, for example 99
+     * @return an estimate of the value at the percentile, or 0 if there are no values
+     */
+    public long getPercentile(double percentile) {
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("The percentile must be greater than 0 and at " +
+                    "most 100.");
+        }
+        long rank = (long) Math.ceil(percentile / 100d * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) {
+                long upperBound = (i == 0) ? 0 : (1L << i) - 1;
+                return Math.max(getMin(), Math.min(upperBound, getMax()));
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "Histogram{count=%d, min=%d, mean=%.1f, p50=%d, " +
+                "p99=%d, max=%d}", count, getMin(), getMean(), (count == 0) ? 0 : getPercentile
+                (50), (count == 0) ? 0 : getPercentile(99), getMax());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The index the server chose for a shape of query, as cached by a client built with
+ * {@link com.cloudant.client.api.ClientBuilder#queryPlanCache(int)}.
+ * <p>
+ * A query shape is its selector, with the values replaced by {@code null}, and its sort. A
+ * shape served by the special {@code _all_docs} index is a full scan of the database and needs
+ * an index on the selector's fields.
+ * </p>
+ *
+ * @since 2.21.0
+ */
+public final class QueryPlan {
+
+    private final String database;
+    private final String shape;
+    private final String designDocument;
+    private final String indexName;
+    private final String indexType;
+    private final List<String> fields;
+
+    public QueryPlan(String database, String shape, String designDocument, String indexName,
+                     String indexType, List<String> fields) {
+        this.database = database;
+        this.shape = shape;
+        this.designDocument = designDocument;
+        this.indexName = indexName;
+        this.indexType = indexType;
+        this.fields = fields;
+    }
+
+    /**
+     * @return the path of the database, ending {@code /_partition} for partitioned queries
+     */
+    public String getDatabase() {
+        return database;
+    }
+
+    /**
+     * @return the query shape as a JSON object with {@code selector} and {@code sort} fields
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * @return the design document of the index, or {@code null} for {@code _all_docs}
+     */
+    public String getDesignDocument() {
+        return designDocument;
+    }
+
+    /**
+     * @return the name of the index
+     */
+    public String getIndexName() {
+        return indexName;
+    }
+
+    /**
+     * @return the type of the index, {@code json}, {@code text} or {@code special}
+     */
+    public String getIndexType() {
+        return indexType;
+    }
+
+    /**
+     * @return the fields of the index
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return {@code true} if the shape is served by {@code _all_docs} and every query scans the
+     * whole database
+     */
+    public boolean isFullScan() {
+        return designDocument == null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "QueryPlan{database=%s, shape=%s, index=%s/%s, " +
+                "type=%s, fields=%s}", database, shape, designDocument, indexName, indexType,
+                fields);
+    }
+}
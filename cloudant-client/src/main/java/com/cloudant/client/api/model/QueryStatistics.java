@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import java.util.Locale;
+
+/**
+ * A point in time snapshot of the statistics of one shape of {@code _find} query, recorded by a
+ * client built with {@link com.cloudant.client.api.ClientBuilder#queryStatistics(double, int)}.
+ * <p>
+ * A query shape is its selector, with the values replaced by {@code null}, and its sort. The
+ * server's execution statistics are only recorded for queries that returned them.
+ * </p>
+ *
+ * @since 2.21.0
+ */
+public final class QueryStatistics {
+
+    private final String database;
+    private final String shape;
+    private final long slowQueries;
+    private final Histogram latencyMicros;
+    private final Histogram keysExamined;
+    private final Histogram docsExamined;
+    private final Histogram resultsReturned;
+    private final Histogram executionTimeMicros;
+
+    public QueryStatistics(String database, String shape, long slowQueries, Histogram
+            latencyMicros, Histogram keysExamined, Histogram docsExamined, Histogram
+            resultsReturned, Histogram executionTimeMicros) {
+        this.database = database;
+        this.shape = shape;
+        this.slowQueries = slowQueries;
+        this.latencyMicros = latencyMicros;
+        this.keysExamined = keysExamined;
+        this.docsExamined = docsExamined;
+        this.resultsReturned = resultsReturned;
+        this.executionTimeMicros = executionTimeMicros;
+    }
+
+    /**
+     * @return the path of the database, ending {@code /_partition} for partitioned queries
+     */
+    public String getDatabase() {
+        return database;
+    }
+
+    /**
+     * @return the query shape as a JSON object with {@code selector} and {@code sort} fields
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * @return number of queries of this shape
+     */
+    public long getQueries() {
+        return latencyMicros.getCount();
+    }
+
+    /**
+     * @return number of queries that examined too many keys or documents for each result
+     */
+    public long getSlowQueries() {
+        return slowQueries;
+    }
+
+    /**
+     * @return the time from sending each query to receiving its results, in microseconds
+     */
+    public Histogram getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    /**
+     * @return the number of index keys examined by each query
+     */
+    public Histogram getKeysExamined() {
+        return keysExamined;
+    }
+
+    /**
+     * @return the number of documents examined by each query
+     */
+    public Histogram getDocsExamined() {
+        return docsExamined;
+    }
+
+    /**
+     * @return the number of results returned by each query
+     */
+    public Histogram getResultsReturned() {
+        return resultsReturned;
+    }
+
+    /**
+     * @return the execution time on the server of each query, in microseconds
+     */
+    public Histogram getExecutionTimeMicros() {
+        return executionTimeMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "QueryStatistics{database=%s, shape=%s, " +
+                "queries=%d, slowQueries=%d, latencyMicros=%s, keysExamined=%s, docsExamined=%s, " +
+                "resultsReturned=%s, executionTimeMicros=%s}", database, shape, getQueries(),
+                slowQueries, latencyMicros, keysExamined, docsExamined, resultsReturned,
+                executionTimeMicros);
+    }
+}
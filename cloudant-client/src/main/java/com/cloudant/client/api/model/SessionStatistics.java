@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.model;
+
+import java.net.URL;
+import java.util.Locale;
+
+/**
+ * A point in time snapshot of the session renewal counters of an endpoint of a client built with
+ * a username and password or an IAM API key.
+ *
+ * @since 2.21.0
+ */
+public final class SessionStatistics {
+
+    private final URL url;
+    private final long renewals;
+    private final long proactiveRenewals;
+    private final long renewalFailures;
+    private final long lastRenewalLatencyMillis;
+    private final long maxRenewalLatencyMillis;
+    private final long totalRenewalLatencyMillis;
+
+    public SessionStatistics(URL url, long renewals, long proactiveRenewals, long
+            renewalFailures, long lastRenewalLatencyMillis, long maxRenewalLatencyMillis, long
+            totalRenewalLatencyMillis) {
+        this.url = url;
+        this.renewals = renewals;
+        this.proactiveRenewals = proactiveRenewals;
+        this.renewalFailures = renewalFailures;
+        this.lastRenewalLatencyMillis = lastRenewalLatencyMillis;
+        this.maxRenewalLatencyMillis = maxRenewalLatencyMillis;
+        this.totalRenewalLatencyMillis = totalRenewalLatencyMillis;
+    }
+
+    /**
+     * @return the URL of the endpoint
+     */
+    public URL getUrl() {
+        return url;
+    }
+
+    /**
+     * @return number of successful session renewals
+     */
+    public long getRenewals() {
+        return renewals;
+    }
+
+    /**
+     * @return number of successful session renewals made in the background before the session
+     * expired
+     */
+    public long getProactiveRenewals() {
+        return proactiveRenewals;
+    }
+
+    /**
+     * @return number of failed session renewals
+     */
+    public long getRenewalFailures() {
+        return renewalFailures;
+    }
+
+    /**
+     * @return the time taken by the most recent successful session renewal in milliseconds
+     */
+    public long getLastRenewalLatencyMillis() {
+        return lastRenewalLatencyMillis;
+    }
+
+    /**
+     * @return the longest time taken by a successful session renewal in milliseconds
+     */
+    public long getMaxRenewalLatencyMillis() {
+        return maxRenewalLatencyMillis;
+    }
+
+    /**
+     * @return the mean time taken by successful session renewals in milliseconds, or 0 if there
+     * have been no renewals
+     */
+    public double getMeanRenewalLatencyMillis() {
+        return (renewals == 0) ? 0d : totalRenewalLatencyMillis / (double) renewals;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "SessionStatistics{url=%s, renewals=%d, " +
+                "proactiveRenewals=%d, renewalFailures=%d, lastRenewalLatencyMillis=%d, " +
+                "maxRenewalLatencyMillis=%d, meanRenewalLatencyMillis=%.1f}", url, renewals,
+                proactiveRenewals, renewalFailures, lastRenewalLatencyMillis,
+                maxRenewalLatencyMillis, getMeanRenewalLatencyMillis());
+    }
+}
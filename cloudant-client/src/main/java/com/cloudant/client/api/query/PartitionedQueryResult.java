@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.query;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of a query run across several partitions of a partitioned database.
+ * <p>
+ * The query is run in each partition independently, so a failure in one partition does not
+ * prevent the results of the others being returned. Check {@link #getErrors()} for the
+ * partitions that failed.
+ * </p>
+ *
+ * @param <T> the type of the documents
+ * @see com.cloudant.client.api.Database#queryPartitions(java.util.Collection, String, Class,
+ * int, java.util.Comparator)
+ * @since 2.21.0
+ */
+public class PartitionedQueryResult<T> {
+
+    private final List<T> docs;
+    private final Map<String, QueryResult<T>> results;
+    private final Map<String, RuntimeException> errors;
+
+    public PartitionedQueryResult(List<T> docs, Map<String, QueryResult<T>> results,
+                                  Map<String, RuntimeException> errors) {
+        this.docs = docs;
+        this.results = results;
+        this.errors = errors;
+    }
+
+    /**
+     * @return the documents of every partition that succeeded, merged in order if a merge order
+     * was given, otherwise in the order of the partition keys
+     */
+    public List<T> getDocs() {
+        return docs;
+    }
+
+    /**
+     * @return the result of each partition that succeeded, by partition key in the order of the
+     * partition keys
+     */
+    public Map<String, QueryResult<T>> getResults() {
+        return results;
+    }
+
+    /**
+     * @return the exception of each partition that failed, by partition key in the order of the
+     * partition keys
+     */
+    public Map<String, RuntimeException> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return {@code true} if the query failed in any partition
+     */
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.api.query;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterates over every document matching a query, requesting each page of results with the
+ * bookmark of the page before. The last page is the first one with fewer documents than the
+ * query {@code limit}.
+ * <p>
+ * Unless the next page is prefetched the documents are decoded from the response one at a time,
+ * so only a single document is held in memory. A prefetching iterator decodes a whole page and
+ * requests the next page while the documents of the current one are consumed.
+ * </p>
+ * <p>
+ * The iterator is closed when it reaches the last document. An iterator that is not consumed to
+ * the end must be closed, otherwise the connection of the current page is not released.
+ * </p>
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * QueryIterator<Movie> movies = db.queryIterator(new QueryBuilder(gt("Movie_year", 1960))
+ *     .limit(200).build(), Movie.class, true);
+ * try {
+ *     while (movies.hasNext()) {
+ *         Movie movie = movies.next();
+ *     }
+ * } finally {
+ *     movies.close();
+ * }
+ * }
+ * </pre>
+ *
+ * @param <T> the type of the documents
+ * @see com.cloudant.client.api.Database#queryIterator(String, Class, boolean)
+ * @since 2.21.0
+ */
+public interface QueryIterator<T> extends Iterator<T>, Closeable {
+
+    /**
+     * @return the bookmark of the last page that has been read to the end, which can be used to
+     * resume the query after that page, or {@code null} if no page has been read to the end
+     */
+    String getBookmark();
+
+    /**
+     * Release the connection of the current page and cancel any prefetch.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.internal;
+
+import com.cloudant.client.org.lightcouch.Param;
+import com.cloudant.client.org.lightcouch.Params;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Builds document and attachment URIs for a single database from a pre-encoded database path.
+ * <p>
+ * Unlike {@link DatabaseURIHelper} this class does not re-encode the database URI for every
+ * request, and document IDs and attachment names that are already URL safe are appended without
+ * being encoded. The URIs built are identical to those built by {@link DatabaseURIHelper}.
+ * </p>
+ * <p>
+ * Instances are immutable and thread safe so a single instance can be shared by all the requests
+ * to a database.
+ * </p>
+ */
+public final class DocumentUriTemplate {
+
+    private static final String DESIGN_PREFIX = "_design/";
+    private static final String LOCAL_PREFIX = "_local/";
+
+    private final URI databaseUri;
+    // The ASCII database URI followed by a "/", ready for an encoded document ID
+    private final String documentBase;
+
+    /**
+     * @param databaseUri the URI of the database
+     */
+    public DocumentUriTemplate(URI databaseUri) {
+        this.databaseUri = databaseUri;
+        this.documentBase = databaseUri.toASCIIString() + "/";
+    }
+
+    /**
+     * @return the URI of the database
+     */
+    public URI getDatabaseUri() {
+        return databaseUri;
+    }
+
+    /**
+     * @param documentId the document ID
+     * @return the URI of the document
+     */
+    public URI documentUri(String documentId) {
+        return toUri(documentPath(documentId));
+    }
+
+    /**
+     * @param documentId the document ID
+     * @param name       the query parameter name
+     * @param value      the query parameter value, or {@code null} for no query
+     * @return the URI of the document with the query
+     */
+    public URI documentUri(String documentId, String name, Object value) {
+        StringBuilder uri = documentPath(documentId);
+        if (name != null && value != null) {
+            appendQuery(uri.append('?'), name, value);
+        }
+        return toUri(uri);
+    }
+
+    /**
+     * @param documentId the document ID
+     * @param params     the query parameters, or {@code null} for no query
+     * @return the URI of the document with the query
+     */
+    public URI documentUri(String documentId, Params params) {
+        StringBuilder uri = documentPath(documentId);
+        if (params != null) {
+            char separator = '?';
+            for (int i = 0; i < params.size(); i++) {
+                Param param = params.get(i);
+                appendQuery(uri.append(separator), param.getKey(), param.getValue());
+                separator = '&';
+            }
+        }
+        return toUri(uri);
+    }
+
+    /**
+     * @param documentId   the document ID
+     * @param revId        the document revision, or {@code null} for no revision
+     * @param attachmentId the attachment name
+     * @return the URI of the attachment
+     */
+    public URI attachmentUri(String documentId, String revId, String attachmentId) {
+        // Attachment names are encoded in the same way as document IDs
+        StringBuilder uri = appendId(documentPath(documentId).append('/'), attachmentId);
+        if (revId != null) {
+            appendQuery(uri.append('?'), "rev", revId);
+        }
+        return toUri(uri);
+    }
+
+    /**
+     * Encode a document ID in the same way as {@link DatabaseURIHelper#encodeId(String)}, leaving
+     * the slash of a design or local document prefix unencoded.
+     *
+     * @param documentId the document ID
+     * @return the encoded document ID
+     */
+    public static String encodeId(String documentId) {
+        return appendId(new StringBuilder(documentId.length()), documentId).toString();
+    }
+
+    private StringBuilder documentPath(String documentId) {
+        // Room for the ID and a short query without growing
+        StringBuilder uri = new StringBuilder(documentBase.length() + documentId.length() + 32);
+        return appendId(uri.append(documentBase), documentId);
+    }
+
+    private static StringBuilder appendId(StringBuilder builder, String documentId) {
+        String prefix = null;
+        if (documentId.startsWith(DESIGN_PREFIX)) {
+            prefix = DESIGN_PREFIX;
+        } else if (documentId.startsWith(LOCAL_PREFIX)) {
+            prefix = LOCAL_PREFIX;
+        }
+        if (prefix != null) {
+            builder.append(prefix);
+            documentId = documentId.substring(prefix.length());
+        }
+        return appendEncoded(builder, documentId, HierarchicalUriComponents.Type.PATH_SEGMENT);
+    }
+
+    private static void appendQuery(StringBuilder builder, String name, Object value) {
+        appendEncoded(builder, name, HierarchicalUriComponents.Type.QUERY_PARAM).append('=');
+        appendEncoded(builder, value.toString(), HierarchicalUriComponents.Type.QUERY_PARAM);
+    }
+
+    private static StringBuilder appendEncoded(StringBuilder builder, String value,
+                                               HierarchicalUriComponents.Type type) {
+        if (HierarchicalUriComponents.isAsciiAllowed(value, type)) {
+            return builder.append(value);
+        }
+        try {
+            return builder.append(HierarchicalUriComponents.encodeUriComponent(value, "UTF-8",
+                    type));
+        } catch (UnsupportedEncodingException e) {
+            // This should never happen as every implementation of the java platform is required
+            // to support UTF-8.
+            throw new RuntimeException("Couldn't encode " + value, e);
+        }
+    }
+
+    private static URI toUri(StringBuilder uri) {
+        try {
+            return new URI(uri.toString());
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015 IBM Corp. All rights reserved.
+ * Copyright (c) 2015, 2026 IBM Corp. All rights reserved.
  * Copyright 2002-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
@@ -46,10 +46,31 @@ public class HierarchicalUriComponents {
             return null;
         }
         assertNotEmpty(encoding, "Encoding");
+        assertNotEmpty(type, "Type");
+        if (isAsciiAllowed(source, type)) {
+            // Nothing to encode, avoid the byte conversions
+            return source;
+        }
         byte[] bytes = encodeBytes(source.getBytes(encoding), type);
         return new String(bytes, "US-ASCII");
     }
 
+    /**
+     * @param source the source string
+     * @param type the URI component for the source
+     * @return {@code true} if every character of the source is ASCII and allowed in the component
+     * so that encoding would not change it
+     */
+    static boolean isAsciiAllowed(String source, Type type) {
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c > 0x7F || !type.isAllowed(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static byte[] encodeBytes(byte[] source, Type type) {
         assertNotEmpty(source, "Source");
         assertNotEmpty(type, "Type");
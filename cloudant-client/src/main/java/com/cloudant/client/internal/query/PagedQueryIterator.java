@@ -0,0 +1,396 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.internal.query;
+
+import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.createPost;
+
+import com.cloudant.client.api.query.QueryIterator;
+import com.cloudant.client.org.lightcouch.CouchDbClient;
+import com.cloudant.client.org.lightcouch.CouchDbException;
+import com.cloudant.client.org.lightcouch.internal.CouchDbUtil;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Reads the pages of a {@code _find} request in turn, following the bookmark of each page.
+ *
+ * @param <T> the type of the documents
+ */
+public class PagedQueryIterator<T> implements QueryIterator<T> {
+
+    // The number of documents in a page if the query has no limit
+    private static final long DEFAULT_LIMIT = 25;
+
+    private final CouchDbClient client;
+    private final Gson gson;
+    private final URI uri;
+    // The query as given, and the query sent, which has the cached index pinned until the first
+    // page fails with it
+    private final String unpinned;
+    private JsonObject query;
+    private boolean pinned;
+    private final Class<T> classOfT;
+    private final long limit;
+    private final boolean prefetch;
+
+    private volatile String bookmark = null;
+    // The number of documents in the last page that was read to the end
+    private int lastCount = 0;
+    private boolean started = false;
+    private boolean done = false;
+    private T next = null;
+    private boolean hasNext = false;
+
+    // The page being decoded when the next page is not prefetched
+    private Page page = null;
+    // The decoded page and the request for the next page when it is prefetched
+    private Iterator<T> buffered = Collections.<T>emptyList().iterator();
+    private FutureTask<Fetched<T>> nextPage = null;
+
+    /**
+     * @param client   the client to send the requests with
+     * @param uri      the {@code _find} URI
+     * @param query    the query, which may include a bookmark to start from, and is pinned to
+     *                 the cached index if query plans are cached
+     * @param classOfT the type of the documents
+     * @param prefetch {@code true} to request the next page while the current page is consumed
+     */
+    public PagedQueryIterator(CouchDbClient client, URI uri, String query, Class<T> classOfT,
+                              boolean prefetch) {
+        this.client = client;
+        this.gson = client.getGson();
+        this.uri = uri;
+        this.unpinned = query;
+        String sent = client.pinQueryIndex(uri, query);
+        this.pinned = !sent.equals(query);
+        this.query = new JsonParser().parse(sent).getAsJsonObject();
+        this.classOfT = classOfT;
+        this.limit = this.query.has("limit") ? this.query.get("limit").getAsLong() :
+                DEFAULT_LIMIT;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!hasNext && !done) {
+            try {
+                hasNext = prefetch ? advancePrefetched() : advance();
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            if (!hasNext) {
+                close();
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more documents");
+        }
+        hasNext = false;
+        T document = next;
+        next = null;
+        return document;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getBookmark() {
+        return bookmark;
+    }
+
+    @Override
+    public void close() {
+        done = true;
+        if (page != null) {
+            page.close();
+            page = null;
+        }
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+    }
+
+    /**
+     * Decode the next document from the current page, or request the next page.
+     *
+     * @return {@code false} if there are no more documents
+     */
+    private boolean advance() {
+        while (true) {
+            if (page == null) {
+                if (started && !hasMorePages()) {
+                    return false;
+                }
+                if (!started) {
+                    started = true;
+                    page = firstPage();
+                } else {
+                    page = new Page(nextBody());
+                }
+            }
+            if (page.hasNext()) {
+                next = page.next();
+                return true;
+            }
+            lastCount = page.count;
+            bookmark = page.bookmark;
+            page = null;
+        }
+    }
+
+    /**
+     * Take the next document from the decoded page, or wait for the prefetched page.
+     *
+     * @return {@code false} if there are no more documents
+     */
+    private boolean advancePrefetched() {
+        boolean first = !started;
+        if (first) {
+            started = true;
+            nextPage = fetch(nextBody());
+        }
+        while (!buffered.hasNext()) {
+            if (nextPage == null) {
+                return false;
+            }
+            Fetched<T> fetched;
+            try {
+                fetched = await(nextPage);
+            } catch (CouchDbException e) {
+                if (!first || !unpin(e)) {
+                    throw e;
+                }
+                fetched = await(fetch(nextBody()));
+            }
+            first = false;
+            lastCount = fetched.documents.size();
+            bookmark = fetched.bookmark;
+            buffered = fetched.documents.iterator();
+            nextPage = hasMorePages() ? fetch(nextBody()) : null;
+        }
+        next = buffered.next();
+        return true;
+    }
+
+    /**
+     * Request the first page, without the pinned index if it fails with it.
+     */
+    private Page firstPage() {
+        try {
+            return new Page(nextBody());
+        } catch (CouchDbException e) {
+            if (!unpin(e)) {
+                throw e;
+            }
+            return new Page(nextBody());
+        }
+    }
+
+    /**
+     * Stop pinning the cached index if the first page failed because it no longer exists.
+     *
+     * @return {@code true} if the first page should be requested again
+     */
+    private boolean unpin(CouchDbException e) {
+        if (!pinned || e.getStatusCode() != 400) {
+            return false;
+        }
+        // The pinned index may have been deleted since the query was explained
+        client.evictQueryPlan(uri, unpinned);
+        query = new JsonParser().parse(unpinned).getAsJsonObject();
+        pinned = false;
+        return true;
+    }
+
+    /**
+     * @return the body of the request for the next page
+     */
+    private String nextBody() {
+        if (bookmark != null) {
+            query.addProperty("bookmark", bookmark);
+            // The bookmark already skips the earlier results
+            query.remove("skip");
+        }
+        return query.toString();
+    }
+
+    /**
+     * @return {@code true} if the last page was full and has a bookmark for the next page
+     */
+    private boolean hasMorePages() {
+        return lastCount > 0 && lastCount >= limit && bookmark != null;
+    }
+
+    /**
+     * Start decoding a whole page in the background.
+     */
+    private FutureTask<Fetched<T>> fetch(final String body) {
+        FutureTask<Fetched<T>> task = new FutureTask<Fetched<T>>(new Callable<Fetched<T>>() {
+            @Override
+            public Fetched<T> call() {
+                Page page = new Page(body);
+                try {
+                    List<T> documents = new ArrayList<T>();
+                    while (page.hasNext()) {
+                        documents.add(page.next());
+                    }
+                    return new Fetched<T>(documents, page.bookmark);
+                } finally {
+                    page.close();
+                }
+            }
+        });
+        Executor executor = client.getExecutor();
+        if (executor == null) {
+            Thread thread = new Thread(task, "cloudant-query-prefetch");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            executor.execute(task);
+        }
+        return task;
+    }
+
+    private Fetched<T> await(FutureTask<Fetched<T>> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CouchDbException("Interrupted waiting for query results.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CouchDbException("Error reading query results.", e.getCause());
+        }
+    }
+
+    /**
+     * A page of results, decoded from the response one document at a time.
+     */
+    private final class Page {
+
+        private final InputStream stream;
+        private final JsonReader reader;
+        private boolean inDocs = false;
+        private int count = 0;
+        private String bookmark = null;
+
+        private Page(String body) {
+            stream = client.executeToInputStream(createPost(uri, body, "application/json"));
+            try {
+                reader = new JsonReader(new InputStreamReader(stream, "UTF-8"));
+                reader.beginObject();
+                inDocs = readUntilDocs();
+            } catch (IOException e) {
+                close();
+                throw new CouchDbException("Error reading query results.", e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Read the fields before the docs array, or all of the fields if there is none.
+         *
+         * @return {@code true} if the reader is at the start of the docs array
+         */
+        private boolean readUntilDocs() throws IOException {
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("docs".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    return true;
+                } else if ("bookmark".equals(name) && reader.peek() == JsonToken.STRING) {
+                    bookmark = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            return false;
+        }
+
+        private boolean hasNext() {
+            if (!inDocs) {
+                return false;
+            }
+            try {
+                if (reader.hasNext()) {
+                    return true;
+                }
+                reader.endArray();
+                inDocs = false;
+                // The bookmark usually follows the docs
+                readUntilDocs();
+                close();
+                return false;
+            } catch (IOException e) {
+                close();
+                throw new CouchDbException("Error reading query results.", e);
+            }
+        }
+
+        private T next() {
+            count++;
+            return gson.<T>fromJson(reader, classOfT);
+        }
+
+        private void close() {
+            CouchDbUtil.close(stream);
+        }
+    }
+
+    /**
+     * The documents and bookmark of a page that was decoded in the background.
+     */
+    private static final class Fetched<T> {
+
+        private final List<T> documents;
+        private final String bookmark;
+
+        private Fetched(List<T> documents, String bookmark) {
+            this.documents = documents;
+            this.bookmark = bookmark;
+        }
+    }
+}
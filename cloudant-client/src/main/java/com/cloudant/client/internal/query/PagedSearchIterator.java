@@ -0,0 +1,310 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.internal.query;
+
+import com.cloudant.client.api.model.SearchResult;
+import com.cloudant.client.api.query.QueryIterator;
+import com.cloudant.client.internal.HierarchicalUriComponents;
+import com.cloudant.client.org.lightcouch.CouchDbClient;
+import com.cloudant.client.org.lightcouch.CouchDbException;
+import com.cloudant.client.org.lightcouch.internal.CouchDbUtil;
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpConnection;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the rows of a search in turn, decoding each row from the response as it arrives and
+ * following the bookmark of each page until the last page or a maximum number of rows.
+ * <p>
+ * The facet {@code counts} and {@code ranges} are not requested because only the rows are
+ * returned, and any other fields of a page are skipped without being decoded.
+ * </p>
+ *
+ * @param <T> the type of the fields and documents of the rows
+ */
+public class PagedSearchIterator<T> implements QueryIterator<SearchResult<T>.SearchResultRow> {
+
+    // The number of rows in a page if the search has no limit
+    private static final long DEFAULT_LIMIT = 25;
+
+    private final CouchDbClient client;
+    private final Gson gson;
+    private final String path;
+    // The query parameters other than the limit and bookmark, which are set for each page, and the
+    // facets
+    private final List<String> params = new ArrayList<String>();
+    private final Class<T> classOfT;
+    private final boolean includeDocs;
+    private final long limit;
+    private final long maxRows;
+    // The rows are inner instances of a result, which holds nothing else
+    private final SearchResult<T> result = new SearchResult<T>();
+
+    private volatile String bookmark;
+    private long returned = 0;
+    // The limit of the last page requested and the number of rows it had
+    private long lastLimit = 0;
+    private long lastCount = 0;
+    private boolean started = false;
+    private boolean done = false;
+    private SearchResult<T>.SearchResultRow next = null;
+    private boolean hasNext = false;
+    private Page page = null;
+
+    /**
+     * @param client      the client to send the requests with
+     * @param uri         the search URI with its query parameters
+     * @param bookmark    the bookmark to start from, or {@code null}
+     * @param classOfT    the type of the fields and documents of the rows
+     * @param includeDocs {@code true} if the rows include documents
+     * @param limit       the number of rows in each page, or {@code null} for the default
+     * @param maxRows     the maximum number of rows to read from all of the pages
+     */
+    public PagedSearchIterator(CouchDbClient client, URI uri, String bookmark, Class<T>
+            classOfT, boolean includeDocs, Integer limit, long maxRows) {
+        this.client = client;
+        this.gson = client.getGson();
+        String raw = uri.toASCIIString();
+        int query = raw.indexOf('?');
+        this.path = (query < 0) ? raw : raw.substring(0, query);
+        if (query >= 0) {
+            for (String param : raw.substring(query + 1).split("&")) {
+                if (!param.isEmpty() && !param.startsWith("limit=") && !param.startsWith
+                        ("bookmark=") && !param.startsWith("counts=") && !param.startsWith
+                        ("ranges=")) {
+                    params.add(param);
+                }
+            }
+        }
+        this.bookmark = bookmark;
+        this.classOfT = classOfT;
+        this.includeDocs = includeDocs;
+        this.limit = (limit == null) ? DEFAULT_LIMIT : limit;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!hasNext && !done) {
+            try {
+                hasNext = advance();
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            if (!hasNext) {
+                close();
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public SearchResult<T>.SearchResultRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+        hasNext = false;
+        SearchResult<T>.SearchResultRow row = next;
+        next = null;
+        return row;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getBookmark() {
+        return bookmark;
+    }
+
+    @Override
+    public void close() {
+        done = true;
+        if (page != null) {
+            page.close();
+            page = null;
+        }
+    }
+
+    /**
+     * Decode the next row from the current page, or request the next page.
+     *
+     * @return {@code false} if there are no more rows
+     */
+    private boolean advance() {
+        while (returned < maxRows) {
+            if (page == null) {
+                if (started && !hasMorePages()) {
+                    return false;
+                }
+                page = new Page(nextUri());
+                started = true;
+            }
+            if (page.hasNext()) {
+                next = page.next();
+                returned++;
+                return true;
+            }
+            lastCount = page.count;
+            bookmark = page.bookmark;
+            page = null;
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if the last page was full and has a bookmark for the next page
+     */
+    private boolean hasMorePages() {
+        return lastCount > 0 && lastCount >= lastLimit && bookmark != null;
+    }
+
+    /**
+     * @return the URI of the next page
+     */
+    private URI nextUri() {
+        lastLimit = Math.min(limit, maxRows - returned);
+        StringBuilder uri = new StringBuilder(path).append("?limit=").append(lastLimit);
+        for (String param : params) {
+            uri.append('&').append(param);
+        }
+        if (bookmark != null) {
+            try {
+                uri.append("&bookmark=").append(HierarchicalUriComponents.encodeUriComponent
+                        (bookmark, "UTF-8", HierarchicalUriComponents.Type.QUERY_PARAM));
+            } catch (UnsupportedEncodingException e) {
+                // This should never happen as every implementation of the java platform is
+                // required to support UTF-8.
+                throw new RuntimeException(e);
+            }
+        }
+        return URI.create(uri.toString());
+    }
+
+    /**
+     * A page of results, decoded from the response one row at a time.
+     */
+    private final class Page {
+
+        private final InputStream stream;
+        private final JsonReader reader;
+        private boolean inRows = false;
+        private int count = 0;
+        private String bookmark = null;
+
+        private Page(URI uri) {
+            HttpConnection get = Http.GET(uri);
+            get.requestProperties.put("Accept", "application/json");
+            stream = client.executeToInputStream(get);
+            try {
+                reader = new JsonReader(new InputStreamReader(stream, "UTF-8"));
+                reader.beginObject();
+                inRows = readUntilRows();
+            } catch (IOException e) {
+                close();
+                throw new CouchDbException("Error reading search results.", e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Read the fields before the rows array, or all of the fields if there is none.
+         *
+         * @return {@code true} if the reader is at the start of the rows array
+         */
+        private boolean readUntilRows() throws IOException {
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("rows".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    return true;
+                } else if ("bookmark".equals(name) && reader.peek() == JsonToken.STRING) {
+                    bookmark = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            return false;
+        }
+
+        private boolean hasNext() {
+            if (!inRows) {
+                return false;
+            }
+            try {
+                if (reader.hasNext()) {
+                    return true;
+                }
+                reader.endArray();
+                inRows = false;
+                readUntilRows();
+                close();
+                return false;
+            } catch (IOException e) {
+                close();
+                throw new CouchDbException("Error reading search results.", e);
+            }
+        }
+
+        private SearchResult<T>.SearchResultRow next() {
+            count++;
+            SearchResult<T>.SearchResultRow row = result.new SearchResultRow();
+            try {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.skipValue();
+                    } else if ("id".equals(name)) {
+                        row.setId(reader.nextString());
+                    } else if ("order".equals(name)) {
+                        row.setOrder(gson.<Object[]>fromJson(reader, Object[].class));
+                    } else if ("fields".equals(name)) {
+                        row.setFields(gson.<T>fromJson(reader, classOfT));
+                    } else if ("doc".equals(name) && includeDocs) {
+                        row.setDoc(gson.<T>fromJson(reader, classOfT));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                return row;
+            } catch (IOException e) {
+                close();
+                throw new CouchDbException("Error reading search results.", e);
+            }
+        }
+
+        private void close() {
+            CouchDbUtil.close(stream);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.internal.query;
+
+import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.close;
+import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.createPost;
+
+import com.cloudant.client.api.query.PartitionedQueryResult;
+import com.cloudant.client.api.query.QueryResult;
+import com.cloudant.client.internal.DatabaseURIHelper;
+import com.cloudant.client.org.lightcouch.CouchDbClient;
+import com.cloudant.client.org.lightcouch.CouchDbException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the same query in several partitions of a partitioned database with bounded parallelism
+ * and merges the results.
+ * <p>
+ * A fixed number of workers, on the client's executor or their own daemon threads, take the
+ * partitions in turn so that no more than that many queries are in flight. The results of each
+ * partition are already in the order of the query's sort, so a merge order only needs a k-way
+ * merge of the partition results.
+ * </p>
+ *
+ * @param <T> the type of the documents
+ */
+public class PartitionFanOut<T> {
+
+    private final CouchDbClient client;
+    private final URI dbUri;
+    // The query as given, and the query sent, which has the cached index pinned until a query
+    // with it fails
+    private final String unpinned;
+    private volatile String query;
+    private final AtomicBoolean evicted = new AtomicBoolean();
+    private final Type type;
+    private final String[] partitionKeys;
+    private final int parallelism;
+
+    // The results and errors by the index of their partition key
+    private final Object[] outcomes;
+    private final AtomicInteger nextPartition = new AtomicInteger();
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param client        the client to send the queries with
+     * @param dbUri         the URI of the database
+     * @param partitionKeys the partitions to query
+     * @param query         the query, which is pinned to the cached index if query plans are
+     *                      cached
+     * @param classOfT      the type of the documents
+     * @param parallelism   the maximum number of queries in flight
+     */
+    public PartitionFanOut(CouchDbClient client, URI dbUri, Collection<String> partitionKeys,
+                           String query, Class<T> classOfT, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.client = client;
+        this.dbUri = dbUri;
+        this.type = TypeToken.getParameterized(QueryResult.class, classOfT).getType();
+        this.partitionKeys = partitionKeys.toArray(new String[partitionKeys.size()]);
+        this.unpinned = query;
+        // Every partition has the same query plan
+        this.query = (this.partitionKeys.length == 0) ? query : client.pinQueryIndex(findUri(this
+                .partitionKeys[0]), query);
+        this.parallelism = parallelism;
+        this.outcomes = new Object[this.partitionKeys.length];
+    }
+
+    /**
+     * Run the query in every partition and wait for the results.
+     *
+     * @param mergeOrder the order of the query's sort to merge the documents in, or {@code null}
+     *                   to concatenate them in the order of the partition keys
+     * @return the merged results and the error of each partition that failed
+     */
+    @SuppressWarnings("unchecked")
+    public PartitionedQueryResult<T> execute(Comparator<? super T> mergeOrder) {
+        int workers = Math.min(parallelism, partitionKeys.length);
+        final CountDownLatch finished = new CountDownLatch(workers);
+        Executor executor = client.getExecutor();
+        for (int i = 0; i < workers; i++) {
+            Runnable worker = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        queryPartitions();
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            };
+            if (executor == null) {
+                Thread thread = new Thread(worker, "cloudant-partition-query");
+                thread.setDaemon(true);
+                thread.start();
+            } else {
+                try {
+                    executor.execute(worker);
+                } catch (RejectedExecutionException e) {
+                    // The workers that started query every partition, if none started the
+                    // partitions are queried on this thread
+                    finished.countDown();
+                    workers--;
+                }
+            }
+        }
+        if (workers == 0) {
+            queryPartitions();
+        }
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+            throw new CouchDbException("Interrupted querying partitions.", e);
+        }
+
+        Map<String, QueryResult<T>> results = new LinkedHashMap<String, QueryResult<T>>();
+        Map<String, RuntimeException> errors = new LinkedHashMap<String, RuntimeException>();
+        for (int i = 0; i < partitionKeys.length; i++) {
+            if (outcomes[i] instanceof RuntimeException) {
+                errors.put(partitionKeys[i], (RuntimeException) outcomes[i]);
+            } else {
+                results.put(partitionKeys[i], (QueryResult<T>) outcomes[i]);
+            }
+        }
+        return new PartitionedQueryResult<T>(merge(results.values(), mergeOrder), results,
+                errors);
+    }
+
+    /**
+     * Query partitions until there are none left.
+     */
+    private void queryPartitions() {
+        int i;
+        while (!cancelled && (i = nextPartition.getAndIncrement()) < partitionKeys.length) {
+            try {
+                outcomes[i] = query(partitionKeys[i]);
+            } catch (RuntimeException e) {
+                outcomes[i] = e;
+            }
+        }
+    }
+
+    private URI findUri(String partitionKey) {
+        return new DatabaseURIHelper(dbUri).partition(partitionKey).path("_find").build();
+    }
+
+    private QueryResult<T> query(String partitionKey) {
+        URI uri = findUri(partitionKey);
+        String sent = query;
+        try {
+            return query(uri, sent);
+        } catch (CouchDbException e) {
+            if (sent.equals(unpinned) || e.getStatusCode() != 400) {
+                throw e;
+            }
+            // The pinned index may have been deleted since the query was explained, so the
+            // remaining partitions are queried without it too
+            if (evicted.compareAndSet(false, true)) {
+                client.evictQueryPlan(uri, unpinned);
+            }
+            query = unpinned;
+            return query(uri, unpinned);
+        }
+    }
+
+    private QueryResult<T> query(URI uri, String query) {
+        InputStream stream = null;
+        try {
+            long start = System.nanoTime();
+            stream = client.executeToInputStream(createPost(uri, client.requestQueryStatistics
+                    (query), "application/json"));
+            Reader reader = new InputStreamReader(stream, "UTF-8");
+            QueryResult<T> result = client.getGson().fromJson(reader, type);
+            client.recordQueryStatistics(uri, query, System.nanoTime() - start, result
+                    .getExecutionStats());
+            return result;
+        } catch (UnsupportedEncodingException e) {
+            // This should never happen as every implementation of the java platform is required
+            // to support UTF-8.
+            throw new RuntimeException(e);
+        } finally {
+            close(stream);
+        }
+    }
+
+    private static <T> List<T> merge(Collection<QueryResult<T>> results, final Comparator<?
+            super T> mergeOrder) {
+        List<T> docs = new ArrayList<T>();
+        if (mergeOrder == null) {
+            for (QueryResult<T> result : results) {
+                if (result.getDocs() != null) {
+                    docs.addAll(result.getDocs());
+                }
+            }
+            return docs;
+        }
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<Cursor<T>>(Math.max(1, results
+                .size()), new Comparator<Cursor<T>>() {
+            @Override
+            public int compare(Cursor<T> a, Cursor<T> b) {
+                int c = mergeOrder.compare(a.head, b.head);
+                // Keep equal documents in the order of their partitions
+                return (c != 0) ? c : (a.index < b.index ? -1 : (a.index == b.index ? 0 : 1));
+            }
+        });
+        int index = 0;
+        for (QueryResult<T> result : results) {
+            if (result.getDocs() != null && !result.getDocs().isEmpty()) {
+                heads.add(new Cursor<T>(index, result.getDocs().iterator()));
+            }
+            index++;
+        }
+        Cursor<T> cursor;
+        while ((cursor = heads.poll()) != null) {
+            docs.add(cursor.head);
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return docs;
+    }
+
+    /**
+     * The next document of a partition's results.
+     */
+    private static final class Cursor<T> {
+
+        private final int index;
+        private final Iterator<T> docs;
+        private T head;
+
+        private Cursor(int index, Iterator<T> docs) {
+            this.index = index;
+            this.docs = docs;
+            this.head = docs.next();
+        }
+
+        private boolean advance() {
+            if (docs.hasNext()) {
+                head = docs.next();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2018 IBM Corp. All rights reserved.
+ * Copyright (c) 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -15,38 +15,131 @@
 package com.cloudant.client.internal.util;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This class can be extended by any class using {@link Parameter} annotations on public
  * fields.
  * It provides methods to process those parameters for adding as URL query parameters.
+ * <p>
+ * The annotated fields of each class are looked up once and cached in an accessor table so that
+ * processing the parameters of a request does not repeat the reflective annotation lookups.
+ * </p>
  */
 public class ParameterAnnotationProcessor {
 
+    // Accessor tables indexed by Parameter.Type ordinal, keyed by the processor class
+    private static final ConcurrentMap<Class<?>, ParameterAccessor[][]> ACCESSORS = new
+            ConcurrentHashMap<Class<?>, ParameterAccessor[][]>();
+
+    /**
+     * Receives the name and value of each set parameter.
+     */
+    protected interface ParameterWriter {
+
+        /**
+         * @param name  the parameter name
+         * @param value the parameter value, never {@code null}
+         */
+        void write(String name, Object value);
+    }
+
     protected Map<String, Object> processParameters(Parameter.Type type) {
-        Map<String, Object> parameters = new HashMap<String, Object>();
-        for (Field field : this.getClass().getFields()) {
-            Parameter parameter = field.getAnnotation(Parameter.class);
-            if (parameter != null && parameter.type().equals(type)) {
-                //use the field name as the parameter name unless one was specified
-                String parameterName = Parameter.USE_FIELD_NAME.equals(parameter.value()) ?
-                        field.getName() : parameter.value();
-                Object parameterValue = null;
-                try {
-                    parameterValue = field.get(this);
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException("A field annotated with @Parameter did not " +
-                            "have the public modifier and as such was not accessible", e);
-                }
-                if (parameterName != null && parameterValue != null) {
-                    parameters.put(parameterName, parameterValue);
+        final Map<String, Object> parameters = new HashMap<String, Object>();
+        writeParameters(type, new ParameterWriter() {
+            @Override
+            public void write(String name, Object value) {
+                parameters.put(name, value);
+            }
+        });
+        return parameters;
+    }
+
+    /**
+     * Pass each parameter of the given type that has a value to a writer, in parameter name
+     * order.
+     *
+     * @param type   the type of parameters to write
+     * @param writer the writer to receive the parameters
+     * @return the number of parameters written
+     */
+    protected int writeParameters(Parameter.Type type, ParameterWriter writer) {
+        int written = 0;
+        for (ParameterAccessor accessor : accessors(getClass())[type.ordinal()]) {
+            Object parameterValue = accessor.get(this);
+            if (parameterValue != null) {
+                writer.write(accessor.name, parameterValue);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private static ParameterAccessor[][] accessors(Class<?> processorClass) {
+        ParameterAccessor[][] accessors = ACCESSORS.get(processorClass);
+        if (accessors == null) {
+            accessors = buildAccessors(processorClass);
+            ParameterAccessor[][] existing = ACCESSORS.putIfAbsent(processorClass, accessors);
+            if (existing != null) {
+                accessors = existing;
+            }
+        }
+        return accessors;
+    }
+
+    private static ParameterAccessor[][] buildAccessors(Class<?> processorClass) {
+        Parameter.Type[] types = Parameter.Type.values();
+        ParameterAccessor[][] accessors = new ParameterAccessor[types.length][];
+        for (Parameter.Type type : types) {
+            List<ParameterAccessor> typeAccessors = new ArrayList<ParameterAccessor>();
+            for (Field field : processorClass.getFields()) {
+                Parameter parameter = field.getAnnotation(Parameter.class);
+                if (parameter != null && parameter.type().equals(type)) {
+                    //use the field name as the parameter name unless one was specified
+                    String parameterName = Parameter.USE_FIELD_NAME.equals(parameter.value()) ?
+                            field.getName() : parameter.value();
+                    if (parameterName != null) {
+                        typeAccessors.add(new ParameterAccessor(parameterName, field));
+                    }
                 }
             }
+            // Sort so that the parameters are always written in the same order
+            Collections.sort(typeAccessors, new Comparator<ParameterAccessor>() {
+                @Override
+                public int compare(ParameterAccessor a, ParameterAccessor b) {
+                    return a.name.compareTo(b.name);
+                }
+            });
+            accessors[type.ordinal()] = typeAccessors.toArray(new
+                    ParameterAccessor[typeAccessors.size()]);
         }
-        return parameters;
+        return accessors;
     }
 
+    private static final class ParameterAccessor {
 
+        private final String name;
+        private final Field field;
+
+        ParameterAccessor(String name, Field field) {
+            this.name = name;
+            this.field = field;
+        }
+
+        Object get(Object processor) {
+            try {
+                return field.get(processor);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("A field annotated with @Parameter did not " +
+                        "have the public modifier and as such was not accessible", e);
+            }
+        }
+    }
 }
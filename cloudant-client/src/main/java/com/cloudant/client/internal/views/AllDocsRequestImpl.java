@@ -14,7 +14,7 @@
 
 package com.cloudant.client.internal.views;
 
-import java.io.IOException;
+import com.google.gson.JsonObject;
 
 public class AllDocsRequestImpl extends ViewRequestImpl<String, AllDocsRequestResponse
         .AllDocsValue> {
@@ -25,13 +25,10 @@ public class AllDocsRequestImpl extends ViewRequestImpl<String, AllDocsRequestRe
     }
 
     @Override
-    protected ViewResponseImpl<String, AllDocsRequestResponse.AllDocsValue> makeResponse
-            (PageMetadata<String, AllDocsRequestResponse.AllDocsValue> metadata) throws
-            IOException {
-        ViewQueryParameters<String, AllDocsRequestResponse.AllDocsValue> requestParameters =
-                (metadata != null) ? metadata.pageRequestParameters : viewQueryParameters;
-        return new AllDocsResponseImpl(viewQueryParameters, ViewRequester.getResponseAsJson
-                (requestParameters), metadata);
+    protected ViewResponseImpl<String, AllDocsRequestResponse.AllDocsValue> responseFromJson
+            (JsonObject response, PageMetadata<String, AllDocsRequestResponse.AllDocsValue>
+                    metadata) {
+        return new AllDocsResponseImpl(viewQueryParameters, response, metadata);
     }
 
 }
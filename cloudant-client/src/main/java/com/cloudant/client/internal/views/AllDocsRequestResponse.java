@@ -44,6 +44,15 @@ public class AllDocsRequestResponse implements AllDocsRequest, AllDocsResponse {
         return this;
     }
 
+    AllDocsRequestImpl getRequest() {
+        return request;
+    }
+
+    AllDocsResponse setResponse(ViewResponse<String, AllDocsValue> response) {
+        this.response = response;
+        return this;
+    }
+
     @Override
     public List<Document> getDocs() {
         return response.getDocs();
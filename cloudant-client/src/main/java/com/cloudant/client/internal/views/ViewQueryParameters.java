@@ -1,5 +1,5 @@
 /*
- * Copyright © 2015, 2019 IBM Corp. All rights reserved.
+ * Copyright © 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -24,8 +24,12 @@ import com.cloudant.http.HttpConnection;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.StringWriter;
 
 public class ViewQueryParameters<K, V> extends ParameterAnnotationProcessor implements Cloneable {
 
@@ -130,6 +134,14 @@ public class ViewQueryParameters<K, V> extends ParameterAnnotationProcessor impl
         return client;
     }
 
+    String getDesignDoc() {
+        return designDoc;
+    }
+
+    String getViewName() {
+        return viewName;
+    }
+
     public boolean getDescending() {
         return descending == null ? false : descending;
     }
@@ -311,17 +323,39 @@ public class ViewQueryParameters<K, V> extends ParameterAnnotationProcessor impl
     /* Parameter output methods */
 
     HttpConnection asRequest() {
-        DatabaseURIHelper builder = getViewURIBuilder();
-        for (Map.Entry<String, Object> queryParameter : processParameters(Parameter.Type
-                .QUERY_PARAMETER).entrySet()) {
-            builder.query(queryParameter.getKey(), queryParameter.getValue());
-        }
-        Map<String, Object> parameters = processParameters(Parameter.Type.BODY_PARAMETER);
-        // if there are no parameters in the body, we do a GET, otherwise we do a POST
-        if (parameters == null || parameters.isEmpty()) {
-            return Http.GET(builder.build());
+        final DatabaseURIHelper builder = getViewURIBuilder();
+        writeParameters(Parameter.Type.QUERY_PARAMETER, new ParameterWriter() {
+            @Override
+            public void write(String name, Object value) {
+                // parameter names are unique so there is nothing to replace
+                builder.query(name, value, false);
+            }
+        });
+        StringWriter body = new StringWriter();
+        try {
+            final JsonWriter writer = gson.newJsonWriter(body);
+            writer.beginObject();
+            int bodyParameters = writeParameters(Parameter.Type.BODY_PARAMETER, new
+                    ParameterWriter() {
+                @Override
+                public void write(String name, Object value) {
+                    try {
+                        gson.toJson(value, value.getClass(), writer.name(name));
+                    } catch (IOException e) {
+                        throw new JsonIOException(e);
+                    }
+                }
+            });
+            // if there are no parameters in the body, we do a GET, otherwise we do a POST
+            if (bodyParameters == 0) {
+                return Http.GET(builder.build());
+            }
+            writer.endObject();
+            writer.close();
+        } catch (IOException e) {
+            // A StringWriter does not throw IOExceptions
+            throw new JsonIOException(e);
         }
-        JsonElement body = gson.toJsonTree(parameters);
         HttpConnection conn = Http.POST(builder.build(),  "application/json");
         conn.setRequestBody(body.toString());
         return conn;
@@ -333,10 +367,17 @@ public class ViewQueryParameters<K, V> extends ParameterAnnotationProcessor impl
     }
 
     JsonElement asJson() {
-        Map<String, Object> parameters = processParameters(Parameter.Type.QUERY_PARAMETER);
+        final JsonObject json = new JsonObject();
+        ParameterWriter writer = new ParameterWriter() {
+            @Override
+            public void write(String name, Object value) {
+                json.add(name, gson.toJsonTree(value));
+            }
+        };
+        writeParameters(Parameter.Type.QUERY_PARAMETER, writer);
         // Add the body parameters too
-        parameters.putAll(processParameters(Parameter.Type.BODY_PARAMETER));
-        return gson.toJsonTree(parameters);
+        writeParameters(Parameter.Type.BODY_PARAMETER, writer);
+        return json;
     }
 
     public Class<K> getKeyType() {
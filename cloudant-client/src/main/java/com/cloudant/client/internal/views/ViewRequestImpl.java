@@ -16,6 +16,7 @@ package com.cloudant.client.internal.views;
 
 import com.cloudant.client.api.views.ViewRequest;
 import com.cloudant.client.api.views.ViewResponse;
+import com.google.gson.JsonObject;
 
 import java.io.IOException;
 import java.util.List;
@@ -55,7 +56,11 @@ class ViewRequestImpl<K, V> implements ViewRequest<K, V> {
     protected ViewResponseImpl<K, V> makeResponse(PageMetadata<K, V> metadata) throws IOException {
         ViewQueryParameters<K, V> requestParameters = (metadata != null) ? metadata
                 .pageRequestParameters : viewQueryParameters;
-        return new ViewResponseImpl<K, V>(viewQueryParameters, ViewRequester.getResponseAsJson
-                (requestParameters), metadata);
+        return responseFromJson(ViewRequester.getResponseAsJson(requestParameters), metadata);
+    }
+
+    protected ViewResponseImpl<K, V> responseFromJson(JsonObject response, PageMetadata<K, V>
+            metadata) {
+        return new ViewResponseImpl<K, V>(viewQueryParameters, response, metadata);
     }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.internal.views;
+
+import com.cloudant.client.api.views.AllDocsRequest;
+import com.cloudant.client.api.views.AllDocsResponse;
+import com.cloudant.client.api.views.ViewRequest;
+import com.cloudant.client.api.views.ViewResponse;
+import com.cloudant.client.org.lightcouch.internal.CouchDbUtil;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+
+/**
+ * Gives the response caches outside this package access to the identity and raw JSON of a
+ * {@link ViewRequest} so that responses can be stored as JSON and re-inflated on a cache hit.
+ */
+public final class ViewResponseCacheSupport {
+
+    /**
+     * The prefix of the cache keys of {@code _all_docs} requests, which have an empty design
+     * document and view name.
+     */
+    public static final String ALL_DOCS_PREFIX = "//";
+
+    private ViewResponseCacheSupport() {
+    }
+
+    /**
+     * @param request the view request
+     * @return {@code true} if the request was created by this client and can be cached
+     */
+    public static boolean isCacheable(ViewRequest<?, ?> request) {
+        return request instanceof ViewRequestImpl;
+    }
+
+    /**
+     * Get a key that identifies the design document, view, partition and all the query and body
+     * parameters of the request. The key starts with the design document name (without the
+     * {@code _design/} prefix) followed by a {@code /} so that all the keys for a design document
+     * share a prefix.
+     *
+     * @param request a cacheable view request
+     * @return the cache key for the request
+     */
+    public static String cacheKey(ViewRequest<?, ?> request) {
+        ViewQueryParameters<?, ?> parameters = parameters(request);
+        return String.format("%s/%s/%s?%s", designDocName(parameters.getDesignDoc()),
+                parameters.getViewName(), parameters.getPartition(), parameters.asJson());
+    }
+
+    /**
+     * @param designDoc design document ID or name
+     * @return the design document name without the {@code _design/} prefix
+     */
+    public static String designDocName(String designDoc) {
+        return (designDoc != null && designDoc.startsWith(CouchDbUtil.DESIGN_PREFIX)) ?
+                designDoc.substring(CouchDbUtil.DESIGN_PREFIX.length()) : designDoc;
+    }
+
+    /**
+     * Make the request to the server and return the un-inflated response body.
+     *
+     * @param request a cacheable view request
+     * @return the JSON response
+     * @throws IOException if there is an error communicating with the server
+     */
+    public static JsonObject fetch(ViewRequest<?, ?> request) throws IOException {
+        return ViewRequester.getResponseAsJson(parameters(request));
+    }
+
+    /**
+     * Inflate a first page response for the request from JSON previously returned by
+     * {@link #fetch(ViewRequest)}.
+     *
+     * @param request  a cacheable view request
+     * @param response the JSON response
+     * @param <K>      the view key type
+     * @param <V>      the view value type
+     * @return the view response
+     */
+    public static <K, V> ViewResponse<K, V> toResponse(ViewRequest<K, V> request, JsonObject
+            response) {
+        return ((ViewRequestImpl<K, V>) request).responseFromJson(response, null);
+    }
+
+    /**
+     * @param request the {@code _all_docs} request
+     * @return {@code true} if the request was created by this client and can be cached
+     */
+    public static boolean isCacheable(AllDocsRequest request) {
+        return request instanceof AllDocsRequestResponse;
+    }
+
+    /**
+     * @param request a cacheable {@code _all_docs} request
+     * @return the view request that the {@code _all_docs} request is made with, which can be
+     * used with the other methods of this class
+     */
+    public static ViewRequest<String, AllDocsRequestResponse.AllDocsValue> viewRequest(
+            AllDocsRequest request) {
+        if (!isCacheable(request)) {
+            throw new IllegalArgumentException("The request was not created by this client.");
+        }
+        return ((AllDocsRequestResponse) request).getRequest();
+    }
+
+    /**
+     * Inflate an {@code _all_docs} response from JSON previously returned by
+     * {@link #fetch(ViewRequest)}.
+     *
+     * @param request  a cacheable {@code _all_docs} request
+     * @param response the JSON response
+     * @return the {@code _all_docs} response
+     */
+    public static AllDocsResponse toResponse(AllDocsRequest request, JsonObject response) {
+        return ((AllDocsRequestResponse) request).setResponse(toResponse(viewRequest(request),
+                response));
+    }
+
+    private static ViewQueryParameters<?, ?> parameters(ViewRequest<?, ?> request) {
+        if (!isCacheable(request)) {
+            throw new IllegalArgumentException("The view request was not created by this client.");
+        }
+        return ((ViewRequestImpl<?, ?>) request).viewQueryParameters;
+    }
+}
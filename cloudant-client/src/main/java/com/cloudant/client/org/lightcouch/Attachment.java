@@ -1,6 +1,6 @@
 /*
  * Copyright (C) 2011 lightcouch.org
- * Copyright (c) 2015 IBM Corp. All rights reserved.
+ * Copyright (c) 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -14,6 +14,7 @@
  */
 package com.cloudant.client.org.lightcouch;
 
+import com.cloudant.client.api.model.AttachmentSource;
 import com.google.gson.annotations.SerializedName;
 
 /**
@@ -32,6 +33,9 @@ public class Attachment {
     private String digest;
     private long length;
     private boolean stub;
+    private String encoding;
+    // Read when the document is sent instead of the data
+    private transient AttachmentSource source;
 
     // Constructor
 
@@ -77,6 +81,23 @@ public class Attachment {
         return stub;
     }
 
+    /**
+     * @return the encoding the server stored the attachment with, for example {@code gzip}, or
+     * {@code null} if it is stored as it was sent
+     * @since 2.21.0
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return the source of the attachment data, or {@code null} if the data is inline
+     * @since 2.21.0
+     */
+    public AttachmentSource getSource() {
+        return source;
+    }
+
     // Setter
 
     public void setContentType(String contentType) {
@@ -89,4 +110,12 @@ public class Attachment {
     public void setData(String data) {
         this.data = data;
     }
+
+    /**
+     * @param source the source to read the attachment data from when the document is sent
+     * @since 2.21.0
+     */
+    public void setSource(AttachmentSource source) {
+        this.source = source;
+    }
 }
@@ -0,0 +1,365 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch;
+
+import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.close;
+
+import com.cloudant.client.api.model.AttachmentDownloadOptions;
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpConnection;
+
+import org.apache.commons.codec.binary.Base64;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Downloads an attachment into a file with range requests.
+ * <p>
+ * The attachment's length, digest and whether the server accepts ranges are read with a
+ * {@code HEAD} request. The bytes still needed are then split into ranges that are downloaded in
+ * parallel, each transferred into the file at its offset. When a range request fails it is sent
+ * again for the bytes after the last one received, so a dropped connection only loses the data
+ * in flight. When the whole attachment is in the file its MD5 digest is verified.
+ * </p>
+ * <p>
+ * Every request asks for the attachment without a content encoding, because the length and
+ * ranges of an attachment stored compressed are of the encoded bytes. If the server sends it
+ * encoded anyway it is downloaded whole, decompressed, to the end of the response.
+ * </p>
+ */
+final class AttachmentDownloader {
+
+    private static final Logger logger = Logger.getLogger(AttachmentDownloader.class.getName());
+
+    // The most transferred into the file at once, so progress is reported during a range
+    private static final long TRANSFER_SIZE = 256 * 1024;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final CouchDbClient client;
+    private final URI uri;
+    private final FileChannel channel;
+    private final AttachmentDownloadOptions options;
+
+    private long length;
+    private long offset;
+    private final long start = System.nanoTime();
+    // The bytes received by this download, not including any already in the file
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong lastProgress = new AtomicLong(start);
+    private final AtomicReference<RuntimeException> failure = new
+            AtomicReference<RuntimeException>();
+    // The bytes written by a download that was not ranged, which read to the end of the response
+    private long wholeLength;
+
+    AttachmentDownloader(CouchDbClient client, URI uri, FileChannel channel,
+                         AttachmentDownloadOptions options) {
+        this.client = client;
+        this.uri = uri;
+        this.channel = channel;
+        this.options = options;
+    }
+
+    /**
+     * @return the length of the attachment
+     * @throws CouchDbException if the attachment cannot be downloaded, or its digest does not
+     *                          match
+     */
+    long download() {
+        HttpConnection head = client.execute(identity(Http.HEAD(uri)));
+        HttpURLConnection response = head.getConnection();
+        String contentLength = response.getHeaderField("Content-Length");
+        if (contentLength == null) {
+            throw new CouchDbException("The length of the attachment is not known.");
+        }
+        length = Long.parseLong(contentLength);
+        String encoding = response.getHeaderField("Content-Encoding");
+        // An encoded attachment is sent whole, so its ranges cannot be requested, and its
+        // length and digest are of the encoded bytes rather than the decompressed ones written
+        boolean encoded = encoding != null && !"identity".equalsIgnoreCase(encoding);
+        boolean ranged = "bytes".equalsIgnoreCase(response.getHeaderField("Accept-Ranges")) &&
+                !encoded;
+        String digest = (options.getDigest() != null || encoded) ? options.getDigest() :
+                response.getHeaderField("Content-MD5");
+        close(responseStream(head));
+
+        offset = options.getOffset();
+        if (offset > length || (offset > 0 && !ranged)) {
+            logger.fine("Downloading " + uri + " from the start");
+            offset = 0;
+        }
+        long remaining = length - offset;
+        int count = ranged ? (int) Math.max(1, Math.min(options.getRanges(), remaining /
+                options.getMinimumRangeSize())) : 1;
+        try {
+            // Nothing can be transferred past the end of the file, so extend it to the length
+            // of the attachment for the ranges to be written at their offsets
+            if (length > 0 && channel.size() < length) {
+                channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+            }
+        } catch (IOException e) {
+            throw new CouchDbException("Error writing downloaded attachment.", e);
+        }
+        fetchRanges(count, ranged);
+
+        try {
+            if (!ranged) {
+                // The length of the whole attachment is what was actually received
+                length = wholeLength;
+            }
+            if (channel.size() > length) {
+                channel.truncate(length);
+            }
+            if (digest != null && options.isVerifyDigest()) {
+                verify(digest);
+            }
+        } catch (IOException e) {
+            throw new CouchDbException("Error verifying downloaded attachment.", e);
+        }
+        progress(true);
+        return length;
+    }
+
+    private void fetchRanges(int count, final boolean ranged) {
+        long remaining = length - offset;
+        final CountDownLatch finished = new CountDownLatch(count - 1);
+        ExecutorService ownExecutor = null;
+        Executor executor = options.getExecutor();
+        if (count > 1 && executor == null) {
+            ownExecutor = Executors.newFixedThreadPool(count - 1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "cloudant-attachment-download");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            executor = ownExecutor;
+        }
+        try {
+            List<long[]> ranges = new ArrayList<long[]>(count);
+            for (int i = 0; i < count; i++) {
+                ranges.add(new long[]{offset + remaining * i / count, offset + remaining * (i +
+                        1) / count});
+            }
+            // Ranges after the first are downloaded by the executor
+            for (final long[] range : ranges.subList(1, ranges.size())) {
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                fetch(range[0], range[1], ranged);
+                            } catch (RuntimeException e) {
+                                failure.compareAndSet(null, e);
+                            } finally {
+                                finished.countDown();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    failure.compareAndSet(null, new CouchDbException("Error starting attachment " +
+                            "range download.", e));
+                    finished.countDown();
+                }
+            }
+            try {
+                fetch(ranges.get(0)[0], ranges.get(0)[1], ranged);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, new CouchDbException("Interrupted downloading " +
+                        "attachment.", new InterruptedIOException()));
+            }
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdownNow();
+            }
+        }
+        RuntimeException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /**
+     * Download a range of the attachment into the file, resuming after failures.
+     *
+     * @param from   the offset of the first byte
+     * @param to     the offset after the last byte
+     * @param ranged {@code true} to request the range, otherwise the whole attachment is
+     *               requested
+     */
+    private void fetch(long from, long to, boolean ranged) {
+        long position = from;
+        int failures = 0;
+        while (position < to && failure.get() == null) {
+            long before = position;
+            HttpConnection connection = identity(Http.GET(uri));
+            if (ranged) {
+                connection.requestProperties.put("Range", "bytes=" + position + "-" + (to - 1));
+            }
+            InputStream in = null;
+            try {
+                connection = client.execute(connection);
+                in = responseStream(connection);
+                if (connection.getConnection().getResponseCode() != 206) {
+                    if (from != 0 || to != length) {
+                        throw new CouchDbException("The server did not return the requested " +
+                                "range of the attachment.");
+                    }
+                    // The whole attachment was returned so write it from the start
+                    position = 0;
+                    before = 0;
+                } else if (!String.valueOf(connection.getConnection().getHeaderField
+                        ("Content-Range")).startsWith("bytes " + position + "-")) {
+                    throw new CouchDbException("The server returned the wrong range of the " +
+                            "attachment.");
+                }
+                ReadableByteChannel source = Channels.newChannel(in);
+                while ((!ranged || position < to) && failure.get() == null) {
+                    long n = channel.transferFrom(source, position, ranged ? Math.min
+                            (TRANSFER_SIZE, to - position) : TRANSFER_SIZE);
+                    if (n == 0) {
+                        if (!ranged) {
+                            // A whole attachment is read to the end of the response, because
+                            // the response may be decompressed to more than its length
+                            wholeLength = position;
+                            return;
+                        }
+                        throw new EOFException("The attachment response ended early.");
+                    }
+                    position += n;
+                    received.addAndGet(n);
+                    progress(false);
+                }
+            } catch (IOException e) {
+                failures = retry(position > before ? 0 : failures, e);
+            } catch (CouchDbException e) {
+                // Retry failures to get a response and server errors, but not client errors
+                if (e.getStatusCode() > 0 && e.getStatusCode() < 500) {
+                    throw e;
+                }
+                failures = retry(position > before ? 0 : failures, e);
+            } finally {
+                close(in);
+            }
+        }
+    }
+
+    private int retry(int failures, Exception e) {
+        if (failures >= options.getRetries()) {
+            throw (e instanceof CouchDbException) ? (CouchDbException) e : new CouchDbException
+                    ("Error downloading attachment.", e);
+        }
+        logger.log(Level.FINE, "Resuming attachment download of " + uri, e);
+        return failures + 1;
+    }
+
+    /**
+     * Ask for the attachment without a content encoding, so that its length and ranges are of
+     * the bytes written to the file.
+     */
+    private static HttpConnection identity(HttpConnection connection) {
+        connection.requestProperties.put("Accept-Encoding", "identity");
+        return connection;
+    }
+
+    private static InputStream responseStream(HttpConnection connection) {
+        try {
+            return connection.responseAsInputStream();
+        } catch (IOException e) {
+            throw new CouchDbException("Error retrieving response input stream.", e);
+        }
+    }
+
+    /**
+     * Report the progress if the interval has passed since the last report. Only one thread
+     * can win the report for an interval so the listener is not called concurrently.
+     */
+    private void progress(boolean done) {
+        AttachmentDownloadOptions.ProgressListener listener = options.getProgressListener();
+        if (listener == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastProgress.get();
+        if (!done && (now - last < PROGRESS_INTERVAL_NANOS || !lastProgress.compareAndSet(last,
+                now))) {
+            return;
+        }
+        long elapsed = Math.max(1, now - start);
+        long bytes = received.get();
+        synchronized (this) {
+            listener.progress(Math.min(length, offset + bytes), length, bytes * (double)
+                    TimeUnit.SECONDS.toNanos(1) / elapsed);
+        }
+    }
+
+    private void verify(String digest) throws IOException {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            logger.log(Level.WARNING, "Cannot verify attachment digest", e);
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        long position = 0;
+        while (position < length) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n == -1) {
+                break;
+            }
+            buffer.flip();
+            md5.update(buffer);
+            position += n;
+        }
+        String expected = digest.startsWith("md5-") ? digest.substring(4) : digest;
+        String actual = Base64.encodeBase64String(md5.digest());
+        if (!actual.equals(expected)) {
+            throw new CouchDbException("The digest of the downloaded attachment md5-" + actual +
+                    " does not match the expected digest md5-" + expected + ".");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch;
+
+/**
+ * <P>
+ * CouchDbException class for a request that was not sent because the circuit breaker for its
+ * endpoint and request class is open
+ * </P>
+ * <P>
+ * This exception is thrown immediately, without contacting the server, while recent requests of
+ * the same class to the endpoint have failed or been slow too often.
+ * </P>
+ *
+ * @see com.cloudant.client.api.ClientBuilder#circuitBreaker(double, long, long,
+ * java.util.concurrent.TimeUnit)
+ * @since 2.21.0
+ */
+public class CircuitBreakerOpenException extends CouchDbException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch;
+
+import com.cloudant.client.api.model.CircuitBreakerStatistics;
+import com.cloudant.client.api.model.CircuitBreakerStatistics.State;
+import com.cloudant.http.HttpConnection;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * Circuit breakers for each endpoint and class of request.
+ * <p>
+ * Each breaker records whether the most recent requests failed, with an I/O error or a 5xx
+ * status, or were slow in a count based sliding window. When either rate reaches the threshold
+ * the breaker opens and requests fail immediately with a {@link CircuitBreakerOpenException}.
+ * After the open duration the breaker is half open and lets a few probe requests through; if
+ * they all succeed quickly the breaker closes, otherwise it opens again.
+ * </p>
+ * <p>
+ * Requests are classed as reads, queries and writes so that, for example, slow queries do not
+ * stop document reads. Streaming changes feeds are slow by design and are never tracked.
+ * </p>
+ */
+final class CircuitBreakers {
+
+    private static final Logger logger = Logger.getLogger(CircuitBreakers.class.getName());
+
+    // The number of requests in the sliding window
+    static final int WINDOW_SIZE = 100;
+    // The rates are not evaluated until the window has this many requests
+    static final int MINIMUM_CALLS = 20;
+    // The number of probe requests that must succeed to close a half open breaker
+    static final int HALF_OPEN_PROBES = 3;
+
+    static final String READ = "read";
+    static final String QUERY = "query";
+    static final String WRITE = "write";
+
+    private final double threshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final ConcurrentMap<String, Breaker> breakers = new ConcurrentHashMap<String,
+            Breaker>();
+
+    /**
+     * @param threshold     the failure or slow call rate at which a breaker opens
+     * @param slowCallNanos the duration at or above which a request is slow
+     * @param openNanos     how long a breaker stays open before letting probes through
+     */
+    CircuitBreakers(double threshold, long slowCallNanos, long openNanos) {
+        this.threshold = threshold;
+        this.slowCallNanos = slowCallNanos;
+        this.openNanos = openNanos;
+    }
+
+    /**
+     * @param connection the request
+     * @return the class of the request
+     */
+    static String requestClass(HttpConnection connection) {
+        String path = connection.url.getPath();
+        if (path.contains("/_find") || path.contains("/_view/") || path.contains("/_search/")
+                || path.contains("/_all_docs") || path.contains("/_search_analyze")) {
+            return QUERY;
+        }
+        String method = connection.getRequestMethod();
+        return ("GET".equals(method) || "HEAD".equals(method)) ? READ : WRITE;
+    }
+
+    /**
+     * Acquire permission to send a request to an endpoint.
+     *
+     * @param endpoint   the endpoint the request will be sent to
+     * @param connection the request
+     * @return a permit that must be completed, failed or released, or {@code null} if the
+     * request is not tracked
+     * @throws CircuitBreakerOpenException if the breaker is open
+     */
+    Permit acquire(URL endpoint, HttpConnection connection) {
+        if (RequestCoalescer.isStreamingFeed(connection)) {
+            return null;
+        }
+        String name = endpoint.getProtocol() + "://" + endpoint.getHost() + ":" + ((endpoint
+                .getPort() == -1) ? endpoint.getDefaultPort() : endpoint.getPort());
+        String requestClass = requestClass(connection);
+        String key = name + " " + requestClass;
+        Breaker breaker = breakers.get(key);
+        if (breaker == null) {
+            Breaker created = new Breaker(name, requestClass);
+            breaker = breakers.putIfAbsent(key, created);
+            if (breaker == null) {
+                breaker = created;
+            }
+        }
+        long generation = breaker.tryAcquire(System.nanoTime());
+        if (generation < 0) {
+            throw new CircuitBreakerOpenException("The circuit breaker for " + requestClass + " " +
+                    "requests to " + name + " is open.");
+        }
+        return new Permit(breaker, generation);
+    }
+
+    /**
+     * @return a snapshot of the statistics of each breaker
+     */
+    List<CircuitBreakerStatistics> getStatistics() {
+        List<CircuitBreakerStatistics> statistics = new ArrayList<CircuitBreakerStatistics>
+                (breakers.size());
+        for (Breaker breaker : breakers.values()) {
+            statistics.add(breaker.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Permission to send a single request, recording its outcome.
+     */
+    final class Permit {
+
+        private final Breaker breaker;
+        private final long generation;
+        private final long start = System.nanoTime();
+
+        private Permit(Breaker breaker, long generation) {
+            this.breaker = breaker;
+            this.generation = generation;
+        }
+
+        /**
+         * Record a response.
+         *
+         * @param statusCode the response status code
+         */
+        void completed(int statusCode) {
+            breaker.record(generation, statusCode / 100 == 5, System.nanoTime() - start >=
+                    slowCallNanos);
+        }
+
+        /**
+         * Record an I/O failure.
+         *
+         * @param cancelled {@code true} if the request failed because it was cancelled by the
+         *                  client, in which case it is not counted
+         */
+        void failed(boolean cancelled) {
+            if (cancelled) {
+                release();
+            } else {
+                breaker.record(generation, true, false);
+            }
+        }
+
+        /**
+         * Release the permit without recording an outcome.
+         */
+        void release() {
+            breaker.release(generation);
+        }
+    }
+
+    private final class Breaker {
+
+        private static final byte FAILED = 1;
+        private static final byte SLOW = 2;
+
+        private final String endpoint;
+        private final String requestClass;
+
+        // Guarded by this
+        private State state = State.CLOSED;
+        // Incremented on every transition so that outcomes from an earlier state are ignored
+        private long generation = 0;
+        private final byte[] outcomes = new byte[WINDOW_SIZE];
+        private int next = 0;
+        private int calls = 0;
+        private int failures = 0;
+        private int slowCalls = 0;
+        private long openUntil = 0;
+        private int probes = 0;
+        private int probeSuccesses = 0;
+        private long opened = 0;
+        private long halfOpened = 0;
+        private long closed = 0;
+        private long rejected = 0;
+
+        private Breaker(String endpoint, String requestClass) {
+            this.endpoint = endpoint;
+            this.requestClass = requestClass;
+        }
+
+        /**
+         * @return the generation of the permit, or -1 if the request is rejected
+         */
+        synchronized long tryAcquire(long now) {
+            if (state == State.OPEN) {
+                if (now - openUntil < 0) {
+                    rejected++;
+                    return -1;
+                }
+                transition(State.HALF_OPEN);
+                halfOpened++;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probes + probeSuccesses >= HALF_OPEN_PROBES) {
+                    rejected++;
+                    return -1;
+                }
+                probes++;
+            }
+            return generation;
+        }
+
+        synchronized void record(long permitGeneration, boolean failed, boolean slow) {
+            if (permitGeneration != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                probes--;
+                if (failed || slow) {
+                    open();
+                } else if (++probeSuccesses >= HALF_OPEN_PROBES) {
+                    transition(State.CLOSED);
+                    closed++;
+                    logger.info("Closed circuit breaker for " + requestClass + " requests to " +
+                            endpoint);
+                }
+                return;
+            }
+            byte outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+            if (calls == WINDOW_SIZE) {
+                byte evicted = outcomes[next];
+                failures -= evicted & FAILED;
+                slowCalls -= (evicted & SLOW) >> 1;
+            } else {
+                calls++;
+            }
+            outcomes[next] = outcome;
+            next = (next + 1) % WINDOW_SIZE;
+            failures += outcome & FAILED;
+            slowCalls += (outcome & SLOW) >> 1;
+            if (calls >= MINIMUM_CALLS && (failures >= threshold * calls || slowCalls >=
+                    threshold * calls)) {
+                open();
+            }
+        }
+
+        synchronized void release(long permitGeneration) {
+            if (permitGeneration == generation && state == State.HALF_OPEN) {
+                probes--;
+            }
+        }
+
+        private void open() {
+            transition(State.OPEN);
+            openUntil = System.nanoTime() + openNanos;
+            opened++;
+            logger.warning("Opened circuit breaker for " + requestClass + " requests to " +
+                    endpoint);
+        }
+
+        private void transition(State to) {
+            state = to;
+            generation++;
+            probes = 0;
+            probeSuccesses = 0;
+            if (to == State.CLOSED) {
+                // Start a fresh window so the failures that opened the breaker are forgotten
+                next = 0;
+                calls = 0;
+                failures = 0;
+                slowCalls = 0;
+            }
+        }
+
+        synchronized CircuitBreakerStatistics getStatistics() {
+            return new CircuitBreakerStatistics(endpoint, requestClass, state, calls, (calls ==
+                    0) ? 0d : failures / (double) calls, (calls == 0) ? 0d : slowCalls / (double)
+                    calls, opened, halfOpened, closed, rejected);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch;
+
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.http.HttpConnectionRequestInterceptor;
+import com.cloudant.http.internal.Utils;
+import com.cloudant.http.internal.interceptors.CookieInterceptorBase;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opens connections to an endpoint so that they are in the connection pool before the first
+ * requests are made.
+ * <p>
+ * Each connection is opened by a {@code GET} request for the server's welcome document on its own
+ * thread, or task of the client's executor. The requests are started together and a response
+ * body is only read, releasing its connection to the pool, once every request has been answered,
+ * otherwise a later request could reuse the connection of an earlier one instead of opening a new
+ * connection. A response without a body, such as the response to a {@code HEAD} request, returns
+ * its connection to the pool as soon as it is received so it cannot be used to hold a connection.
+ * The waits, and each request, are bounded so that an executor with fewer threads than
+ * connections or an unresponsive server cannot stall the client.
+ * </p>
+ */
+final class ConnectionWarmer {
+
+    private static final Logger logger = Logger.getLogger(ConnectionWarmer.class.getName());
+
+    // The longest each request waits for the others to start or be answered, and the deadline of
+    // each request
+    private static final long WAIT_SECONDS = 5;
+
+    private ConnectionWarmer() {
+    }
+
+    /**
+     * Open connections to an endpoint and wait for them to be returned to the pool.
+     *
+     * @param url                 the URL of the endpoint
+     * @param factory             the connection factory that owns the pool
+     * @param requestInterceptors the client's request interceptors, session interceptors are
+     *                            not applied
+     * @param count               the number of connections to open
+     * @param executor            the executor to open the connections with, or {@code null} for
+     *                            a daemon thread per connection
+     */
+    static void warm(URL url, HttpConnection.HttpUrlConnectionFactory factory,
+                     List<HttpConnectionRequestInterceptor> requestInterceptors, int count,
+                     Executor executor) {
+        final CountDownLatch ready = new CountDownLatch(count);
+        final CountDownLatch responded = new CountDownLatch(count);
+        final CountDownLatch finished = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            final HttpConnection connection = Http.GET(url);
+            connection.connectionFactory = factory;
+            for (HttpConnectionRequestInterceptor interceptor : requestInterceptors) {
+                // There is no need to start a session to open a connection
+                if (!(interceptor instanceof CookieInterceptorBase)) {
+                    connection.requestInterceptors.add(interceptor);
+                }
+            }
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        open(connection, ready, responded);
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            };
+            if (executor == null) {
+                Thread thread = new Thread(task, "cloudant-pool-warm-up");
+                thread.setDaemon(true);
+                thread.start();
+            } else {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    logger.log(Level.WARNING, "Failed to open a connection to " + url, e);
+                    ready.countDown();
+                    responded.countDown();
+                    finished.countDown();
+                }
+            }
+        }
+        try {
+            // Each request waits to start, is sent and waits for the others to be answered
+            if (!finished.await(3 * WAIT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warning("Timed out opening connections to " + url + ", " + finished
+                        .getCount() + " of " + count + " did not finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warning("Interrupted opening connections to " + url);
+        }
+    }
+
+    private static void open(HttpConnection connection, CountDownLatch ready, CountDownLatch
+            responded) {
+        HttpURLConnection urlConnection = null;
+        ready.countDown();
+        try {
+            ready.await(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            urlConnection = connection.setDeadline(WAIT_SECONDS, TimeUnit.SECONDS).execute()
+                    .getConnection();
+            urlConnection.getResponseCode();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to open a connection to " + connection.url, e);
+            urlConnection = null;
+        } finally {
+            responded.countDown();
+        }
+        try {
+            responded.await(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (urlConnection != null) {
+            // Reading the response returns the connection to the pool
+            try {
+                Utils.consumeAndCloseStream(urlConnection.getResponseCode() / 100 == 2 ?
+                        urlConnection.getInputStream() : urlConnection.getErrorStream());
+            } catch (IOException e) {
+                connection.disconnect();
+            }
+        }
+    }
+}
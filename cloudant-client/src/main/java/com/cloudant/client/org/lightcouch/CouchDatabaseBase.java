@@ -1,6 +1,6 @@
 /*
  * Copyright (C) 2011 lightcouch.org
- * Copyright © 2015, 2021 IBM Corp. All rights reserved.
+ * Copyright © 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -27,16 +27,33 @@ import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.getRespons
 import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.streamToString;
 
 import com.cloudant.client.internal.DatabaseURIHelper;
+import com.cloudant.client.internal.DocumentUriTemplate;
+import com.cloudant.client.api.model.AttachmentDownloadOptions;
+import com.cloudant.client.api.model.AttachmentSink;
+import com.cloudant.client.api.model.AttachmentUpload;
 import com.cloudant.client.internal.util.DeserializationTypes;
+import com.cloudant.client.org.lightcouch.internal.StreamingAttachments;
 import com.cloudant.http.Http;
 import com.cloudant.http.HttpConnection;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
 import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 /**
@@ -49,10 +66,14 @@ public abstract class CouchDatabaseBase {
 
     static final Logger log = Logger.getLogger(CouchDatabase.class.getCanonicalName());
 
+    // The number of documents whose attachment stubs are read by each _all_docs request
+    private static final int STUB_BATCH_SIZE = 200;
+
     CouchDbClient couchDbClient;
     private String dbName;
     private URI dbUri;
     private URI clientUri;
+    private final DocumentUriTemplate documentUris;
 
     CouchDatabaseBase(CouchDbClient client, String name, boolean create) {
         assertNotEmpty(name, "name");
@@ -60,6 +81,7 @@ public abstract class CouchDatabaseBase {
         this.couchDbClient = client;
         this.clientUri = couchDbClient.getBaseUri();
         this.dbUri = new DatabaseURIHelper(clientUri, name).getDatabaseUri();
+        this.documentUris = new DocumentUriTemplate(dbUri);
         if (create) {
             try {
                 couchDbClient.createDB(dbName);
@@ -84,7 +106,7 @@ public abstract class CouchDatabaseBase {
         assertNotEmpty(classType, "Class");
         assertNotEmpty(id, "id");
         assertDocumentTypeId(id);
-        final URI uri = new DatabaseURIHelper(dbUri).documentUri(id);
+        final URI uri = documentUris.documentUri(id);
         return couchDbClient.get(uri, classType);
     }
 
@@ -102,10 +124,64 @@ public abstract class CouchDatabaseBase {
         assertNotEmpty(classType, "Class");
         assertNotEmpty(id, "id");
         assertDocumentTypeId(id);
-        final URI uri = new DatabaseURIHelper(dbUri).documentUri(id, params);
+        final URI uri = documentUris.documentUri(id, params);
         return couchDbClient.get(uri, classType);
     }
 
+    /**
+     * Finds an Object of the specified type with its inline attachments, writing the data of
+     * attachments to the sinks chosen by the provider.
+     *
+     * @param <T>       Object type.
+     * @param classType The class of type T.
+     * @param id        The document id.
+     * @param params    Extra parameters to append, attachments are always requested.
+     * @param sinks     Chooses the sink for each attachment.
+     * @return An object of type T.
+     * @throws NoDocumentException If the document is not found in the database.
+     */
+    public <T> T find(Class<T> classType, String id, Params params, AttachmentSink.Provider
+            sinks) {
+        assertNotEmpty(classType, "Class");
+        assertNotEmpty(id, "id");
+        assertNotEmpty(sinks, "sinks");
+        assertDocumentTypeId(id);
+        Params withAttachments = new Params();
+        if (params != null) {
+            withAttachments.addAll(params);
+        }
+        withAttachments.replaceOrAdd("attachments", "true");
+        final URI uri = documentUris.documentUri(id, withAttachments);
+        return couchDbClient.get(uri, classType, sinks);
+    }
+
+    /**
+     * Finds an Object of the specified type with its attachments in a {@code multipart/related}
+     * response, writing the data of attachments to the sinks chosen by the provider.
+     *
+     * @param <T>       Object type.
+     * @param classType The class of type T.
+     * @param id        The document id.
+     * @param params    Extra parameters to append, attachments are always requested.
+     * @param sinks     Chooses the sink for each attachment.
+     * @return An object of type T.
+     * @throws NoDocumentException If the document is not found in the database.
+     */
+    public <T> T findMultipart(Class<T> classType, String id, Params params, AttachmentSink
+            .Provider sinks) {
+        assertNotEmpty(classType, "Class");
+        assertNotEmpty(id, "id");
+        assertNotEmpty(sinks, "sinks");
+        assertDocumentTypeId(id);
+        Params withAttachments = new Params();
+        if (params != null) {
+            withAttachments.addAll(params);
+        }
+        withAttachments.replaceOrAdd("attachments", "true");
+        final URI uri = documentUris.documentUri(id, withAttachments);
+        return couchDbClient.getMultipart(uri, classType, sinks);
+    }
+
     /**
      * Finds an Object of the specified type.
      *
@@ -121,7 +197,7 @@ public abstract class CouchDatabaseBase {
         assertNotEmpty(id, "id");
         assertNotEmpty(id, "rev");
         assertDocumentTypeId(id);
-        final URI uri = new DatabaseURIHelper(dbUri).documentUri(id, "rev", rev);
+        final URI uri = documentUris.documentUri(id, "rev", rev);
         return couchDbClient.get(uri, classType);
     }
 
@@ -151,7 +227,7 @@ public abstract class CouchDatabaseBase {
     public InputStream find(String id) {
         assertNotEmpty(id, "id");
         assertDocumentTypeId(id);
-        return couchDbClient.get(new DatabaseURIHelper(dbUri).documentUri(id));
+        return couchDbClient.get(documentUris.documentUri(id));
     }
 
     /**
@@ -167,7 +243,7 @@ public abstract class CouchDatabaseBase {
         assertNotEmpty(id, "id");
         assertNotEmpty(rev, "rev");
         assertDocumentTypeId(id);
-        final URI uri = new DatabaseURIHelper(dbUri).documentUri(id, "rev", rev);
+        final URI uri = documentUris.documentUri(id, "rev", rev);
         return couchDbClient.get(uri);
     }
 
@@ -182,7 +258,7 @@ public abstract class CouchDatabaseBase {
         assertDocumentTypeId(id);
         InputStream response = null;
         try {
-            response = couchDbClient.head(new DatabaseURIHelper(dbUri).documentUri(id));
+            response = couchDbClient.head(documentUris.documentUri(id));
         } catch (NoDocumentException e) {
             return false;
         } finally {
@@ -201,7 +277,32 @@ public abstract class CouchDatabaseBase {
      * @throws DocumentConflictException If a conflict is detected during the save.
      */
     public Response save(Object object) {
-        return couchDbClient.put(getDBUri(), object, true);
+        return save(object, -1);
+    }
+
+    /**
+     * Saves an object in the database using HTTP <tt>PUT</tt> request, with specified write
+     * quorum.
+     *
+     * @param object      The object to save
+     * @param writeQuorum the write quorum, or -1 for the server default
+     * @return {@link Response}
+     * @throws DocumentConflictException If a conflict is detected during the save.
+     */
+    public Response save(Object object, int writeQuorum) {
+        return couchDbClient.put(documentUris, object, true, writeQuorum);
+    }
+
+    /**
+     * Saves an object in the database with its attachments in a single {@code multipart/related}
+     * request.
+     *
+     * @param object The object to save
+     * @return {@link Response}
+     * @throws DocumentConflictException If a conflict is detected during the save.
+     */
+    public Response saveMultipart(Object object) {
+        return couchDbClient.putMultipart(documentUris, object, true);
     }
 
     /**
@@ -215,8 +316,21 @@ public abstract class CouchDatabaseBase {
         assertNotEmpty(object, "object");
         InputStream response = null;
         try {
-            response = couchDbClient.post(new DatabaseURIHelper(dbUri).getDatabaseUri(),
-                    getGson().toJson(object));
+            StreamingAttachments attachments = StreamingAttachments.begin();
+            String json;
+            try {
+                json = getGson().toJson(object);
+            } finally {
+                attachments.end();
+            }
+            URI uri = new DatabaseURIHelper(dbUri).getDatabaseUri();
+            if (attachments.isEmpty()) {
+                response = couchDbClient.post(uri, json);
+            } else {
+                HttpConnection connection = Http.POST(uri, "application/json");
+                attachments.setRequestBody(connection, json);
+                response = couchDbClient.executeToInputStream(connection);
+            }
             return getResponse(response, Response.class, getGson());
         } finally {
             close(response);
@@ -232,7 +346,33 @@ public abstract class CouchDatabaseBase {
      * @throws DocumentConflictException If a conflict is detected during the update.
      */
     public Response update(Object object) {
-        return couchDbClient.put(getDBUri(), object, false);
+        return update(object, -1);
+    }
+
+    /**
+     * Updates an object in the database with specified write quorum, the object must have the
+     * correct <code>_id</code> and <code>_rev</code> values.
+     *
+     * @param object      The object to update
+     * @param writeQuorum the write quorum, or -1 for the server default
+     * @return {@link Response}
+     * @throws DocumentConflictException If a conflict is detected during the update.
+     */
+    public Response update(Object object, int writeQuorum) {
+        return couchDbClient.put(documentUris, object, false, writeQuorum);
+    }
+
+    /**
+     * Updates an object in the database with its attachments in a single
+     * {@code multipart/related} request, the object must have the correct <code>_id</code> and
+     * <code>_rev</code> values.
+     *
+     * @param object The object to update
+     * @return {@link Response}
+     * @throws DocumentConflictException If a conflict is detected during the update.
+     */
+    public Response updateMultipart(Object object) {
+        return couchDbClient.putMultipart(documentUris, object, false);
     }
 
     /**
@@ -264,7 +404,7 @@ public abstract class CouchDatabaseBase {
         assertNotEmpty(id, "id");
         assertNotEmpty(rev, "rev");
         assertDocumentTypeId(id);
-        final URI uri = new DatabaseURIHelper(dbUri).documentUri(id, rev);
+        final URI uri = documentUris.documentUri(id, "rev", rev);
         return couchDbClient.delete(uri);
     }
 
@@ -290,7 +430,7 @@ public abstract class CouchDatabaseBase {
             if (jsonObject.toString().length() != 0) {
                 connection.setRequestBody(jsonObject.toString());
             }
-            couchDbClient.execute(connection);
+            connection = couchDbClient.execute(connection);
             responseStream = connection.responseAsInputStream();
             List<Response> bulkResponses = getResponseList(responseStream, getGson(),
                     DeserializationTypes.LC_RESPONSES);
@@ -319,10 +459,31 @@ public abstract class CouchDatabaseBase {
     public InputStream getAttachment(String docId, String attachmentName, String revId) {
         assertDocumentTypeId(docId);
         assertValidAttachmentName(attachmentName);
-        final URI uri = new DatabaseURIHelper(dbUri).attachmentUri(docId, revId, attachmentName);
+        final URI uri = documentUris.attachmentUri(docId, revId, attachmentName);
         return getAttachment(uri);
     }
 
+    /**
+     * Downloads an attachment into a file with range requests, resuming after failures and
+     * verifying its digest.
+     *
+     * @param docId          the document id
+     * @param attachmentName the attachment name
+     * @param revId          the document revision id or {@code null}
+     * @param channel        the file to write the attachment to
+     * @param options        the download options
+     * @return the length of the attachment in bytes
+     */
+    public long downloadAttachment(String docId, String attachmentName, String revId,
+                                   FileChannel channel, AttachmentDownloadOptions options) {
+        assertDocumentTypeId(docId);
+        assertValidAttachmentName(attachmentName);
+        assertNotEmpty(channel, "channel");
+        assertNotEmpty(options, "options");
+        final URI uri = documentUris.attachmentUri(docId, revId, attachmentName);
+        return new AttachmentDownloader(couchDbClient, uri, channel, options).download();
+    }
+
     /**
      * Reads an attachment from the database.
      *
@@ -333,7 +494,7 @@ public abstract class CouchDatabaseBase {
      */
     private InputStream getAttachment(URI uri) {
         HttpConnection connection = Http.GET(uri);
-        couchDbClient.execute(connection);
+        connection = couchDbClient.execute(connection);
         try {
             return connection.responseAsInputStream();
         } catch (IOException e) {
@@ -372,6 +533,158 @@ public abstract class CouchDatabaseBase {
     public Response saveAttachment(InputStream in, String name, String contentType, String docId,
                                    String docRev) {
         assertNotEmpty(in, "in");
+        final URI uri = attachmentUri(name, contentType, docId, docRev);
+        return couchDbClient.put(uri, in, contentType);
+    }
+
+    /**
+     * Saves an attachment from a file to an existing document given both a document id and
+     * revision, or save to a new document given only the id, and rev as {@code null}. The file
+     * is sent with a fixed length and read again if the request is retried.
+     *
+     * @param file        The file holding the binary data.
+     * @param name        The attachment name.
+     * @param contentType The attachment "Content-Type".
+     * @param docId       The document id to save the attachment under, or {@code null} to save
+     *                    under a new document.
+     * @param docRev      The document revision to save the attachment under, or {@code null}
+     *                    when saving to a new document.
+     * @return {@link Response}
+     * @throws DocumentConflictException
+     */
+    public Response saveAttachment(File file, String name, String contentType, String docId,
+                                   String docRev) {
+        assertNotEmpty(file, "file");
+        if (!file.isFile()) {
+            throw new IllegalArgumentException(file + " is not a file.");
+        }
+        final URI uri = attachmentUri(name, contentType, docId, docRev);
+        return couchDbClient.put(uri, file, contentType);
+    }
+
+    /**
+     * Saves attachments to existing documents, skipping any attachment that is identical to the
+     * attachment of the same name on the current revision of its document.
+     * <p>
+     * The current revisions of the documents are read in batches from {@code _all_docs} with
+     * attachment stubs, then each attachment is compared with its stub by Content-Type, length
+     * and MD5 digest. An attachment the server stored compressed has a digest of the compressed
+     * data, so it is always saved. Attachments that differ are saved in order. The first
+     * attachment saved to a document is saved under the revision read with the stubs, and each
+     * later one under the revision of the save before it. The revision of an upload is only
+     * used if its document was not found.
+     * </p>
+     *
+     * @param uploads the attachments to save
+     * @return a response for each upload in order; a skipped upload has status code 304 and the
+     * latest revision of its document
+     * @throws DocumentConflictException if a changed attachment is saved under a revision that
+     *                                   is not current
+     */
+    public List<Response> saveAttachmentsIfChanged(List<AttachmentUpload> uploads) {
+        assertNotEmpty(uploads, "uploads");
+        Set<String> ids = new LinkedHashSet<String>();
+        for (AttachmentUpload upload : uploads) {
+            assertDocumentTypeId(upload.getDocId());
+            ids.add(upload.getDocId());
+        }
+        Map<String, Document> current = currentDocuments(new ArrayList<String>(ids));
+        // The latest revision of each document, which changes as attachments are saved to it
+        Map<String, String> revisions = new HashMap<String, String>();
+        for (Document document : current.values()) {
+            revisions.put(document.getId(), document.getRevision());
+        }
+        List<Response> responses = new ArrayList<Response>(uploads.size());
+        for (AttachmentUpload upload : uploads) {
+            Document document = current.get(upload.getDocId());
+            String rev = revisions.containsKey(upload.getDocId()) ? revisions.get(upload
+                    .getDocId()) : upload.getDocRev();
+            Response response;
+            if (document != null && isUnchanged(upload, document)) {
+                response = new Response();
+                response.setId(document.getId());
+                response.setRev(rev);
+                response.setStatusCode(HttpURLConnection.HTTP_NOT_MODIFIED);
+            } else if (upload.getFile() != null) {
+                response = saveAttachment(upload.getFile(), upload.getName(), upload
+                        .getContentType(), upload.getDocId(), rev);
+            } else {
+                response = saveAttachment(upload.getInputStream(), upload.getName(), upload
+                        .getContentType(), upload.getDocId(), rev);
+            }
+            revisions.put(upload.getDocId(), response.getRev());
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    /**
+     * Read the current revisions of documents with their attachment stubs.
+     *
+     * @return the documents that exist, by id
+     */
+    private Map<String, Document> currentDocuments(List<String> ids) {
+        Map<String, Document> documents = new HashMap<String, Document>();
+        final URI uri = new DatabaseURIHelper(dbUri).path("_all_docs").query("include_docs",
+                "true").build();
+        for (int i = 0; i < ids.size(); i += STUB_BATCH_SIZE) {
+            JsonObject body = new JsonObject();
+            body.add("keys", getGson().toJsonTree(ids.subList(i, Math.min(ids.size(), i +
+                    STUB_BATCH_SIZE))));
+            HttpConnection connection = Http.POST(uri, "application/json").setRequestBody(body
+                    .toString());
+            InputStream responseStream = null;
+            try {
+                responseStream = couchDbClient.execute(connection).responseAsInputStream();
+                JsonArray rows = new JsonParser().parse(new InputStreamReader(responseStream,
+                        "UTF-8")).getAsJsonObject().getAsJsonArray("rows");
+                for (JsonElement row : rows) {
+                    // Missing and deleted documents have no doc
+                    JsonElement doc = row.getAsJsonObject().get("doc");
+                    if (doc != null && doc.isJsonObject()) {
+                        Document document = getGson().fromJson(doc, Document.class);
+                        documents.put(document.getId(), document);
+                    }
+                }
+            } catch (IOException e) {
+                throw new CouchDbException("Error retrieving response input stream.", e);
+            } finally {
+                close(responseStream);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * @return {@code true} if the document already has the attachment
+     */
+    private static boolean isUnchanged(AttachmentUpload upload, Document document) {
+        Attachment stub = (document.getAttachments() == null) ? null : document.getAttachments()
+                .get(upload.getName());
+        if (stub == null || stub.getDigest() == null || stub.getEncoding() != null ||
+                !upload.getContentType().equals(stub.getContentType())) {
+            return false;
+        }
+        if (upload.getFile() == null) {
+            return stub.getDigest().equals(upload.getDigest());
+        }
+        if (upload.getFile().length() != stub.getLength()) {
+            return false;
+        }
+        try {
+            return stub.getDigest().equals(AttachmentUpload.md5Digest(upload.getFile()));
+        } catch (IOException e) {
+            throw new CouchDbException("Error reading attachment file.", e);
+        }
+    }
+
+    /**
+     * Validate the arguments for saving an attachment.
+     *
+     * @return the URI of the attachment, on a new document with a generated id if docId is
+     * {@code null}
+     */
+    private URI attachmentUri(String name, String contentType, String docId, String docRev) {
         assertNotEmpty(name, "name");
         assertValidAttachmentName(name);
         assertNotEmpty(contentType, "ContentType");
@@ -388,8 +701,7 @@ public abstract class CouchDatabaseBase {
             }
         }
         assertDocumentTypeId(docId);
-        final URI uri = new DatabaseURIHelper(dbUri).attachmentUri(docId, docRev, name);
-        return couchDbClient.put(uri, in, contentType);
+        return documentUris.attachmentUri(docId, docRev, name);
     }
 
     /**
@@ -427,7 +739,7 @@ public abstract class CouchDatabaseBase {
         assertNotEmpty(rev, "rev");
         assertNotEmpty(attachmentName, "attachmentName");
         assertValidAttachmentName(attachmentName);
-        final URI uri = new DatabaseURIHelper(dbUri).attachmentUri(id, rev, attachmentName);
+        final URI uri = documentUris.attachmentUri(id, rev, attachmentName);
         return couchDbClient.delete(uri);
     }
 
@@ -1,6 +1,6 @@
 /*
  * Copyright (C) 2011 lightcouch.org
- * Copyright © 2015, 2021 IBM Corp. All rights reserved.
+ * Copyright © 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -22,32 +22,54 @@ import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.generateUU
 import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.getAsString;
 import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.getResponse;
 
+import com.cloudant.client.api.model.AttachmentSink;
+import com.cloudant.client.api.model.CircuitBreakerStatistics;
+import com.cloudant.client.api.model.ConnectionPoolStatistics;
+import com.cloudant.client.api.model.EndpointStatistics;
+import com.cloudant.client.api.model.HedgeStatistics;
 import com.cloudant.client.api.model.MetaInformation;
+import com.cloudant.client.api.model.QueryPlan;
+import com.cloudant.client.api.model.QueryStatistics;
+import com.cloudant.client.api.model.SessionStatistics;
+import com.cloudant.client.api.query.ExecutionStats;
 import com.cloudant.client.api.scheduler.SchedulerDocsResponse;
 import com.cloudant.client.api.scheduler.SchedulerJobsResponse;
 import com.cloudant.client.internal.DatabaseURIHelper;
+import com.cloudant.client.internal.DocumentUriTemplate;
 import com.cloudant.client.internal.URIBase;
 import com.cloudant.client.internal.util.DeserializationTypes;
+import com.cloudant.client.org.lightcouch.internal.AttachmentDataReader;
+import com.cloudant.client.org.lightcouch.internal.MultipartRelatedReader;
 import com.cloudant.client.org.lightcouch.internal.GsonHelper;
+import com.cloudant.client.org.lightcouch.internal.StreamingAttachments;
+import com.cloudant.http.DeadlineExceededException;
 import com.cloudant.http.Http;
+import com.cloudant.http.HttpCompression;
 import com.cloudant.http.HttpConnection;
+import com.cloudant.http.HttpConnectionInterceptor;
 import com.cloudant.http.HttpConnectionRequestInterceptor;
 import com.cloudant.http.HttpConnectionResponseInterceptor;
+import com.cloudant.http.internal.interceptors.CookieInterceptorBase;
 import com.cloudant.http.internal.interceptors.HttpConnectionInterceptorException;
+import com.cloudant.http.internal.interceptors.SSLCustomizerInterceptor;
+import com.cloudant.http.internal.BufferPool;
 import com.cloudant.http.internal.DefaultHttpUrlConnectionFactory;
+import com.cloudant.http.internal.jdk.JdkHttpHelper;
+import com.cloudant.http.internal.ok.ConnectionMetrics;
 import com.cloudant.http.internal.ok.OkHelper;
 import com.cloudant.http.internal.ok.OkHttpClientHttpUrlConnectionFactory;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.InstanceCreator;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 
-import org.apache.commons.io.IOUtils;
 
 import okhttp3.ConnectionPool;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -57,9 +79,17 @@ import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
@@ -82,6 +112,52 @@ public class CouchDbClient {
     private List<HttpConnectionResponseInterceptor> responseInterceptors;
 
     private final HttpConnection.HttpUrlConnectionFactory factory;
+    private final URL url;
+    private final long connectionKeepAliveNanos;
+
+    // null unless identical concurrent GET requests should be coalesced
+    private final RequestCoalescer coalescer;
+
+    // null unless request and response bodies should be compressed
+    private final HttpCompression compression;
+
+    // null unless requests should be routed across multiple endpoints
+    private final EndpointRouter router;
+
+    // null unless slow GET requests should be hedged
+    private final RequestHedger hedger;
+
+    // null unless requests should fail fast while an endpoint is failing or slow
+    private final CircuitBreakers breakers;
+
+    // null unless the indexes of _find query shapes should be pinned
+    private final QueryPlanCache queryPlans;
+
+    // null unless the statistics of _find queries should be recorded
+    private final QueryStatisticsRecorder queryStatistics;
+
+    // The default request deadline in nanoseconds, or 0 for none
+    private final long deadlineNanos;
+    // Request deadlines for specific databases, keyed by the raw path of the database URI
+    private final ConcurrentMap<String, Long> databaseDeadlines = new ConcurrentHashMap<String,
+            Long>();
+    private final int basePathLength;
+
+    // The executor for background work, null to start a thread for each task
+    private final Executor executor;
+
+    // Sends a request, to the routed endpoint if there are several, and reads the response code
+    private final RequestHedger.Attempt attempt = new RequestHedger.Attempt() {
+        @Override
+        public void execute(HttpConnection connection) throws IOException {
+            if (router == null) {
+                send(connection, (breakers == null) ? null : breakers.acquire(connection.url,
+                        connection));
+            } else {
+                executeRouted(connection);
+            }
+        }
+    };
 
     CouchDbClient(CouchDbConfig config) {
         final CouchDbProperties props = config.getProperties();
@@ -93,26 +169,141 @@ public class CouchDbClient {
         }
 
         this.gson = GsonHelper.initGson(new GsonBuilder()).create();
+        this.basePathLength = clientUri.getRawPath() == null ? 0 : clientUri.getRawPath()
+                .length();
+        this.deadlineNanos = props.getRequestDeadlineNanos();
+        if (deadlineNanos > 0) {
+            log.config("Setting request deadline to " + TimeUnit.NANOSECONDS.toMillis
+                    (deadlineNanos) + " ms");
+        }
+
+        this.executor = props.getExecutor();
+        if (executor != null) {
+            log.config("Running background work with " + executor);
+        }
+
+        this.url = props.getCouchDbURL();
+        this.connectionKeepAliveNanos = props.getConnectionKeepAliveNanos();
+        this.factory = newConnectionFactory(props, url);
 
+        this.requestInterceptors = new ArrayList<HttpConnectionRequestInterceptor>();
+        this.responseInterceptors = new ArrayList<HttpConnectionResponseInterceptor>();
+
+        if (props.getRequestInterceptors() != null) {
+            this.requestInterceptors.addAll(props.getRequestInterceptors());
+        }
+
+        if (props.getResponseInterceptors() != null) {
+            this.responseInterceptors.addAll(props.getResponseInterceptors());
+        }
+
+        if (props.isCoalesceGetRequests()) {
+            log.config("Coalescing identical concurrent GET requests");
+            this.coalescer = new RequestCoalescer();
+        } else {
+            this.coalescer = null;
+        }
+
+        this.compression = props.getCompression();
+        if (compression != null) {
+            log.config("Compressing request bodies of at least " + compression
+                    .getMinimumRequestSize() + " bytes");
+        }
+
+        if (props.getHedgePercentile() > 0) {
+            log.config("Hedging GET requests slower than the " + props.getHedgePercentile() +
+                    " percentile, up to " + props.getMaxHedgeRatio() + " of requests");
+            this.hedger = new RequestHedger(props.getHedgePercentile(), props.getMaxHedgeRatio(),
+                    props.getExecutor());
+        } else {
+            this.hedger = null;
+        }
+
+        if (props.getCircuitBreakerThreshold() > 0) {
+            log.config("Opening circuit breakers at a failure or slow call rate of " + props
+                    .getCircuitBreakerThreshold());
+            this.breakers = new CircuitBreakers(props.getCircuitBreakerThreshold(), props
+                    .getCircuitBreakerSlowCallNanos(), props.getCircuitBreakerOpenNanos());
+        } else {
+            this.breakers = null;
+        }
+
+        if (props.getQueryPlanCacheSize() > 0) {
+            log.config("Caching the query plans of up to " + props.getQueryPlanCacheSize() +
+                    " query shapes");
+            this.queryPlans = new QueryPlanCache(this, props.getQueryPlanCacheSize());
+        } else {
+            this.queryPlans = null;
+        }
+
+        if (props.getSlowQueryRatio() > 0) {
+            log.config("Recording query statistics with a slow query ratio of " + props
+                    .getSlowQueryRatio());
+            this.queryStatistics = new QueryStatisticsRecorder(props.getSlowQueryRatio(), props
+                    .getSlowQuerySampling());
+        } else {
+            this.queryStatistics = null;
+        }
+
+        if (props.getEndpoints().isEmpty()) {
+            this.router = null;
+        } else {
+            this.router = new EndpointRouter();
+            for (int i = 0; i < props.getEndpoints().size(); i++) {
+                // The primary endpoint shares the client's connection factory
+                URL endpoint = props.getEndpoints().get(i);
+                router.addEndpoint(endpoint, (i == 0) ? factory : newConnectionFactory(props,
+                        endpoint), props.getEndpointSessionInterceptors().get(i));
+            }
+        }
+
+        int prewarm = props.getPrewarmConnections();
+        if (props.getMaxConnections() > 0) {
+            // Any more connections than the pool keeps would be closed straight away
+            prewarm = Math.min(prewarm, props.getMaxConnections());
+        }
+        if (prewarm > 0) {
+            log.config("Opening " + prewarm + " connections to each endpoint");
+            for (Map.Entry<URL, HttpConnection.HttpUrlConnectionFactory> endpoint :
+                    connectionFactories().entrySet()) {
+                ConnectionWarmer.warm(endpoint.getKey(), endpoint.getValue(),
+                        requestInterceptors, prewarm, props.getExecutor());
+            }
+        }
+    }
+
+    private static HttpConnection.HttpUrlConnectionFactory newConnectionFactory(
+            CouchDbProperties props, URL endpoint) {
+        HttpConnection.HttpUrlConnectionFactory factory;
         // If OkHttp is available then use it for connection pooling, otherwise default to the
         // JVM built-in pooling for HttpUrlConnection
         if (OkHelper.isOkUsable()) {
             log.config("Using OkHttp");
-            OkHttpClientHttpUrlConnectionFactory factory = new
+            OkHttpClientHttpUrlConnectionFactory okFactory = new
                     OkHttpClientHttpUrlConnectionFactory();
             final int maxConns = props.getMaxConnections();
             if (maxConns > 0) {
-                log.config("Setting max connections to " + maxConns);
-                //keep connections open for as long as possible, anything over 2.5 minutes will be
-                //longer than the server so we'll use a 3 minute timeout
-                ConnectionPool pool = new ConnectionPool(maxConns, 3l, TimeUnit
-                        .MINUTES);
-                factory.getOkHttpClientBuilder().connectionPool(pool);
+                log.config("Setting max connections to " + maxConns + " with a keep alive of " +
+                        TimeUnit.NANOSECONDS.toSeconds(props.getConnectionKeepAliveNanos()) +
+                        " s");
+                ConnectionPool pool = new ConnectionPool(maxConns, props
+                        .getConnectionKeepAliveNanos(), TimeUnit.NANOSECONDS);
+                okFactory.getOkHttpClientBuilder().connectionPool(pool);
+            }
+            if (props.getExecutor() != null) {
+                okFactory.setExecutor(props.getExecutor());
+            }
+            if (props.getHttp2MaxConcurrentStreams() > 0) {
+                okFactory.setHttp2(props.getHttp2MaxConcurrentStreams(), "http".equals(endpoint
+                        .getProtocol()), props.getHttp2StreamWaitNanos(), TimeUnit.NANOSECONDS);
             }
-            this.factory = factory;
+            factory = okFactory;
+        } else if (JdkHttpHelper.isJdkHttpUsable() && !isSslCustomized(props)) {
+            log.config("Using java.net.http HttpClient");
+            factory = JdkHttpHelper.newConnectionFactory(props.getExecutor());
         } else {
             log.config("Using built-in HttpUrlConnection");
-            this.factory = new DefaultHttpUrlConnectionFactory();
+            factory = new DefaultHttpUrlConnectionFactory();
         }
 
         //set the proxy if it has been configured
@@ -122,17 +313,20 @@ public class CouchDbClient {
                 factory.setProxyAuthentication(props.getProxyAuthentication());
             }
         }
+        return factory;
+    }
 
-        this.requestInterceptors = new ArrayList<HttpConnectionRequestInterceptor>();
-        this.responseInterceptors = new ArrayList<HttpConnectionResponseInterceptor>();
-
-        if (props.getRequestInterceptors() != null) {
-            this.requestInterceptors.addAll(props.getRequestInterceptors());
-        }
-
-        if (props.getResponseInterceptors() != null) {
-            this.responseInterceptors.addAll(props.getResponseInterceptors());
+    /**
+     * @return {@code true} if the requests need a custom SSL socket factory or hostname verifier,
+     * which only {@code HttpsURLConnection} supports
+     */
+    private static boolean isSslCustomized(CouchDbProperties props) {
+        for (HttpConnectionRequestInterceptor interceptor : props.getRequestInterceptors()) {
+            if (interceptor instanceof SSLCustomizerInterceptor) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -160,6 +354,220 @@ public class CouchDbClient {
         // The execute method handles non-2xx response codes by throwing a CouchDbException.
 
         factory.shutdown();
+        if (hedger != null) {
+            hedger.shutdown();
+        }
+        if (router != null) {
+            for (EndpointRouter.Endpoint endpoint : router.getEndpoints()) {
+                if (endpoint.getConnectionFactory() != factory) {
+                    endpoint.getConnectionFactory().shutdown();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the statistics of each endpoint, primary first, or an empty list if the client was
+     * not built with multiple endpoints
+     */
+    public List<EndpointStatistics> getEndpointStatistics() {
+        if (router == null) {
+            return Collections.emptyList();
+        }
+        return router.getStatistics();
+    }
+
+    /**
+     * @return the connection factory of each endpoint, primary first
+     */
+    private Map<URL, HttpConnection.HttpUrlConnectionFactory> connectionFactories() {
+        Map<URL, HttpConnection.HttpUrlConnectionFactory> factories = new LinkedHashMap<URL,
+                HttpConnection.HttpUrlConnectionFactory>();
+        if (router == null) {
+            factories.put(url, factory);
+        } else {
+            for (EndpointRouter.Endpoint endpoint : router.getEndpoints()) {
+                factories.put(endpoint.url, endpoint.getConnectionFactory());
+            }
+        }
+        return factories;
+    }
+
+    /**
+     * Change the maximum number of connections kept in the connection pool of each endpoint.
+     * Idle connections are closed and new connections are opened from a pool of the new size.
+     *
+     * @param maxConnections the maximum number of connections to keep in each pool
+     * @throws IllegalArgumentException      if maxConnections is not greater than 0
+     * @throws UnsupportedOperationException if OkHttp is not being used for connection pooling
+     */
+    public void setMaxConnections(int maxConnections) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("The maximum number of connections must be " +
+                    "greater than 0.");
+        }
+        if (!OkHelper.isOkUsable()) {
+            throw new UnsupportedOperationException("The connection pool can only be resized " +
+                    "when using OkHttp.");
+        }
+        log.config("Setting max connections to " + maxConnections);
+        for (HttpConnection.HttpUrlConnectionFactory f : connectionFactories().values()) {
+            ((OkHttpClientHttpUrlConnectionFactory) f).setConnectionPool(maxConnections,
+                    connectionKeepAliveNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return the connection pool statistics of each endpoint, primary first, or an empty list
+     * if OkHttp is not being used for connection pooling
+     */
+    public List<ConnectionPoolStatistics> getConnectionPoolStatistics() {
+        if (!OkHelper.isOkUsable()) {
+            return Collections.emptyList();
+        }
+        List<ConnectionPoolStatistics> statistics = new ArrayList<ConnectionPoolStatistics>();
+        for (Map.Entry<URL, HttpConnection.HttpUrlConnectionFactory> endpoint :
+                connectionFactories().entrySet()) {
+            OkHttpClientHttpUrlConnectionFactory okFactory =
+                    (OkHttpClientHttpUrlConnectionFactory) endpoint.getValue();
+            ConnectionMetrics metrics = okFactory.getConnectionMetrics();
+            int idle = okFactory.getIdleConnectionCount();
+            long acquisitions = metrics.getAcquisitions();
+            double nanosPerMilli = TimeUnit.MILLISECONDS.toNanos(1);
+            statistics.add(new ConnectionPoolStatistics(endpoint.getKey(), idle, Math.max(0,
+                    okFactory.getConnectionCount() - idle), metrics.getConnectionsOpened(),
+                    acquisitions, (acquisitions == 0) ? 0d : metrics.getAcquireNanos() /
+                    (double) acquisitions / nanosPerMilli, metrics.getMaxAcquireNanos() /
+                    nanosPerMilli));
+        }
+        return statistics;
+    }
+
+    /**
+     * @return the hedged request statistics, or {@code null} if GET requests are not hedged
+     */
+    public HedgeStatistics getHedgeStatistics() {
+        return (hedger == null) ? null : hedger.getStatistics();
+    }
+
+    /**
+     * @return the session renewal statistics of each endpoint, primary first, or an empty list if
+     * the client does not use session authentication
+     */
+    public List<SessionStatistics> getSessionStatistics() {
+        List<SessionStatistics> statistics = new ArrayList<SessionStatistics>();
+        if (router == null) {
+            for (HttpConnectionRequestInterceptor interceptor : requestInterceptors) {
+                addSessionStatistics(statistics, url, interceptor);
+            }
+        } else {
+            for (EndpointRouter.Endpoint endpoint : router.getEndpoints()) {
+                addSessionStatistics(statistics, endpoint.url, endpoint.getSessionInterceptor());
+            }
+        }
+        return statistics;
+    }
+
+    private static void addSessionStatistics(List<SessionStatistics> statistics, URL url,
+                                             HttpConnectionInterceptor interceptor) {
+        if (interceptor instanceof CookieInterceptorBase) {
+            CookieInterceptorBase session = (CookieInterceptorBase) interceptor;
+            statistics.add(new SessionStatistics(url, session.getRenewalCount(), session
+                    .getProactiveRenewalCount(), session.getRenewalFailureCount(), session
+                    .getLastRenewalLatencyMillis(), session.getMaxRenewalLatencyMillis(),
+                    session.getTotalRenewalLatencyMillis()));
+        }
+    }
+
+    /**
+     * @return the statistics of each circuit breaker, or an empty list if circuit breakers are not
+     * enabled
+     */
+    public List<CircuitBreakerStatistics> getCircuitBreakerStatistics() {
+        if (breakers == null) {
+            return Collections.emptyList();
+        }
+        return breakers.getStatistics();
+    }
+
+    /**
+     * Set {@code use_index} of a {@code _find} query to the index the server chose for queries
+     * of the same shape, if query plans are cached.
+     *
+     * @param findUri the {@code _find} URI of the query
+     * @param query   the query
+     * @return the query with its index pinned, or the query unchanged
+     */
+    public String pinQueryIndex(URI findUri, String query) {
+        return (queryPlans == null) ? query : queryPlans.pin(findUri, query);
+    }
+
+    /**
+     * Discard the cached plan for the shape of a {@code _find} query.
+     *
+     * @param findUri the {@code _find} URI of the query
+     * @param query   the query
+     */
+    public void evictQueryPlan(URI findUri, String query) {
+        if (queryPlans != null) {
+            queryPlans.evict(findUri, query);
+        }
+    }
+
+    /**
+     * @return the cached query plans, or an empty list if query plans are not cached
+     */
+    public List<QueryPlan> getQueryPlans() {
+        if (queryPlans == null) {
+            return Collections.emptyList();
+        }
+        return queryPlans.getPlans();
+    }
+
+    /**
+     * Set {@code execution_stats} of a {@code _find} query, if query statistics are recorded and
+     * the query does not already set it.
+     *
+     * @param query the query
+     * @return the query asking for execution statistics, or the query unchanged
+     */
+    public String requestQueryStatistics(String query) {
+        return (queryStatistics == null) ? query : QueryStatisticsRecorder.withExecutionStats
+                (query);
+    }
+
+    /**
+     * Record the statistics of a {@code _find} query, if query statistics are recorded.
+     *
+     * @param findUri      the {@code _find} URI of the query
+     * @param query        the query
+     * @param latencyNanos the time from sending the query to receiving its results
+     * @param stats        the execution statistics of the query, or {@code null} if the server
+     *                     did not return them
+     */
+    public void recordQueryStatistics(URI findUri, String query, long latencyNanos,
+                                      ExecutionStats stats) {
+        if (queryStatistics != null) {
+            queryStatistics.record(findUri, query, latencyNanos, stats);
+        }
+    }
+
+    /**
+     * @return the statistics of each query shape, or an empty list if they are not recorded
+     */
+    public List<QueryStatistics> getQueryStatistics() {
+        if (queryStatistics == null) {
+            return Collections.emptyList();
+        }
+        return queryStatistics.getStatistics();
+    }
+
+    /**
+     * @return the executor for background work, or {@code null} if a thread is started for each
+     * task
+     */
+    public Executor getExecutor() {
+        return executor;
     }
 
     /**
@@ -405,6 +813,64 @@ public class CouchDbClient {
         }
     }
 
+    /**
+     * Performs a HTTP GET request of a document with inline attachments, writing the data of
+     * attachments to the sinks chosen by the provider as the response is read.
+     *
+     * @return An object of type T
+     */
+    public <T> T get(URI uri, Class<T> classType, AttachmentSink.Provider sinks) {
+        HttpConnection connection = Http.GET(uri);
+        InputStream response = executeToInputStream(connection);
+        Reader reader = null;
+        try {
+            reader = new AttachmentDataReader(new InputStreamReader(response, "UTF-8"), sinks);
+            return getGson().fromJson(reader, classType);
+        } catch (UnsupportedEncodingException e) {
+            // Every implementation of the java platform is required to support UTF-8
+            throw new RuntimeException(e);
+        } catch (JsonIOException e) {
+            throw new CouchDbException("Error writing attachment data.", e.getCause());
+        } finally {
+            close(reader);
+            close(response);
+        }
+    }
+
+    /**
+     * Performs a HTTP GET request of a document and its attachments as {@code multipart/related},
+     * writing the data of attachments to the sinks chosen by the provider as the response is
+     * read.
+     *
+     * @return An object of type T
+     */
+    public <T> T getMultipart(URI uri, Class<T> classType, AttachmentSink.Provider sinks) {
+        HttpConnection connection = Http.GET(uri);
+        connection.requestProperties.put("Accept", "multipart/related");
+        InputStream response = null;
+        Reader reader = null;
+        try {
+            connection = execute(connection);
+            response = connection.responseAsInputStream();
+            String boundary = MultipartRelatedReader.boundary(connection.getConnection()
+                    .getContentType());
+            if (boundary != null) {
+                return new MultipartRelatedReader(response, boundary).readDocument(getGson(),
+                        classType, sinks);
+            }
+            // A document without attachments is returned as JSON
+            reader = new AttachmentDataReader(new InputStreamReader(response, "UTF-8"), sinks);
+            return getGson().fromJson(reader, classType);
+        } catch (JsonIOException e) {
+            throw new CouchDbException("Error writing attachment data.", e.getCause());
+        } catch (IOException e) {
+            throw new CouchDbException("Error retrieving server response", e);
+        } finally {
+            close(reader);
+            close(response);
+        }
+    }
+
     /**
      * <p>Performs a HTTP HEAD request.</p>
      * <p>The stream <b>must</b> be closed after use.</p>
@@ -451,6 +917,17 @@ public class CouchDbClient {
         return executeToResponse(connection);
     }
 
+    /**
+     * Performs a HTTP PUT request of a file with a fixed length.
+     *
+     * @return {@link Response}
+     */
+    Response put(URI uri, File file, String contentType) {
+        HttpConnection connection = Http.PUT(uri, contentType);
+        connection.setRequestBody(file);
+        return executeToResponse(connection);
+    }
+
     /**
      * Performs a HTTP PUT request, saves or updates a document.
      *
@@ -470,8 +947,60 @@ public class CouchDbClient {
      * @return {@link Response}
      */
     public Response put(URI uri, Object object, boolean newEntity, int writeQuorum) {
+        return put(new DocumentUriTemplate(uri), object, newEntity, writeQuorum);
+    }
+
+    /**
+     * Performs a HTTP PUT request, saves or updates a document.
+     *
+     * @param documentUris the document URIs of the database
+     * @param object       Object for updating request
+     * @param newEntity    If true, saves a new document. Else, updates an existing one.
+     * @param writeQuorum  the write quorum, or -1 for the server default
+     * @return {@link Response}
+     */
+    public Response put(DocumentUriTemplate documentUris, Object object, boolean newEntity, int
+            writeQuorum) {
+        return put(documentUris, object, newEntity, writeQuorum, false);
+    }
+
+    /**
+     * Performs a HTTP PUT request, saves or updates a document, sending the data of attachments
+     * with a source as the parts of a {@code multipart/related} request.
+     *
+     * @param object    Object for updating request
+     * @param newEntity If true, saves a new document. Else, updates an existing one.
+     * @return {@link Response}
+     */
+    public Response putMultipart(URI uri, Object object, boolean newEntity) {
+        return putMultipart(new DocumentUriTemplate(uri), object, newEntity);
+    }
+
+    /**
+     * Performs a HTTP PUT request, saves or updates a document, sending the data of attachments
+     * with a source as the parts of a {@code multipart/related} request.
+     *
+     * @param documentUris the document URIs of the database
+     * @param object       Object for updating request
+     * @param newEntity    If true, saves a new document. Else, updates an existing one.
+     * @return {@link Response}
+     */
+    public Response putMultipart(DocumentUriTemplate documentUris, Object object, boolean
+            newEntity) {
+        return put(documentUris, object, newEntity, -1, true);
+    }
+
+    private Response put(DocumentUriTemplate documentUris, Object object, boolean newEntity, int
+            writeQuorum, boolean multipart) {
         assertNotEmpty(object, "object");
-        final JsonObject json = getGson().toJsonTree(object).getAsJsonObject();
+        StreamingAttachments attachments = multipart ? StreamingAttachments.beginMultipart() :
+                StreamingAttachments.begin();
+        final JsonObject json;
+        try {
+            json = getGson().toJsonTree(object).getAsJsonObject();
+        } finally {
+            attachments.end();
+        }
         String id = getAsString(json, "_id");
         String rev = getAsString(json, "_rev");
         if (newEntity) { // save
@@ -484,12 +1013,21 @@ public class CouchDbClient {
         assertDocumentTypeId(id);
         URI httpUri = null;
         if (writeQuorum > -1) {
-            httpUri = new DatabaseURIHelper(uri).documentUri(id, "w", writeQuorum);
+            httpUri = documentUris.documentUri(id, "w", writeQuorum);
         } else {
-            httpUri = new DatabaseURIHelper(uri).documentUri(id);
+            httpUri = documentUris.documentUri(id);
+        }
+        HttpConnection connection;
+        if (attachments.isEmpty()) {
+            connection = Http.PUT(httpUri, "application/json");
+            connection.setRequestBody(json.toString());
+        } else if (multipart) {
+            connection = Http.PUT(httpUri, attachments.getMultipartContentType());
+            attachments.setMultipartRequestBody(connection, json.toString());
+        } else {
+            connection = Http.PUT(httpUri, "application/json");
+            attachments.setRequestBody(connection, json.toString());
         }
-        HttpConnection connection = Http.PUT(httpUri, "application/json");
-        connection.setRequestBody(json.toString());
 
         return executeToResponse(connection);
     }
@@ -536,11 +1074,18 @@ public class CouchDbClient {
      */
     public HttpConnection execute(HttpConnection connection) {
 
+        applyDeadline(connection);
         //set our HttpUrlFactory on the connection
         connection.connectionFactory = factory;
+        if (compression != null && connection.getCompression() == null) {
+            connection.setCompression(compression);
+        }
 
-        // all CouchClient requests want to receive application/json responses
-        connection.requestProperties.put("Accept", "application/json");
+        // all CouchClient requests want to receive application/json responses, unless they ask
+        // for a multipart response
+        if (!connection.requestProperties.containsKey("Accept")) {
+            connection.requestProperties.put("Accept", "application/json");
+        }
         connection.responseInterceptors.addAll(this.responseInterceptors);
         connection.requestInterceptors.addAll(this.requestInterceptors);
         InputStream es = null; // error stream - response from server for a 500 etc
@@ -551,7 +1096,11 @@ public class CouchDbClient {
         // specific exceptions
         try {
             try {
-                connection = connection.execute();
+                if (hedger != null) {
+                    hedger.execute(connection, attempt);
+                } else {
+                    attempt.execute(connection);
+                }
             } catch (HttpConnectionInterceptorException e) {
                 CouchDbException exception;
                 if (e.deserialize) {
@@ -599,12 +1148,13 @@ public class CouchDbClient {
                         ex = new CouchDbException(response, code);
                         break;
                 }
-                es = connection.getConnection().getErrorStream();
+                es = connection.errorResponseAsInputStream();
                 //if there is an error stream try to deserialize into the typed exception
                 if (es != null) {
                     try {
                         //read the error stream into memory
-                        byte[] errorResponse = IOUtils.toByteArray(es);
+                        byte[] errorResponse = BufferPool.toByteArray(es, connection
+                                .getResponseBodyLength());
 
                         Class<? extends CouchDbException> exceptionClass = ex.getClass();
                         //treat the error as JSON and try to deserialize
@@ -637,15 +1187,169 @@ public class CouchDbClient {
         }
     }
 
+    /**
+     * Execute a request on each endpoint in turn, in the order chosen by the router, until one
+     * responds or the request cannot be failed over.
+     */
+    private HttpConnection executeRouted(HttpConnection connection) throws IOException {
+        final boolean read = EndpointRouter.isRead(connection);
+        List<EndpointRouter.Endpoint> endpoints = router.route(read);
+        EndpointRouter.Endpoint previous = null;
+        for (int i = 0; ; i++) {
+            EndpointRouter.Endpoint endpoint = endpoints.get(i);
+            CircuitBreakers.Permit permit = null;
+            if (breakers != null) {
+                try {
+                    permit = breakers.acquire(endpoint.url, connection);
+                } catch (CircuitBreakerOpenException e) {
+                    if (i + 1 < endpoints.size()) {
+                        continue;
+                    }
+                    throw e;
+                }
+            }
+            endpoint.prepare(connection, previous, read);
+            long start = System.nanoTime();
+            int code;
+            try {
+                code = send(connection, permit);
+            } catch (IOException e) {
+                if (connection.isCancelled() || e instanceof DeadlineExceededException) {
+                    // Cancelled by the client, for example a hedged request that lost its race, or
+                    // out of time before it was sent, neither of which is the endpoint's fault
+                    throw e;
+                }
+                endpoint.failure();
+                if (i + 1 < endpoints.size() && EndpointRouter.canFailover(read, e)) {
+                    log.log(Level.FINE, "Failing over request from " + endpoint.url, e);
+                    previous = endpoint;
+                    continue;
+                }
+                throw e;
+            }
+            if (EndpointRouter.isUnavailable(code)) {
+                endpoint.failure();
+            } else {
+                endpoint.success(System.nanoTime() - start);
+            }
+            return connection;
+        }
+    }
+
+    /**
+     * Set the deadline of the request's database, or the client's default deadline, on a request
+     * that does not already have one.
+     */
+    private void applyDeadline(HttpConnection connection) {
+        if (connection.hasDeadline()) {
+            return;
+        }
+        long nanos = deadlineNanos;
+        if (!databaseDeadlines.isEmpty()) {
+            Long databaseNanos = databaseDeadlines.get(databasePath(connection.url));
+            if (databaseNanos != null) {
+                nanos = databaseNanos;
+            }
+        }
+        if (nanos > 0) {
+            connection.setDeadline(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return the raw path of the database a request URL is for, which may be any path if the
+     * request is not for a database
+     */
+    private String databasePath(URL url) {
+        String path = url.getPath();
+        int end = path.indexOf('/', basePathLength + 1);
+        return (end < 0) ? path : path.substring(0, end);
+    }
+
+    /**
+     * Set the deadline for requests to a database that do not have their own deadline.
+     *
+     * @param databaseUri the URI of the database
+     * @param nanos       the deadline in nanoseconds from the start of each request, or 0 to use
+     *                    the client's default deadline
+     */
+    public void setDatabaseDeadline(URI databaseUri, long nanos) {
+        if (nanos > 0) {
+            databaseDeadlines.put(databaseUri.getRawPath(), nanos);
+        } else {
+            databaseDeadlines.remove(databaseUri.getRawPath());
+        }
+    }
+
+    /**
+     * Send a request and read the response code, recording the outcome with the circuit breaker
+     * permit if there is one.
+     */
+    private static int send(HttpConnection connection, CircuitBreakers.Permit permit) throws
+            IOException {
+        int code;
+        try {
+            // A request without a body only connects when the response code is read
+            code = connection.execute().getConnection().getResponseCode();
+        } catch (IOException e) {
+            if (permit != null && e instanceof DeadlineExceededException) {
+                // Out of time before it was sent, which is not the endpoint's fault
+                permit.release();
+            } else if (permit != null) {
+                permit.failed(connection.isCancelled());
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            if (permit != null) {
+                permit.release();
+            }
+            throw e;
+        }
+        if (permit != null) {
+            permit.completed(code);
+        }
+        return code;
+    }
+
     /**
      * <p>Execute the HttpConnection request and return the InputStream if there were no errors.</p>
      * <p>The stream <b>must</b> be closed after use.</p>
+     * <p>If GET request coalescing is enabled and an identical GET request is already in flight
+     * then no request is sent and the returned stream reads a copy of the in-flight request's
+     * buffered response instead.</p>
      *
      * @param connection the request HttpConnection
      * @return InputStream from the HttpConnection response
      * @throws CouchDbException for HTTP error codes or if there was an IOException
      */
     public InputStream executeToInputStream(HttpConnection connection) throws CouchDbException {
+        String key = (coalescer == null) ? null : RequestCoalescer.key(connection);
+        if (key == null) {
+            return executeToInputStreamUncoalesced(connection);
+        }
+        RequestCoalescer.Flight flight = coalescer.join(key);
+        if (!flight.isLeader()) {
+            return flight.await();
+        }
+        InputStream response = null;
+        try {
+            response = executeToInputStreamUncoalesced(connection);
+            byte[] buffered = BufferPool.toByteArray(response, -1);
+            flight.complete(buffered);
+            return new ByteArrayInputStream(buffered);
+        } catch (IOException ioe) {
+            CouchDbException ex = new CouchDbException("Error retrieving server response", ioe);
+            flight.fail(ex);
+            throw ex;
+        } catch (RuntimeException e) {
+            flight.fail(e);
+            throw e;
+        } finally {
+            close(response);
+        }
+    }
+
+    private InputStream executeToInputStreamUncoalesced(HttpConnection connection) {
         try {
             return execute(connection).responseAsInputStream();
         } catch (IOException ioe) {
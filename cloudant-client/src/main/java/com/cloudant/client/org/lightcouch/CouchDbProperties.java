@@ -1,6 +1,6 @@
 /*
  * Copyright (C) 2011 lightcouch.org
- * Copyright (c) 2015 IBM Corp. All rights reserved.
+ * Copyright (c) 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -15,6 +15,8 @@
 
 package com.cloudant.client.org.lightcouch;
 
+import com.cloudant.http.HttpCompression;
+import com.cloudant.http.HttpConnectionInterceptor;
 import com.cloudant.http.HttpConnectionRequestInterceptor;
 import com.cloudant.http.HttpConnectionResponseInterceptor;
 
@@ -23,6 +25,8 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Represents configuration properties for connecting to CouchDB.
@@ -37,10 +41,42 @@ public class CouchDbProperties {
 
     //default to 6 connections
     private int maxConnections = 6;
+    //keep connections open for as long as possible, anything over 2.5 minutes will be longer
+    //than the server so default to a 3 minute timeout
+    private long connectionKeepAliveNanos = TimeUnit.MINUTES.toNanos(3);
+    // The number of connections to open when the client is created
+    private int prewarmConnections = 0;
+    // 0 unless HTTP/2 should be used
+    private int http2MaxConcurrentStreams = 0;
+    // How long a request waits for an HTTP/2 stream
+    private long http2StreamWaitNanos = Long.MAX_VALUE;
+    // null unless background work should be run by a supplied executor
+    private ExecutorService executor = null;
 
     private URL proxyURL;
     private PasswordAuthentication proxyAuthentication = null;
 
+    private boolean coalesceGetRequests = false;
+    private HttpCompression compression = null;
+    // 0 unless slow GET requests should be hedged
+    private double hedgePercentile = 0;
+    private double maxHedgeRatio = 0;
+    // 0 unless requests have a default deadline
+    private long requestDeadlineNanos = 0;
+    // 0 unless circuit breakers are enabled
+    private double circuitBreakerThreshold = 0;
+    private long circuitBreakerSlowCallNanos = 0;
+    private long circuitBreakerOpenNanos = 0;
+    // 0 unless query plans should be cached
+    private int queryPlanCacheSize = 0;
+    // 0 unless query statistics should be recorded
+    private double slowQueryRatio = 0;
+    private int slowQuerySampling = 0;
+    // The endpoints, primary first, and their session interceptors if there is more than one
+    private List<URL> endpoints = new ArrayList<URL>();
+    private List<HttpConnectionInterceptor> endpointSessionInterceptors = new
+            ArrayList<HttpConnectionInterceptor>();
+
     private List<HttpConnectionRequestInterceptor> requestInterceptors = new ArrayList
             <HttpConnectionRequestInterceptor>();
     private List<HttpConnectionResponseInterceptor> responseInterceptors = new ArrayList
@@ -67,6 +103,47 @@ public class CouchDbProperties {
         return this;
     }
 
+    public long getConnectionKeepAliveNanos() {
+        return connectionKeepAliveNanos;
+    }
+
+    public CouchDbProperties setConnectionKeepAliveNanos(long connectionKeepAliveNanos) {
+        this.connectionKeepAliveNanos = connectionKeepAliveNanos;
+        return this;
+    }
+
+    public int getPrewarmConnections() {
+        return prewarmConnections;
+    }
+
+    public CouchDbProperties setPrewarmConnections(int prewarmConnections) {
+        this.prewarmConnections = prewarmConnections;
+        return this;
+    }
+
+    public int getHttp2MaxConcurrentStreams() {
+        return http2MaxConcurrentStreams;
+    }
+
+    public long getHttp2StreamWaitNanos() {
+        return http2StreamWaitNanos;
+    }
+
+    public CouchDbProperties setHttp2(int maxConcurrentStreams, long streamWaitNanos) {
+        this.http2MaxConcurrentStreams = maxConcurrentStreams;
+        this.http2StreamWaitNanos = streamWaitNanos;
+        return this;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public CouchDbProperties setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
     public CouchDbProperties setProxyURL(URL proxyURL) {
         this.proxyURL = proxyURL;
         return this;
@@ -100,4 +177,102 @@ public class CouchDbProperties {
         this.proxyAuthentication = authentication;
         return this;
     }
+
+    public boolean isCoalesceGetRequests() {
+        return coalesceGetRequests;
+    }
+
+    public CouchDbProperties setCoalesceGetRequests(boolean coalesceGetRequests) {
+        this.coalesceGetRequests = coalesceGetRequests;
+        return this;
+    }
+
+    public HttpCompression getCompression() {
+        return compression;
+    }
+
+    public CouchDbProperties setCompression(HttpCompression compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public double getMaxHedgeRatio() {
+        return maxHedgeRatio;
+    }
+
+    public CouchDbProperties setHedging(double hedgePercentile, double maxHedgeRatio) {
+        this.hedgePercentile = hedgePercentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+        return this;
+    }
+
+    public long getRequestDeadlineNanos() {
+        return requestDeadlineNanos;
+    }
+
+    public CouchDbProperties setRequestDeadlineNanos(long requestDeadlineNanos) {
+        this.requestDeadlineNanos = requestDeadlineNanos;
+        return this;
+    }
+
+    public double getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    public long getCircuitBreakerSlowCallNanos() {
+        return circuitBreakerSlowCallNanos;
+    }
+
+    public long getCircuitBreakerOpenNanos() {
+        return circuitBreakerOpenNanos;
+    }
+
+    public CouchDbProperties setCircuitBreaker(double threshold, long slowCallNanos, long
+            openNanos) {
+        this.circuitBreakerThreshold = threshold;
+        this.circuitBreakerSlowCallNanos = slowCallNanos;
+        this.circuitBreakerOpenNanos = openNanos;
+        return this;
+    }
+
+    public int getQueryPlanCacheSize() {
+        return queryPlanCacheSize;
+    }
+
+    public CouchDbProperties setQueryPlanCacheSize(int queryPlanCacheSize) {
+        this.queryPlanCacheSize = queryPlanCacheSize;
+        return this;
+    }
+
+    public double getSlowQueryRatio() {
+        return slowQueryRatio;
+    }
+
+    public int getSlowQuerySampling() {
+        return slowQuerySampling;
+    }
+
+    public CouchDbProperties setQueryStatistics(double slowQueryRatio, int slowQuerySampling) {
+        this.slowQueryRatio = slowQueryRatio;
+        this.slowQuerySampling = slowQuerySampling;
+        return this;
+    }
+
+    public List<URL> getEndpoints() {
+        return endpoints;
+    }
+
+    public List<HttpConnectionInterceptor> getEndpointSessionInterceptors() {
+        return endpointSessionInterceptors;
+    }
+
+    public CouchDbProperties addEndpoint(URL url, HttpConnectionInterceptor sessionInterceptor) {
+        this.endpoints.add(url);
+        this.endpointSessionInterceptors.add(sessionInterceptor);
+        return this;
+    }
 }
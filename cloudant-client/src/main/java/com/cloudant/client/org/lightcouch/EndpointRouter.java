@@ -0,0 +1,302 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch;
+
+import com.cloudant.client.api.model.EndpointStatistics;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.http.HttpConnectionInterceptor;
+import com.cloudant.http.HttpConnectionRequestInterceptor;
+import com.cloudant.http.HttpConnectionResponseInterceptor;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
+import java.net.PasswordAuthentication;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes requests across an ordered set of equivalent endpoints, for example replicas of an
+ * account in different regions.
+ * <p>
+ * Reads ({@code GET} and {@code HEAD} requests) are routed to the healthy endpoint with the lowest
+ * moving average latency. Other requests are routed to the primary, the first endpoint, while it
+ * is healthy. An endpoint that fails is marked unhealthy and not routed to again until a back off
+ * period, which doubles with each consecutive failure, has passed.
+ * </p>
+ * <p>
+ * Request URLs are always built against the primary endpoint and are rewritten for the endpoint
+ * the request is routed to when the connection is opened. Each endpoint has its own connection
+ * factory, and so connection pool, and its own session interceptor.
+ * </p>
+ */
+final class EndpointRouter {
+
+    // The weight of the latest sample in the latency moving average
+    static final double LATENCY_WEIGHT = 0.2;
+    static final long MIN_BACK_OFF_MILLIS = 1000;
+    static final long MAX_BACK_OFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final List<Endpoint> endpoints = new ArrayList<Endpoint>();
+
+    /**
+     * Add an endpoint, the first endpoint added is the primary.
+     *
+     * @param url                the base URL of the endpoint
+     * @param connectionFactory  the connection factory for the endpoint
+     * @param sessionInterceptor the session interceptor for the endpoint, may be {@code null}
+     */
+    void addEndpoint(URL url, HttpConnection.HttpUrlConnectionFactory connectionFactory,
+                     HttpConnectionInterceptor sessionInterceptor) {
+        endpoints.add(new Endpoint(url, endpoints.isEmpty() ? null : endpoints.get(0).url,
+                connectionFactory, sessionInterceptor));
+    }
+
+    /**
+     * @return the endpoints, primary first
+     */
+    List<Endpoint> getEndpoints() {
+        return Collections.unmodifiableList(endpoints);
+    }
+
+    /**
+     * @param connection the request
+     * @return {@code true} if the request can be routed to any endpoint
+     */
+    static boolean isRead(HttpConnection connection) {
+        String method = connection.getRequestMethod();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    /**
+     * A write is only retried on another endpoint if it certainly was not sent, a read can be
+     * retried after any I/O failure.
+     *
+     * @param read {@code true} if the request was a read
+     * @param e    the exception thrown by the request
+     * @return {@code true} if the request can be retried on another endpoint
+     */
+    static boolean canFailover(boolean read, IOException e) {
+        return read || e instanceof ConnectException || e instanceof UnknownHostException || e
+                instanceof NoRouteToHostException;
+    }
+
+    /**
+     * @param statusCode the response status code
+     * @return {@code true} if the status indicates the endpoint is unavailable
+     */
+    static boolean isUnavailable(int statusCode) {
+        return statusCode == HttpURLConnection.HTTP_BAD_GATEWAY || statusCode ==
+                HttpURLConnection.HTTP_UNAVAILABLE || statusCode == HttpURLConnection
+                .HTTP_GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * @param read {@code true} to route a read, {@code false} for a write
+     * @return the endpoints in the order they should be tried, healthy endpoints first
+     */
+    List<Endpoint> route(boolean read) {
+        final long now = System.currentTimeMillis();
+        List<Endpoint> healthy = new ArrayList<Endpoint>(endpoints.size());
+        List<Endpoint> unhealthy = new ArrayList<Endpoint>(0);
+        for (Endpoint endpoint : endpoints) {
+            (endpoint.isHealthy(now) ? healthy : unhealthy).add(endpoint);
+        }
+        if (read) {
+            // Stable sort so that endpoints with equal latency keep their configured order
+            Collections.sort(healthy, new Comparator<Endpoint>() {
+                @Override
+                public int compare(Endpoint a, Endpoint b) {
+                    return Double.compare(a.getLatencyMillis(), b.getLatencyMillis());
+                }
+            });
+        }
+        // Unhealthy endpoints are a last resort, tried in the order they will recover
+        Collections.sort(unhealthy, new Comparator<Endpoint>() {
+            @Override
+            public int compare(Endpoint a, Endpoint b) {
+                return a.unhealthyUntil < b.unhealthyUntil ? -1 : (a.unhealthyUntil == b
+                        .unhealthyUntil ? 0 : 1);
+            }
+        });
+        healthy.addAll(unhealthy);
+        return healthy;
+    }
+
+    /**
+     * @return a snapshot of the statistics of each endpoint, primary first
+     */
+    List<EndpointStatistics> getStatistics() {
+        long now = System.currentTimeMillis();
+        List<EndpointStatistics> statistics = new ArrayList<EndpointStatistics>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            statistics.add(new EndpointStatistics(endpoint.url, endpoint.primaryUrl == null,
+                    endpoint.isHealthy(now), endpoint.getLatencyMillis(), endpoint.reads.get(),
+                    endpoint.writes.get(), endpoint.failures.get(), endpoint.failovers.get()));
+        }
+        return statistics;
+    }
+
+    static final class Endpoint {
+
+        final URL url;
+        // null for the primary endpoint
+        private final URL primaryUrl;
+        private final HttpConnection.HttpUrlConnectionFactory connectionFactory;
+        private final HttpConnection.HttpUrlConnectionFactory routingFactory;
+        private final HttpConnectionInterceptor sessionInterceptor;
+
+        private final AtomicLong reads = new AtomicLong();
+        private final AtomicLong writes = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong failovers = new AtomicLong();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        // The latency moving average in nanoseconds, as double bits
+        private final AtomicLong latencyNanos = new AtomicLong(Double.doubleToLongBits(0d));
+        private volatile long unhealthyUntil = 0;
+
+        private Endpoint(URL url, URL primaryUrl, HttpConnection.HttpUrlConnectionFactory
+                connectionFactory, HttpConnectionInterceptor sessionInterceptor) {
+            this.url = url;
+            this.primaryUrl = primaryUrl;
+            this.connectionFactory = connectionFactory;
+            this.routingFactory = (primaryUrl == null) ? connectionFactory : new
+                    RewritingFactory();
+            this.sessionInterceptor = sessionInterceptor;
+        }
+
+        HttpConnection.HttpUrlConnectionFactory getConnectionFactory() {
+            return connectionFactory;
+        }
+
+        HttpConnectionInterceptor getSessionInterceptor() {
+            return sessionInterceptor;
+        }
+
+        boolean isHealthy(long now) {
+            return now >= unhealthyUntil;
+        }
+
+        double getLatencyMillis() {
+            return Double.longBitsToDouble(latencyNanos.get()) / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * Route a connection to this endpoint, replacing the session interceptor of the endpoint
+         * it was previously routed to.
+         *
+         * @param connection the request
+         * @param previous   the endpoint the request was previously routed to, or {@code null}
+         * @param read       {@code true} if the request is a read
+         */
+        void prepare(HttpConnection connection, Endpoint previous, boolean read) {
+            if (previous != null) {
+                previous.failovers.incrementAndGet();
+                connection.requestInterceptors.remove(previous.sessionInterceptor);
+                connection.responseInterceptors.remove(previous.sessionInterceptor);
+            }
+            // The session interceptor runs first as it would for a single endpoint client
+            if (sessionInterceptor instanceof HttpConnectionRequestInterceptor) {
+                connection.requestInterceptors.add(0, (HttpConnectionRequestInterceptor)
+                        sessionInterceptor);
+            }
+            if (sessionInterceptor instanceof HttpConnectionResponseInterceptor) {
+                connection.responseInterceptors.add(0, (HttpConnectionResponseInterceptor)
+                        sessionInterceptor);
+            }
+            connection.connectionFactory = routingFactory;
+            (read ? reads : writes).incrementAndGet();
+        }
+
+        /**
+         * Record a response from the endpoint.
+         *
+         * @param nanos the time taken to receive the response
+         */
+        void success(long nanos) {
+            consecutiveFailures.set(0);
+            unhealthyUntil = 0;
+            long current;
+            double updated;
+            do {
+                current = latencyNanos.get();
+                double average = Double.longBitsToDouble(current);
+                updated = (average == 0d) ? nanos : average + LATENCY_WEIGHT * (nanos - average);
+            } while (!latencyNanos.compareAndSet(current, Double.doubleToLongBits(updated)));
+        }
+
+        /**
+         * Record a failure and stop routing to the endpoint for a back off period.
+         */
+        void failure() {
+            failures.incrementAndGet();
+            int failed = Math.min(consecutiveFailures.incrementAndGet(), 16);
+            long backOff = Math.min(MAX_BACK_OFF_MILLIS, MIN_BACK_OFF_MILLIS << (failed - 1));
+            unhealthyUntil = System.currentTimeMillis() + backOff;
+        }
+
+        /**
+         * Opens connections to this endpoint for URLs built against the primary endpoint.
+         */
+        private final class RewritingFactory implements HttpConnection.HttpUrlConnectionFactory {
+
+            @Override
+            public HttpURLConnection openConnection(URL requestUrl) throws IOException {
+                return connectionFactory.openConnection(rewrite(requestUrl));
+            }
+
+            private URL rewrite(URL requestUrl) throws MalformedURLException {
+                String primaryPath = primaryUrl.getPath();
+                if (!requestUrl.getProtocol().equals(primaryUrl.getProtocol())
+                        || !requestUrl.getHost().equalsIgnoreCase(primaryUrl.getHost())
+                        || port(requestUrl) != port(primaryUrl)
+                        || !requestUrl.getFile().startsWith(primaryPath)) {
+                    // Not a request for the primary, for example an IAM token request
+                    return requestUrl;
+                }
+                String file = url.getPath() + requestUrl.getFile().substring(primaryPath.length());
+                return new URL(url.getProtocol(), url.getHost(), port(url), file);
+            }
+
+            private int port(URL u) {
+                return (u.getPort() == -1) ? u.getDefaultPort() : u.getPort();
+            }
+
+            @Override
+            public void setProxy(URL proxyUrl) {
+                connectionFactory.setProxy(proxyUrl);
+            }
+
+            @Override
+            public void setProxyAuthentication(PasswordAuthentication proxyAuthentication) {
+                connectionFactory.setProxyAuthentication(proxyAuthentication);
+            }
+
+            @Override
+            public void shutdown() {
+                connectionFactory.shutdown();
+            }
+        }
+    }
+}
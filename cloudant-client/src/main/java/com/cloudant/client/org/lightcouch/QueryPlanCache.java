@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch;
+
+import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.close;
+import static com.cloudant.client.org.lightcouch.internal.CouchDbUtil.createPost;
+
+import com.cloudant.client.api.model.QueryPlan;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers the index the server chose for each shape of {@code _find} query and pins later
+ * queries of the same shape to that index with {@code use_index}.
+ * <p>
+ * The first query of a shape is explained with {@code _explain} before it is sent. A shape
+ * served by {@code _all_docs} is logged as a warning once and is not pinned. Queries that set
+ * their own {@code use_index} are left alone. The least recently used shapes are forgotten when
+ * there are more than the maximum.
+ * </p>
+ */
+final class QueryPlanCache {
+
+    private static final Logger logger = Logger.getLogger(QueryPlanCache.class.getName());
+
+    private final CouchDbClient client;
+    // The plans by database and shape, in access order so that the eldest is least recently used
+    private final Map<String, QueryPlan> plans;
+
+    QueryPlanCache(CouchDbClient client, final int maxShapes) {
+        this.client = client;
+        this.plans = new LinkedHashMap<String, QueryPlan>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, QueryPlan> eldest) {
+                return size() > maxShapes;
+            }
+        };
+    }
+
+    /**
+     * @param findUri the {@code _find} URI of the query
+     * @param query   the query
+     * @return the query with {@code use_index} set to the index chosen for its shape, or the
+     * query unchanged if it has no index to pin
+     */
+    String pin(URI findUri, String query) {
+        JsonObject json = QueryShape.parse(query);
+        if (json == null || json.has("use_index")) {
+            return query;
+        }
+        String database = QueryShape.database(findUri);
+        String shape = QueryShape.of(json);
+        String key = database + ' ' + shape;
+        QueryPlan plan;
+        synchronized (plans) {
+            plan = plans.get(key);
+        }
+        if (plan == null) {
+            plan = explain(findUri, query, database, shape);
+            if (plan == null) {
+                return query;
+            }
+            synchronized (plans) {
+                plans.put(key, plan);
+            }
+            if (plan.isFullScan()) {
+                logger.warning("Queries of shape " + shape + " in " + database + " are served " +
+                        "by _all_docs and scan the whole database, create an index to serve " +
+                        "them.");
+            }
+        }
+        if (plan.isFullScan()) {
+            return query;
+        }
+        JsonArray useIndex = new JsonArray();
+        useIndex.add(plan.getDesignDocument());
+        useIndex.add(plan.getIndexName());
+        json.add("use_index", useIndex);
+        return json.toString();
+    }
+
+    /**
+     * Forget the plan for the shape of a query, for example because its index was deleted.
+     */
+    void evict(URI findUri, String query) {
+        JsonObject json = QueryShape.parse(query);
+        if (json != null) {
+            synchronized (plans) {
+                plans.remove(QueryShape.database(findUri) + ' ' + QueryShape.of(json));
+            }
+        }
+    }
+
+    List<QueryPlan> getPlans() {
+        synchronized (plans) {
+            return new ArrayList<QueryPlan>(plans.values());
+        }
+    }
+
+    /**
+     * @return the plan of the query, or {@code null} if it could not be explained
+     */
+    private QueryPlan explain(URI findUri, String query, String database, String shape) {
+        String find = findUri.toString();
+        URI uri = URI.create(find.substring(0, find.length() - "_find".length()) + "_explain");
+        InputStream stream = null;
+        try {
+            stream = client.executeToInputStream(createPost(uri, query, "application/json"));
+            JsonObject index = new JsonParser().parse(new InputStreamReader(stream, "UTF-8"))
+                    .getAsJsonObject().getAsJsonObject("index");
+            JsonElement ddoc = index.get("ddoc");
+            List<String> fields = new ArrayList<String>();
+            JsonObject def = index.getAsJsonObject("def");
+            if (def != null && def.get("fields") != null && def.get("fields").isJsonArray()) {
+                for (JsonElement field : def.getAsJsonArray("fields")) {
+                    if (field.isJsonObject()) {
+                        fields.addAll(field.getAsJsonObject().keySet());
+                    } else if (field.isJsonPrimitive()) {
+                        fields.add(field.getAsString());
+                    }
+                }
+            }
+            return new QueryPlan(database, shape, (ddoc == null || ddoc.isJsonNull()) ? null :
+                    ddoc.getAsString(), index.get("name").getAsString(), index.get("type")
+                    .getAsString(), fields);
+        } catch (RuntimeException e) {
+            // The request failed or the response was not an explain response, the query is sent
+            // without an index and explained again next time
+            logger.log(Level.FINE, "Could not explain query " + shape, e);
+            return null;
+        } catch (UnsupportedEncodingException e) {
+            // This should never happen as every implementation of the java platform is required
+            // to support UTF-8.
+            throw new RuntimeException(e);
+        } finally {
+            close(stream);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Groups {@code _find} queries that differ only in their values, so that they can share a query
+ * plan and statistics. A shape is the selector, with its fields and operators in a consistent
+ * order and every value replaced by {@code null}, and the sort.
+ */
+final class QueryShape {
+
+    private QueryShape() {
+    }
+
+    /**
+     * @return the query as a JSON object, or {@code null} if it is not a query with a selector
+     */
+    static JsonObject parse(String query) {
+        try {
+            JsonElement json = new JsonParser().parse(query);
+            return (json.isJsonObject() && json.getAsJsonObject().has("selector")) ? json
+                    .getAsJsonObject() : null;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the path of the database, ending {@code /_partition} for a partitioned query so
+     * that a shape is the same in every partition
+     */
+    static String database(URI findUri) {
+        String path = findUri.getRawPath();
+        int partition = path.lastIndexOf("/_partition/");
+        if (partition >= 0) {
+            return path.substring(0, partition) + "/_partition";
+        }
+        return path.substring(0, path.length() - "/_find".length());
+    }
+
+    /**
+     * @return the shape of the query as a JSON object with {@code selector} and {@code sort}
+     * fields
+     */
+    static String of(JsonObject query) {
+        JsonObject shape = new JsonObject();
+        shape.add("selector", valuesRemoved(query.get("selector")));
+        if (query.has("sort")) {
+            shape.add("sort", query.get("sort"));
+        }
+        return shape.toString();
+    }
+
+    private static JsonElement valuesRemoved(JsonElement selector) {
+        if (selector.isJsonObject()) {
+            Map<String, JsonElement> sorted = new TreeMap<String, JsonElement>();
+            for (Map.Entry<String, JsonElement> entry : selector.getAsJsonObject().entrySet()) {
+                sorted.put(entry.getKey(), valuesRemoved(entry.getValue()));
+            }
+            JsonObject shape = new JsonObject();
+            for (Map.Entry<String, JsonElement> entry : sorted.entrySet()) {
+                shape.add(entry.getKey(), entry.getValue());
+            }
+            return shape;
+        } else if (selector.isJsonArray()) {
+            // Arrays of selectors, for example of $and, are part of the shape, arrays of values,
+            // for example of $in, are not
+            JsonArray shape = new JsonArray();
+            for (JsonElement element : selector.getAsJsonArray()) {
+                if (element.isJsonObject()) {
+                    shape.add(valuesRemoved(element));
+                }
+            }
+            return (shape.size() == 0) ? JsonNull.INSTANCE : shape;
+        }
+        return JsonNull.INSTANCE;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch;
+
+import com.cloudant.client.api.model.QueryStatistics;
+import com.cloudant.client.api.query.ExecutionStats;
+import com.google.gson.JsonObject;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Records the latency and server execution statistics of {@code _find} queries in histograms for
+ * each query shape, and logs a sample of the queries that examine many keys or documents for
+ * each result they return.
+ * <p>
+ * The number of shapes is bounded, the least recently queried shape is forgotten when a new one
+ * would exceed it. The first slow query of a shape is always logged, then one in every sampling
+ * interval.
+ * </p>
+ */
+final class QueryStatisticsRecorder {
+
+    private static final Logger logger = Logger.getLogger(QueryStatisticsRecorder.class
+            .getName());
+
+    static final int MAX_SHAPES = 1000;
+
+    private final double slowQueryRatio;
+    private final int slowQuerySampling;
+    // The statistics by database and shape, in access order so the eldest is least recently used
+    private final Map<String, Shape> shapes = new LinkedHashMap<String, Shape>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Shape> eldest) {
+            return size() > MAX_SHAPES;
+        }
+    };
+
+    /**
+     * @param slowQueryRatio    the number of keys or documents examined for each result at which
+     *                          a query is slow
+     * @param slowQuerySampling log one in this many slow queries of each shape
+     */
+    QueryStatisticsRecorder(double slowQueryRatio, int slowQuerySampling) {
+        this.slowQueryRatio = slowQueryRatio;
+        this.slowQuerySampling = slowQuerySampling;
+    }
+
+    /**
+     * Ask the server for execution statistics, unless the query says not to.
+     */
+    static String withExecutionStats(String query) {
+        JsonObject json = QueryShape.parse(query);
+        if (json == null || json.has("execution_stats")) {
+            return query;
+        }
+        json.addProperty("execution_stats", true);
+        return json.toString();
+    }
+
+    void record(URI findUri, String query, long latencyNanos, ExecutionStats stats) {
+        JsonObject json = QueryShape.parse(query);
+        if (json == null) {
+            return;
+        }
+        String database = QueryShape.database(findUri);
+        String shape = QueryShape.of(json);
+        String key = database + ' ' + shape;
+        Shape recorder;
+        synchronized (shapes) {
+            recorder = shapes.get(key);
+            if (recorder == null) {
+                recorder = new Shape(database, shape);
+                shapes.put(key, recorder);
+            }
+        }
+        recorder.latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (stats == null) {
+            return;
+        }
+        recorder.keysExamined.record(stats.getTotalKeysExamined());
+        recorder.docsExamined.record(stats.getTotalDocsExamined());
+        recorder.resultsReturned.record(stats.getResultsReturned());
+        recorder.executionTimeMicros.record(Math.round(stats.getExecutionTimeMs() * 1000));
+
+        long examined = Math.max(stats.getTotalKeysExamined(), stats.getTotalDocsExamined());
+        double ratio = examined / (double) Math.max(1, stats.getResultsReturned());
+        if (ratio >= slowQueryRatio) {
+            long slow = recorder.slowQueries.incrementAndGet();
+            if ((slow - 1) % slowQuerySampling == 0) {
+                logger.warning(String.format(Locale.ENGLISH, "Slow query in %s examined %d " +
+                        "for each of %d results in %.1f ms, %d slow queries of shape %s",
+                        database, Math.round(ratio), stats.getResultsReturned(), stats
+                        .getExecutionTimeMs(), slow, shape));
+            }
+        }
+    }
+
+    List<QueryStatistics> getStatistics() {
+        List<Shape> recorders;
+        synchronized (shapes) {
+            recorders = new ArrayList<Shape>(shapes.values());
+        }
+        List<QueryStatistics> statistics = new ArrayList<QueryStatistics>(recorders.size());
+        for (Shape recorder : recorders) {
+            statistics.add(new QueryStatistics(recorder.database, recorder.shape, recorder
+                    .slowQueries.get(), recorder.latencyMicros.snapshot(), recorder.keysExamined
+                    .snapshot(), recorder.docsExamined.snapshot(), recorder.resultsReturned
+                    .snapshot(), recorder.executionTimeMicros.snapshot()));
+        }
+        return statistics;
+    }
+
+    private static final class Shape {
+
+        private final String database;
+        private final String shape;
+        private final AtomicLong slowQueries = new AtomicLong();
+        private final LogHistogram latencyMicros = new LogHistogram();
+        private final LogHistogram keysExamined = new LogHistogram();
+        private final LogHistogram docsExamined = new LogHistogram();
+        private final LogHistogram resultsReturned = new LogHistogram();
+        private final LogHistogram executionTimeMicros = new LogHistogram();
+
+        private Shape(String database, String shape) {
+            this.database = database;
+            this.shape = shape;
+        }
+    }
+}
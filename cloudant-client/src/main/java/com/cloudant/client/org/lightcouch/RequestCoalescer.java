@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch;
+
+import com.cloudant.http.HttpConnection;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Pattern;
+
+/**
+ * Coalesces identical concurrent GET requests so that only one request is sent to the server
+ * and its buffered response is shared with every caller that asked for the same resource while
+ * it was in flight (a "single-flight" request).
+ */
+final class RequestCoalescer {
+
+    // Streaming feeds never complete in a useful time so they are never coalesced
+    private static final Pattern STREAMING_FEED = Pattern.compile(
+            "[?&]feed=(continuous|longpoll|eventsource)(&|$)");
+
+    private final Map<String, Flight> inFlight = new HashMap<String, Flight>();
+
+    /**
+     * @param connection the request
+     * @return {@code true} if the request is a GET without a body that is not for a streaming feed
+     */
+    static boolean isBoundedGet(HttpConnection connection) {
+        return "GET".equals(connection.getRequestMethod()) && !connection.hasRequestBody() &&
+                !isStreamingFeed(connection);
+    }
+
+    /**
+     * @param connection the request
+     * @return {@code true} if the request is for a continuous, longpoll or eventsource feed
+     */
+    static boolean isStreamingFeed(HttpConnection connection) {
+        return STREAMING_FEED.matcher(connection.url.toString()).find();
+    }
+
+    /**
+     * @param connection the request
+     * @return the key identifying the request or {@code null} if it should not be coalesced
+     */
+    static String key(HttpConnection connection) {
+        if (!isBoundedGet(connection)) {
+            return null;
+        }
+        String url = connection.url.toString();
+        // Order the headers so that the key does not depend on the order they were added
+        return url + " " + new TreeMap<String, String>(connection.requestProperties);
+    }
+
+    /**
+     * Join the flight for a key, becoming its leader if there is no request in flight.
+     *
+     * @param key the request key
+     * @return the flight for the key
+     */
+    synchronized Flight join(String key) {
+        Flight flight = inFlight.get(key);
+        if (flight == null) {
+            flight = new Flight(key);
+            inFlight.put(key, flight);
+        }
+        return flight;
+    }
+
+    private synchronized void land(Flight flight) {
+        inFlight.remove(flight.key);
+    }
+
+    /**
+     * A single in-flight request. The leader, the thread that started the flight, sends the
+     * request and completes the flight, every other caller waits for the leader's result.
+     */
+    final class Flight {
+
+        private final String key;
+        private final Thread leader = Thread.currentThread();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile byte[] response;
+        private volatile RuntimeException error;
+
+        private Flight(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return {@code true} if the calling thread must send the request
+         */
+        boolean isLeader() {
+            return leader == Thread.currentThread();
+        }
+
+        /**
+         * Complete the flight with the leader's response. Requests made after this point start
+         * a new flight.
+         */
+        void complete(byte[] response) {
+            this.response = response;
+            land(this);
+            done.countDown();
+        }
+
+        /**
+         * Complete the flight with the exception thrown by the leader's request.
+         */
+        void fail(RuntimeException error) {
+            this.error = error;
+            land(this);
+            done.countDown();
+        }
+
+        /**
+         * Wait for the leader to complete the flight.
+         *
+         * @return a stream of the shared response
+         * @throws RuntimeException the exception thrown by the leader's request
+         */
+        InputStream await() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CouchDbException("Interrupted waiting for a coalesced request.", e);
+            }
+            if (error != null) {
+                throw error;
+            }
+            return new ByteArrayInputStream(response);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch;
+
+import com.cloudant.client.api.model.HedgeStatistics;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.http.internal.Utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends a second, hedge, request for a slow idempotent GET and uses whichever response arrives
+ * first.
+ * <p>
+ * The hedge is sent when there is no response after a delay equal to a percentile of the recent
+ * response latencies, so only the slowest requests are hedged. The loser of each race is
+ * cancelled, or its response body drained if it had already responded. When the hedge wins the
+ * original request takes its response, so callers always read the request they passed in. Each
+ * eligible request
+ * earns a fraction of a hedge and each hedge spends a whole one, so that hedges never exceed a
+ * fixed fraction of the traffic, even when the server is overloaded and every request is slow.
+ * </p>
+ */
+final class RequestHedger {
+
+    private static final Logger logger = Logger.getLogger(RequestHedger.class.getName());
+
+    // The number of recent latencies the delay is calculated from
+    static final int SAMPLES = 512;
+    // No hedges are sent until there are enough latencies for a meaningful percentile
+    static final int MIN_SAMPLES = 64;
+    // How often, in samples, the delay is recalculated
+    private static final int RECALCULATE_INTERVAL = 64;
+    // Hedges are accounted in thousandths so the budget can be kept in a long
+    private static final long HEDGE_COST = 1000;
+    // At most this many hedges can be sent in a burst
+    private static final long MAX_BUDGET = 10 * HEDGE_COST;
+
+    /**
+     * Executes a request and reads its response code.
+     */
+    interface Attempt {
+        void execute(HttpConnection connection) throws IOException;
+    }
+
+    private final double percentile;
+    private final long budgetPerRequest;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+    private final AtomicLong samples = new AtomicLong();
+    // The delay before a hedge is sent in nanoseconds, or -1 if there are too few samples
+    private volatile long delayNanos = -1;
+    private final AtomicLong budget = new AtomicLong(MAX_BUDGET);
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private final AtomicLong hedgesThrottled = new AtomicLong();
+
+    // Schedules the hedges, which are then sent by a separate executor so they can block
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Executor executor;
+    // The pool created by the hedger, null if the executor was supplied
+    private final ExecutorService ownExecutor;
+
+    /**
+     * @param percentile     the percentile of recent latencies to wait before hedging
+     * @param maxHedgeRatio  the maximum number of hedges as a fraction of eligible requests
+     * @param executor       the executor to send hedges with, or {@code null} for a pool of
+     *                       daemon threads
+     */
+    RequestHedger(double percentile, double maxHedgeRatio, Executor executor) {
+        this.percentile = percentile;
+        this.budgetPerRequest = Math.max(1, Math.round(maxHedgeRatio * HEDGE_COST));
+        ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "cloudant-hedged-read");
+                t.setDaemon(true);
+                return t;
+            }
+        };
+        this.scheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.ownExecutor = (executor == null) ? Executors.newCachedThreadPool(threadFactory) :
+                null;
+        this.executor = (executor == null) ? ownExecutor : executor;
+    }
+
+    /**
+     * @param connection the request
+     * @return {@code true} if the request is idempotent and has a single response worth hedging
+     */
+    static boolean isHedgeable(HttpConnection connection) {
+        return RequestCoalescer.isBoundedGet(connection);
+    }
+
+    /**
+     * Execute a request, hedging it if it is eligible and slow.
+     *
+     * @param connection the request, which holds the response of whichever of it or its hedge
+     *                   responded first when this method returns
+     * @param attempt    executes a request
+     * @throws IOException if the original request failed and there was no successful hedge
+     */
+    void execute(final HttpConnection connection, final Attempt attempt) throws IOException {
+        if (!isHedgeable(connection)) {
+            attempt.execute(connection);
+            return;
+        }
+        requests.incrementAndGet();
+        deposit();
+        long delay = delayNanos;
+        if (delay < 0) {
+            long start = System.nanoTime();
+            attempt.execute(connection);
+            record(System.nanoTime() - start);
+            return;
+        }
+
+        // Copy the request before it is executed so it does not pick up any changes made while
+        // executing, for example by an interceptor
+        final Race race = new Race(connection, copy(connection));
+        ScheduledFuture<?> timer = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                startHedge(race, attempt);
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+
+        // The latency of the original request is recorded whichever request wins, because the
+        // latencies of hedges that won would bias the delay low
+        long start = System.nanoTime();
+        try {
+            attempt.execute(connection);
+        } catch (IOException e) {
+            // The original may have failed because the hedge won and cancelled it, otherwise
+            // the hedge may still succeed
+            HttpConnection winner = timer.cancel(false) ? null : race.awaitHedge();
+            if (winner != null) {
+                // The original took at least as long as the hedge took to win
+                record(System.nanoTime() - start);
+                connection.takeResponse(winner);
+                return;
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            // Stop a hedge that was already sent so that it does not outlive the request
+            if (race.winner.compareAndSet(null, connection)) {
+                race.hedge.cancel();
+            }
+            throw e;
+        } finally {
+            timer.cancel(false);
+        }
+        record(System.nanoTime() - start);
+        if (race.winner.compareAndSet(null, connection)) {
+            race.hedge.cancel();
+            return;
+        }
+        // The hedge won while the original response was being received
+        drain(connection);
+        connection.takeResponse(race.awaitHedge());
+    }
+
+    private void startHedge(final Race race, final Attempt attempt) {
+        try {
+            if (race.winner.get() != null) {
+                return;
+            }
+            if (!withdraw()) {
+                hedgesThrottled.incrementAndGet();
+                return;
+            }
+            hedges.incrementAndGet();
+            race.hedgeStarted = true;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runHedge(race, attempt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The client is shutting down
+            race.hedgeDone.countDown();
+        } finally {
+            race.decided.countDown();
+        }
+    }
+
+    private void runHedge(Race race, Attempt attempt) {
+        try {
+            attempt.execute(race.hedge);
+            if (race.winner.compareAndSet(null, race.hedge)) {
+                hedgesWon.incrementAndGet();
+                // Cancelled before the hedge is done so the original cannot be disconnected after
+                // it has taken the hedge's response
+                race.original.cancel();
+            } else {
+                drain(race.hedge);
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Hedge request failed", e);
+        } catch (RuntimeException e) {
+            logger.log(Level.FINE, "Hedge request failed", e);
+        } finally {
+            race.hedgeDone.countDown();
+        }
+    }
+
+    /**
+     * Create a copy of a GET request with the same headers, interceptors and configuration.
+     */
+    private static HttpConnection copy(HttpConnection connection) {
+        HttpConnection copy = new HttpConnection(connection.getRequestMethod(), connection.url,
+                null);
+        copy.requestProperties.putAll(connection.requestProperties);
+        copy.requestInterceptors.addAll(connection.requestInterceptors);
+        copy.responseInterceptors.addAll(connection.responseInterceptors);
+        copy.connectionFactory = connection.connectionFactory;
+        copy.setCompression(connection.getCompression());
+        copy.setNumberOfRetries(connection.getNumberOfRetriesRemaining());
+        if (connection.hasDeadline()) {
+            copy.setDeadline(connection.getRemainingNanos(), TimeUnit.NANOSECONDS);
+        }
+        return copy;
+    }
+
+    /**
+     * Consume the response of a request that lost a race so that its connection can be reused.
+     */
+    private static void drain(HttpConnection connection) {
+        try {
+            HttpURLConnection urlConnection = connection.getConnection();
+            Utils.consumeAndCloseStream(urlConnection.getResponseCode() / 100 == 2 ?
+                    urlConnection.getInputStream() : urlConnection.getErrorStream());
+        } catch (IOException e) {
+            connection.disconnect();
+        }
+    }
+
+    private void deposit() {
+        long current;
+        do {
+            current = budget.get();
+            if (current >= MAX_BUDGET) {
+                return;
+            }
+        } while (!budget.compareAndSet(current, Math.min(MAX_BUDGET, current +
+                budgetPerRequest)));
+    }
+
+    private boolean withdraw() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - HEDGE_COST));
+        return true;
+    }
+
+    private void record(long nanos) {
+        long sample = samples.getAndIncrement();
+        latencies.set((int) (sample % SAMPLES), nanos);
+        long count = sample + 1;
+        if (count >= MIN_SAMPLES && count % RECALCULATE_INTERVAL == 0) {
+            int size = (int) Math.min(count, SAMPLES);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100d * size) - 1;
+            delayNanos = sorted[Math.max(0, Math.min(size - 1, index))];
+        }
+    }
+
+    HedgeStatistics getStatistics() {
+        long delay = delayNanos;
+        return new HedgeStatistics(requests.get(), hedges.get(), hedgesWon.get(), hedgesThrottled
+                .get(), (delay < 0) ? -1d : delay / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * The race between a request and its hedge.
+     */
+    private static final class Race {
+
+        private final HttpConnection original;
+        private final HttpConnection hedge;
+        private final AtomicReference<HttpConnection> winner = new
+                AtomicReference<HttpConnection>();
+        // Counted down when it has been decided whether to send the hedge
+        private final CountDownLatch decided = new CountDownLatch(1);
+        private final CountDownLatch hedgeDone = new CountDownLatch(1);
+        private volatile boolean hedgeStarted = false;
+
+        private Race(HttpConnection original, HttpConnection hedge) {
+            this.original = original;
+            this.hedge = hedge;
+        }
+
+        /**
+         * Wait for the hedge to finish, if it was sent, after the original request failed or
+         * lost.
+         *
+         * @return the hedge if it succeeded or {@code null}
+         * @throws InterruptedIOException if interrupted while waiting
+         */
+        private HttpConnection awaitHedge() throws InterruptedIOException {
+            try {
+                decided.await();
+                if (hedgeStarted) {
+                    hedgeDone.await();
+                }
+            } catch (InterruptedException e) {
+                hedge.cancel();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for hedge request");
+            }
+            return (winner.get() == hedge) ? hedge : null;
+        }
+    }
+}
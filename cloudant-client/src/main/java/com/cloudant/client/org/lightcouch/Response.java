@@ -1,6 +1,6 @@
 /*
  * Copyright (C) 2011 lightcouch.org
- * Copyright © 2015, 2016 IBM Corp. All rights reserved.
+ * Copyright © 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -49,6 +49,14 @@ public class Response {
         return rev;
     }
 
+    void setId(String id) {
+        this.id = id;
+    }
+
+    void setRev(String rev) {
+        this.rev = rev;
+    }
+
     public String getError() {
         return error;
     }
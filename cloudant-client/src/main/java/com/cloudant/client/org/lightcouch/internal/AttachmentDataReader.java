@@ -0,0 +1,311 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch.internal;
+
+import com.cloudant.client.api.model.AttachmentSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+
+/**
+ * Reads a document, diverting the base64 data of its inline attachments to sinks as it is read.
+ * <p>
+ * The JSON is scanned as it passes through, tracking only the object nesting and the keys that
+ * lead to {@code _attachments.<name>.data}. When a sink is provided for an attachment its data
+ * string is decoded into the sink and replaced by {@code null} in the document that is parsed,
+ * so the data is never held as a string.
+ * </p>
+ */
+public final class AttachmentDataReader extends Reader {
+
+    private static final String ATTACHMENTS = "_attachments";
+    private static final String DATA = "data";
+    private static final String NULL = "null";
+
+    private static final int[] DECODE = new int[128];
+
+    static {
+        for (int i = 0; i < DECODE.length; i++) {
+            DECODE[i] = -1;
+        }
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final Reader in;
+    private final AttachmentSink.Provider sinks;
+    private final char[] raw = new char[8192];
+    // Every character read produces at most the 4 characters of null
+    private final char[] out = new char[raw.length * NULL.length()];
+    private int outPosition = 0;
+    private int outLimit = 0;
+
+    // The open objects and arrays, only the first few levels matter
+    private final StringBuilder nesting = new StringBuilder();
+    private boolean expectKey = false;
+    private final StringBuilder key = new StringBuilder();
+    private boolean inKey = false;
+    private boolean inString = false;
+    private boolean escaped = false;
+    // The keys of the document, the attachment and the attachment property being read
+    private String documentKey = null;
+    private String attachmentName = null;
+    private String attachmentKey = null;
+    // True between the colon after an attachment's data key and its value
+    private boolean dataValue = false;
+
+    // The sink of the data being decoded, or null
+    private OutputStream sink = null;
+    private final byte[] decoded = new byte[6 * 1024];
+    private int decodedLength = 0;
+    private int quantum = 0;
+    private int quantumLength = 0;
+
+    /**
+     * @param in    the document JSON
+     * @param sinks chooses the sink for each attachment's data
+     */
+    public AttachmentDataReader(Reader in, AttachmentSink.Provider sinks) {
+        this.in = in;
+        this.sinks = sinks;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (outPosition == outLimit) {
+            int n = in.read(raw, 0, raw.length);
+            if (n == -1) {
+                if (sink != null) {
+                    throw new IOException("The document ended in the middle of attachment data.");
+                }
+                return -1;
+            }
+            outPosition = 0;
+            outLimit = 0;
+            for (int i = 0; i < n; i++) {
+                scan(raw[i]);
+            }
+            flushDecoded();
+        }
+        int n = Math.min(len, outLimit - outPosition);
+        System.arraycopy(out, outPosition, cbuf, off, n);
+        outPosition += n;
+        return n;
+    }
+
+    private void scan(char c) throws IOException {
+        if (sink != null) {
+            decode(c);
+            return;
+        }
+        if (inString) {
+            if (inKey) {
+                if (!escaped && c == '"') {
+                    endKey();
+                } else {
+                    key.append(c);
+                }
+            }
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                inKey = false;
+            }
+            out[outLimit++] = c;
+            return;
+        }
+        switch (c) {
+            case '{':
+                nesting.append(c);
+                expectKey = true;
+                break;
+            case '[':
+                nesting.append(c);
+                break;
+            case '}':
+            case ']':
+                nesting.setLength(Math.max(0, nesting.length() - 1));
+                break;
+            case ',':
+                expectKey = isInObject();
+                break;
+            case ':':
+                expectKey = false;
+                dataValue = nesting.length() == 3 && "{{{".contentEquals(nesting) && ATTACHMENTS
+                        .equals(documentKey) && DATA.equals(attachmentKey);
+                break;
+            case '"':
+                if (expectKey && isInObject()) {
+                    inKey = true;
+                    key.setLength(0);
+                } else if (dataValue) {
+                    dataValue = false;
+                    sink = openSink();
+                    if (sink != null) {
+                        NULL.getChars(0, NULL.length(), out, outLimit);
+                        outLimit += NULL.length();
+                        return;
+                    }
+                }
+                inString = true;
+                break;
+            default:
+                if (!Character.isWhitespace(c)) {
+                    dataValue = false;
+                }
+        }
+        out[outLimit++] = c;
+    }
+
+    private boolean isInObject() {
+        return nesting.length() > 0 && nesting.charAt(nesting.length() - 1) == '{';
+    }
+
+    private void endKey() {
+        String name = unescape(key);
+        switch (nesting.length()) {
+            case 1:
+                documentKey = name;
+                break;
+            case 2:
+                attachmentName = name;
+                break;
+            case 3:
+                attachmentKey = name;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private OutputStream openSink() throws IOException {
+        AttachmentSink attachmentSink = sinks.get(attachmentName);
+        return (attachmentSink == null) ? null : attachmentSink.openStream();
+    }
+
+    private void decode(char c) throws IOException {
+        if (escaped) {
+            // Only an escaped solidus is expected in base64
+            escaped = false;
+        } else if (c == '\\') {
+            escaped = true;
+            return;
+        } else if (c == '"') {
+            endData();
+            return;
+        }
+        int value = (c < DECODE.length) ? DECODE[c] : -1;
+        if (value < 0) {
+            // Padding
+            return;
+        }
+        quantum = (quantum << 6) | value;
+        if (++quantumLength == 4) {
+            if (decodedLength + 3 > decoded.length) {
+                flushDecoded();
+            }
+            decoded[decodedLength++] = (byte) (quantum >> 16);
+            decoded[decodedLength++] = (byte) (quantum >> 8);
+            decoded[decodedLength++] = (byte) quantum;
+            quantum = 0;
+            quantumLength = 0;
+        }
+    }
+
+    private void endData() throws IOException {
+        // 2 or 3 characters before the padding encode 1 or 2 bytes
+        if (quantumLength == 2) {
+            decoded[decodedLength++] = (byte) (quantum >> 4);
+        } else if (quantumLength == 3) {
+            decoded[decodedLength++] = (byte) (quantum >> 10);
+            decoded[decodedLength++] = (byte) (quantum >> 2);
+        }
+        quantum = 0;
+        quantumLength = 0;
+        flushDecoded();
+        OutputStream finished = sink;
+        sink = null;
+        finished.close();
+    }
+
+    private void flushDecoded() throws IOException {
+        if (decodedLength > 0) {
+            sink.write(decoded, 0, decodedLength);
+            decodedLength = 0;
+        }
+    }
+
+    /**
+     * @return the value of a JSON string without its quotes
+     */
+    private static String unescape(CharSequence s) {
+        StringBuilder value = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 == s.length()) {
+                value.append(c);
+                continue;
+            }
+            c = s.charAt(++i);
+            switch (c) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 < s.length()) {
+                        value.append((char) Integer.parseInt(s.subSequence(i + 1, i + 5)
+                                .toString(), 16));
+                        i += 4;
+                    }
+                    break;
+                default:
+                    value.append(c);
+            }
+        }
+        return value.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (sink != null) {
+                sink.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
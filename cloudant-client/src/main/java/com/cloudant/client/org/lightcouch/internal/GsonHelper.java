@@ -1,6 +1,6 @@
 /*
  * Copyright (C) 2011 lightcouch.org
- * Copyright (c) 2015 IBM Corp. All rights reserved.
+ * Copyright (c) 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -49,6 +49,7 @@ public class GsonHelper {
             }
 
         });
+        gsonBuilder.registerTypeAdapterFactory(new StreamingAttachments.AdapterFactory());
 
         return gsonBuilder;
     }
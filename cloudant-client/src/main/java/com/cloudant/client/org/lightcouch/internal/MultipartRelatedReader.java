@@ -0,0 +1,318 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch.internal;
+
+import com.cloudant.client.api.model.AttachmentSink;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a {@code multipart/related} document response, which is the document JSON followed by a
+ * part with the raw data of each attachment.
+ * <p>
+ * Each part is read straight from the response as the boundary is found, so attachment data is
+ * written to its sink without being held in memory.
+ * </p>
+ */
+public final class MultipartRelatedReader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private static final Pattern BOUNDARY = Pattern.compile(";\\s*boundary=(?:\"([^\"]*)\"|" +
+            "([^;\\s]+))", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FILENAME = Pattern.compile(";\\s*filename=(?:\"((?:[^\"\\\\]|" +
+            "\\\\.)*)\"|([^;\\s]+))", Pattern.CASE_INSENSITIVE);
+
+    private final InputStream in;
+    // The delimiter before every boundary, including the first as the buffer starts with CRLF
+    private final byte[] delimiter;
+    private final byte[] buffer = new byte[16 * 1024];
+    private int position = 0;
+    private int limit = 0;
+    private Part current = null;
+    private boolean finished = false;
+
+    /**
+     * @param in       the response body
+     * @param boundary the boundary from the response content type
+     */
+    public MultipartRelatedReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(ISO_8859_1);
+        buffer[limit++] = '\r';
+        buffer[limit++] = '\n';
+    }
+
+    /**
+     * @param contentType the content type of a response
+     * @return the multipart boundary or {@code null} if the response is not multipart
+     */
+    public static String boundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ENGLISH).startsWith
+                ("multipart/")) {
+            return null;
+        }
+        Matcher matcher = BOUNDARY.matcher(contentType);
+        if (!matcher.find()) {
+            return null;
+        }
+        return (matcher.group(1) != null) ? matcher.group(1) : matcher.group(2);
+    }
+
+    /**
+     * Read the document, writing the data of each attachment to the sink chosen by the provider.
+     * The data of an attachment without a sink is base64 encoded into the document.
+     *
+     * @param gson      the Gson to deserialize the document with
+     * @param classType the class of the document
+     * @param sinks     chooses the sink for each attachment
+     * @param <T>       the document type
+     * @return the document
+     * @throws IOException if the response cannot be read or an attachment cannot be written
+     */
+    public <T> T readDocument(Gson gson, Class<T> classType, AttachmentSink.Provider sinks)
+            throws IOException {
+        if (nextPart() == null) {
+            throw new EOFException("The multipart response has no document part.");
+        }
+        JsonObject document = new JsonParser().parse(new InputStreamReader(current, UTF_8))
+                .getAsJsonObject();
+        // Parts without a file name are the attachments that follow, in document order
+        List<String> following = new ArrayList<String>();
+        JsonObject attachments = document.getAsJsonObject("_attachments");
+        if (attachments != null) {
+            for (Map.Entry<String, JsonElement> entry : attachments.entrySet()) {
+                JsonElement follows = entry.getValue().getAsJsonObject().get("follows");
+                if (follows != null && follows.getAsBoolean()) {
+                    following.add(entry.getKey());
+                }
+            }
+        }
+        Map<String, String> headers;
+        int index = 0;
+        while ((headers = nextPart()) != null) {
+            String name = filename(headers.get("content-disposition"));
+            if (name == null) {
+                if (index >= following.size()) {
+                    throw new IOException("The multipart response has an unexpected part.");
+                }
+                name = following.get(index);
+            }
+            index++;
+            AttachmentSink sink = sinks.get(name);
+            if (sink != null) {
+                OutputStream out = sink.openStream();
+                try {
+                    copy(current, out);
+                } finally {
+                    out.close();
+                }
+            } else if (attachments != null && attachments.has(name)) {
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                copy(new StreamingAttachments.Base64EncodingInputStream(current), encoded);
+                JsonObject attachment = attachments.getAsJsonObject(name);
+                attachment.remove("follows");
+                attachment.addProperty("data", new String(encoded.toByteArray(), ISO_8859_1));
+            }
+        }
+        return gson.fromJson(document, classType);
+    }
+
+    /**
+     * Move to the next part, skipping anything left in the current part.
+     *
+     * @return the headers of the part, with lower case names, or {@code null} if there are no
+     * more parts
+     * @throws IOException if the response cannot be read or is not valid multipart
+     */
+    private Map<String, String> nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        // Skip the preamble or the rest of the current part
+        Part skipped = (current == null) ? new Part() : current;
+        byte[] skip = new byte[4096];
+        while (skipped.read(skip, 0, skip.length) != -1) {
+            // Discard
+        }
+        position += delimiter.length;
+        if (!fill(2)) {
+            throw new EOFException("The multipart response ended without a closing boundary.");
+        }
+        if (buffer[position] == '-' && buffer[position + 1] == '-') {
+            finished = true;
+            current = null;
+            return null;
+        }
+        // The rest of the boundary line is transport padding
+        readLine();
+        Map<String, String> headers = new HashMap<String, String>();
+        String line;
+        while ((line = readLine()).length() > 0) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH), line
+                        .substring(colon + 1).trim());
+            }
+        }
+        current = new Part();
+        return headers;
+    }
+
+    private static String filename(String contentDisposition) {
+        if (contentDisposition == null) {
+            return null;
+        }
+        Matcher matcher = FILENAME.matcher(contentDisposition);
+        if (!matcher.find()) {
+            return null;
+        }
+        return (matcher.group(1) != null) ? matcher.group(1).replaceAll("\\\\(.)", "$1") :
+                matcher.group(2);
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] b = new byte[8192];
+        int n;
+        while ((n = in.read(b)) != -1) {
+            out.write(b, 0, n);
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            if (!fill(1)) {
+                throw new EOFException("The multipart response ended in the part headers.");
+            }
+            byte b = buffer[position++];
+            if (b == '\n') {
+                break;
+            }
+            line.append((char) (b & 0xff));
+        }
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Read into the buffer until it has at least the minimum number of bytes available.
+     *
+     * @return {@code false} if the response ended first
+     */
+    private boolean fill(int minimum) throws IOException {
+        if (limit - position >= minimum) {
+            return true;
+        }
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+        while (limit < minimum) {
+            int n = in.read(buffer, limit, buffer.length - limit);
+            if (n == -1) {
+                return false;
+            }
+            limit += n;
+        }
+        return true;
+    }
+
+    /**
+     * @param end the index after the last byte to search
+     * @return the index of the delimiter in the available bytes, or -1
+     */
+    private int indexOfDelimiter(int end) {
+        int last = end - delimiter.length;
+        for (int i = position; i <= last; i++) {
+            int j = 0;
+            while (j < delimiter.length && buffer[i + j] == delimiter[j]) {
+                j++;
+            }
+            if (j == delimiter.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The body of a part, which ends before the next delimiter.
+     */
+    private final class Part extends InputStream {
+
+        private boolean ended = false;
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) == -1) ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (ended) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            boolean full = fill(delimiter.length);
+            // Only search as far as could be returned
+            int end = Math.min(limit, position + len + delimiter.length - 1);
+            int index = indexOfDelimiter(end);
+            int n;
+            if (index == position) {
+                ended = true;
+                return -1;
+            } else if (index != -1) {
+                n = index - position;
+            } else if (full) {
+                // Keep back enough bytes to match a delimiter that is split across reads
+                n = end - position - (delimiter.length - 1);
+            } else {
+                throw new EOFException("The multipart response ended in a part.");
+            }
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // The response is closed by the caller of the reader
+        }
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.client.org.lightcouch.internal;
+
+import com.cloudant.client.api.model.AttachmentSource;
+import com.cloudant.client.org.lightcouch.Attachment;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.http.internal.Base64OutputStreamFactory;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sends the data of attachments that have an {@link AttachmentSource} without holding it in
+ * memory.
+ * <p>
+ * While a document is serialized between {@link #begin()} and {@link #end()} each attachment
+ * with a source is written with a unique placeholder as its data. The request body is then the
+ * serialized document with each placeholder replaced by the base64 encoding of its source, read
+ * and encoded as the body is sent. An attachment with a source that is serialized at any other
+ * time, for example in a bulk request, is read and encoded in memory.
+ * </p>
+ * <p>
+ * Sources collected for a {@code multipart/related} request are instead written as attachments
+ * that follow the document, and the request body is the document followed by a part with the raw
+ * data of each source.
+ * </p>
+ */
+public final class StreamingAttachments {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ThreadLocal<StreamingAttachments> CURRENT = new
+            ThreadLocal<StreamingAttachments>();
+
+    private final String prefix = "cloudant-attachment-" + UUID.randomUUID() + "-";
+    private final List<AttachmentSource> sources = new ArrayList<AttachmentSource>();
+    private final boolean multipart;
+
+    private StreamingAttachments(boolean multipart) {
+        this.multipart = multipart;
+    }
+
+    /**
+     * Start collecting the sources of the attachments serialized on this thread.
+     *
+     * @return the collected sources, which must be ended
+     */
+    public static StreamingAttachments begin() {
+        return begin(false);
+    }
+
+    /**
+     * Start collecting the sources of the attachments serialized on this thread, to be sent as
+     * the parts of a {@code multipart/related} request. Every source must have a known length.
+     *
+     * @return the collected sources, which must be ended
+     */
+    public static StreamingAttachments beginMultipart() {
+        return begin(true);
+    }
+
+    private static StreamingAttachments begin(boolean multipart) {
+        StreamingAttachments attachments = new StreamingAttachments(multipart);
+        CURRENT.set(attachments);
+        return attachments;
+    }
+
+    /**
+     * Stop collecting sources.
+     */
+    public void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return {@code true} if no attachment was serialized with a placeholder
+     */
+    public boolean isEmpty() {
+        return sources.isEmpty();
+    }
+
+    /**
+     * Set the request body of a connection to the serialized document with the placeholders
+     * replaced by the encoded attachment data.
+     *
+     * @param connection the request
+     * @param json       the serialized document
+     */
+    public void setRequestBody(HttpConnection connection, String json) {
+        final List<Segment> segments = new ArrayList<Segment>();
+        int start = 0;
+        long length = 0;
+        boolean lengthKnown = true;
+        for (Placeholder placeholder : placeholders(json)) {
+            byte[] text = json.substring(start, placeholder.index).getBytes(UTF_8);
+            segments.add(new Segment(text, null, false));
+            segments.add(new Segment(null, placeholder.source, true));
+            long sourceLength = placeholder.source.getLength();
+            lengthKnown &= sourceLength >= 0;
+            // Every 3 bytes, or part of 3 bytes, are encoded as 4 characters
+            length += text.length + 4 * ((sourceLength + 2) / 3);
+            start = placeholder.index + placeholder.length;
+        }
+        byte[] text = json.substring(start).getBytes(UTF_8);
+        segments.add(new Segment(text, null, false));
+        length += text.length;
+        setRequestBody(connection, segments, lengthKnown ? length : -1);
+    }
+
+    /**
+     * @return the content type of a {@code multipart/related} request body
+     */
+    public String getMultipartContentType() {
+        return "multipart/related;boundary=\"" + prefix + "\"";
+    }
+
+    /**
+     * Set the request body of a connection to the multipart document followed by the raw data of
+     * each attachment, in the order they were serialized. The body always has a fixed length as
+     * CouchDB does not accept chunked multipart requests.
+     *
+     * @param connection the request
+     * @param json       the serialized document
+     */
+    public void setMultipartRequestBody(HttpConnection connection, String json) {
+        List<Segment> segments = new ArrayList<Segment>();
+        String delimiter = "--" + prefix;
+        byte[] text = (delimiter + "\r\nContent-Type: application/json\r\n\r\n" + json)
+                .getBytes(UTF_8);
+        segments.add(new Segment(text, null, false));
+        long length = text.length;
+        // Each attachment part has no headers, CouchDB matches them to the document by order
+        byte[] boundary = ("\r\n" + delimiter + "\r\n\r\n").getBytes(UTF_8);
+        for (AttachmentSource source : sources) {
+            segments.add(new Segment(boundary, null, false));
+            segments.add(new Segment(null, source, false));
+            length += boundary.length + source.getLength();
+        }
+        text = ("\r\n" + delimiter + "--").getBytes(UTF_8);
+        segments.add(new Segment(text, null, false));
+        length += text.length;
+        setRequestBody(connection, segments, length);
+    }
+
+    private static void setRequestBody(HttpConnection connection, final List<Segment> segments,
+                                       long length) {
+        connection.setRequestBody(new HttpConnection.InputStreamGenerator() {
+            @Override
+            public InputStream getInputStream() {
+                return new SegmentInputStream(segments);
+            }
+        }, length);
+    }
+
+    private List<Placeholder> placeholders(String json) {
+        List<Placeholder> placeholders = new ArrayList<Placeholder>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            // Only the characters between the quotes are replaced
+            String placeholder = prefix + i;
+            int index = json.indexOf('"' + placeholder + '"');
+            if (index >= 0) {
+                placeholders.add(new Placeholder(index + 1, placeholder.length(), sources.get
+                        (i)));
+            }
+        }
+        Collections.sort(placeholders);
+        return placeholders;
+    }
+
+    /**
+     * A factory for the adapter that writes attachment sources as placeholders or, if sources
+     * are not being collected, as base64 data.
+     */
+    public static final class AdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (!Attachment.class.isAssignableFrom(type.getRawType())) {
+                return null;
+            }
+            final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+            final TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+            return new TypeAdapter<T>() {
+                @Override
+                public void write(JsonWriter out, T value) throws IOException {
+                    AttachmentSource source = (value == null) ? null : ((Attachment) value)
+                            .getSource();
+                    if (source == null) {
+                        delegate.write(out, value);
+                        return;
+                    }
+                    JsonObject attachment = delegate.toJsonTree(value).getAsJsonObject();
+                    StreamingAttachments current = CURRENT.get();
+                    if (current != null && current.multipart) {
+                        if (source.getLength() < 0) {
+                            throw new IllegalArgumentException("The length of every attachment " +
+                                    "source must be known to send a multipart request.");
+                        }
+                        attachment.remove("data");
+                        attachment.remove("stub");
+                        attachment.addProperty("follows", true);
+                        attachment.addProperty("length", source.getLength());
+                        current.sources.add(source);
+                    } else if (current != null) {
+                        attachment.addProperty("data", current.prefix + current.sources.size());
+                        current.sources.add(source);
+                    } else {
+                        attachment.addProperty("data", encode(source));
+                    }
+                    elements.write(out, attachment);
+                }
+
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    return delegate.read(in);
+                }
+            };
+        }
+
+        private static String encode(AttachmentSource source) throws IOException {
+            InputStream in = new Base64EncodingInputStream(source.openStream());
+            try {
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    encoded.write(buffer, 0, n);
+                }
+                return new String(encoded.toByteArray(), "US-ASCII");
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    private static final class Placeholder implements Comparable<Placeholder> {
+
+        private final int index;
+        private final int length;
+        private final AttachmentSource source;
+
+        private Placeholder(int index, int length, AttachmentSource source) {
+            this.index = index;
+            this.length = length;
+            this.source = source;
+        }
+
+        @Override
+        public int compareTo(Placeholder other) {
+            return (index < other.index) ? -1 : ((index == other.index) ? 0 : 1);
+        }
+    }
+
+    /**
+     * Either some of the serialized document or an attachment source.
+     */
+    private static final class Segment {
+
+        private final byte[] text;
+        private final AttachmentSource source;
+        private final boolean encoded;
+
+        private Segment(byte[] text, AttachmentSource source, boolean encoded) {
+            this.text = text;
+            this.source = source;
+            this.encoded = encoded;
+        }
+    }
+
+    /**
+     * Reads each segment in turn, opening the stream of a segment when the previous one is
+     * finished so only one attachment source is open at a time.
+     */
+    private static final class SegmentInputStream extends InputStream {
+
+        private final List<Segment> segments;
+        private int next = 0;
+        private InputStream current = null;
+
+        private SegmentInputStream(List<Segment> segments) {
+            this.segments = segments;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) == -1) ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                if (current == null) {
+                    if (next == segments.size()) {
+                        return -1;
+                    }
+                    Segment segment = segments.get(next++);
+                    if (segment.text != null) {
+                        current = new ByteArrayInputStream(segment.text);
+                    } else if (segment.encoded) {
+                        current = new Base64EncodingInputStream(segment.source.openStream());
+                    } else {
+                        current = segment.source.openStream();
+                    }
+                }
+                int n = current.read(b, off, len);
+                if (n != -1) {
+                    return n;
+                }
+                current.close();
+                current = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+            next = segments.size();
+        }
+    }
+
+    /**
+     * Base64 encodes a stream as it is read, using the platform's base64 output stream.
+     */
+    static final class Base64EncodingInputStream extends InputStream {
+
+        private final InputStream in;
+        private final byte[] raw = new byte[6 * 1024];
+        private final ExposedByteArrayOutputStream encoded = new ExposedByteArrayOutputStream();
+        private final OutputStream encoder = Base64OutputStreamFactory.get(encoded);
+        private int position = 0;
+        private boolean finished = false;
+
+        Base64EncodingInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) == -1) ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == encoded.size()) {
+                if (finished) {
+                    return -1;
+                }
+                encoded.reset();
+                position = 0;
+                int n = in.read(raw);
+                if (n == -1) {
+                    // Closing the encoder writes the final, padded, characters
+                    encoder.close();
+                    finished = true;
+                } else {
+                    encoder.write(raw, 0, n);
+                }
+            }
+            int n = Math.min(len, encoded.size() - position);
+            System.arraycopy(encoded.buffer(), position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
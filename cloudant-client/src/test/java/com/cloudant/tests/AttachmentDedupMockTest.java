@@ -0,0 +1,214 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.AttachmentUpload;
+import com.cloudant.client.api.model.Response;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class AttachmentDedupMockTest {
+
+    private static final MockResponse SAVED = new MockResponse().setResponseCode(201).setBody
+            ("{\"ok\":true,\"id\":\"a\",\"rev\":\"3-a\"}");
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+    private Database db;
+    private File file;
+    private byte[] data;
+    private String digest;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        mockWebServer = mockWebServerExt.get();
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .build();
+        db = c.database("animaldb", false);
+        data = new byte[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        digest = "md5-" + Base64.encodeBase64String(DigestUtils.md5(data));
+        file = File.createTempFile("attachment", ".bin");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static String row(String id, String rev, String attachments) {
+        return "{\"id\":\"" + id + "\",\"key\":\"" + id + "\",\"value\":{\"rev\":\"" + rev +
+                "\"},\"doc\":{\"_id\":\"" + id + "\",\"_rev\":\"" + rev + "\"," +
+                "\"_attachments\":{" + attachments + "}}}";
+    }
+
+    private String stub(String name, String digest, String encoding) {
+        return "\"" + name + "\":{\"content_type\":\"application/octet-stream\",\"revpos\":2," +
+                "\"digest\":\"" + digest + "\",\"length\":" + data.length + ",\"stub\":true" +
+                ((encoding == null) ? "" : ",\"encoding\":\"" + encoding + "\"") + "}";
+    }
+
+    private void enqueueRows(String... rows) {
+        StringBuilder body = new StringBuilder("{\"total_rows\":3,\"offset\":0,\"rows\":[");
+        for (int i = 0; i < rows.length; i++) {
+            body.append((i == 0) ? "" : ",").append(rows[i]);
+        }
+        mockWebServer.enqueue(new MockResponse().setBody(body.append("]}").toString()));
+    }
+
+    /**
+     * Assert that the local digest matches the digest of the file.
+     */
+    @Test
+    public void fileDigest() throws Exception {
+        assertEquals(digest, AttachmentUpload.md5Digest(file), "The file digest should match");
+        assertEquals(digest, AttachmentUpload.md5Digest(new ByteArrayInputStream(data)), "The " +
+                "stream digest should match");
+    }
+
+    /**
+     * Assert that a file matching the stub on the current revision is not uploaded.
+     */
+    @Test
+    public void unchangedFileSkipped() throws Exception {
+        enqueueRows(row("a", "2-a", stub("a.bin", digest, null)));
+        Response response = db.saveAttachmentIfChanged(file, "a.bin", "application/octet-stream",
+                "a", "2-a");
+
+        assertEquals(304, response.getStatusCode(), "The upload should be skipped");
+        assertEquals("2-a", response.getRev(), "The response should have the current revision");
+        assertEquals(1, mockWebServer.getRequestCount(), "Only the stubs should be requested");
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertEquals("POST", request.getMethod(), "The stubs should be requested with a POST");
+        assertEquals("/animaldb/_all_docs?include_docs=true", request.getPath(), "The stubs " +
+                "should be read from _all_docs");
+        assertEquals("{\"keys\":[\"a\"]}", request.getBody().readUtf8(), "The document id " +
+                "should be requested");
+    }
+
+    /**
+     * Assert that a file with a different digest is uploaded.
+     */
+    @Test
+    public void changedFileUploaded() throws Exception {
+        enqueueRows(row("a", "2-a", stub("a.bin", "md5-KWwSE7ZwaSLc5GDT8gBmrQ==", null)));
+        mockWebServer.enqueue(SAVED);
+        Response response = db.saveAttachmentIfChanged(file, "a.bin", "application/octet-stream",
+                "a", "2-a");
+
+        assertEquals(201, response.getStatusCode(), "The attachment should be uploaded");
+        assertEquals("3-a", response.getRev(), "The response should have the new revision");
+        MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertEquals("PUT", request.getMethod(), "The attachment should be put");
+        assertEquals("/animaldb/a/a.bin?rev=2-a", request.getPath(), "The attachment should be " +
+                "saved to the document");
+    }
+
+    /**
+     * Assert that the stubs of many documents are read with one request and only the changed
+     * attachments are uploaded.
+     */
+    @Test
+    public void batchedDigestChecks() throws Exception {
+        // b has the attachment compressed by the server, c does not exist
+        enqueueRows(row("a", "2-a", stub("a.bin", digest, null)), row("b", "2-b", stub("b.bin",
+                digest, "gzip")), "{\"key\":\"c\",\"error\":\"not_found\"}");
+        mockWebServer.enqueue(SAVED);
+        mockWebServer.enqueue(SAVED);
+        List<AttachmentUpload> uploads = new ArrayList<AttachmentUpload>();
+        uploads.add(new AttachmentUpload(new ByteArrayInputStream(data), digest, "a.bin",
+                "application/octet-stream", "a", "2-a"));
+        uploads.add(new AttachmentUpload(file, "b.bin", "application/octet-stream", "b", "2-b"));
+        uploads.add(new AttachmentUpload(file, "c.bin", "application/octet-stream", "c", null));
+        List<Response> responses = db.saveAttachmentsIfChanged(uploads);
+
+        assertEquals(3, responses.size(), "There should be a response for each upload");
+        assertEquals(304, responses.get(0).getStatusCode(), "The unchanged stream should be " +
+                "skipped");
+        assertEquals(201, responses.get(1).getStatusCode(), "The compressed attachment should be" +
+                " uploaded");
+        assertEquals(201, responses.get(2).getStatusCode(), "The new attachment should be " +
+                "uploaded");
+        assertEquals(3, mockWebServer.getRequestCount(), "There should be one stub request and " +
+                "two uploads");
+        assertEquals("{\"keys\":[\"a\",\"b\",\"c\"]}", MockWebServerResources
+                .takeRequestWithTimeout(mockWebServer).getBody().readUtf8(), "The documents " +
+                "should be requested together");
+        assertTrue(MockWebServerResources.takeRequestWithTimeout(mockWebServer).getPath()
+                .startsWith("/animaldb/b/b.bin"), "The compressed attachment should be uploaded");
+        assertEquals("/animaldb/c/c.bin", MockWebServerResources.takeRequestWithTimeout
+                (mockWebServer).getPath(), "The new attachment should be uploaded");
+    }
+
+    /**
+     * Assert that changed attachments on the same document are saved under the revision of the
+     * save before them.
+     */
+    @Test
+    public void revisionsChained() throws Exception {
+        enqueueRows(row("a", "2-a", stub("a.bin", "md5-KWwSE7ZwaSLc5GDT8gBmrQ==", null)));
+        mockWebServer.enqueue(SAVED);
+        mockWebServer.enqueue(new MockResponse().setResponseCode(201).setBody
+                ("{\"ok\":true,\"id\":\"a\",\"rev\":\"4-a\"}"));
+        List<AttachmentUpload> uploads = new ArrayList<AttachmentUpload>();
+        uploads.add(new AttachmentUpload(file, "a.bin", "application/octet-stream", "a", "1-a"));
+        uploads.add(new AttachmentUpload(file, "b.bin", "application/octet-stream", "a", "1-a"));
+        List<Response> responses = db.saveAttachmentsIfChanged(uploads);
+
+        assertEquals("3-a", responses.get(0).getRev(), "The first save should have the new " +
+                "revision");
+        assertEquals("4-a", responses.get(1).getRev(), "The second save should have the newest " +
+                "revision");
+        MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertEquals("/animaldb/a/a.bin?rev=2-a", MockWebServerResources.takeRequestWithTimeout
+                (mockWebServer).getPath(), "The first attachment should be saved under the " +
+                "current revision");
+        assertEquals("/animaldb/a/b.bin?rev=3-a", MockWebServerResources.takeRequestWithTimeout
+                (mockWebServer).getPath(), "The second attachment should be saved under the " +
+                "revision of the first save");
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.AttachmentDownloadOptions;
+import com.cloudant.client.org.lightcouch.CouchDbException;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+
+public class AttachmentDownloadMockTest {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+    private Database db;
+    private File file;
+    private FileChannel channel;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        mockWebServer = mockWebServerExt.get();
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .build();
+        db = c.database("animaldb", false);
+        file = File.createTempFile("attachment", ".bin");
+        channel = new RandomAccessFile(file, "rw").getChannel();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        channel.close();
+        file.delete();
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    private byte[] fileContent() throws Exception {
+        ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+        channel.read(content, 0);
+        return content.array();
+    }
+
+    /**
+     * Serves an attachment with range requests, recording the ranges requested. The first range
+     * request can be made to fail half way through its body.
+     */
+    private static final class RangeDispatcher extends Dispatcher {
+
+        private final byte[] data;
+        private final String md5;
+        private final AtomicBoolean failFirst;
+        final List<String> ranges = new CopyOnWriteArrayList<String>();
+
+        RangeDispatcher(byte[] data, String md5, boolean failFirst) {
+            this.data = data;
+            this.md5 = md5;
+            this.failFirst = new AtomicBoolean(failFirst);
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            MockResponse response = new MockResponse().setHeader("Accept-Ranges", "bytes")
+                    .setHeader("Content-MD5", md5);
+            if ("HEAD".equals(request.getMethod())) {
+                return response.setHeader("Content-Length", data.length);
+            }
+            String range = request.getHeader("Range");
+            ranges.add(range);
+            Matcher matcher = RANGE.matcher(range);
+            matcher.matches();
+            int from = Integer.parseInt(matcher.group(1));
+            int to = Integer.parseInt(matcher.group(2)) + 1;
+            response.setResponseCode(206).setHeader("Content-Range", "bytes " + from + "-" +
+                    (to - 1) + "/" + data.length).setBody(new Buffer().write(data, from, to -
+                    from));
+            if (failFirst.compareAndSet(true, false)) {
+                response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Assert that a large attachment is downloaded as parallel ranges into the file and that
+     * progress is reported.
+     */
+    @Test
+    public void parallelRanges() throws Exception {
+        byte[] data = data(1000003);
+        RangeDispatcher dispatcher = new RangeDispatcher(data, Base64.encodeBase64String
+                (DigestUtils.md5(data)), false);
+        mockWebServer.setDispatcher(dispatcher);
+        final AtomicLong transferred = new AtomicLong();
+        long length = db.downloadAttachment("a", "a.bin", null, channel, new
+                AttachmentDownloadOptions().ranges(4).minimumRangeSize(100000).progressListener
+                (new AttachmentDownloadOptions.ProgressListener() {
+                    @Override
+                    public void progress(long bytes, long length, double bytesPerSecond) {
+                        transferred.set(bytes);
+                    }
+                }));
+
+        assertEquals(data.length, length, "The length should be returned");
+        assertArrayEquals(data, fileContent(), "The file should contain the attachment");
+        assertEquals(4, dispatcher.ranges.size(), "There should be 4 range requests");
+        assertTrue(dispatcher.ranges.contains("bytes=0-249999"), "The first range should be " +
+                "requested");
+        assertEquals(data.length, transferred.get(), "The final progress should be complete");
+    }
+
+    /**
+     * Assert that a range that fails is resumed from the last byte received.
+     */
+    @Test
+    public void resumeAfterFailure() throws Exception {
+        byte[] data = data(500000);
+        RangeDispatcher dispatcher = new RangeDispatcher(data, Base64.encodeBase64String
+                (DigestUtils.md5(data)), true);
+        mockWebServer.setDispatcher(dispatcher);
+        db.downloadAttachment("a", "a.bin", null, channel, new AttachmentDownloadOptions());
+
+        assertArrayEquals(data, fileContent(), "The file should contain the attachment");
+        assertEquals(2, dispatcher.ranges.size(), "The range should be requested again");
+        assertEquals("bytes=0-499999", dispatcher.ranges.get(0), "The whole attachment should be" +
+                " requested first");
+        assertTrue(!dispatcher.ranges.get(1).startsWith("bytes=0-"), "The download should " +
+                "resume after the bytes received");
+    }
+
+    /**
+     * Assert that an earlier download is resumed from an offset.
+     */
+    @Test
+    public void resumeFromOffset() throws Exception {
+        byte[] data = data(1000);
+        channel.write(ByteBuffer.wrap(data, 0, 600), 0);
+        RangeDispatcher dispatcher = new RangeDispatcher(data, Base64.encodeBase64String
+                (DigestUtils.md5(data)), false);
+        mockWebServer.setDispatcher(dispatcher);
+        db.downloadAttachment("a", "a.bin", null, channel, new AttachmentDownloadOptions()
+                .offset(channel.size()));
+
+        assertArrayEquals(data, fileContent(), "The file should contain the attachment");
+        assertEquals("bytes=600-999", dispatcher.ranges.get(0), "Only the rest of the attachment" +
+                " should be requested");
+    }
+
+    /**
+     * Assert that a download with the wrong digest fails.
+     */
+    @Test
+    public void digestMismatch() throws Exception {
+        byte[] data = data(1000);
+        mockWebServer.setDispatcher(new RangeDispatcher(data, Base64.encodeBase64String
+                (DigestUtils.md5("other")), false));
+        CouchDbException e = assertThrows(CouchDbException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                db.downloadAttachment("a", "a.bin", null, channel, new
+                        AttachmentDownloadOptions());
+            }
+        });
+        assertTrue(e.getMessage().contains("digest"), "The digest should not match");
+    }
+
+    /**
+     * Assert that an attachment is downloaded whole if the server does not accept ranges.
+     */
+    @Test
+    public void withoutRanges() throws Exception {
+        byte[] data = data(1000);
+        mockWebServer.enqueue(new MockResponse().setHeader("Content-Length", data.length));
+        mockWebServer.enqueue(new MockResponse().setBody(new Buffer().write(data)));
+        db.downloadAttachment("a", "a.bin", null, channel, new AttachmentDownloadOptions()
+                .ranges(4).minimumRangeSize(1).offset(500));
+
+        assertArrayEquals(data, fileContent(), "The file should contain the attachment");
+        mockWebServer.takeRequest();
+        assertNull(mockWebServer.takeRequest().getHeader("Range"), "No range should be requested");
+    }
+
+    /**
+     * Assert that an attachment the server sends gzip encoded is written whole and decompressed,
+     * although its length is the encoded length, and that it is requested without an encoding.
+     */
+    @Test
+    public void gzipEncoded() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("line ").append(i % 10).append('\n');
+        }
+        byte[] data = text.toString().getBytes("UTF-8");
+        Buffer gzipped = new Buffer();
+        GZIPOutputStream gzip = new GZIPOutputStream(gzipped.outputStream());
+        gzip.write(data);
+        gzip.close();
+        long encodedLength = gzipped.size();
+        mockWebServer.enqueue(new MockResponse().setHeader("Accept-Ranges", "bytes").setHeader
+                ("Content-Encoding", "gzip").setHeader("Content-MD5", Base64.encodeBase64String
+                (DigestUtils.md5(gzipped.snapshot().toByteArray()))).setHeader("Content-Length",
+                encodedLength));
+        mockWebServer.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip").setBody
+                (gzipped));
+        long length = db.downloadAttachment("a", "a.txt", null, channel, new
+                AttachmentDownloadOptions());
+
+        assertTrue(encodedLength < data.length, "The attachment should be compressed");
+        assertEquals(data.length, length, "The decompressed length should be returned");
+        assertArrayEquals(data, fileContent(), "The file should contain the attachment");
+        for (int i = 0; i < 2; i++) {
+            RecordedRequest request = mockWebServer.takeRequest();
+            assertEquals("identity", request.getHeader("Accept-Encoding"), "The attachment " +
+                    "should be requested without an encoding");
+            assertNull(request.getHeader("Range"), "No range should be requested");
+        }
+    }
+}
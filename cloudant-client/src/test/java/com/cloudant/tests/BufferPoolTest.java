@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.cloudant.http.internal.BufferPool;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+public class BufferPoolTest {
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Assert that a released buffer is reused by the same thread.
+     */
+    @Test
+    public void releasedBufferReused() throws Exception {
+        byte[] buffer = BufferPool.acquire();
+        assertEquals(BufferPool.BUFFER_SIZE, buffer.length, "The buffer should be the pool size");
+        BufferPool.release(buffer);
+        byte[] reused = BufferPool.acquire();
+        try {
+            assertSame(buffer, reused, "The released buffer should be reused");
+        } finally {
+            BufferPool.release(reused);
+        }
+    }
+
+    /**
+     * Assert that bytes are read correctly whether the expected length is exact, unknown, too
+     * short or too long.
+     */
+    @Test
+    public void toByteArrayWithExpectedLengths() throws Exception {
+        byte[] bytes = randomBytes(3 * BufferPool.BUFFER_SIZE + 17);
+        for (long expected : new long[]{bytes.length, -1, 0, 10, bytes.length - 1, bytes
+                .length + 1, bytes.length * 4L}) {
+            assertArrayEquals(bytes, BufferPool.toByteArray(new ByteArrayInputStream(bytes),
+                    expected), "The bytes should match for expected length " + expected);
+        }
+    }
+
+    /**
+     * Assert that a copy transfers every byte.
+     */
+    @Test
+    public void copyAllBytes() throws Exception {
+        byte[] bytes = randomBytes(5 * BufferPool.BUFFER_SIZE + 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(bytes.length, BufferPool.copy(new ByteArrayInputStream(bytes), out), "The " +
+                "copied count should match");
+        assertArrayEquals(bytes, out.toByteArray(), "The copied bytes should match");
+    }
+}
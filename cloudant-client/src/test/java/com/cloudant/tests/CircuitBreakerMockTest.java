@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.model.CircuitBreakerStatistics;
+import com.cloudant.client.org.lightcouch.CircuitBreakerOpenException;
+import com.cloudant.client.org.lightcouch.CouchDbException;
+import com.cloudant.http.Http;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class CircuitBreakerMockTest {
+
+    // The minimum number of requests before a breaker can open
+    private static final int MINIMUM_CALLS = 20;
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+    }
+
+    private void get(final CloudantClient c) {
+        c.executeRequest(Http.GET(mockWebServer.url("/animaldb/a").url()));
+    }
+
+    private void failReads(final CloudantClient c) {
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+            assertThrows(CouchDbException.class, new Executable() {
+                @Override
+                public void execute() throws Throwable {
+                    get(c);
+                }
+            });
+        }
+    }
+
+    private void assertOpen(final CloudantClient c) {
+        assertThrows(CircuitBreakerOpenException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                get(c);
+            }
+        });
+    }
+
+    /**
+     * Assert that the breaker opens when the failure rate reaches the threshold and that
+     * requests then fail without being sent.
+     */
+    @Test
+    public void failuresOpenBreaker() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .circuitBreaker(0.5, 10, 60, TimeUnit.SECONDS).build();
+        failReads(c);
+        assertOpen(c);
+
+        assertEquals(MINIMUM_CALLS, mockWebServer.getRequestCount(), "The rejected request " +
+                "should not be sent");
+        CircuitBreakerStatistics stats = c.getCircuitBreakerStatistics().get(0);
+        assertEquals("read", stats.getRequestClass(), "The breaker should be for reads");
+        assertEquals(CircuitBreakerStatistics.State.OPEN, stats.getState(), "The breaker " +
+                "should be open");
+        assertEquals(1d, stats.getFailureRate(), "Every request should have failed");
+        assertEquals(1, stats.getOpened(), "The breaker should have opened once");
+        assertEquals(1, stats.getRejected(), "There should be 1 rejected request");
+    }
+
+    /**
+     * Assert that slow responses open the breaker.
+     */
+    @Test
+    public void slowCallsOpenBreaker() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .circuitBreaker(0.5, 1, 60000000000L, TimeUnit.NANOSECONDS).build();
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+            get(c);
+        }
+        assertOpen(c);
+        assertEquals(1d, c.getCircuitBreakerStatistics().get(0).getSlowCallRate(), "Every " +
+                "request should have been slow");
+    }
+
+    /**
+     * Assert that successful probes close a half open breaker.
+     */
+    @Test
+    public void probesCloseBreaker() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .circuitBreaker(0.5, 10000, 100, TimeUnit.MILLISECONDS).build();
+        failReads(c);
+        assertOpen(c);
+        Thread.sleep(200);
+        for (int i = 0; i < 3; i++) {
+            mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+            get(c);
+        }
+
+        CircuitBreakerStatistics stats = c.getCircuitBreakerStatistics().get(0);
+        assertEquals(CircuitBreakerStatistics.State.CLOSED, stats.getState(), "The breaker " +
+                "should be closed");
+        assertEquals(1, stats.getHalfOpened(), "The breaker should have been half open once");
+        assertEquals(1, stats.getClosed(), "The breaker should have closed once");
+        assertEquals(0, stats.getCalls(), "The window should be reset when closed");
+    }
+
+    /**
+     * Assert that requests that run out of time before they are sent do not open the breaker.
+     */
+    @Test
+    public void deadlineFailuresNotRecorded() throws Exception {
+        final CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .circuitBreaker(0.5, 10, 60, TimeUnit.SECONDS).build();
+        for (int i = 0; i < MINIMUM_CALLS; i++) {
+            assertThrows(CouchDbException.class, new Executable() {
+                @Override
+                public void execute() throws Throwable {
+                    c.executeRequest(Http.GET(mockWebServer.url("/animaldb/a").url())
+                            .setDeadline(1, TimeUnit.NANOSECONDS));
+                }
+            });
+        }
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        get(c);
+
+        assertEquals(1, mockWebServer.getRequestCount(), "Only the request with time left should " +
+                "be sent");
+        CircuitBreakerStatistics stats = c.getCircuitBreakerStatistics().get(0);
+        assertEquals(CircuitBreakerStatistics.State.CLOSED, stats.getState(), "The breaker " +
+                "should be closed");
+        assertEquals(1, stats.getCalls(), "Only the sent request should be recorded");
+    }
+
+    /**
+     * Assert that an open breaker for reads does not stop writes to the same endpoint.
+     */
+    @Test
+    public void requestClassesIndependent() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .circuitBreaker(0.5, 10, 60, TimeUnit.SECONDS).build();
+        failReads(c);
+        assertOpen(c);
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        c.executeRequest(Http.PUT(mockWebServer.url("/animaldb/a").url(), "application/json")
+                .setRequestBody("{}")).responseAsString();
+
+        assertEquals(MINIMUM_CALLS + 1, mockWebServer.getRequestCount(), "The write should be " +
+                "sent");
+        assertEquals(2, c.getCircuitBreakerStatistics().size(), "There should be breakers for " +
+                "reads and writes");
+    }
+}
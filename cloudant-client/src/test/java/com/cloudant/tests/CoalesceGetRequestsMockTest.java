@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.org.lightcouch.NoDocumentException;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.google.gson.JsonObject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class CoalesceGetRequestsMockTest {
+
+    private static final int THREADS = 8;
+
+    @RegisterExtension
+    public static MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+
+    private MockWebServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    public void setup() {
+        server = mockWebServerExt.get();
+    }
+
+    /**
+     * Hold every response until released so that concurrent requests overlap.
+     */
+    private void dispatch(final MockResponse response) {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                requests.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                return response;
+            }
+        });
+    }
+
+    private List<Future<JsonObject>> findConcurrently(ExecutorService executor, final Database
+            db) throws Exception {
+        List<Future<JsonObject>> results = new ArrayList<Future<JsonObject>>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(new Callable<JsonObject>() {
+                @Override
+                public JsonObject call() throws Exception {
+                    return db.find(JsonObject.class, "a");
+                }
+            }));
+        }
+        // Give all the threads time to join the in-flight request before releasing it
+        TimeUnit.MILLISECONDS.sleep(500);
+        release.countDown();
+        return results;
+    }
+
+    /**
+     * Assert that identical concurrent GETs result in a single request and that every caller
+     * receives the response.
+     */
+    @Test
+    public void identicalGetsCoalesced() throws Exception {
+        dispatch(new MockResponse().setBody("{\"_id\":\"a\",\"_rev\":\"1-x\"}"));
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(server)
+                .coalesceGetRequests().build();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<JsonObject> result : findConcurrently(executor, c.database("animaldb",
+                    false))) {
+                assertEquals("1-x", result.get(10, TimeUnit.SECONDS).get("_rev").getAsString());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, requests.get(), "There should be a single request");
+    }
+
+    /**
+     * Assert that an error response is delivered to every coalesced caller.
+     */
+    @Test
+    public void errorSharedWithCoalescedCallers() throws Exception {
+        dispatch(new MockResponse().setResponseCode(404).setBody("{\"error\":\"not_found\"," +
+                "\"reason\":\"missing\"}"));
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(server)
+                .coalesceGetRequests().build();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (final Future<JsonObject> result : findConcurrently(executor, c.database
+                    ("animaldb", false))) {
+                ExecutionException e = assertThrows(ExecutionException.class, new Executable() {
+                    @Override
+                    public void execute() throws Throwable {
+                        result.get(10, TimeUnit.SECONDS);
+                    }
+                });
+                assertTrue(e.getCause() instanceof NoDocumentException, "The cause should be a " +
+                        "NoDocumentException");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, requests.get(), "There should be a single request");
+    }
+
+    /**
+     * Assert that without the option each caller sends its own request.
+     */
+    @Test
+    public void notCoalescedByDefault() throws Exception {
+        dispatch(new MockResponse().setBody("{\"_id\":\"a\",\"_rev\":\"1-x\"}"));
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(server).build();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<JsonObject> result : findConcurrently(executor, c.database("animaldb",
+                    false))) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(THREADS, requests.get(), "There should be a request per caller");
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.model.ConnectionPoolStatistics;
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+public class ConnectionPoolMockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+    }
+
+    private CloudantClient prewarmedClient(int connections) {
+        for (int i = 0; i < connections; i++) {
+            // A response body holds each connection until every warm up request is answered
+            mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        }
+        return CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .prewarmConnections(connections).build();
+    }
+
+    /**
+     * Assert that building the client opens the requested number of connections and leaves them
+     * idle in the pool.
+     */
+    @Test
+    public void prewarmOpensConnections() throws Exception {
+        CloudantClient c = prewarmedClient(3);
+
+        assertEquals(3, mockWebServer.getRequestCount(), "There should be 3 warm up requests");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("GET", MockWebServerResources.takeRequestWithTimeout(mockWebServer)
+                    .getMethod(), "The warm up requests should be GET requests");
+        }
+        ConnectionPoolStatistics stats = c.getConnectionPoolStatistics().get(0);
+        assertEquals(3, stats.getConnectionsOpened(), "There should be 3 connections opened");
+        assertEquals(3, stats.getIdleConnections(), "There should be 3 idle connections");
+        assertEquals(0, stats.getActiveConnections(), "There should be no active connections");
+    }
+
+    /**
+     * Assert that building the client does not wait for the read timeout of warm up requests to
+     * an unresponsive server.
+     */
+    @Test
+    public void prewarmBounded() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        long start = System.nanoTime();
+        CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer).prewarmConnections(1)
+                .build();
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+
+        assertTrue(elapsed < 15, "Building the client should take less than 15 seconds, but " +
+                "took " + elapsed);
+    }
+
+    /**
+     * Assert that a connection is active while its response is being read and idle afterwards,
+     * and that the request reused a warm connection.
+     */
+    @Test
+    public void activeAndIdleGauges() throws Exception {
+        CloudantClient c = prewarmedClient(1);
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+
+        HttpConnection conn = c.executeRequest(Http.GET(mockWebServer.url("/animaldb").url()));
+        ConnectionPoolStatistics stats = c.getConnectionPoolStatistics().get(0);
+        assertEquals(1, stats.getActiveConnections(), "The connection should be active");
+        assertEquals(0, stats.getIdleConnections(), "There should be no idle connections");
+
+        conn.responseAsString();
+        stats = c.getConnectionPoolStatistics().get(0);
+        assertEquals(0, stats.getActiveConnections(), "There should be no active connections");
+        assertEquals(1, stats.getIdleConnections(), "The connection should be idle");
+        assertEquals(1, stats.getConnectionsOpened(), "The warm connection should be reused");
+        assertEquals(2, stats.getAcquisitions(), "There should be 2 connection acquisitions");
+        assertTrue(stats.getMaxAcquireMillis() >= stats.getMeanAcquireMillis(), "The max " +
+                "acquire time should be at least the mean");
+    }
+
+    /**
+     * Assert that resizing the pool closes its idle connections and that new connections are
+     * pooled in the new pool.
+     */
+    @Test
+    public void resizePool() throws Exception {
+        CloudantClient c = prewarmedClient(2);
+        c.setMaxConnections(1);
+        assertEquals(0, c.getConnectionPoolStatistics().get(0).getIdleConnections(), "The idle " +
+                "connections should be closed");
+
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        c.executeRequest(Http.GET(mockWebServer.url("/animaldb").url())).responseAsString();
+        ConnectionPoolStatistics stats = c.getConnectionPoolStatistics().get(0);
+        assertEquals(1, stats.getIdleConnections(), "The new connection should be pooled");
+        assertEquals(3, stats.getConnectionsOpened(), "A new connection should be opened");
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.cache.CacheStatistics;
+import com.cloudant.client.api.cache.DatabaseCache;
+import com.cloudant.client.api.views.Key;
+import com.cloudant.client.api.views.ViewRequest;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.google.gson.JsonObject;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class DatabaseCacheMockTest {
+
+    @RegisterExtension
+    public static MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+
+    private static final String VIEW_BODY = "{\"total_rows\":1,\"offset\":0,\"rows\":[" +
+            "{\"id\":\"a\",\"key\":\"a\",\"value\":1}]}";
+    private static final String ALL_DOCS_BODY = "{\"total_rows\":1,\"offset\":0,\"rows\":[" +
+            "{\"id\":\"a\",\"key\":\"a\",\"value\":{\"rev\":\"1-x\"}}]}";
+
+    private final AtomicInteger docRequests = new AtomicInteger();
+    private final AtomicInteger viewRequests = new AtomicInteger();
+    private final AtomicInteger allDocsRequests = new AtomicInteger();
+    private MockWebServer server;
+    private DatabaseCache cache;
+
+    @BeforeEach
+    public void setup() {
+        server = mockWebServerExt.get();
+    }
+
+    @AfterEach
+    public void stopCache() {
+        if (cache != null) {
+            cache.stop();
+        }
+    }
+
+    /**
+     * Dispatch document and view reads and a continuous changes feed that delivers the supplied
+     * row after a delay, followed by slow heartbeats so that the feed stays connected while the
+     * test asserts.
+     */
+    private void dispatch(final String changeRow) {
+        server.setDispatcher(new Dispatcher() {
+            private final AtomicInteger feeds = new AtomicInteger();
+
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                String path = request.getPath();
+                if (path.startsWith("/animaldb/_changes")) {
+                    if (feeds.getAndIncrement() > 0) {
+                        // Hold any reconnect until the test finishes
+                        return new MockResponse().setBody("\n")
+                                .setBodyDelay(30, TimeUnit.SECONDS);
+                    }
+                    StringBuilder body = new StringBuilder(changeRow).append("\n");
+                    for (int i = 0; i < 50; i++) {
+                        body.append("\n");
+                    }
+                    return new MockResponse().setBody(body.toString())
+                            .setBodyDelay(500, TimeUnit.MILLISECONDS)
+                            .throttleBody(changeRow.length() + 1, 100, TimeUnit.MILLISECONDS);
+                } else if (path.startsWith("/animaldb/_design/ddoc/_view/v")) {
+                    viewRequests.incrementAndGet();
+                    return new MockResponse().setBody(VIEW_BODY);
+                } else if (path.startsWith("/animaldb/_all_docs")) {
+                    allDocsRequests.incrementAndGet();
+                    return new MockResponse().setBody(ALL_DOCS_BODY);
+                } else if (path.startsWith("/animaldb/a")) {
+                    return new MockResponse().setBody("{\"_id\":\"a\",\"_rev\":\"" + docRequests
+                            .incrementAndGet() + "-x\"}");
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+    }
+
+    private DatabaseCache startCache(boolean refresh) throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(server).build();
+        cache = DatabaseCache.builder(c, "animaldb").refreshDocuments(refresh).build().start();
+        for (int i = 0; i < 100 && !cache.isFollowing(); i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(cache.isFollowing(), "The cache should be following the changes feed");
+        return cache;
+    }
+
+    private void awaitChanges(long expected) throws Exception {
+        for (int i = 0; i < 200 && cache.getStatistics().getChangesReceived() < expected; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(expected, cache.getStatistics().getChangesReceived(), "The changes " +
+                "received should match");
+    }
+
+    private ViewRequest<String, Integer> viewRequest() {
+        return cache.getDatabase().getViewRequestBuilder("ddoc", "v").newRequest(Key.Type
+                .STRING, Integer.class).build();
+    }
+
+    /**
+     * Assert that a document read is cached and that a change to the document removes it from
+     * the cache.
+     */
+    @Test
+    public void documentInvalidatedByChange() throws Exception {
+        dispatch("{\"seq\":\"1-x\",\"id\":\"a\",\"changes\":[{\"rev\":\"2-x\"}]}");
+        startCache(false);
+
+        assertEquals("1-x", cache.find(JsonObject.class, "a").get("_rev").getAsString());
+        assertEquals("1-x", cache.find(JsonObject.class, "a").get("_rev").getAsString());
+        assertEquals(1, docRequests.get(), "There should be one document request");
+
+        awaitChanges(1);
+        CacheStatistics stats = cache.getStatistics();
+        assertEquals(1, stats.getDocumentHits(), "There should be one hit");
+        assertEquals(1, stats.getDocumentMisses(), "There should be one miss");
+        assertEquals(1, stats.getDocumentInvalidations(), "There should be one invalidation");
+        assertEquals(0, stats.getFeedReconnects(), "There should be no reconnects");
+
+        assertEquals("2-x", cache.find(JsonObject.class, "a").get("_rev").getAsString());
+        assertEquals(2, docRequests.get(), "There should be two document requests");
+    }
+
+    /**
+     * Assert that in refresh mode a cached document is replaced with the document from the
+     * changes feed.
+     */
+    @Test
+    public void documentRefreshedByChange() throws Exception {
+        dispatch("{\"seq\":\"1-x\",\"id\":\"a\",\"changes\":[{\"rev\":\"7-x\"}]," +
+                "\"doc\":{\"_id\":\"a\",\"_rev\":\"7-x\"}}");
+        startCache(true);
+
+        assertEquals("1-x", cache.find(JsonObject.class, "a").get("_rev").getAsString());
+
+        awaitChanges(1);
+        assertEquals(1, cache.getStatistics().getDocumentRefreshes(), "There should be one " +
+                "refresh");
+        assertEquals("7-x", cache.find(JsonObject.class, "a").get("_rev").getAsString());
+        assertEquals(1, docRequests.get(), "There should be one document request");
+        assertTrue(server.takeRequest().getPath().contains("include_docs=true"), "The feed " +
+                "should include docs");
+    }
+
+    /**
+     * Assert that view results are cached and that a document change removes them.
+     */
+    @Test
+    public void viewInvalidatedByChange() throws Exception {
+        dispatch("{\"seq\":\"1-x\",\"id\":\"b\",\"changes\":[{\"rev\":\"1-x\"}]}");
+        startCache(false);
+
+        assertEquals(1, cache.getResponse(viewRequest()).getValues().get(0).intValue());
+        assertEquals(1, cache.getResponse(viewRequest()).getValues().get(0).intValue());
+        assertEquals(1, viewRequests.get(), "There should be one view request");
+
+        awaitChanges(1);
+        CacheStatistics stats = cache.getStatistics();
+        assertEquals(1, stats.getViewHits(), "There should be one hit");
+        assertEquals(1, stats.getViewInvalidations(), "There should be one invalidation");
+
+        cache.getResponse(viewRequest());
+        assertEquals(2, viewRequests.get(), "There should be two view requests");
+    }
+
+    /**
+     * Assert that a change to a design document removes the cached {@code _all_docs} results,
+     * which include the design document.
+     */
+    @Test
+    public void allDocsInvalidatedByDesignDocChange() throws Exception {
+        dispatch("{\"seq\":\"1-x\",\"id\":\"_design/x\",\"changes\":[{\"rev\":\"1-x\"}]}");
+        startCache(false);
+
+        assertEquals("1-x", cache.getResponse(cache.getDatabase().getAllDocsRequestBuilder()
+                .build()).getIdsAndRevs().get("a"), "The revision should be read");
+        cache.getResponse(cache.getDatabase().getAllDocsRequestBuilder().build());
+        assertEquals(1, allDocsRequests.get(), "There should be one _all_docs request");
+
+        awaitChanges(1);
+        cache.getResponse(cache.getDatabase().getAllDocsRequestBuilder().build());
+        assertEquals(2, allDocsRequests.get(), "There should be two _all_docs requests");
+        assertEquals(2, cache.getStatistics().getViewMisses(), "There should be two misses");
+    }
+
+    /**
+     * Assert that the lag is measured from reading an update sequence that the feed has not
+     * delivered until the feed delivers it.
+     */
+    @Test
+    public void invalidationLagMeasured() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().startsWith("/animaldb/_changes")) {
+                    // Each row is padded to a chunk so the second row arrives 500 ms later
+                    StringBuilder body = new StringBuilder();
+                    for (String seq : new String[]{"5-x", "7-x"}) {
+                        StringBuilder row = new StringBuilder("{\"seq\":\"" + seq + "\",\"id\":" +
+                                "\"a\",\"changes\":[{\"rev\":\"1-x\"}]}");
+                        while (row.length() < 64) {
+                            row.append("\n");
+                        }
+                        body.append(row);
+                    }
+                    for (int i = 0; i < 2000; i++) {
+                        body.append("\n");
+                    }
+                    return new MockResponse().setBody(body.toString()).throttleBody(64, 500,
+                            TimeUnit.MILLISECONDS);
+                }
+                return new MockResponse().setBody("{\"db_name\":\"animaldb\"," +
+                        "\"update_seq\":\"7-abc\"}");
+            }
+        });
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(server).build();
+        cache = DatabaseCache.builder(c, "animaldb").lagProbeInterval(50).build().start();
+        awaitChanges(2);
+
+        CacheStatistics stats = cache.getStatistics();
+        assertEquals(1, stats.getInvalidationLagSamples(), "There should be one lag measurement");
+        assertTrue(stats.getLastInvalidationLagMillis() > 0 && stats
+                .getLastInvalidationLagMillis() < 500, "The lag should be less than the delay " +
+                "between the changes, but was " + stats.getLastInvalidationLagMillis());
+        assertEquals(stats.getLastInvalidationLagMillis(), stats.getMaxInvalidationLagMillis(),
+                "The maximum lag should be the only measurement");
+    }
+
+    /**
+     * Assert that reads are not cached after the cache is stopped.
+     */
+    @Test
+    public void noCachingWhenStopped() throws Exception {
+        dispatch("\n");
+        startCache(false);
+        cache.stop();
+        assertFalse(cache.isFollowing(), "The cache should not be following");
+
+        cache.find(JsonObject.class, "a");
+        cache.find(JsonObject.class, "a");
+        assertEquals(2, docRequests.get(), "There should be two document requests");
+        assertEquals(0, cache.getStatistics().getDocumentEntries(), "There should be no " +
+                "cached documents");
+    }
+
+    /**
+     * Assert that a change row that cannot be parsed does not stop the cache from following the
+     * changes feed.
+     */
+    @Test
+    public void reconnectAfterMalformedChange() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            private final AtomicInteger feeds = new AtomicInteger();
+
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                // The first feed sends a truncated row, the second only heartbeats
+                String body = (feeds.getAndIncrement() == 0) ? "{\"seq\":\n" : "\n";
+                for (int i = 0; i < 50; i++) {
+                    body += "\n";
+                }
+                return new MockResponse().setBody(body).throttleBody(1, 100, TimeUnit
+                        .MILLISECONDS);
+            }
+        });
+        startCache(false);
+        for (int i = 0; i < 200 && cache.getStatistics().getFeedReconnects() < 1; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(1, cache.getStatistics().getFeedReconnects(), "The feed should reconnect");
+        for (int i = 0; i < 100 && !cache.isFollowing(); i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(cache.isFollowing(), "The cache should be following the reconnected feed");
+    }
+}
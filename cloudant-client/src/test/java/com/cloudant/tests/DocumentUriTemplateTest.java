@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cloudant.client.internal.DatabaseURIHelper;
+import com.cloudant.client.internal.DocumentUriTemplate;
+import com.cloudant.client.org.lightcouch.Params;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+/**
+ * Assert that the URIs built from a {@link DocumentUriTemplate} are identical to those built by
+ * {@link DatabaseURIHelper}.
+ */
+public class DocumentUriTemplateTest {
+
+    private static final String[] IDS = {"documentId", "path1/path2", "/path1/path2",
+            ":this:has:colons:", "SDF@#%$#)DFGKLDfdffdgé", "_design/ddoc", "_design/a/b",
+            "_local/mylocaldoc", "_designer", "with+plus", "with space", "üñî"};
+
+    private static final String[] DATABASES = {"/db_name", "/api/couch/account/db_name",
+            "/SDF@#%$#)KLDfdffdgé", ""};
+
+    private static URI dbUri(String dbName) throws Exception {
+        return new URI("http", null, "127.0.0.1", 5984, dbName, null, null);
+    }
+
+    @Test
+    public void documentUriMatchesHelper() throws Exception {
+        for (String db : DATABASES) {
+            DocumentUriTemplate template = new DocumentUriTemplate(dbUri(db));
+            for (String id : IDS) {
+                assertEquals(new DatabaseURIHelper(dbUri(db)).documentUri(id), template
+                        .documentUri(id), "The document URI should match for " + id);
+            }
+        }
+    }
+
+    @Test
+    public void documentUriWithQueryMatchesHelper() throws Exception {
+        DocumentUriTemplate template = new DocumentUriTemplate(dbUri("/db_name"));
+        for (String id : IDS) {
+            assertEquals(new DatabaseURIHelper(dbUri("/db_name")).documentUri(id, "rev",
+                    "1-a+b"), template.documentUri(id, "rev", "1-a+b"), "The document URI " +
+                    "should match for " + id);
+            assertEquals(new DatabaseURIHelper(dbUri("/db_name")).documentUri(id, "rev", null),
+                    template.documentUri(id, "rev", null), "The document URI should match for "
+                            + id);
+        }
+    }
+
+    @Test
+    public void documentUriWithParamsMatchesHelper() throws Exception {
+        DocumentUriTemplate template = new DocumentUriTemplate(dbUri("/db_name"));
+        Params params = new Params().revsInfo().addParam("d&etail=", "&==ds&");
+        assertEquals(new DatabaseURIHelper(dbUri("/db_name")).documentUri("path1/path2",
+                params), template.documentUri("path1/path2", params));
+        assertEquals(new DatabaseURIHelper(dbUri("/db_name")).documentUri("a", new Params()),
+                template.documentUri("a", new Params()));
+    }
+
+    @Test
+    public void attachmentUriMatchesHelper() throws Exception {
+        DocumentUriTemplate template = new DocumentUriTemplate(dbUri("/db_name"));
+        for (String id : IDS) {
+            for (String attachment : IDS) {
+                assertEquals(new DatabaseURIHelper(dbUri("/db_name")).attachmentUri(id, "1-x",
+                        attachment), template.attachmentUri(id, "1-x", attachment), "The " +
+                        "attachment URI should match for " + id + " " + attachment);
+                assertEquals(new DatabaseURIHelper(dbUri("/db_name")).attachmentUri(id, null,
+                        attachment), template.attachmentUri(id, null, attachment), "The " +
+                        "attachment URI should match for " + id + " " + attachment);
+            }
+        }
+    }
+
+    @Test
+    public void encodeIdMatchesHelper() throws Exception {
+        for (String id : IDS) {
+            assertEquals(new DatabaseURIHelper(dbUri("/db_name")).encodeId(id),
+                    DocumentUriTemplate.encodeId(id), "The encoded ID should match for " + id);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.ClientBuilder;
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.model.EndpointStatistics;
+import com.cloudant.client.org.lightcouch.CouchDbException;
+import com.cloudant.http.Http;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.net.URL;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class EndpointRoutingMockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer primary;
+    public MockWebServer replica;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        primary = mockWebServerExt.get();
+        replica = new MockWebServer();
+        replica.start();
+    }
+
+    @AfterEach
+    public void teardown() throws Exception {
+        replica.shutdown();
+    }
+
+    private static URL unreachableUrl() throws Exception {
+        MockWebServer stopped = new MockWebServer();
+        stopped.start();
+        URL url = stopped.url("/").url();
+        stopped.shutdown();
+        return url;
+    }
+
+    /**
+     * Assert that writes are sent to the primary endpoint while it is healthy.
+     */
+    @Test
+    public void writeRoutedToPrimary() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(primary)
+                .endpoints(replica.url("/").url()).build();
+        primary.enqueue(MockWebServerResources.JSON_OK);
+        c.executeRequest(Http.POST(primary.url("/animaldb").url(), "application/json")
+                .setRequestBody("{}")).responseAsString();
+
+        assertEquals("/animaldb", MockWebServerResources.takeRequestWithTimeout(primary)
+                .getPath(), "The write should be sent to the primary");
+        assertEquals(0, replica.getRequestCount(), "The replica should receive no requests");
+        List<EndpointStatistics> stats = c.getEndpointStatistics();
+        assertEquals(2, stats.size(), "There should be statistics for 2 endpoints");
+        assertTrue(stats.get(0).isPrimary(), "The first endpoint should be the primary");
+        assertEquals(1, stats.get(0).getWrites(), "There should be 1 write to the primary");
+        assertTrue(stats.get(0).getLatencyMillis() > 0, "The primary latency should be recorded");
+        assertEquals(0, stats.get(1).getWrites(), "There should be no writes to the replica");
+    }
+
+    /**
+     * Assert that a read fails over to the next endpoint when the primary cannot be reached and
+     * that the request path is rewritten for the endpoint.
+     */
+    @Test
+    public void readFailsOverWhenPrimaryUnreachable() throws Exception {
+        URL primaryUrl = unreachableUrl();
+        CloudantClient c = ClientBuilder.url(primaryUrl).endpoints(replica.url("/replica").url
+                ()).build();
+        replica.enqueue(new MockResponse().setBody("{\"_id\":\"a\"}"));
+        String response = c.executeRequest(Http.GET(new URL(primaryUrl, "/animaldb/a")))
+                .responseAsString();
+
+        assertEquals("{\"_id\":\"a\"}", response, "The response should be from the replica");
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(replica);
+        assertEquals("/replica/animaldb/a", request.getPath(), "The path should be rewritten " +
+                "for the replica");
+        List<EndpointStatistics> stats = c.getEndpointStatistics();
+        assertEquals(1, stats.get(0).getFailures(), "There should be 1 primary failure");
+        assertEquals(1, stats.get(0).getFailovers(), "There should be 1 failover");
+        assertFalse(stats.get(0).isHealthy(), "The primary should be unhealthy");
+        assertEquals(1, stats.get(1).getReads(), "There should be 1 read from the replica");
+        assertTrue(stats.get(1).isHealthy(), "The replica should be healthy");
+    }
+
+    /**
+     * Assert that a write that could not connect to the primary is sent to the next endpoint and
+     * that subsequent reads avoid the unhealthy primary.
+     */
+    @Test
+    public void writeFailsOverOnConnectFailure() throws Exception {
+        URL primaryUrl = unreachableUrl();
+        CloudantClient c = ClientBuilder.url(primaryUrl).endpoints(replica.url("/").url())
+                .build();
+        replica.enqueue(MockWebServerResources.JSON_OK);
+        replica.enqueue(MockWebServerResources.JSON_OK);
+        c.executeRequest(Http.PUT(new URL(primaryUrl, "/animaldb"), "application/json"))
+                .responseAsString();
+        c.executeRequest(Http.GET(new URL(primaryUrl, "/animaldb"))).responseAsString();
+
+        assertEquals("PUT", MockWebServerResources.takeRequestWithTimeout(replica).getMethod(),
+                "The write should fail over to the replica");
+        assertEquals("GET", MockWebServerResources.takeRequestWithTimeout(replica).getMethod(),
+                "The read should be routed to the healthy replica");
+        List<EndpointStatistics> stats = c.getEndpointStatistics();
+        assertEquals(1, stats.get(0).getFailures(), "The unhealthy primary should not be retried");
+        assertEquals(1, stats.get(1).getWrites(), "There should be 1 write to the replica");
+        assertEquals(1, stats.get(1).getReads(), "There should be 1 read from the replica");
+    }
+
+    /**
+     * Assert that an unavailable response is returned to the caller but marks the endpoint
+     * unhealthy so that the next read is routed elsewhere.
+     */
+    @Test
+    public void unavailableEndpointMarkedUnhealthy() throws Exception {
+        final CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(primary)
+                .endpoints(replica.url("/").url()).build();
+        primary.enqueue(new MockResponse().setResponseCode(503));
+        replica.enqueue(MockWebServerResources.JSON_OK);
+        CouchDbException e = assertThrows(CouchDbException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                c.executeRequest(Http.GET(primary.url("/animaldb").url()));
+            }
+        });
+        assertEquals(503, e.getStatusCode(), "The unavailable status should be returned");
+        c.executeRequest(Http.GET(primary.url("/animaldb").url())).responseAsString();
+
+        assertEquals(1, primary.getRequestCount(), "The primary should receive 1 request");
+        assertEquals(1, replica.getRequestCount(), "The replica should receive 1 request");
+        assertFalse(c.getEndpointStatistics().get(0).isHealthy(), "The primary should be " +
+                "unhealthy");
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.http.Http;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+public class ExecutorMockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+
+    private CountingExecutor executor;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+        executor = new CountingExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Assert that requests are sent by the supplied executor.
+     */
+    @Test
+    public void requestsSentWithExecutor() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .executor(executor).build();
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+
+        // A request with a body is sent asynchronously while the body is written
+        assertEquals("{\"ok\":true}", c.executeRequest(Http.PUT(mockWebServer.url("/animaldb/a")
+                .url(), "application/json").setRequestBody("{}")).responseAsString(), "The " +
+                "request should succeed");
+        assertTrue(executor.tasks.get() > 0, "The request should be sent by the executor");
+    }
+
+    /**
+     * Assert that connections are opened by the supplied executor.
+     */
+    @Test
+    public void prewarmWithExecutor() throws Exception {
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer).prewarmConnections(2)
+                .executor(executor).build();
+
+        assertEquals(2, mockWebServer.getRequestCount(), "There should be 2 warm-up requests");
+        assertTrue(executor.tasks.get() >= 2, "The warm-up requests should be run by the " +
+                "executor");
+    }
+
+    /**
+     * Assert that the supplied executor is not shut down with the client.
+     */
+    @Test
+    public void executorNotShutDown() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .executor(executor).hedgeReads(50, 1).build();
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        c.executeRequest(Http.GET(mockWebServer.url("/animaldb").url())).responseAsString();
+        // The session is deleted on shutdown
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        c.shutdown();
+
+        assertFalse(executor.isShutdown(), "The executor should not be shut down");
+    }
+
+    /**
+     * A pool of daemon threads that counts the tasks it runs.
+     */
+    private static final class CountingExecutor extends ThreadPoolExecutor {
+
+        private final AtomicInteger tasks = new AtomicInteger();
+
+        CountingExecutor() {
+            super(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "test-executor");
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            tasks.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.http.interceptors.Replay429Interceptor;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class FileAttachmentMockTest {
+
+    private static final MockResponse SAVED = new MockResponse().setResponseCode(201).setBody
+            ("{\"ok\":true,\"id\":\"a\",\"rev\":\"2-a\"}");
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+    private File file;
+    private byte[] data;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        mockWebServer = mockWebServerExt.get();
+        data = new byte[300000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        file = File.createTempFile("attachment", ".bin");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Assert that a file attachment is sent with a fixed length.
+     */
+    @Test
+    public void fixedLength() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .build();
+        Database db = c.database("animaldb", false);
+        mockWebServer.enqueue(SAVED);
+        db.saveAttachment(file, "a.bin", "application/octet-stream", "a", "1-a");
+
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertEquals(String.valueOf(data.length), request.getHeader("Content-Length"), "The " +
+                "request should have the length of the file");
+        assertNull(request.getHeader("Transfer-Encoding"), "The request should not be chunked");
+        assertEquals("/animaldb/a/a.bin?rev=1-a", request.getPath(), "The attachment should be " +
+                "saved to the document");
+        assertArrayEquals(data, request.getBody().readByteArray(), "The body should be the file");
+    }
+
+    /**
+     * Assert that the file is sent again when the request is replayed.
+     */
+    @Test
+    public void replayed() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .interceptors(new Replay429Interceptor(1, 1, false)).build();
+        Database db = c.database("animaldb", false);
+        mockWebServer.enqueue(new MockResponse().setResponseCode(429).setBody
+                ("{\"error\":\"too_many_requests\"}"));
+        mockWebServer.enqueue(SAVED);
+        db.saveAttachment(file, "a.bin", "application/octet-stream", "a", "1-a");
+
+        assertEquals(2, mockWebServer.getRequestCount(), "The request should be replayed");
+        for (int i = 0; i < 2; i++) {
+            RecordedRequest request = MockWebServerResources.takeRequestWithTimeout
+                    (mockWebServer);
+            assertArrayEquals(data, request.getBody().readByteArray(), "Each request should " +
+                    "send the whole file");
+        }
+    }
+}
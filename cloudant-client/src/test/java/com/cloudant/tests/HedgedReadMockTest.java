@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.model.HedgeStatistics;
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class HedgedReadMockTest {
+
+    // Enough fast responses for the hedging delay to be calculated
+    private static final int WARM_UP_REQUESTS = 64;
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+    }
+
+    private CloudantClient warmedUpClient() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .hedgeReads(50, 1).build();
+        for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+            mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+            c.executeRequest(Http.GET(mockWebServer.url("/animaldb").url())).responseAsString();
+        }
+        assertTrue(c.getHedgeStatistics().getDelayMillis() >= 0, "The hedging delay should be " +
+                "calculated");
+        return c;
+    }
+
+    /**
+     * Assert that a hedge is sent for a slow GET and that its faster response is used.
+     */
+    @Test
+    public void slowGetHedged() throws Exception {
+        CloudantClient c = warmedUpClient();
+        mockWebServer.enqueue(new MockResponse().setBody("{\"slow\":true}").setHeadersDelay(5,
+                TimeUnit.SECONDS));
+        mockWebServer.enqueue(new MockResponse().setBody("{\"fast\":true}"));
+
+        long start = System.nanoTime();
+        String response = c.executeRequest(Http.GET(mockWebServer.url("/animaldb/a").url()))
+                .responseAsString();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("{\"fast\":true}", response, "The hedge response should be used");
+        assertTrue(elapsedMillis < 4000, "The response should not wait for the slow request");
+        HedgeStatistics stats = c.getHedgeStatistics();
+        assertEquals(WARM_UP_REQUESTS + 1, stats.getRequests(), "Every GET should be counted");
+        assertEquals(1, stats.getHedges(), "There should be 1 hedge");
+        assertEquals(1, stats.getHedgesWon(), "The hedge should win");
+    }
+
+    /**
+     * Assert that the response of a hedge that wins can be read from the request that was
+     * executed.
+     */
+    @Test
+    public void hedgeResponseReadFromRequest() throws Exception {
+        CloudantClient c = warmedUpClient();
+        mockWebServer.enqueue(new MockResponse().setBody("{\"slow\":true}").setHeadersDelay(5,
+                TimeUnit.SECONDS));
+        mockWebServer.enqueue(new MockResponse().setBody("{\"fast\":true}"));
+
+        HttpConnection request = Http.GET(mockWebServer.url("/animaldb/a").url());
+        c.executeRequest(request);
+
+        assertEquals(1, c.getHedgeStatistics().getHedgesWon(), "The hedge should win");
+        assertFalse(request.isCancelled(), "The request should not be cancelled");
+        assertEquals(200, request.getConnection().getResponseCode(), "The request should have " +
+                "the hedge response code");
+        assertEquals("{\"fast\":true}", request.responseAsString(), "The hedge response should " +
+                "be read from the request");
+    }
+
+    /**
+     * Assert that the response of a hedge that wins is used to read an attachment.
+     */
+    @Test
+    public void slowAttachmentHedged() throws Exception {
+        CloudantClient c = warmedUpClient();
+        mockWebServer.enqueue(new MockResponse().setBody("slow").setHeadersDelay(5, TimeUnit
+                .SECONDS));
+        mockWebServer.enqueue(new MockResponse().setBody("fast"));
+
+        InputStream in = c.database("animaldb", false).getAttachment("a", "att.txt");
+        try {
+            assertEquals("fast", IOUtils.toString(in, "UTF-8"), "The hedge response should be " +
+                    "read");
+        } finally {
+            in.close();
+        }
+        assertEquals(1, c.getHedgeStatistics().getHedgesWon(), "The hedge should win");
+    }
+
+    /**
+     * Assert that a slow request that is not idempotent is never hedged.
+     */
+    @Test
+    public void slowPostNotHedged() throws Exception {
+        CloudantClient c = warmedUpClient();
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK.clone().setHeadersDelay(500,
+                TimeUnit.MILLISECONDS));
+        c.executeRequest(Http.POST(mockWebServer.url("/animaldb").url(), "application/json")
+                .setRequestBody("{}")).responseAsString();
+
+        assertEquals(WARM_UP_REQUESTS + 1, mockWebServer.getRequestCount(), "The POST should be " +
+                "sent once");
+        assertEquals(0, c.getHedgeStatistics().getHedges(), "There should be no hedges");
+    }
+
+    /**
+     * Assert that hedging is disabled by default and that out of range options are rejected.
+     */
+    @Test
+    public void hedgingOptions() throws Exception {
+        assertNull(CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer).build()
+                .getHedgeStatistics(), "Hedging should be disabled by default");
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer).hedgeReads(0,
+                        0.1);
+            }
+        });
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer).hedgeReads(95,
+                        1.5);
+            }
+        });
+    }
+}
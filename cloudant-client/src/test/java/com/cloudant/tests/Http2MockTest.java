@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.org.lightcouch.CouchDbException;
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class Http2MockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+        mockWebServer.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+    }
+
+    private String get(CloudantClient c) throws Exception {
+        HttpConnection conn = c.executeRequest(Http.GET(mockWebServer.url("/animaldb/a").url()));
+        conn.responseAsString();
+        return conn.getConnection().getHeaderField("OkHttp-Selected-Protocol");
+    }
+
+    /**
+     * Make concurrent requests, each delayed by the server, and return how long they took.
+     */
+    private long concurrentGets(final CloudantClient c, int requests, long delayMillis) throws
+            Exception {
+        List<Callable<String>> gets = new ArrayList<Callable<String>>();
+        for (int i = 0; i < requests; i++) {
+            mockWebServer.enqueue(MockWebServerResources.JSON_OK.clone().setHeadersDelay
+                    (delayMillis, TimeUnit.MILLISECONDS));
+            gets.add(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return get(c);
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            long start = System.nanoTime();
+            for (Future<String> result : executor.invokeAll(gets)) {
+                assertEquals("h2_prior_knowledge", result.get(), "The request should use " +
+                        "HTTP/2");
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Assert that concurrent requests are multiplexed over a single HTTP/2 connection.
+     */
+    @Test
+    public void concurrentRequestsShareConnection() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .http2(100).build();
+        // Open the connection first so that the concurrent requests do not race to open one
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        get(c);
+
+        long elapsed = concurrentGets(c, 8, 500);
+        assertTrue(elapsed < 2000, "The requests should run concurrently");
+        assertEquals(9, mockWebServer.getRequestCount(), "There should be 9 requests");
+        assertEquals(1, c.getConnectionPoolStatistics().get(0).getConnectionsOpened(), "There " +
+                "should be a single connection");
+    }
+
+    /**
+     * Assert that requests beyond the stream limit of the client wait for a stream.
+     */
+    @Test
+    public void streamLimit() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .http2(2).build();
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        get(c);
+
+        long elapsed = concurrentGets(c, 4, 500);
+        assertTrue(elapsed >= 900, "The requests should run 2 at a time");
+        assertEquals(1, c.getConnectionPoolStatistics().get(0).getConnectionsOpened(), "There " +
+                "should be a single connection");
+    }
+
+    /**
+     * Assert that a request that cannot get a stream fails after the read timeout instead of
+     * waiting for a response that is never closed.
+     */
+    @Test
+    public void streamWaitTimesOut() throws Exception {
+        final CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder
+                (mockWebServer).http2(1).readTimeout(500, TimeUnit.MILLISECONDS).build();
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        // The response is not read or closed, so its stream is not finished
+        HttpConnection open = c.executeRequest(Http.GET(mockWebServer.url("/animaldb/a").url()));
+
+        long start = System.nanoTime();
+        CouchDbException e = assertThrows(CouchDbException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                get(c);
+            }
+        });
+        assertTrue(e.getCause() instanceof InterruptedIOException, "The request should time " +
+                "out waiting for a stream");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 4000, "The " +
+                "request should not wait for the open stream");
+
+        open.responseAsString();
+        assertEquals("h2_prior_knowledge", get(c), "A request should succeed once the stream " +
+                "is finished");
+        assertEquals(1, c.getConnectionPoolStatistics().get(0).getConnectionsOpened(), "The " +
+                "connection should not be closed by the failed request");
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.org.lightcouch.NoDocumentException;
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpCompression;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.http.internal.DefaultHttpUrlConnectionFactory;
+import com.cloudant.http.internal.ok.OkHttpClientHttpUrlConnectionFactory;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+import com.google.gson.JsonObject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+public class HttpCompressionMockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+    }
+
+    private static String largeJson() {
+        StringBuilder json = new StringBuilder("{\"docs\":[");
+        for (int i = 0; i < 200; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"_id\":\"doc").append(i).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static Buffer gzip(String content) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write(content.getBytes("UTF-8"));
+        gzip.close();
+        return new Buffer().write(bytes.toByteArray());
+    }
+
+    private static String gunzip(Buffer body) throws Exception {
+        return new Buffer().readFrom(new GZIPInputStream(body.inputStream())).readUtf8();
+    }
+
+    private static List<HttpConnection.HttpUrlConnectionFactory> factories() {
+        List<HttpConnection.HttpUrlConnectionFactory> factories = new
+                ArrayList<HttpConnection.HttpUrlConnectionFactory>();
+        factories.add(new DefaultHttpUrlConnectionFactory());
+        factories.add(new OkHttpClientHttpUrlConnectionFactory());
+        return factories;
+    }
+
+    /**
+     * Assert that a JSON request body over the minimum size is gzip compressed and that the
+     * compression is accounted for.
+     */
+    @Test
+    public void largeRequestBodyCompressed() throws Exception {
+        String json = largeJson();
+        for (HttpConnection.HttpUrlConnectionFactory factory : factories()) {
+            HttpCompression compression = new HttpCompression(1024);
+            mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+            HttpConnection conn = Http.POST(mockWebServer.url("/db/_bulk_docs").url(),
+                    "application/json").setRequestBody(json).setCompression(compression);
+            conn.connectionFactory = factory;
+            conn.execute().responseAsString();
+
+            RecordedRequest request = MockWebServerResources.takeRequestWithTimeout
+                    (mockWebServer);
+            assertEquals("gzip", request.getHeader("Content-Encoding"), "The request body " +
+                    "should be gzip encoded");
+            assertEquals("gzip", request.getHeader("Accept-Encoding"), "The request should " +
+                    "accept gzip responses");
+            assertEquals(json, gunzip(request.getBody()), "The decompressed body should match");
+            assertEquals(1, compression.getCompressedRequestCount(), "There should be 1 " +
+                    "compressed request");
+            assertEquals(json.length(), compression.getRequestBytes(), "The uncompressed bytes " +
+                    "should be counted");
+            assertTrue(compression.getRequestCompressionRatio() < 0.5, "The body should " +
+                    "compress well");
+        }
+    }
+
+    /**
+     * Assert that a request body under the minimum size is not compressed.
+     */
+    @Test
+    public void smallRequestBodyNotCompressed() throws Exception {
+        for (HttpConnection.HttpUrlConnectionFactory factory : factories()) {
+            HttpCompression compression = new HttpCompression(1024);
+            mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+            HttpConnection conn = Http.POST(mockWebServer.url("/db").url(), "application/json")
+                    .setRequestBody("{\"_id\":\"a\"}").setCompression(compression);
+            conn.connectionFactory = factory;
+            conn.execute().responseAsString();
+
+            RecordedRequest request = MockWebServerResources.takeRequestWithTimeout
+                    (mockWebServer);
+            assertNull(request.getHeader("Content-Encoding"), "The request body should not be " +
+                    "encoded");
+            assertEquals("{\"_id\":\"a\"}", request.getBody().readUtf8(), "The body should be " +
+                    "sent uncompressed");
+            assertEquals(0, compression.getCompressedRequestCount(), "There should be no " +
+                    "compressed requests");
+        }
+    }
+
+    /**
+     * Assert that a gzip encoded response is decompressed and accounted for on both connection
+     * factories.
+     */
+    @Test
+    public void responseDecompressed() throws Exception {
+        String json = largeJson();
+        for (HttpConnection.HttpUrlConnectionFactory factory : factories()) {
+            HttpCompression compression = new HttpCompression();
+            mockWebServer.enqueue(new MockResponse().setResponseCode(200).addHeader
+                    ("Content-Encoding", "gzip").setBody(gzip(json)));
+            HttpConnection conn = Http.GET(mockWebServer.url("/db/_all_docs").url())
+                    .setCompression(compression);
+            conn.connectionFactory = factory;
+            assertEquals(json, conn.execute().responseAsString(), "The response should be " +
+                    "decompressed");
+            MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+            assertEquals(1, compression.getDecompressedResponseCount(), "There should be 1 " +
+                    "decompressed response");
+            assertEquals(json.length(), compression.getResponseBytes(), "The decompressed " +
+                    "bytes should be counted");
+            assertTrue(compression.getResponseCompressionRatio() < 0.5, "The response should " +
+                    "be compressed");
+        }
+    }
+
+    /**
+     * Assert that a client built with compression decompresses error responses so the error and
+     * reason are available.
+     */
+    @Test
+    public void clientErrorResponseDecompressed() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404).addHeader
+                ("Content-Encoding", "gzip").setBody(gzip("{\"error\":\"not_found\"," +
+                "\"reason\":\"deleted\"}")));
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .compression(new HttpCompression()).build();
+        final Database db = c.database("animaldb", false);
+        NoDocumentException e = assertThrows(NoDocumentException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                db.find(JsonObject.class, "a");
+            }
+        });
+        assertEquals("deleted", e.getReason(), "The reason should be decompressed");
+        assertEquals("gzip", MockWebServerResources.takeRequestWithTimeout(mockWebServer)
+                .getHeader("Accept-Encoding"), "The request should accept gzip responses");
+    }
+}
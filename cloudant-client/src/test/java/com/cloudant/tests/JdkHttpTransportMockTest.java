@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.http.HttpConnectionInterceptorContext;
+import com.cloudant.http.HttpConnectionRequestInterceptor;
+import com.cloudant.http.HttpConnectionResponseInterceptor;
+import com.cloudant.http.internal.jdk.JdkHttpHelper;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.ByteArrayInputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Tests of the {@code java.net.http} transport, which is only available on Java 11 and later.
+ */
+public class JdkHttpTransportMockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+
+    private HttpConnection.HttpUrlConnectionFactory factory;
+
+    @BeforeEach
+    public void setup() {
+        assumeTrue(JdkHttpHelper.isJdkHttpUsable(), "java.net.http requires Java 11");
+        mockWebServer = mockWebServerExt.get();
+        factory = JdkHttpHelper.newConnectionFactory();
+    }
+
+    private HttpConnection newConnection(HttpConnection connection) {
+        connection.connectionFactory = factory;
+        return connection;
+    }
+
+    /**
+     * Assert that request and response interceptors see the request and response.
+     */
+    @Test
+    public void interceptorsApplied() throws Exception {
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK.clone().addHeader("X-Test",
+                "response"));
+        final AtomicReference<String> responseHeader = new AtomicReference<String>();
+        HttpConnection conn = newConnection(Http.GET(mockWebServer.url("/animaldb").url()));
+        conn.requestInterceptors.add(new HttpConnectionRequestInterceptor() {
+            @Override
+            public HttpConnectionInterceptorContext interceptRequest
+                    (HttpConnectionInterceptorContext context) {
+                context.connection.getConnection().setRequestProperty("X-Test", "request");
+                return context;
+            }
+        });
+        conn.responseInterceptors.add(new HttpConnectionResponseInterceptor() {
+            @Override
+            public HttpConnectionInterceptorContext interceptResponse
+                    (HttpConnectionInterceptorContext context) {
+                responseHeader.set(context.connection.getConnection().getHeaderField("X-Test"));
+                return context;
+            }
+        });
+
+        assertEquals("{\"ok\":true}", conn.execute().responseAsString(), "The response body " +
+                "should be read");
+        assertEquals("response", responseHeader.get(), "The response header should be read");
+        assertEquals("request", MockWebServerResources.takeRequestWithTimeout(mockWebServer)
+                .getHeader("X-Test"), "The request header should be sent");
+    }
+
+    /**
+     * Assert that fixed length and chunked request bodies are sent.
+     */
+    @Test
+    public void requestBodiesStreamed() throws Exception {
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        String body = "{\"_id\":\"aardvark\"}";
+        newConnection(Http.PUT(mockWebServer.url("/animaldb/aardvark").url(),
+                "application/json")).setRequestBody(body).execute().responseAsString();
+        newConnection(Http.PUT(mockWebServer.url("/animaldb/aardvark").url(),
+                "application/json")).setRequestBody(new ByteArrayInputStream(body.getBytes
+                ("UTF-8"))).execute().responseAsString();
+
+        RecordedRequest fixed = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertEquals(body, fixed.getBody().readUtf8(), "The fixed length body should be sent");
+        assertEquals(String.valueOf(body.length()), fixed.getHeader("Content-Length"), "The " +
+                "content length should be sent");
+        RecordedRequest chunked = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertEquals(body, chunked.getBody().readUtf8(), "The chunked body should be sent");
+        assertEquals("chunked", chunked.getHeader("Transfer-Encoding"), "The body should be " +
+                "chunked");
+    }
+
+    /**
+     * Assert that an error response is available from the error stream.
+     */
+    @Test
+    public void errorResponse() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404).setBody
+                ("{\"error\":\"not_found\"}"));
+        HttpConnection conn = newConnection(Http.GET(mockWebServer.url("/animaldb/a").url()))
+                .execute();
+
+        assertEquals(404, conn.getConnection().getResponseCode(), "The status should be 404");
+        assertEquals("Not Found", conn.getConnection().getResponseMessage(), "There should be " +
+                "a reason phrase");
+        assertEquals("{\"error\":\"not_found\"}", IOUtils.toString(conn
+                .errorResponseAsInputStream(), "UTF-8"), "The error body should be read");
+    }
+
+    /**
+     * Assert that a response slower than the read timeout fails with a socket timeout.
+     */
+    @Test
+    public void readTimeout() throws Exception {
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK.clone().setHeadersDelay(5,
+                TimeUnit.SECONDS));
+        final HttpConnection conn = newConnection(Http.GET(mockWebServer.url("/animaldb").url()));
+        conn.requestInterceptors.add(new HttpConnectionRequestInterceptor() {
+            @Override
+            public HttpConnectionInterceptorContext interceptRequest
+                    (HttpConnectionInterceptorContext context) {
+                context.connection.getConnection().setReadTimeout(200);
+                return context;
+            }
+        });
+        assertThrows(SocketTimeoutException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                conn.execute().getConnection().getResponseCode();
+            }
+        });
+    }
+
+    /**
+     * Assert that a response body slower than the read timeout fails with a socket timeout.
+     */
+    @Test
+    public void bodyReadTimeout() throws Exception {
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK.clone().setBodyDelay(5, TimeUnit
+                .SECONDS));
+        final HttpConnection conn = newConnection(Http.GET(mockWebServer.url("/animaldb").url()));
+        conn.requestInterceptors.add(new HttpConnectionRequestInterceptor() {
+            @Override
+            public HttpConnectionInterceptorContext interceptRequest
+                    (HttpConnectionInterceptorContext context) {
+                context.connection.getConnection().setReadTimeout(200);
+                return context;
+            }
+        });
+        assertEquals(200, conn.execute().getConnection().getResponseCode(), "The headers should " +
+                "be received");
+        assertThrows(SocketTimeoutException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                conn.responseAsString();
+            }
+        });
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.Attachment;
+import com.cloudant.client.api.model.AttachmentSink;
+import com.cloudant.client.api.model.AttachmentSource;
+import com.cloudant.client.api.model.Document;
+import com.cloudant.client.api.model.Params;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+public class MultipartAttachmentsMockTest {
+
+    private static final MockResponse SAVED = new MockResponse().setResponseCode(201).setBody
+            ("{\"ok\":true,\"id\":\"a\",\"rev\":\"1-a\"}");
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+    private Database db;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .build();
+        db = c.database("animaldb", false);
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    /**
+     * Assert that attachments with sources are sent as raw parts following the document in a
+     * fixed length multipart request.
+     */
+    @Test
+    public void saveSendsParts() throws Exception {
+        byte[] a = data(50000);
+        byte[] b = data(3);
+        Document doc = new Document();
+        doc.setId("a");
+        doc.addAttachment("a.bin", new Attachment(AttachmentSource.from(new
+                ByteArrayInputStream(a), a.length), "application/octet-stream"));
+        doc.addAttachment("b.txt", new Attachment(AttachmentSource.from(ByteBuffer.wrap(b)),
+                "text/plain"));
+        mockWebServer.enqueue(SAVED);
+        db.saveMultipart(doc);
+
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        String contentType = request.getHeader("Content-Type");
+        assertTrue(contentType.startsWith("multipart/related;boundary="), "The request should " +
+                "be multipart");
+        assertEquals(String.valueOf(request.getBodySize()), request.getHeader("Content-Length"),
+                "The body should have a fixed length");
+        String boundary = contentType.substring(contentType.indexOf('"') + 1, contentType
+                .lastIndexOf('"'));
+
+        Buffer expected = new Buffer();
+        String json = request.getBody().clone().readUtf8();
+        json = json.substring(json.indexOf('{'), json.indexOf("\r\n--" + boundary));
+        assertTrue(json.contains("\"a.bin\":{\"content_type\":\"application/octet-stream\"," +
+                "\"revpos\":0,\"length\":50000,\"follows\":true}"), "The document should describe" +
+                " the following attachment");
+        expected.writeUtf8("--" + boundary + "\r\nContent-Type: application/json\r\n\r\n" + json);
+        expected.writeUtf8("\r\n--" + boundary + "\r\n\r\n").write(a);
+        expected.writeUtf8("\r\n--" + boundary + "\r\n\r\n").write(b);
+        expected.writeUtf8("\r\n--" + boundary + "--");
+        assertEquals(expected.readByteString(), request.getBody().readByteString(), "The body " +
+                "should be the document followed by the attachment parts");
+    }
+
+    /**
+     * Assert that a source of unknown length cannot be sent in a multipart request.
+     */
+    @Test
+    public void saveRequiresLength() throws Exception {
+        final Document doc = new Document();
+        doc.setId("a");
+        doc.addAttachment("a.bin", new Attachment(AttachmentSource.from(new
+                ByteArrayInputStream(new byte[1]), -1), "application/octet-stream"));
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                db.saveMultipart(doc);
+            }
+        });
+        assertEquals(0, mockWebServer.getRequestCount(), "The request should not be sent");
+    }
+
+    /**
+     * Assert that attachment parts are written to sinks, matched by file name or by order, and
+     * that attachments without a sink are base64 encoded into the document.
+     */
+    @Test
+    public void findReadsParts() throws Exception {
+        String boundary = "abc123";
+        // Data that contains most of a delimiter
+        byte[] a = ("x\r\n--abc12\r\n--abc1" + new String(data(40000), "ISO-8859-1"))
+                .getBytes("ISO-8859-1");
+        byte[] b = "hi".getBytes("UTF-8");
+        Buffer body = new Buffer();
+        body.writeUtf8("--" + boundary + "\r\nContent-Type: application/json\r\n\r\n");
+        body.writeUtf8("{\"_id\":\"a\",\"_rev\":\"1-a\",\"_attachments\":{\"a.bin\":" +
+                "{\"content_type\":\"application/octet-stream\",\"follows\":true,\"length\":" + a
+                .length + "},\"b.txt\":{\"content_type\":\"text/plain\",\"follows\":true," +
+                "\"length\":2}}}");
+        body.writeUtf8("\r\n--" + boundary + "\r\nContent-Disposition: attachment; " +
+                "filename=\"a.bin\"\r\nContent-Type: application/octet-stream\r\n\r\n").write(a);
+        body.writeUtf8("\r\n--" + boundary + "\r\n\r\n").write(b);
+        body.writeUtf8("\r\n--" + boundary + "--\r\n");
+        mockWebServer.enqueue(new MockResponse().setHeader("Content-Type", "multipart/related;" +
+                " boundary=\"" + boundary + "\"").setBody(body));
+
+        final Map<String, ByteArrayOutputStream> sinks = new HashMap<String,
+                ByteArrayOutputStream>();
+        Document doc = db.findMultipart(Document.class, "a", new Params(), new AttachmentSink
+                .Provider() {
+            @Override
+            public AttachmentSink get(String name) {
+                if (!name.endsWith(".bin")) {
+                    return null;
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                sinks.put(name, out);
+                return AttachmentSink.to(out);
+            }
+        });
+
+        assertArrayEquals(a, sinks.get("a.bin").toByteArray(), "The part should be written to " +
+                "the sink");
+        assertNull(doc.getAttachments().get("a.bin").getData(), "The data should not be in the " +
+                "document");
+        assertEquals(Base64.encodeBase64String(b), doc.getAttachments().get("b.txt").getData(),
+                "The data without a sink should be in the document");
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertEquals("multipart/related", request.getHeader("Accept"), "The request should " +
+                "accept multipart");
+        assertTrue(request.getPath().contains("attachments=true"), "The attachments should be " +
+                "requested");
+    }
+
+    /**
+     * Assert that a document returned as JSON is read.
+     */
+    @Test
+    public void findReadsJson() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                .setBody("{\"_id\":\"a\",\"_rev\":\"1-a\"}"));
+        Document doc = db.findMultipart(Document.class, "a", new Params(), new AttachmentSink
+                .Provider() {
+            @Override
+            public AttachmentSink get(String name) {
+                return null;
+            }
+        });
+        assertEquals("1-a", doc.getRevision(), "The document should be read");
+    }
+}
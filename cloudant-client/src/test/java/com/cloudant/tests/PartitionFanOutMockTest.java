@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.query.PartitionedQueryResult;
+import com.cloudant.client.org.lightcouch.CouchDbException;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.google.gson.JsonObject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class PartitionFanOutMockTest {
+
+    private static final String QUERY = "{\"selector\":{\"year\":{\"$gt\":1960}}," +
+            "\"sort\":[{\"year\":\"asc\"}]}";
+
+    private static final Comparator<JsonObject> BY_YEAR = new Comparator<JsonObject>() {
+        @Override
+        public int compare(JsonObject a, JsonObject b) {
+            return a.get("year").getAsInt() - b.get("year").getAsInt();
+        }
+    };
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+    private Database db;
+
+    /**
+     * Answers each partition query with documents of the years in the partition key, for
+     * example {@code 1961-1975}, or an error for the partition {@code fail}.
+     */
+    private static class PartitionDispatcher extends Dispatcher {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            int n = inFlight.incrementAndGet();
+            try {
+                int max = maxInFlight.get();
+                while (n > max && !maxInFlight.compareAndSet(max, n)) {
+                    max = maxInFlight.get();
+                }
+                Thread.sleep(100);
+                String partition = request.getPath().split("/")[3];
+                if ("fail".equals(partition)) {
+                    return new MockResponse().setResponseCode(500).setBody
+                            ("{\"error\":\"internal_server_error\"}");
+                }
+                StringBuilder docs = new StringBuilder();
+                for (String year : partition.split("-")) {
+                    docs.append((docs.length() == 0) ? "" : ",").append("{\"_id\":\"")
+                            .append(partition).append(':').append(year).append("\",\"year\":")
+                            .append(year).append('}');
+                }
+                return new MockResponse().setBody("{\"docs\":[" + docs + "]}");
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .build();
+        db = c.database("animaldb", false);
+    }
+
+    private static List<Integer> years(PartitionedQueryResult<JsonObject> result) {
+        List<Integer> years = new ArrayList<Integer>();
+        for (JsonObject doc : result.getDocs()) {
+            years.add(doc.get("year").getAsInt());
+        }
+        return years;
+    }
+
+    /**
+     * Assert that the documents of every partition are merged in the merge order.
+     */
+    @Test
+    public void sortedMerge() throws Exception {
+        mockWebServer.setDispatcher(new PartitionDispatcher());
+        PartitionedQueryResult<JsonObject> result = db.queryPartitions(Arrays.asList
+                ("1961-1975", "1962-1963-1990", "1970"), QUERY, JsonObject.class, 3, BY_YEAR);
+
+        assertEquals(Arrays.asList(1961, 1962, 1963, 1970, 1975, 1990), years(result), "The " +
+                "documents should be merged by year");
+        assertEquals(3, result.getResults().size(), "There should be a result per partition");
+        assertEquals(2, result.getResults().get("1961-1975").getDocs().size(), "The partition " +
+                "result should have its own documents");
+    }
+
+    /**
+     * Assert that without a merge order the documents are in the order of the partition keys.
+     */
+    @Test
+    public void concatenated() throws Exception {
+        mockWebServer.setDispatcher(new PartitionDispatcher());
+        PartitionedQueryResult<JsonObject> result = db.queryPartitions(Arrays.asList
+                ("1970", "1961-1975"), QUERY, JsonObject.class, 2, null);
+
+        assertEquals(Arrays.asList(1970, 1961, 1975), years(result), "The documents should be " +
+                "in partition order");
+    }
+
+    /**
+     * Assert that a failed partition is reported without failing the others.
+     */
+    @Test
+    public void partialFailure() throws Exception {
+        mockWebServer.setDispatcher(new PartitionDispatcher());
+        PartitionedQueryResult<JsonObject> result = db.queryPartitions(Arrays.asList
+                ("1961", "fail", "1962"), QUERY, JsonObject.class, 3, BY_YEAR);
+
+        assertTrue(result.hasErrors(), "There should be an error");
+        assertEquals(1, result.getErrors().size(), "Only one partition should fail");
+        assertTrue(result.getErrors().get("fail") instanceof CouchDbException, "The error " +
+                "should be for the failed partition");
+        assertEquals(Arrays.asList(1961, 1962), years(result), "The other partitions should " +
+                "return documents");
+    }
+
+    /**
+     * Assert that no more than the parallelism of partitions are queried at once.
+     */
+    @Test
+    public void boundedParallelism() throws Exception {
+        PartitionDispatcher dispatcher = new PartitionDispatcher();
+        mockWebServer.setDispatcher(dispatcher);
+        List<String> partitions = new ArrayList<String>();
+        for (int year = 1961; year <= 1968; year++) {
+            partitions.add(String.valueOf(year));
+        }
+        PartitionedQueryResult<JsonObject> result = db.queryPartitions(partitions, QUERY,
+                JsonObject.class, 2, BY_YEAR);
+
+        assertEquals(8, result.getDocs().size(), "Every partition should be queried");
+        assertEquals(8, mockWebServer.getRequestCount(), "There should be a query per partition");
+        assertEquals(2, dispatcher.maxInFlight.get(), "The partitions should be queried 2 at " +
+                "a time");
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.query.QueryIterator;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class QueryIteratorMockTest {
+
+    private static final String QUERY = "{\"selector\":{\"year\":{\"$gt\":1960}},\"limit\":2," +
+            "\"skip\":1}";
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+    private Database db;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .build();
+        db = c.database("animaldb", false);
+    }
+
+    private void enqueuePage(String bookmark, String... ids) {
+        StringBuilder body = new StringBuilder("{\"docs\":[");
+        for (int i = 0; i < ids.length; i++) {
+            body.append((i == 0) ? "" : ",").append("{\"_id\":\"").append(ids[i]).append("\"}");
+        }
+        // The bookmark follows the docs, as it does from the server
+        body.append("],\"bookmark\":\"").append(bookmark).append("\"}");
+        mockWebServer.enqueue(new MockResponse().setBody(body.toString()));
+    }
+
+    private static List<String> ids(QueryIterator<JsonObject> documents) {
+        List<String> ids = new ArrayList<String>();
+        while (documents.hasNext()) {
+            ids.add(documents.next().get("_id").getAsString());
+        }
+        return ids;
+    }
+
+    private JsonObject takeQuery() throws Exception {
+        return new JsonParser().parse(MockWebServerResources.takeRequestWithTimeout
+                (mockWebServer).getBody().readUtf8()).getAsJsonObject();
+    }
+
+    /**
+     * Assert that every page is requested with the bookmark of the page before until a page is
+     * short.
+     */
+    @Test
+    public void followsBookmarks() throws Exception {
+        enqueuePage("b1", "a", "b");
+        enqueuePage("b2", "c", "d");
+        enqueuePage("b3", "e");
+        QueryIterator<JsonObject> documents = db.queryIterator(QUERY, JsonObject.class, false);
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), ids(documents), "Every document " +
+                "should be returned");
+        assertEquals("b3", documents.getBookmark(), "The bookmark should be of the last page");
+        assertEquals(3, mockWebServer.getRequestCount(), "There should be 3 pages requested");
+        JsonObject first = takeQuery();
+        assertFalse(first.has("bookmark"), "The first page should not have a bookmark");
+        assertEquals(1, first.get("skip").getAsInt(), "The first page should keep the skip");
+        JsonObject second = takeQuery();
+        assertEquals("b1", second.get("bookmark").getAsString(), "The second page should use " +
+                "the first bookmark");
+        assertFalse(second.has("skip"), "The bookmark should replace the skip");
+        assertEquals("b2", takeQuery().get("bookmark").getAsString(), "The third page should " +
+                "use the second bookmark");
+    }
+
+    /**
+     * Assert that an empty page after a full page ends the iteration.
+     */
+    @Test
+    public void emptyLastPage() throws Exception {
+        enqueuePage("b1", "a", "b");
+        enqueuePage("b2");
+        QueryIterator<JsonObject> documents = db.queryIterator(QUERY, JsonObject.class, false);
+
+        assertEquals(Arrays.asList("a", "b"), ids(documents), "Every document should be " +
+                "returned");
+        assertEquals(2, mockWebServer.getRequestCount(), "There should be 2 pages requested");
+    }
+
+    /**
+     * Assert that the next page is requested before the documents of the current page are
+     * consumed.
+     */
+    @Test
+    public void prefetchesNextPage() throws Exception {
+        enqueuePage("b1", "a", "b");
+        enqueuePage("b2", "c");
+        QueryIterator<JsonObject> documents = db.queryIterator(QUERY, JsonObject.class, true);
+        try {
+            assertTrue(documents.hasNext(), "There should be a document");
+            assertEquals("a", documents.next().get("_id").getAsString(), "The first document " +
+                    "should be returned");
+            takeQuery();
+            assertEquals("b1", takeQuery().get("bookmark").getAsString(), "The second page " +
+                    "should be requested while the first is consumed");
+            assertEquals(Arrays.asList("b", "c"), ids(documents), "The remaining documents " +
+                    "should be returned");
+            assertEquals(2, mockWebServer.getRequestCount(), "There should be 2 pages requested");
+        } finally {
+            documents.close();
+        }
+    }
+}
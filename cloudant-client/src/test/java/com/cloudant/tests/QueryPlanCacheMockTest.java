@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.QueryPlan;
+import com.cloudant.client.api.query.PartitionedQueryResult;
+import com.cloudant.client.api.query.QueryIterator;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class QueryPlanCacheMockTest {
+
+    private static final MockResponse EXPLAINED = new MockResponse().setBody("{\"dbname\":" +
+            "\"animaldb\",\"index\":{\"ddoc\":\"_design/idx\",\"name\":\"year-index\"," +
+            "\"type\":\"json\",\"def\":{\"fields\":[{\"year\":\"asc\"},{\"name\":\"asc\"}]}}}");
+
+    private static final MockResponse NO_INDEX = new MockResponse().setResponseCode(400)
+            .setBody("{\"error\":\"no_usable_index\",\"reason\":\"No index exists with the " +
+                    "name year-index\"}");
+
+    private static final MockResponse FOUND = new MockResponse().setBody("{\"docs\":[]}");
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+    private CloudantClient c;
+    private Database db;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+        c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer).queryPlanCache(10)
+                .build();
+        db = c.database("animaldb", false);
+    }
+
+    private static String query(int year) {
+        return "{\"selector\":{\"year\":{\"$gt\":" + year + "},\"name\":{\"$exists\":true}}}";
+    }
+
+    private JsonObject takeBody(String path) throws Exception {
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertEquals(path, request.getPath(), "The request should be to " + path);
+        return new JsonParser().parse(request.getBody().readUtf8()).getAsJsonObject();
+    }
+
+    /**
+     * Assert that the first query of a shape is explained and that every query of that shape is
+     * pinned to the chosen index.
+     */
+    @Test
+    public void pinsChosenIndex() throws Exception {
+        mockWebServer.enqueue(EXPLAINED);
+        mockWebServer.enqueue(FOUND);
+        mockWebServer.enqueue(FOUND);
+        db.query(query(1960), JsonObject.class);
+        // The same shape with different values and selector field order
+        db.query("{\"selector\":{\"name\":{\"$exists\":false},\"year\":{\"$gt\":1990}}}",
+                JsonObject.class);
+
+        assertEquals(3, mockWebServer.getRequestCount(), "The shape should be explained once");
+        takeBody("/animaldb/_explain");
+        for (int i = 0; i < 2; i++) {
+            assertEquals("[\"_design/idx\",\"year-index\"]", takeBody("/animaldb/_find").get
+                    ("use_index").toString(), "The query should be pinned to the chosen index");
+        }
+        List<QueryPlan> plans = c.getQueryPlans();
+        assertEquals(1, plans.size(), "There should be one plan");
+        assertEquals(Arrays.asList("year", "name"), plans.get(0).getFields(), "The plan should " +
+                "have the index fields");
+        assertFalse(plans.get(0).isFullScan(), "The plan should not be a full scan");
+    }
+
+    /**
+     * Assert that a shape served by _all_docs is recorded as a full scan and not pinned.
+     */
+    @Test
+    public void fullScanNotPinned() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody("{\"dbname\":\"animaldb\",\"index\":" +
+                "{\"ddoc\":null,\"name\":\"_all_docs\",\"type\":\"special\",\"def\":" +
+                "{\"fields\":[{\"_id\":\"asc\"}]}}}"));
+        mockWebServer.enqueue(FOUND);
+        mockWebServer.enqueue(FOUND);
+        db.query(query(1960), JsonObject.class);
+        db.query(query(1970), JsonObject.class);
+
+        assertEquals(3, mockWebServer.getRequestCount(), "The shape should be explained once");
+        takeBody("/animaldb/_explain");
+        assertFalse(takeBody("/animaldb/_find").has("use_index"), "A full scan should not be " +
+                "pinned");
+        assertTrue(c.getQueryPlans().get(0).isFullScan(), "The plan should be a full scan");
+    }
+
+    /**
+     * Assert that a query that fails with its pinned index is sent again without it.
+     */
+    @Test
+    public void deletedIndexEvicted() throws Exception {
+        mockWebServer.enqueue(EXPLAINED);
+        mockWebServer.enqueue(NO_INDEX);
+        mockWebServer.enqueue(FOUND);
+        db.query(query(1960), JsonObject.class);
+
+        takeBody("/animaldb/_explain");
+        assertTrue(takeBody("/animaldb/_find").has("use_index"), "The query should be pinned");
+        assertFalse(takeBody("/animaldb/_find").has("use_index"), "The retry should not be " +
+                "pinned");
+        assertTrue(c.getQueryPlans().isEmpty(), "The plan should be discarded");
+    }
+
+    /**
+     * Assert that the first page of a query iterator that fails with its pinned index is
+     * requested again without it, whether or not pages are prefetched.
+     */
+    @Test
+    public void deletedIndexEvictedByIterator() throws Exception {
+        for (boolean prefetch : new boolean[]{false, true}) {
+            mockWebServer.enqueue(EXPLAINED);
+            mockWebServer.enqueue(NO_INDEX);
+            mockWebServer.enqueue(FOUND);
+            QueryIterator<JsonObject> docs = db.queryIterator(query(1960), JsonObject.class,
+                    prefetch);
+            assertFalse(docs.hasNext(), "There should be no documents");
+
+            takeBody("/animaldb/_explain");
+            assertTrue(takeBody("/animaldb/_find").has("use_index"), "The query should be " +
+                    "pinned");
+            assertFalse(takeBody("/animaldb/_find").has("use_index"), "The retry should not be " +
+                    "pinned");
+            assertTrue(c.getQueryPlans().isEmpty(), "The plan should be discarded");
+        }
+    }
+
+    /**
+     * Assert that a partition query that fails with its pinned index is sent again without it.
+     */
+    @Test
+    public void deletedIndexEvictedByPartitions() throws Exception {
+        mockWebServer.enqueue(EXPLAINED);
+        mockWebServer.enqueue(NO_INDEX);
+        mockWebServer.enqueue(FOUND);
+        PartitionedQueryResult<JsonObject> result = db.queryPartitions(Arrays.asList("p1"),
+                query(1960), JsonObject.class, 1, null);
+
+        assertFalse(result.hasErrors(), "The partition should not fail");
+        takeBody("/animaldb/_partition/p1/_explain");
+        assertTrue(takeBody("/animaldb/_partition/p1/_find").has("use_index"), "The query " +
+                "should be pinned");
+        assertFalse(takeBody("/animaldb/_partition/p1/_find").has("use_index"), "The retry " +
+                "should not be pinned");
+        assertTrue(c.getQueryPlans().isEmpty(), "The plan should be discarded");
+    }
+
+    /**
+     * Assert that a query with its own index is neither explained nor changed.
+     */
+    @Test
+    public void ownIndexUnchanged() throws Exception {
+        mockWebServer.enqueue(FOUND);
+        db.query("{\"selector\":{\"year\":{\"$gt\":1960}},\"use_index\":\"_design/other\"}",
+                JsonObject.class);
+
+        assertEquals(1, mockWebServer.getRequestCount(), "The query should not be explained");
+        assertEquals("_design/other", takeBody("/animaldb/_find").get("use_index").getAsString(),
+                "The index should be unchanged");
+    }
+}
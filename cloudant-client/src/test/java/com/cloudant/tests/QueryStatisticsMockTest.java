@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.QueryStatistics;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class QueryStatisticsMockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+    private CloudantClient c;
+    private Database db;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+        c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer).queryStatistics
+                (10, 2).build();
+        db = c.database("animaldb", false);
+    }
+
+    private static String query(int year) {
+        return "{\"selector\":{\"year\":{\"$gt\":" + year + "}}}";
+    }
+
+    private static MockResponse found(int keys, int docs, int results) {
+        return new MockResponse().setBody("{\"docs\":[],\"execution_stats\":{" +
+                "\"total_keys_examined\":" + keys + ",\"total_docs_examined\":" + docs + "," +
+                "\"total_quorum_docs_examined\":0,\"results_returned\":" + results + "," +
+                "\"execution_time_ms\":2.5}}");
+    }
+
+    private JsonObject takeBody() throws Exception {
+        return new JsonParser().parse(MockWebServerResources.takeRequestWithTimeout
+                (mockWebServer).getBody().readUtf8()).getAsJsonObject();
+    }
+
+    /**
+     * Assert that queries are aggregated by shape and that their execution statistics are
+     * recorded.
+     */
+    @Test
+    public void aggregatesByShape() throws Exception {
+        mockWebServer.enqueue(found(4, 4, 4));
+        mockWebServer.enqueue(found(8, 8, 8));
+        mockWebServer.enqueue(found(1, 1, 1));
+        db.query(query(1960), JsonObject.class);
+        db.query(query(1970), JsonObject.class);
+        db.query("{\"selector\":{\"name\":\"llama\"}}", JsonObject.class);
+
+        List<QueryStatistics> statistics = c.getQueryStatistics();
+        assertEquals(2, statistics.size(), "There should be statistics for two shapes");
+        QueryStatistics years = statistics.get(0);
+        assertEquals("/animaldb", years.getDatabase(), "The statistics should be for the " +
+                "database");
+        assertEquals("{\"selector\":{\"year\":{\"$gt\":null}}}", years.getShape(), "The shape " +
+                "should not have values");
+        assertEquals(2, years.getQueries(), "There should be two queries of the shape");
+        assertEquals(2, years.getKeysExamined().getCount(), "The keys examined should be " +
+                "recorded for each query");
+        assertEquals(4, years.getKeysExamined().getMin(), "The minimum should be recorded");
+        assertEquals(8, years.getResultsReturned().getMax(), "The maximum should be recorded");
+        assertEquals(6d, years.getDocsExamined().getMean(), "The mean should be recorded");
+        assertEquals(2500, years.getExecutionTimeMicros().getMax(), "The execution time should " +
+                "be recorded in microseconds");
+        assertEquals(0, years.getSlowQueries(), "There should be no slow queries");
+    }
+
+    /**
+     * Assert that queries ask for execution statistics unless they set them themselves.
+     */
+    @Test
+    public void executionStatsRequested() throws Exception {
+        mockWebServer.enqueue(found(1, 1, 1));
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK.clone().setBody("{\"docs\":[]}"));
+        db.query(query(1960), JsonObject.class);
+        db.query("{\"selector\":{\"year\":{\"$gt\":1960}},\"execution_stats\":false}",
+                JsonObject.class);
+
+        assertTrue(takeBody().get("execution_stats").getAsBoolean(), "The query should ask for " +
+                "execution statistics");
+        assertFalse(takeBody().get("execution_stats").getAsBoolean(), "The query should be " +
+                "unchanged");
+        QueryStatistics statistics = c.getQueryStatistics().get(0);
+        assertEquals(2, statistics.getLatencyMicros().getCount(), "Both queries should be " +
+                "timed");
+        assertEquals(1, statistics.getKeysExamined().getCount(), "Only the query with " +
+                "execution statistics should have keys examined");
+    }
+
+    /**
+     * Assert that slow queries are counted and that a sample of them is logged.
+     */
+    @Test
+    public void slowQueriesSampled() throws Exception {
+        final AtomicInteger warnings = new AtomicInteger();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getLevel() == Level.WARNING) {
+                    warnings.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger("com.cloudant.client.org.lightcouch" +
+                ".QueryStatisticsRecorder");
+        logger.addHandler(handler);
+        try {
+            mockWebServer.enqueue(found(100, 100, 1));
+            mockWebServer.enqueue(found(10, 10, 10));
+            mockWebServer.enqueue(found(0, 500, 0));
+            mockWebServer.enqueue(found(1000, 20, 100));
+            for (int i = 0; i < 4; i++) {
+                db.query(query(1960 + i), JsonObject.class);
+            }
+        } finally {
+            logger.removeHandler(handler);
+        }
+
+        assertEquals(3, c.getQueryStatistics().get(0).getSlowQueries(), "There should be three " +
+                "slow queries");
+        assertEquals(2, warnings.get(), "The first and third slow queries should be logged");
+    }
+
+    /**
+     * Assert that queries are unchanged and nothing is recorded by default.
+     */
+    @Test
+    public void disabledByDefault() throws Exception {
+        CloudantClient client = CloudantClientHelper.newMockWebServerClientBuilder
+                (mockWebServer).build();
+        mockWebServer.enqueue(found(1, 1, 1));
+        client.database("animaldb", false).query(query(1960), JsonObject.class);
+
+        assertFalse(takeBody().has("execution_stats"), "The query should be unchanged");
+        assertTrue(client.getQueryStatistics().isEmpty(), "There should be no statistics");
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.org.lightcouch.CouchDbException;
+import com.cloudant.client.org.lightcouch.TooManyRequestsException;
+import com.cloudant.http.DeadlineExceededException;
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.http.interceptors.Replay429Interceptor;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+import com.google.gson.JsonObject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class RequestDeadlineMockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Assert that the read timeout is reduced to the time remaining before the client deadline.
+     */
+    @Test
+    public void readTimeoutLimitedByDeadline() throws Exception {
+        final CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder
+                (mockWebServer).requestDeadline(500, TimeUnit.MILLISECONDS).build();
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK.clone().setHeadersDelay(5,
+                TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        CouchDbException e = assertThrows(CouchDbException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                c.executeRequest(Http.GET(mockWebServer.url("/animaldb").url()));
+            }
+        });
+        assertTrue(e.getCause() instanceof SocketTimeoutException, "The request should time out");
+        assertTrue(elapsedMillis(start) < 4000, "The request should not wait for the response");
+    }
+
+    /**
+     * Assert that a 429 replay that would pass the deadline is not made.
+     */
+    @Test
+    public void replaySkippedPastDeadline() throws Exception {
+        final CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder
+                (mockWebServer).interceptors(Replay429Interceptor.WITH_DEFAULTS).requestDeadline
+                (1, TimeUnit.SECONDS).build();
+        mockWebServer.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After",
+                "10").setBody("{\"error\":\"too_many_requests\"}"));
+
+        long start = System.nanoTime();
+        assertThrows(TooManyRequestsException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                c.executeRequest(Http.GET(mockWebServer.url("/animaldb").url()));
+            }
+        });
+        assertTrue(elapsedMillis(start) < 5000, "The request should not wait for the replay");
+        assertEquals(1, mockWebServer.getRequestCount(), "The request should not be replayed");
+    }
+
+    /**
+     * Assert that a database deadline applies to requests for that database.
+     */
+    @Test
+    public void databaseDeadline() throws Exception {
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .build();
+        final Database db = c.database("animaldb", false);
+        db.setRequestDeadline(300, TimeUnit.MILLISECONDS);
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK.clone().setHeadersDelay(5,
+                TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        CouchDbException e = assertThrows(CouchDbException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                db.find(JsonObject.class, "a");
+            }
+        });
+        assertTrue(e.getCause() instanceof SocketTimeoutException, "The request should time out");
+        assertTrue(elapsedMillis(start) < 4000, "The request should not wait for the response");
+    }
+
+    /**
+     * Assert that a request is not sent once its deadline has passed.
+     */
+    @Test
+    public void expiredDeadlineNotSent() throws Exception {
+        final HttpConnection conn = Http.GET(mockWebServer.url("/animaldb").url()).setDeadline
+                (0, TimeUnit.MILLISECONDS);
+        assertThrows(DeadlineExceededException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                conn.execute();
+            }
+        });
+        assertEquals(0, mockWebServer.getRequestCount(), "The request should not be sent");
+    }
+}
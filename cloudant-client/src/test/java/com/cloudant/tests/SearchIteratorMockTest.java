@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.SearchResult;
+import com.cloudant.client.api.query.QueryIterator;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+import com.google.gson.JsonObject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class SearchIteratorMockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+    private Database db;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .build();
+        db = c.database("animaldb", false);
+    }
+
+    /**
+     * @return a page of rows with ids from {@code first} to {@code last}
+     */
+    private static MockResponse page(int first, int last, String bookmark) {
+        StringBuilder rows = new StringBuilder();
+        for (int i = first; i <= last; i++) {
+            rows.append((i == first) ? "" : ",").append("{\"id\":\"").append(i).append("\"," +
+                    "\"order\":[1.5,").append(i).append("],\"fields\":{\"class\":\"bird\"}," +
+                    "\"doc\":{\"_id\":\"").append(i).append("\"}}");
+        }
+        return new MockResponse().setBody("{\"total_rows\":100,\"bookmark\":\"" + bookmark +
+                "\",\"rows\":[" + rows + "],\"counts\":{\"class\":{\"bird\":100}}}");
+    }
+
+    private static List<String> ids(QueryIterator<SearchResult<JsonObject>.SearchResultRow>
+                                            rows) {
+        List<String> ids = new ArrayList<String>();
+        while (rows.hasNext()) {
+            ids.add(rows.next().getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Assert that the iterator follows the bookmark of each page until a page is not full and
+     * that the facets are not requested with any page.
+     */
+    @Test
+    public void followsBookmarks() throws Exception {
+        mockWebServer.enqueue(page(1, 2, "b1"));
+        mockWebServer.enqueue(page(3, 4, "b2"));
+        mockWebServer.enqueue(page(5, 5, "b3"));
+        QueryIterator<SearchResult<JsonObject>.SearchResultRow> rows = db.search("ddoc/idx")
+                .limit(2).counts(new String[]{"class"}).queryIterator("class:bird", JsonObject
+                        .class, 100);
+
+        assertEquals(5, ids(rows).size(), "Every row should be iterated");
+        assertEquals(3, mockWebServer.getRequestCount(), "There should be a request per page");
+        assertEquals("b3", rows.getBookmark(), "The bookmark should be of the last page");
+        RecordedRequest first = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertTrue(first.getPath().startsWith("/animaldb/_design/ddoc/_search/idx?limit=2&"),
+                "The first page should be requested with the limit");
+        assertFalse(first.getPath().contains("counts="), "The first page should not have facets");
+        assertFalse(first.getPath().contains("bookmark="), "The first page should not have a " +
+                "bookmark");
+        RecordedRequest second = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertTrue(second.getPath().endsWith("&bookmark=b1"), "The second page should be " +
+                "requested with the first bookmark");
+        assertTrue(second.getPath().contains("q=class"), "The second page should have the query");
+        assertFalse(second.getPath().contains("counts="), "Later pages should not have facets");
+    }
+
+    /**
+     * Assert that grouped results are rejected before any request is sent.
+     */
+    @Test
+    public void groupedRejected() throws Exception {
+        assertThrows(IllegalStateException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                db.search("ddoc/idx").groupField("class", false).queryIterator("class:bird",
+                        JsonObject.class, 100);
+            }
+        });
+        assertEquals(0, mockWebServer.getRequestCount(), "No request should be sent");
+    }
+
+    /**
+     * Assert that no more rows than the maximum are requested.
+     */
+    @Test
+    public void stopsAtMaxRows() throws Exception {
+        mockWebServer.enqueue(page(1, 3, "b1"));
+        mockWebServer.enqueue(page(4, 5, "b2"));
+        QueryIterator<SearchResult<JsonObject>.SearchResultRow> rows = db.search("ddoc/idx")
+                .limit(3).queryIterator("class:bird", JsonObject.class, 5);
+
+        assertEquals(5, ids(rows).size(), "The maximum number of rows should be iterated");
+        assertEquals(2, mockWebServer.getRequestCount(), "There should be no more requests");
+        MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertTrue(MockWebServerResources.takeRequestWithTimeout(mockWebServer).getPath()
+                .contains("limit=2"), "The last page should only request the remaining rows");
+    }
+
+    /**
+     * Assert that the fields of each row are decoded and that documents are only decoded when
+     * they are included.
+     */
+    @Test
+    public void decodesRows() throws Exception {
+        mockWebServer.enqueue(page(1, 1, "b1"));
+        mockWebServer.enqueue(page(1, 1, "b1"));
+        QueryIterator<SearchResult<JsonObject>.SearchResultRow> rows = db.search("ddoc/idx")
+                .includeDocs(true).queryIterator("class:bird", JsonObject.class, 100);
+        SearchResult<JsonObject>.SearchResultRow row = rows.next();
+        assertFalse(rows.hasNext(), "There should be one row");
+        assertEquals("1", row.getId(), "The id should be decoded");
+        assertArrayEquals(new Object[]{1.5d, 1d}, row.getOrder(), "The order should be decoded");
+        assertEquals("bird", row.getFields().get("class").getAsString(), "The fields should be " +
+                "decoded");
+        assertEquals("1", row.getDoc().get("_id").getAsString(), "The doc should be decoded");
+
+        row = db.search("ddoc/idx").queryIterator("class:bird", JsonObject.class, 100).next();
+        assertNull(row.getDoc(), "The doc should not be decoded unless included");
+    }
+
+    /**
+     * Assert that an iterator closed before the end of a page requests no more pages.
+     */
+    @Test
+    public void closedEarly() throws Exception {
+        mockWebServer.enqueue(page(1, 2, "b1"));
+        QueryIterator<SearchResult<JsonObject>.SearchResultRow> rows = db.search("ddoc/idx")
+                .limit(2).queryIterator("class:bird", JsonObject.class, 100);
+        rows.next();
+        rows.close();
+
+        assertFalse(rows.hasNext(), "A closed iterator should have no more rows");
+        assertEquals(1, mockWebServer.getRequestCount(), "No more pages should be requested");
+    }
+}
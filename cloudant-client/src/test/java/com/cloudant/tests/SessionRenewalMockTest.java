@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.model.SessionStatistics;
+import com.cloudant.http.Http;
+import com.cloudant.http.HttpConnection;
+import com.cloudant.http.internal.interceptors.CookieInterceptor;
+import com.cloudant.http.internal.interceptors.HttpConnectionInterceptorException;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class SessionRenewalMockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+
+    private CookieInterceptor interceptor;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+        interceptor = new CookieInterceptor("user", "pass", mockWebServer.url("").toString());
+    }
+
+    private String get() throws Exception {
+        HttpConnection conn = Http.GET(mockWebServer.url("/").url());
+        conn.requestInterceptors.add(interceptor);
+        conn.responseInterceptors.add(interceptor);
+        return conn.execute().responseAsString();
+    }
+
+    private RecordedRequest takeRequest() throws Exception {
+        return MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+    }
+
+    /**
+     * Assert that a session is obtained once and its cookie applied to later requests.
+     */
+    @Test
+    public void sessionReusedAcrossRequests() throws Exception {
+        mockWebServer.enqueue(MockWebServerResources.OK_COOKIE);
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+
+        get();
+        get();
+
+        assertEquals("/_session", takeRequest().getPath(), "There should be a session request");
+        String expectedCookie = MockWebServerResources.AUTH_COOKIE_NAME + "=" +
+                MockWebServerResources.EXPECTED_OK_COOKIE;
+        assertEquals(expectedCookie, takeRequest().getHeader("Cookie"), "The first request " +
+                "should have the session cookie");
+        assertEquals(expectedCookie, takeRequest().getHeader("Cookie"), "The second request " +
+                "should have the session cookie");
+        assertEquals(3, mockWebServer.getRequestCount(), "There should be 3 requests");
+        assertEquals(1, interceptor.getRenewalCount(), "There should be 1 renewal");
+        assertEquals(0, interceptor.getRenewalFailureCount(), "There should be no failures");
+    }
+
+    /**
+     * Assert that a cookie refreshed by the server on a normal response is applied to later
+     * requests without a new session request.
+     */
+    @Test
+    public void serverRefreshedCookieApplied() throws Exception {
+        mockWebServer.enqueue(MockWebServerResources.OK_COOKIE);
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("{\"ok\":true}")
+                .addHeader("Set-Cookie", MockWebServerResources.authSessionCookie
+                        (MockWebServerResources.EXPECTED_OK_COOKIE_2, null)));
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+
+        get();
+        get();
+
+        takeRequest();
+        takeRequest();
+        assertEquals(MockWebServerResources.AUTH_COOKIE_NAME + "=" + MockWebServerResources
+                .EXPECTED_OK_COOKIE_2, takeRequest().getHeader("Cookie"), "The request should " +
+                "have the refreshed cookie");
+        assertEquals(1, interceptor.getRenewalCount(), "There should be 1 renewal");
+    }
+
+    /**
+     * Assert that a failed session request is counted.
+     */
+    @Test
+    public void renewalFailureCounted() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+
+        assertThrows(HttpConnectionInterceptorException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                get();
+            }
+        });
+        assertEquals(0, interceptor.getRenewalCount(), "There should be no renewals");
+        assertEquals(1, interceptor.getRenewalFailureCount(), "There should be 1 failure");
+    }
+
+    /**
+     * Assert that concurrent requests without a session wait for a single session request.
+     */
+    @Test
+    public void concurrentRequestsShareRenewal() throws Exception {
+        final int requests = 8;
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if ("/_session".equals(request.getPath())) {
+                    return MockWebServerResources.OK_COOKIE.clone().setHeadersDelay(200,
+                            TimeUnit.MILLISECONDS);
+                }
+                return MockWebServerResources.JSON_OK;
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<String>> responses = new ArrayList<Future<String>>();
+            for (int i = 0; i < requests; i++) {
+                responses.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return get();
+                    }
+                }));
+            }
+            for (Future<String> response : responses) {
+                assertEquals("{\"ok\":true}", response.get(10, TimeUnit.SECONDS), "Each request " +
+                        "should succeed");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(requests + 1, mockWebServer.getRequestCount(), "There should be 1 session " +
+                "request");
+        assertEquals(1, interceptor.getRenewalCount(), "There should be 1 renewal");
+    }
+
+    /**
+     * Assert that the session renewal counters are available from the client.
+     */
+    @Test
+    public void clientSessionStatistics() throws Exception {
+        mockWebServer.enqueue(MockWebServerResources.OK_COOKIE);
+        mockWebServer.enqueue(MockWebServerResources.JSON_OK);
+        CloudantClient client = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .username("user")
+                .password("pass")
+                .build();
+
+        client.executeRequest(Http.GET(client.getBaseUri())).responseAsString();
+
+        List<SessionStatistics> statistics = client.getSessionStatistics();
+        assertEquals(1, statistics.size(), "There should be statistics for 1 endpoint");
+        assertEquals(1, statistics.get(0).getRenewals(), "There should be 1 renewal");
+        assertEquals(0, statistics.get(0).getRenewalFailures(), "There should be no failures");
+        assertEquals(0, CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer).build()
+                .getSessionStatistics().size(), "There should be no statistics without a session");
+    }
+}
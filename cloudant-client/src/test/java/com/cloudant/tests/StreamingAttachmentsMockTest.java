@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudant.client.api.CloudantClient;
+import com.cloudant.client.api.Database;
+import com.cloudant.client.api.model.Attachment;
+import com.cloudant.client.api.model.AttachmentSink;
+import com.cloudant.client.api.model.AttachmentSource;
+import com.cloudant.client.api.model.Document;
+import com.cloudant.client.api.model.Params;
+import com.cloudant.tests.extensions.MockWebServerExtension;
+import com.cloudant.tests.util.MockWebServerResources;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+public class StreamingAttachmentsMockTest {
+
+    @RegisterExtension
+    public MockWebServerExtension mockWebServerExt = new MockWebServerExtension();
+    public MockWebServer mockWebServer;
+    private Database db;
+
+    @BeforeEach
+    public void setup() {
+        mockWebServer = mockWebServerExt.get();
+        CloudantClient c = CloudantClientHelper.newMockWebServerClientBuilder(mockWebServer)
+                .build();
+        db = c.database("animaldb", false);
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    private static final MockResponse SAVED = new MockResponse().setResponseCode(201).setBody
+            ("{\"ok\":true,\"id\":\"a\",\"rev\":\"1-a\"}");
+
+    /**
+     * Assert that the data of an attachment source is base64 encoded into the request body and
+     * that the body has a fixed length when the length of the source is known.
+     */
+    @Test
+    public void saveStreamsSource() throws Exception {
+        byte[] data = data(100001);
+        Document doc = new Document();
+        doc.setId("a");
+        doc.addAttachment("a.bin", new Attachment(AttachmentSource.from(new
+                ByteArrayInputStream(data), data.length), "application/octet-stream"));
+        mockWebServer.enqueue(SAVED);
+        db.save(doc);
+
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        String body = request.getBody().readUtf8();
+        assertTrue(body.contains("\"data\":\"" + Base64.encodeBase64String(data) + "\""), "The " +
+                "body should contain the encoded data");
+        assertEquals(String.valueOf(request.getBodySize()), request.getHeader("Content-Length"),
+                "The body should have a fixed length");
+        assertNull(request.getHeader("Transfer-Encoding"), "The body should not be chunked");
+    }
+
+    /**
+     * Assert that a source of unknown length is sent in a chunked body.
+     */
+    @Test
+    public void postStreamsSourceOfUnknownLength() throws Exception {
+        byte[] data = data(1000);
+        Document doc = new Document();
+        doc.addAttachment("a.bin", new Attachment(AttachmentSource.from(new
+                ByteArrayInputStream(data), -1), "application/octet-stream"));
+        mockWebServer.enqueue(SAVED);
+        db.post(doc);
+
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertEquals("chunked", request.getHeader("Transfer-Encoding"), "The body should be " +
+                "chunked");
+        assertTrue(request.getBody().readUtf8().contains(Base64.encodeBase64String(data)), "The " +
+                "body should contain the encoded data");
+    }
+
+    /**
+     * Assert that an attachment source in a bulk request is encoded inline.
+     */
+    @Test
+    public void bulkEncodesSourceInline() throws Exception {
+        byte[] data = data(10);
+        Document doc = new Document();
+        doc.addAttachment("a.bin", new Attachment(AttachmentSource.from(java.nio.ByteBuffer
+                .wrap(data)), "application/octet-stream"));
+        mockWebServer.enqueue(new MockResponse().setBody("[{\"ok\":true,\"id\":\"a\"," +
+                "\"rev\":\"1-a\"}]"));
+        db.bulk(Arrays.asList(doc));
+
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertTrue(request.getBody().readUtf8().contains("\"data\":\"" + Base64
+                .encodeBase64String(data) + "\""), "The body should contain the encoded data");
+    }
+
+    /**
+     * Assert that attachment data is decoded into the sinks and is null in the document, while
+     * the data of attachments without a sink is kept.
+     */
+    @Test
+    public void findDecodesIntoSinks() throws Exception {
+        byte[] data = data(70000);
+        // Escape the solidus as some JSON encoders do
+        String encoded = Base64.encodeBase64String(data).replace("/", "\\/");
+        mockWebServer.enqueue(new MockResponse().setBody("{\"_id\":\"a\",\"_rev\":\"1-a\"," +
+                "\"x\":{\"data\":\"kept\"},\"_attachments\":{\"a.bin\":{\"content_type\":" +
+                "\"application/octet-stream\",\"data\":\"" + encoded + "\"},\"b\\u002etxt\":" +
+                "{\"content_type\":\"text/plain\",\"data\":\"aGk=\"}}}"));
+
+        final Map<String, ByteArrayOutputStream> sinks = new HashMap<String,
+                ByteArrayOutputStream>();
+        Document doc = db.find(Document.class, "a", new Params(), new AttachmentSink.Provider() {
+            @Override
+            public AttachmentSink get(String name) {
+                if (!name.endsWith(".bin")) {
+                    return null;
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                sinks.put(name, out);
+                return AttachmentSink.to(out);
+            }
+        });
+
+        assertArrayEquals(data, sinks.get("a.bin").toByteArray(), "The data should be decoded " +
+                "into the sink");
+        assertNull(doc.getAttachments().get("a.bin").getData(), "The data should not be in the " +
+                "document");
+        assertEquals("aGk=", doc.getAttachments().get("b.txt").getData(), "The data without a " +
+                "sink should be in the document");
+        RecordedRequest request = MockWebServerResources.takeRequestWithTimeout(mockWebServer);
+        assertTrue(request.getPath().contains("attachments=true"), "The attachments should be " +
+                "requested");
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018 IBM Corp. All rights reserved.
+ * Copyright (c) 2018, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -15,6 +15,7 @@
 package com.cloudant.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import com.cloudant.client.api.CloudantClient;
 import com.cloudant.client.api.Database;
@@ -22,12 +23,14 @@ import com.cloudant.client.api.views.Key;
 import com.cloudant.client.api.views.SettableViewParameters;
 import com.cloudant.client.api.views.UnpaginatedRequestBuilder;
 import com.cloudant.tests.base.TestWithMockedServer;
+import com.google.gson.JsonParser;
 
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 
 import okhttp3.HttpUrl;
 import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -160,4 +163,50 @@ public class ViewsMockTest extends TestWithMockedServer {
         assertEquals(idsAndRevs, allDocsIdsAndRevs, "The ids and revs should be equal");
     }
 
+    /**
+     * Assert that query parameters are added to the URL and body parameters are written to the
+     * body of a POST.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void queryAndBodyParametersEncoded() throws Exception {
+        CloudantClient client = CloudantClientHelper.newMockWebServerClientBuilder(server)
+                .build();
+        Database database = client.database("notarealdb", false);
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("{\"rows\":[]}"));
+        database.getViewRequestBuilder("testDDoc", "testView").newRequest(Key.Type.STRING,
+                Integer.class).keys("a", "b\"c").limit(5).includeDocs(true).build()
+                .getResponse();
+        RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+        assertEquals("POST", request.getMethod(), "The request should be a POST");
+        assertEquals("5", request.getRequestUrl().queryParameter("limit"));
+        assertEquals("true", request.getRequestUrl().queryParameter("include_docs"));
+        assertNull(request.getRequestUrl().queryParameter("keys"), "The keys should not be in " +
+                "the URL");
+        assertEquals(new JsonParser().parse("{\"keys\":[\"a\",\"b\\\"c\"]}"), new JsonParser()
+                .parse(request.getBody().readUtf8()), "The keys should be in the body");
+    }
+
+    /**
+     * Assert that the query and body parameters of each request in a multiple request are written
+     * to the queries JSON.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void multipleRequestParametersEncoded() throws Exception {
+        CloudantClient client = CloudantClientHelper.newMockWebServerClientBuilder(server)
+                .build();
+        Database database = client.database("notarealdb", false);
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("{\"results\":[" +
+                "{\"rows\":[]},{\"rows\":[]}]}"));
+        database.getViewRequestBuilder("testDDoc", "testView").newMultipleRequest(Key.Type
+                .STRING, Integer.class).startKey("A").endKey("B").add().keys("x", "y").add()
+                .build().getViewResponses();
+        RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+        assertEquals(new JsonParser().parse("{\"queries\":[{\"endkey\":\"B\"," +
+                "\"startkey\":\"A\"},{\"keys\":[\"x\",\"y\"]}]}"), new JsonParser().parse(request
+                .getBody().readUtf8()), "The queries should contain the parameters");
+    }
 }
@@ -0,0 +1,416 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.http;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>
+ * Gzip compression of request and response bodies for {@link HttpConnection}s.
+ * </p>
+ * <p>
+ * When set on a connection with {@link HttpConnection#setCompression(HttpCompression)}:
+ * </p>
+ * <ul>
+ * <li>{@code Accept-Encoding: gzip} is sent with the request.</li>
+ * <li>JSON and text request bodies of at least the minimum size, or of unknown size, are
+ * compressed as they are streamed to the server and sent with {@code Content-Encoding: gzip}.</li>
+ * <li>Gzip encoded responses are decompressed as they are read from
+ * {@link HttpConnection#responseAsInputStream()}, without buffering the response.</li>
+ * </ul>
+ * <p>
+ * An instance can be shared by many connections and accumulates the number of bytes compressed
+ * and decompressed and the time spent doing so, excluding the time spent in network I/O.
+ * </p>
+ *
+ * @since 2.21.0
+ */
+public final class HttpCompression {
+
+    /**
+     * The default minimum size in bytes of a request body for it to be compressed.
+     */
+    public static final long DEFAULT_MINIMUM_REQUEST_SIZE = 1024;
+
+    static final String GZIP = "gzip";
+
+    // Magic number, deflate method, no flags, no modification time, no extra flags, unknown
+    // operating system
+    private static final byte[] GZIP_HEADER = new byte[]{0x1f, (byte) 0x8b, Deflater.DEFLATED,
+            0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final long minimumRequestSize;
+
+    private final AtomicLong compressedRequests = new AtomicLong();
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong compressedRequestBytes = new AtomicLong();
+    private final AtomicLong compressionNanos = new AtomicLong();
+    private final AtomicLong decompressedResponses = new AtomicLong();
+    private final AtomicLong compressedResponseBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong decompressionNanos = new AtomicLong();
+
+    /**
+     * Compress request bodies of at least {@link #DEFAULT_MINIMUM_REQUEST_SIZE} bytes.
+     */
+    public HttpCompression() {
+        this(DEFAULT_MINIMUM_REQUEST_SIZE);
+    }
+
+    /**
+     * @param minimumRequestSize the minimum size in bytes of a request body for it to be
+     *                           compressed, bodies of unknown size are always compressed
+     */
+    public HttpCompression(long minimumRequestSize) {
+        if (minimumRequestSize < 0) {
+            throw new IllegalArgumentException("The minimum request size must not be negative.");
+        }
+        this.minimumRequestSize = minimumRequestSize;
+    }
+
+    /**
+     * @return the minimum size in bytes of a request body for it to be compressed
+     */
+    public long getMinimumRequestSize() {
+        return minimumRequestSize;
+    }
+
+    /**
+     * @return the number of request bodies compressed
+     */
+    public long getCompressedRequestCount() {
+        return compressedRequests.get();
+    }
+
+    /**
+     * @return the number of bytes of request bodies before compression
+     */
+    public long getRequestBytes() {
+        return requestBytes.get();
+    }
+
+    /**
+     * @return the number of bytes of compressed request bodies sent
+     */
+    public long getCompressedRequestBytes() {
+        return compressedRequestBytes.get();
+    }
+
+    /**
+     * @return the compressed size of the request bodies as a fraction of their uncompressed
+     * size, or 1 if no request bodies have been compressed
+     */
+    public double getRequestCompressionRatio() {
+        return ratio(compressedRequestBytes.get(), requestBytes.get());
+    }
+
+    /**
+     * @return the time spent compressing request bodies, in nanoseconds
+     */
+    public long getCompressionNanos() {
+        return compressionNanos.get();
+    }
+
+    /**
+     * @return the number of responses decompressed
+     */
+    public long getDecompressedResponseCount() {
+        return decompressedResponses.get();
+    }
+
+    /**
+     * @return the number of bytes of compressed response bodies received
+     */
+    public long getCompressedResponseBytes() {
+        return compressedResponseBytes.get();
+    }
+
+    /**
+     * @return the number of bytes of response bodies after decompression
+     */
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    /**
+     * @return the compressed size of the response bodies as a fraction of their uncompressed
+     * size, or 1 if no responses have been decompressed
+     */
+    public double getResponseCompressionRatio() {
+        return ratio(compressedResponseBytes.get(), responseBytes.get());
+    }
+
+    /**
+     * @return the time spent decompressing response bodies, in nanoseconds
+     */
+    public long getDecompressionNanos() {
+        return decompressionNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "HttpCompression{requests=%d, requestRatio=%.3f, " +
+                        "compressionNanos=%d, responses=%d, responseRatio=%.3f, " +
+                        "decompressionNanos=%d}", getCompressedRequestCount(),
+                getRequestCompressionRatio(), getCompressionNanos(),
+                getDecompressedResponseCount(), getResponseCompressionRatio(),
+                getDecompressionNanos());
+    }
+
+    private static double ratio(long compressed, long uncompressed) {
+        return (uncompressed == 0) ? 1d : (double) compressed / uncompressed;
+    }
+
+    /**
+     * @param contentType the request content type
+     * @param length      the request body length or -1 if it is unknown
+     * @return {@code true} if the request body should be compressed
+     */
+    boolean shouldCompress(String contentType, long length) {
+        if (contentType == null || (length != -1 && length < minimumRequestSize)) {
+            return false;
+        }
+        // Only compress types that are likely to compress well, binary attachments are often
+        // already compressed and multipart bodies must be sent with a fixed length.
+        String type = contentType.toLowerCase(Locale.ENGLISH);
+        return type.startsWith("application/json") || type.startsWith("text/");
+    }
+
+    /**
+     * @param out the stream to write the compressed body to
+     * @return a stream that compresses the body as it is written
+     * @throws IOException if the gzip header cannot be written
+     */
+    DeflaterOutputStream compress(OutputStream out) throws IOException {
+        return new CompressingOutputStream(new TimedOutputStream(out));
+    }
+
+    /**
+     * @param in the stream of the compressed response body
+     * @return a stream that decompresses the body as it is read
+     * @throws IOException if the gzip header cannot be read
+     */
+    InputStream decompress(InputStream in) throws IOException {
+        TimedInputStream timed = new TimedInputStream(in);
+        long start = System.nanoTime();
+        GZIPInputStream gzip = new GZIPInputStream(timed);
+        decompressionNanos.addAndGet(System.nanoTime() - start - timed.takeNanos());
+        decompressedResponses.incrementAndGet();
+        return new DecompressingInputStream(gzip, timed);
+    }
+
+    /**
+     * Counts the bytes written to the underlying stream and the time spent writing them.
+     */
+    private static final class TimedOutputStream extends FilterOutputStream {
+
+        private long bytes = 0;
+        private long nanos = 0;
+
+        TimedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - start;
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - start;
+            bytes += len;
+        }
+
+        long takeNanos() {
+            long taken = nanos;
+            nanos = 0;
+            return taken;
+        }
+    }
+
+    /**
+     * Writes the gzip format with a raw {@link Deflater}. Unlike {@link GZIPOutputStream} the
+     * writes are not {@code synchronized}, so a virtual thread writing a request body does not
+     * block its carrier thread in network I/O while holding a monitor.
+     */
+    private final class CompressingOutputStream extends DeflaterOutputStream {
+
+        private final TimedOutputStream timed;
+        private final CRC32 crc = new CRC32();
+        private long uncompressed = 0;
+        private long nanos = 0;
+        private boolean finished = false;
+        private boolean closed = false;
+
+        CompressingOutputStream(TimedOutputStream out) throws IOException {
+            super(out, new Deflater(Deflater.DEFAULT_COMPRESSION, true), 8 * 1024);
+            this.timed = out;
+            out.write(GZIP_HEADER);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            super.write(buf, off, len);
+            crc.update(buf, off, len);
+            nanos += System.nanoTime() - start - timed.takeNanos();
+            uncompressed += len;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            long start = System.nanoTime();
+            super.finish();
+            // The trailer is the CRC-32 and the uncompressed size modulo 2^32, little endian
+            byte[] trailer = new byte[8];
+            writeInt(trailer, 0, crc.getValue());
+            writeInt(trailer, 4, uncompressed);
+            out.write(trailer);
+            finished = true;
+            nanos += System.nanoTime() - start - timed.takeNanos();
+        }
+
+        private void writeInt(byte[] b, int offset, long value) {
+            for (int i = 0; i < 4; i++) {
+                b[offset + i] = (byte) (value >> (8 * i));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!closed) {
+                    closed = true;
+                    // The deflater is not the stream's default so it is not ended by close
+                    def.end();
+                    compressedRequests.incrementAndGet();
+                    requestBytes.addAndGet(uncompressed);
+                    compressedRequestBytes.addAndGet(timed.bytes);
+                    compressionNanos.addAndGet(nanos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read from the underlying stream and the time spent reading them.
+     */
+    private static final class TimedInputStream extends FilterInputStream {
+
+        private long bytes = 0;
+        private long nanos = 0;
+
+        TimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = in.read();
+            nanos += System.nanoTime() - start;
+            if (b != -1) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            int read = in.read(b, off, len);
+            nanos += System.nanoTime() - start;
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+
+        long takeNanos() {
+            long taken = nanos;
+            nanos = 0;
+            return taken;
+        }
+    }
+
+    private final class DecompressingInputStream extends FilterInputStream {
+
+        private final TimedInputStream timed;
+        private long uncompressed = 0;
+        private boolean closed = false;
+
+        DecompressingInputStream(GZIPInputStream in, TimedInputStream timed) {
+            super(in);
+            this.timed = timed;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = in.read();
+            decompressionNanos.addAndGet(System.nanoTime() - start - timed.takeNanos());
+            if (b != -1) {
+                uncompressed++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            int read = in.read(b, off, len);
+            decompressionNanos.addAndGet(System.nanoTime() - start - timed.takeNanos());
+            if (read > 0) {
+                uncompressed += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!closed) {
+                    closed = true;
+                    compressedResponseBytes.addAndGet(timed.bytes);
+                    responseBytes.addAndGet(uncompressed);
+                }
+            }
+        }
+    }
+}
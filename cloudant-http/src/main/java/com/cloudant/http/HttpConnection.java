@@ -1,4 +1,4 @@
-//  Copyright © 2015, 2019 IBM Corp. All rights reserved.
+//  Copyright © 2015, 2026 IBM Corp. All rights reserved.
 //
 //  Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
 //  except in compliance with the License. You may obtain a copy of the License at
@@ -11,6 +11,7 @@
 package com.cloudant.http;
 
 import com.cloudant.http.interceptors.BasicAuthInterceptor;
+import com.cloudant.http.internal.BufferPool;
 import com.cloudant.http.internal.DefaultHttpUrlConnectionFactory;
 import com.cloudant.http.internal.Utils;
 import com.cloudant.http.internal.interceptors.HttpConnectionInterceptorException;
@@ -18,8 +19,11 @@ import com.cloudant.http.internal.interceptors.HttpConnectionInterceptorExceptio
 import org.apache.commons.io.IOUtils;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
@@ -30,9 +34,12 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
 
 
 /**
@@ -81,8 +88,9 @@ public class HttpConnection {
     // The context
     private HttpConnectionInterceptorContext currentContext = null;
 
-    // created in executeInternal
-    private HttpURLConnection connection;
+    // created in executeInternal, volatile so the request can be cancelled from another thread
+    private volatile HttpURLConnection connection;
+    private volatile boolean cancelled = false;
 
     // set by the various setRequestBody() methods
     private InputStreamGenerator input;
@@ -101,6 +109,13 @@ public class HttpConnection {
     private int numberOfRetries = 10;
     private boolean requestIsLoggable = true;
 
+    // null unless request and response bodies should be gzip compressed
+    private HttpCompression compression = null;
+
+    // The System.nanoTime() by which the request must complete, if hasDeadline
+    private long deadlineNanos;
+    private boolean hasDeadline = false;
+
     public HttpConnection(String requestMethod,
                           URL url,
                           String contentType) {
@@ -127,6 +142,63 @@ public class HttpConnection {
         }
     }
 
+    /**
+     * @return the HTTP method of this request
+     */
+    public String getRequestMethod() {
+        return requestMethod;
+    }
+
+    /**
+     * @return {@code true} if a request body has been set
+     */
+    public boolean hasRequestBody() {
+        return input != null;
+    }
+
+    /**
+     * <p>
+     * Sets a deadline for this request, including any retries and replays, of the specified time
+     * from now. If a deadline has already been set the earlier of the two is used.
+     * </p>
+     * <p>
+     * The connect and read timeouts of each attempt are reduced so that they do not extend past
+     * the deadline, and an attempt, retry or replay that would start after the deadline is not
+     * made; instead {@link #execute()} throws a {@link DeadlineExceededException}.
+     * </p>
+     * This method <strong>must</strong> be called before {@link #execute()}
+     *
+     * @param timeout the time from now by which the request must complete
+     * @param unit    the unit of the timeout
+     * @return an {@link HttpConnection} for method chaining
+     * @since 2.21.0
+     */
+    public HttpConnection setDeadline(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!hasDeadline || deadline - deadlineNanos < 0) {
+            this.deadlineNanos = deadline;
+            this.hasDeadline = true;
+        }
+        return this;
+    }
+
+    /**
+     * @return {@code true} if a deadline has been set
+     * @since 2.21.0
+     */
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * @return the nanoseconds remaining until the deadline, which may be negative if it has
+     * passed, or {@link Long#MAX_VALUE} if there is no deadline
+     * @since 2.21.0
+     */
+    public long getRemainingNanos() {
+        return hasDeadline ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
     /**
      * Sets the number of times this request can be attempted.
      * This method <strong>must</strong> be called before {@link #execute()}
@@ -147,6 +219,27 @@ public class HttpConnection {
         return this.numberOfRetries;
     }
 
+    /**
+     * Sets the gzip compression to use for this request and its response.
+     * This method <strong>must</strong> be called before {@link #execute()}
+     *
+     * @param compression the compression to use, or {@code null} for no compression
+     * @return an {@link HttpConnection} for method chaining
+     * @since 2.21.0
+     */
+    public HttpConnection setCompression(HttpCompression compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * @return the gzip compression used for this request, or {@code null} if there is none
+     * @since 2.21.0
+     */
+    public HttpCompression getCompression() {
+        return compression;
+    }
+
     /**
      * Set the String of request body data to be sent to the server.
      *
@@ -204,6 +297,19 @@ public class HttpConnection {
         }
     }
 
+    /**
+     * Set a file of request body data to be sent to the server. The body is sent with a fixed
+     * length, streamed from the file through a pooled buffer, and the file is opened again if the
+     * request is retried.
+     *
+     * @param file file of request body data to be sent to the server
+     * @return an {@link HttpConnection} for method chaining
+     * @since 2.21.0
+     */
+    public HttpConnection setRequestBody(final File file) {
+        return setRequestBody(new FileInputStreamGenerator(file), file.length());
+    }
+
     /**
      * Set an InputStreamGenerator for an InputStream of request body data to be sent to the server.
      *
@@ -251,7 +357,14 @@ public class HttpConnection {
         boolean retry = true;
 
         while (retry && numberOfRetries-- > 0) {
+            if (getRemainingNanos() <= 0) {
+                throw new DeadlineExceededException("The request deadline passed before " + url
+                        + " could be sent.");
+            }
             connection = connectionFactory.openConnection(url);
+            if (cancelled) {
+                throw new InterruptedIOException("Request cancelled");
+            }
 
             if (url.getUserInfo() != null) {
                 // Insert at position 0 in case another interceptor wants to overwrite the BasicAuth
@@ -263,16 +376,23 @@ public class HttpConnection {
             if (contentType != null) {
                 connection.setRequestProperty("Content-type", contentType);
             }
+            if (compression != null) {
+                connection.setRequestProperty("Accept-Encoding", HttpCompression.GZIP);
+            }
+            final boolean compressRequest = input != null && compression != null && compression
+                    .shouldCompress(contentType, inputLength);
 
             // We set up the output config before the interceptors to allow the configuration to be
             // modified. For example an interceptor might change the chunk size by calling
             // context.connection.getConnection().setChunkedStreamingMode(16384);
             if (input != null) {
                 connection.setDoOutput(true);
-                if (inputLength != -1) {
-                    // TODO Remove this cast to int when the minimum supported level is 1.7.
-                    // On 1.7 upwards this method takes a long, otherwise int.
-                    connection.setFixedLengthStreamingMode((int) this.inputLength);
+                if (compressRequest) {
+                    // The compressed length is unknown until the body has been written
+                    connection.setRequestProperty("Content-Encoding", HttpCompression.GZIP);
+                    connection.setChunkedStreamingMode(0);
+                } else if (inputLength != -1) {
+                    setFixedLengthStreamingMode(connection, inputLength);
                 } else {
                     connection.setChunkedStreamingMode(0); // Use 0 for the default size
 
@@ -294,6 +414,11 @@ public class HttpConnection {
                 }
             }
 
+            if (hasDeadline) {
+                // Set after the interceptors in case they have configured longer timeouts
+                limitTimeouts();
+            }
+
             //set request properties after interceptors, in case the interceptors have added
             // to the properties map
             for (Map.Entry<String, String> property : requestProperties.entrySet()) {
@@ -316,11 +441,19 @@ public class HttpConnection {
                 InputStream is = input.getInputStream();
                 OutputStream os = connection.getOutputStream();
                 try {
+                    DeflaterOutputStream gzip = null;
+                    if (compressRequest) {
+                        os = gzip = compression.compress(os);
+                    }
                     // The buffer size used for writing to this output stream has an impact on the
                     //  HTTP chunk size, so we make it a pretty large size to avoid limiting the
                     // size
                     // of those chunks (although this appears in turn to set the chunk sizes).
-                    IOUtils.copyLarge(is, os, new byte[16 * 1024]);
+                    BufferPool.copy(is, os);
+                    if (gzip != null) {
+                        // Write the gzip trailer here so that a failure is not hidden by close
+                        gzip.finish();
+                    }
                     os.flush();
                 } finally {
                     Utils.close(is);
@@ -366,6 +499,26 @@ public class HttpConnection {
         return this;
     }
 
+    /**
+     * Reduce the connect and read timeouts, where 0 means no timeout, to the remaining time.
+     */
+    private void limitTimeouts() throws DeadlineExceededException {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(getRemainingNanos());
+        if (remaining <= 0) {
+            throw new DeadlineExceededException("The request deadline passed before " + url +
+                    " could be sent.");
+        }
+        int limit = (int) Math.min(Integer.MAX_VALUE, remaining);
+        int connectTimeout = connection.getConnectTimeout();
+        if (connectTimeout == 0 || connectTimeout > limit) {
+            connection.setConnectTimeout(limit);
+        }
+        int readTimeout = connection.getReadTimeout();
+        if (readTimeout == 0 || readTimeout > limit) {
+            connection.setReadTimeout(limit);
+        }
+    }
+
     private HttpConnectionInterceptorException convertAndThrowInterceptorException(HttpConnectionInterceptorException e) throws IOException {
         // Sadly the current interceptor API doesn't allow an IOException to be thrown
         // so to avoid swallowing them the interceptors need to wrap them in the runtime
@@ -390,7 +543,7 @@ public class HttpConnection {
      * @throws IOException if there was a problem reading data from the server
      */
     public String responseAsString() throws IOException {
-        return IOUtils.toString(responseAsBytes(), "UTF-8");
+        return new String(responseAsBytes(), "UTF-8");
     }
 
     /**
@@ -407,7 +560,7 @@ public class HttpConnection {
     public byte[] responseAsBytes() throws IOException {
         InputStream is = responseAsInputStream();
         try {
-            return IOUtils.toByteArray(is);
+            return BufferPool.toByteArray(is, getResponseBodyLength());
         } finally {
             Utils.close(is);
             disconnect();
@@ -433,8 +586,63 @@ public class HttpConnection {
             throw new IOException("Attempted to read response from server before calling execute" +
                     "()");
         }
-        InputStream is = connection.getInputStream();
-        return is;
+        return decodeResponseStream(connection.getInputStream());
+    }
+
+    /**
+     * <p>
+     * Return the error response body data from server as an InputStream, decompressing it if it
+     * is gzip encoded. The InputStream must be closed after use to avoid leaking resources.
+     * </p>
+     * <p>
+     * <b>Important:</b> you must call <code>execute()</code> before calling this method.
+     * </p>
+     *
+     * @return InputStream of the error response body data from server, or {@code null} if the
+     * response was not an error or had no body
+     * @throws IOException if there was a problem reading data from the server
+     * @since 2.21.0
+     */
+    public InputStream errorResponseAsInputStream() throws IOException {
+        if (connection == null) {
+            throw new IOException("Attempted to read response from server before calling execute" +
+                    "()");
+        }
+        return decodeResponseStream(connection.getErrorStream());
+    }
+
+    /**
+     * <p>
+     * Return the number of bytes that will be read from the response body streams, for sizing
+     * buffers.
+     * </p>
+     * <p>
+     * <b>Important:</b> you must call <code>execute()</code> before calling this method.
+     * </p>
+     *
+     * @return the length of the response body, or -1 if it is not known in advance, for
+     * example because the response is chunked or will be decompressed
+     * @since 2.21.0
+     */
+    public long getResponseBodyLength() {
+        if (connection == null || HttpCompression.GZIP.equalsIgnoreCase(connection
+                .getContentEncoding())) {
+            return -1;
+        }
+        return connection.getContentLength();
+    }
+
+    /**
+     * Decompress a response stream if it is gzip encoded. Note that when OkHttp adds its own
+     * Accept-Encoding header it also transparently decompresses the response and removes the
+     * Content-Encoding header, so a response is never decompressed twice.
+     */
+    private InputStream decodeResponseStream(InputStream is) throws IOException {
+        if (is == null || !HttpCompression.GZIP.equalsIgnoreCase(connection.getContentEncoding())
+                || "HEAD".equals(requestMethod) || connection.getContentLength() == 0) {
+            return is;
+        }
+        return (compression != null) ? compression.decompress(is) : new GZIPInputStream(is);
     }
 
     /**
@@ -457,6 +665,53 @@ public class HttpConnection {
         connection.disconnect();
     }
 
+    /**
+     * <p>
+     * Cancel the request from another thread. Once cancelled the request will not be sent again
+     * and a request in progress is disconnected, causing the thread executing it or reading the
+     * response to fail with an {@link IOException}.
+     * </p>
+     * <p>
+     * Unlike the other methods of this class it is safe to call this method from any thread.
+     * </p>
+     *
+     * @since 2.21.0
+     */
+    public void cancel() {
+        cancelled = true;
+        HttpURLConnection current = connection;
+        if (current != null) {
+            current.disconnect();
+        }
+    }
+
+    /**
+     * @return {@code true} if {@link #cancel()} has been called
+     * @since 2.21.0
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * <p>
+     * Take the response of a copy of this request that was executed in its place, for example a
+     * second request sent because this one was slow, so that the response can be read from this
+     * object. The copy's response must not have been read and the copy must not be used
+     * afterwards. If this request was cancelled so that the copy's response could be used it is
+     * no longer considered cancelled.
+     * </p>
+     *
+     * @param copy an executed copy of this request
+     * @return this HttpConnection
+     * @since 2.21.0
+     */
+    public HttpConnection takeResponse(HttpConnection copy) {
+        this.connection = copy.connection;
+        this.cancelled = false;
+        return this;
+    }
+
     /**
      * Factory used by HttpConnection to produce HttpUrlConnections.
      */
@@ -514,6 +769,42 @@ public class HttpConnection {
         InputStream getInputStream() throws IOException;
     }
 
+    /**
+     * Set a fixed length for the request body. The int method is used where possible as the long
+     * method was only added in Java 7.
+     */
+    private static void setFixedLengthStreamingMode(HttpURLConnection connection, long length)
+            throws IOException {
+        if (length <= Integer.MAX_VALUE) {
+            connection.setFixedLengthStreamingMode((int) length);
+            return;
+        }
+        try {
+            HttpURLConnection.class.getMethod("setFixedLengthStreamingMode", long.class).invoke
+                    (connection, length);
+        } catch (Exception e) {
+            throw new IOException("Cannot send a request body of " + length + " bytes: " + e);
+        }
+    }
+
+    /**
+     * Implementation of InputStreamGenerator that opens a file, so that retries read the file
+     * again rather than a copy of it in memory.
+     */
+    private static final class FileInputStreamGenerator implements InputStreamGenerator {
+
+        private final File file;
+
+        FileInputStreamGenerator(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FileInputStream(file);
+        }
+    }
+
     /**
      * Implementation of InputStreamGenerator that checks if an InputStream is markable and performs
      * the necessary mark/reset required to do retries. If the supplied InputStream does not
@@ -527,8 +818,8 @@ public class HttpConnection {
             if (!inputStream.markSupported()) {
                 // If we can't mark/reset the stream then we read it into memory as a
                 // ByteArrayInputStream so we are then able to mark/reset it for retries
-                byte[] inputBytes = (size == -1) ? IOUtils.toByteArray(inputStream) : IOUtils
-                        .toByteArray(inputStream, size);
+                byte[] inputBytes = (size == -1) ? BufferPool.toByteArray(inputStream, -1) :
+                        IOUtils.toByteArray(inputStream, size);
                 this.inputStream = new ByteArrayInputStream(inputBytes);
             } else {
                 this.inputStream = inputStream;
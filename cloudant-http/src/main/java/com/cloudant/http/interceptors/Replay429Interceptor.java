@@ -1,5 +1,5 @@
 /*
- * Copyright © 2016, 2017 IBM Corp. All rights reserved.
+ * Copyright © 2016, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -29,7 +29,9 @@ import java.util.logging.Logger;
  * An implementation of {@link HttpConnectionResponseInterceptor} that retries requests if they
  * receive a 429 Too Many Requests response. The interceptor will replay the request after a delay
  * and thereafter continue to replay the request after doubling the delay time for each
- * subsequent 429 response received up to the maximum number of retries.
+ * subsequent 429 response received up to the maximum number of retries. A request is not
+ * replayed if the delay would pass its {@link com.cloudant.http.HttpConnection#setDeadline(long,
+ * TimeUnit) deadline}.
  */
 public class Replay429Interceptor implements HttpConnectionResponseInterceptor {
 
@@ -134,8 +136,16 @@ public class Replay429Interceptor implements HttpConnectionResponseInterceptor {
                                 "default backoff.");
                     }
                 }
+                if (TimeUnit.MILLISECONDS.toNanos(sleepTime) >= context.connection
+                        .getRemainingNanos()) {
+                    // The replay could not be made before the request deadline
+                    logger.fine("Too many requests, not replaying as the " + sleepTime + " ms " +
+                            "back off would pass the request deadline.");
+                    return context;
+                }
                 // Read the reasons and log a warning
-                String errorString = Utils.collectAndCloseStream(urlConnection.getErrorStream());
+                String errorString = Utils.collectAndCloseStream(context.connection
+                        .errorResponseAsInputStream());
                 logger.warning(errorString + " will retry in " + sleepTime + " ms");
                 logger.fine("Too many requests backing off for " + sleepTime + " ms.");
 
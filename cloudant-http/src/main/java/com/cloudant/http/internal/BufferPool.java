@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.http.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded pool of I/O buffers shared by all threads, and stream copying utilities that use it.
+ * <p>
+ * The pool is striped by thread so that threads usually find a free buffer in a different slot
+ * from other threads without contention. At most {@link #SLOTS} buffers are retained; when every
+ * slot probed is empty a new buffer is allocated and when every slot probed is full a released
+ * buffer is left for garbage collection.
+ * </p>
+ */
+public final class BufferPool {
+
+    /**
+     * The size of the pooled buffers, in bytes.
+     */
+    public static final int BUFFER_SIZE = 16 * 1024;
+
+    // A power of two so that a thread's stripe can be found with a mask
+    static final int SLOTS = Math.min(64, Integer.highestOneBit(Math.max(1, Runtime.getRuntime()
+            .availableProcessors() * 2 - 1)) * 2);
+    private static final int MASK = SLOTS - 1;
+    // The number of slots to try before allocating or discarding a buffer
+    private static final int PROBES = Math.min(4, SLOTS);
+    // The largest array that can be safely allocated on most JVMs
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final AtomicReferenceArray<byte[]> POOL = new AtomicReferenceArray<byte[]>
+            (SLOTS);
+
+    private BufferPool() {
+    }
+
+    /**
+     * Take a buffer from the pool, allocating a new one if there is none free. The buffer should
+     * be returned with {@link #release(byte[])} when it is no longer in use.
+     *
+     * @return a buffer of {@link #BUFFER_SIZE} bytes
+     */
+    public static byte[] acquire() {
+        int stripe = stripe();
+        for (int i = 0; i < PROBES; i++) {
+            byte[] buffer = POOL.getAndSet((stripe + i) & MASK, null);
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        return new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Return a buffer to the pool.
+     *
+     * @param buffer a buffer obtained from {@link #acquire()}, may be {@code null}
+     */
+    public static void release(byte[] buffer) {
+        if (buffer == null || buffer.length != BUFFER_SIZE) {
+            return;
+        }
+        int stripe = stripe();
+        for (int i = 0; i < PROBES; i++) {
+            if (POOL.compareAndSet((stripe + i) & MASK, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().getId();
+        // Spread the thread IDs, which are usually sequential, across the slots
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & MASK;
+    }
+
+    /**
+     * Copy all the bytes from an input stream to an output stream using a pooled buffer.
+     *
+     * @param in  the stream to read from
+     * @param out the stream to write to
+     * @return the number of bytes copied
+     * @throws IOException if there was a problem reading or writing
+     */
+    public static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = acquire();
+        try {
+            long count = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                count += read;
+            }
+            return count;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Read all the bytes of a stream. When the expected length is known the bytes are read
+     * directly into an array of that size without intermediate copies.
+     *
+     * @param in             the stream to read
+     * @param expectedLength the number of bytes expected, for example from a
+     *                       {@code Content-Length} header, or -1 if it is not known
+     * @return the bytes read from the stream
+     * @throws IOException if there was a problem reading the stream
+     */
+    public static byte[] toByteArray(InputStream in, long expectedLength) throws IOException {
+        if (expectedLength < 0 || expectedLength > MAX_ARRAY_SIZE) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+            copy(in, out);
+            return out.toByteArray();
+        }
+        byte[] bytes = new byte[(int) expectedLength];
+        int offset = 0;
+        int read = 0;
+        while (offset < bytes.length && (read = in.read(bytes, offset, bytes.length - offset))
+                != -1) {
+            offset += read;
+        }
+        if (offset < bytes.length) {
+            // The stream ended early
+            return Arrays.copyOf(bytes, offset);
+        }
+        int next = in.read();
+        if (next == -1) {
+            return bytes;
+        }
+        // The stream was longer than expected so continue growing a copy
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(MAX_ARRAY_SIZE,
+                expectedLength * 2L + 1));
+        out.write(bytes);
+        out.write(next);
+        copy(in, out);
+        return out.toByteArray();
+    }
+}
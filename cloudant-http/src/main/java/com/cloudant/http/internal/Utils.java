@@ -1,5 +1,5 @@
 /*
- * Copyright © 2017 IBM Corp. All rights reserved.
+ * Copyright © 2017, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -14,7 +14,6 @@
 
 package com.cloudant.http.internal;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.NullOutputStream;
 
 import java.io.Closeable;
@@ -52,7 +51,7 @@ public class Utils {
         if (is != null) {
             try {
                 // Copy the stream to a null destination
-                long copied = IOUtils.copyLarge(is, NullOutputStream.NULL_OUTPUT_STREAM);
+                long copied = BufferPool.copy(is, NullOutputStream.NULL_OUTPUT_STREAM);
                 if (copied > 0) {
                     logger.log(Level.WARNING, "Consumed unused HTTP response error stream.");
                 }
@@ -86,7 +85,7 @@ public class Utils {
     public static String collectAndCloseStream(InputStream is) throws IOException {
         if (is != null) {
             try {
-                return IOUtils.toString(is, "UTF-8");
+                return new String(BufferPool.toByteArray(is, -1), "UTF-8");
             } finally {
                 close(is);
             }
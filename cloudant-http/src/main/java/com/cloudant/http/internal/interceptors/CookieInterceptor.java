@@ -1,5 +1,5 @@
 /*
- * Copyright © 2015, 2021 IBM Corp. All rights reserved.
+ * Copyright © 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -14,6 +14,7 @@
 
 package com.cloudant.http.internal.interceptors;
 
+import com.cloudant.http.HttpConnection;
 import com.cloudant.http.HttpConnectionInterceptorContext;
 import com.cloudant.http.internal.Utils;
 
@@ -88,15 +89,14 @@ public class CookieInterceptor extends CookieInterceptorBase {
      * @return
      */
     @Override
-    protected boolean shouldRenew(HttpURLConnection connection, int statusCode) {
+    protected boolean shouldRenew(HttpConnection connection, int statusCode) {
         try {
             if (statusCode == HttpURLConnection.HTTP_FORBIDDEN) {
                 // Get the string value of the error stream
-                InputStream errorStream = connection.getErrorStream();
+                InputStream errorStream = connection.errorResponseAsInputStream();
                 String errorString = null;
                 if (errorStream != null) {
-                    errorString = Utils.collectAndCloseStream(connection
-                            .getErrorStream());
+                    errorString = Utils.collectAndCloseStream(errorStream);
                     logger.log(Level.FINE, String.format(Locale.ENGLISH, "Intercepted " +
                             "response %d %s", statusCode, errorString));
                 }
@@ -119,7 +119,8 @@ public class CookieInterceptor extends CookieInterceptorBase {
                 }
             }
         } catch (IOException e) {
-            throw wrapIOException("Failed to read HTTP reponse code or body from", connection, e);
+            throw wrapIOException("Failed to read HTTP reponse code or body from", connection
+                    .getConnection(), e);
         }
         return false;
     }
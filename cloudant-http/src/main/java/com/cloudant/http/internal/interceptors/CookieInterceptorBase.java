@@ -1,5 +1,5 @@
 /*
- * Copyright © 2017, 2021 IBM Corp. All rights reserved.
+ * Copyright © 2017, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -22,16 +22,28 @@ import com.cloudant.http.HttpConnectionResponseInterceptor;
 import com.cloudant.http.internal.Utils;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
 import java.net.CookieManager;
+import java.net.HttpCookie;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -47,20 +59,80 @@ import java.util.logging.Logger;
  *
  * If the request to get the cookie for use in future request fails with a 401 status code
  * (or any status that indicates client error) a HttpConnectionInterceptorException will be thrown.
+ *
+ * The cookie header for the current session is computed once when the session is obtained, so
+ * requests only need a single volatile read to add it. When the session lifetime is known (from
+ * the cookie's Max-Age or Expires, or a limit set by a sub-class) and is at least
+ * {@link #MIN_PROACTIVE_LIFETIME_SECONDS} the session is renewed on a background thread after
+ * {@link #PROACTIVE_RENEWAL_FRACTION} of its lifetime, so that requests are not held up by a
+ * renewal when it expires.
+ *
+ * No lock or monitor is held during a session request. A single request renews an expired
+ * session and other requests wait for it to finish, so that on a virtual thread the wait does
+ * not block a carrier thread.
  */
 public abstract class CookieInterceptorBase implements HttpConnectionRequestInterceptor,
         HttpConnectionResponseInterceptor {
 
     protected final static Logger logger = Logger.getLogger(CookieInterceptorBase.class
             .getCanonicalName());
+
+    /**
+     * Sessions with a shorter lifetime than this are only renewed when they expire.
+     */
+    public static final long MIN_PROACTIVE_LIFETIME_SECONDS = 60;
+
+    /**
+     * The fraction of a session's lifetime after which it is renewed in the background.
+     */
+    public static final double PROACTIVE_RENEWAL_FRACTION = 0.8d;
+
+    private static final long NO_COOKIES = -2;
+
+    // A single daemon thread shared by all interceptors to run background session renewals
+    private static final ScheduledExecutorService RENEWAL_EXECUTOR;
+
+    static {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new
+                ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "cloudant-session-renewal");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        RENEWAL_EXECUTOR = executor;
+    }
+
     private final URL sessionRequestUrl;
     private final String sessionRequestMimeType;
     private final String sessionStateName = "sessionUuid";
     private final CookieManager cookieManager = new CookieManager();
-    private final ReadWriteLock sessionLock = new ReentrantReadWriteLock(true);
-    private volatile UUID sessionId = UUID.randomUUID();
+    // Guards publishing a session, never held during a request
+    private final Lock publishLock = new ReentrantLock();
+    // The session renewal in progress, or null
+    private final AtomicReference<Renewal> renewal = new AtomicReference<Renewal>();
+    private volatile Session session = new Session(UUID.randomUUID(), null, Long.MAX_VALUE, Long
+            .MAX_VALUE);
     private final URL proxyURL;
 
+    // Interceptors to use for background session requests, captured from the last renewal
+    private volatile List<HttpConnectionRequestInterceptor> renewalRequestInterceptors;
+    private volatile List<HttpConnectionResponseInterceptor> renewalResponseInterceptors;
+
+    // Lifetime limit in ms set by a sub-class during the current renewal, only one renewal can
+    // be in progress
+    private long sessionLifetimeLimit = -1;
+
+    private final AtomicLong renewals = new AtomicLong();
+    private final AtomicLong proactiveRenewals = new AtomicLong();
+    private final AtomicLong renewalFailures = new AtomicLong();
+    private final AtomicLong lastRenewalLatency = new AtomicLong();
+    private final AtomicLong maxRenewalLatency = new AtomicLong();
+    private final AtomicLong totalRenewalLatency = new AtomicLong();
+
     /**
      * @param baseUrl         the server URL to get cookies from
      * @param endpoint        the server endpoint to get cookies from
@@ -99,41 +171,249 @@ public abstract class CookieInterceptorBase implements HttpConnectionRequestInte
      */
     protected abstract byte[] getSessionRequestPayload(HttpConnectionInterceptorContext context);
 
+    /**
+     * Limit the lifetime of the session being obtained, for example to the lifetime of a token
+     * exchanged for the session. Only takes effect when called during
+     * {@link #getSessionRequestPayload(HttpConnectionInterceptorContext)}.
+     *
+     * @param seconds the maximum session lifetime in seconds
+     */
+    protected void limitSessionLifetime(long seconds) {
+        sessionLifetimeLimit = TimeUnit.SECONDS.toMillis(seconds);
+    }
+
     private void requestCookie(HttpConnectionInterceptorContext context) throws IOException {
-        // Check if the session was already updated on another thread before getting a cookie
-        sessionLock.readLock().lock();
+        while (true) {
+            // Check if the session was already updated on another thread before getting a cookie
+            if (!session.id.equals(context.getState(this, sessionStateName, UUID.class))) {
+                return;
+            }
+            Renewal inProgress = renewal.get();
+            if (inProgress != null) {
+                // Wait for the other renewal and then re-check the session, it is renewed again
+                // if the other renewal failed
+                inProgress.await();
+                continue;
+            }
+            Renewal mine = new Renewal();
+            if (!renewal.compareAndSet(null, mine)) {
+                continue;
+            }
+            try {
+                if (session.id.equals(context.getState(this, sessionStateName, UUID.class))) {
+                    renewSession(context, false);
+                    // We renewed a cookie, update this request's context
+                    context.setState(this, sessionStateName, session.id);
+                }
+                return;
+            } finally {
+                renewal.set(null);
+                mine.done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Get a new session and publish it. Must only be called by the renewal in progress.
+     */
+    private void renewSession(HttpConnectionInterceptorContext context, boolean proactive) throws
+            IOException {
+        long start = System.currentTimeMillis();
+        sessionLifetimeLimit = -1;
         try {
-            if (sessionId.equals(context.getState(this, sessionStateName, UUID.class))) {
-                // Get a write lock and re-check the state
-                sessionLock.readLock().unlock();
-                sessionLock.writeLock().lock();
+            HttpConnection sessionConn = makeSessionRequest(sessionRequestUrl,
+                    getSessionRequestPayload(context), sessionRequestMimeType, context);
+            HttpURLConnection sessionUrlConnection = sessionConn.getConnection();
+            try {
+                storeCookiesFromResponse(sessionUrlConnection);
+            } finally {
+                // We use collect rather than consume as we don't want to log
+                // a warning, even though we don't actually need the body
+                Utils.collectAndCloseStream(sessionUrlConnection.getInputStream());
+            }
+            publishLock.lock();
+            try {
+                publishSession(UUID.randomUUID(), sessionUrlConnection, (sessionLifetimeLimit <
+                        0) ? Long.MAX_VALUE : start + sessionLifetimeLimit);
+            } finally {
+                publishLock.unlock();
+            }
+        } catch (IOException e) {
+            renewalFailures.incrementAndGet();
+            throw e;
+        } catch (RuntimeException e) {
+            renewalFailures.incrementAndGet();
+            throw e;
+        }
+        long latency = System.currentTimeMillis() - start;
+        renewals.incrementAndGet();
+        if (proactive) {
+            proactiveRenewals.incrementAndGet();
+        }
+        lastRenewalLatency.set(latency);
+        totalRenewalLatency.addAndGet(latency);
+        long max;
+        while (latency > (max = maxRenewalLatency.get())) {
+            if (maxRenewalLatency.compareAndSet(max, latency)) {
+                break;
+            }
+        }
+        logger.fine(String.format("Renewed session in %d ms", latency));
+        renewalRequestInterceptors = new ArrayList<HttpConnectionRequestInterceptor>(context
+                .connection.requestInterceptors);
+        renewalResponseInterceptors = new ArrayList<HttpConnectionResponseInterceptor>(context
+                .connection.responseInterceptors);
+    }
+
+    /**
+     * Compute the cookie header and expiry of the session from the cookie store and publish it,
+     * scheduling a background renewal if the lifetime of the session is known. Must be called
+     * holding the publish lock.
+     *
+     * @param id         the session ID
+     * @param connection the connection the session cookie was received on
+     * @param limit      the time after which the session must not be used, or
+     *                   {@link Long#MAX_VALUE} if there is no limit
+     */
+    private void publishSession(UUID id, HttpURLConnection connection, long limit)
+            throws IOException {
+        long now = System.currentTimeMillis();
+        long lifetime = cookieLifetime(connection);
+        if (limit != Long.MAX_VALUE && (lifetime < 0 || limit - now < lifetime)) {
+            lifetime = Math.max(0, limit - now);
+        }
+        Session renewed = new Session(id, cookieHeader(), (lifetime < 0) ? Long.MAX_VALUE :
+                now + lifetime, limit);
+        session = renewed;
+        if (lifetime >= TimeUnit.SECONDS.toMillis(MIN_PROACTIVE_LIFETIME_SECONDS)) {
+            RENEWAL_EXECUTOR.schedule(new ProactiveRenewal(this, renewed), (long) (lifetime *
+                    PROACTIVE_RENEWAL_FRACTION), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return the shortest lifetime in ms of the cookies set on the response, -1 if none of the
+     * cookies had a Max-Age or Expires attribute or {@link #NO_COOKIES} if there were no cookies
+     */
+    private long cookieLifetime(HttpURLConnection connection) {
+        long lifetime = NO_COOKIES;
+        for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            if (!"Set-Cookie".equalsIgnoreCase(header.getKey())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
                 try {
-                    if (sessionId.equals(context.getState(this, sessionStateName, UUID.class))) {
-                        HttpConnection sessionConn = makeSessionRequest(sessionRequestUrl,
-                                getSessionRequestPayload(context), sessionRequestMimeType, context);
-                        HttpURLConnection sessionUrlConnection = sessionConn.getConnection();
-                        try {
-                            storeCookiesFromResponse(sessionUrlConnection);
-                        } finally {
-                            // We use collect rather than consume as we don't want to log
-                            // a warning, even though we don't actually need the body
-                            Utils.collectAndCloseStream(sessionUrlConnection.getInputStream());
+                    for (HttpCookie cookie : HttpCookie.parse(value)) {
+                        long maxAge = cookie.getMaxAge();
+                        if (maxAge >= 0 && (lifetime < 0 || maxAge * 1000 < lifetime)) {
+                            lifetime = maxAge * 1000;
+                        } else if (lifetime == NO_COOKIES) {
+                            lifetime = -1;
                         }
-                        // We renewed a cookie, update the global sessionID and this request's context
-                        sessionId = UUID.randomUUID();
-                        context.setState(this, sessionStateName, sessionId);
                     }
-                } finally {
-                    // Downgrade to the read lock
-                    sessionLock.readLock().lock();
-                    sessionLock.writeLock().unlock();
+                } catch (IllegalArgumentException e) {
+                    logger.finest("Ignoring unparseable Set-Cookie header.");
                 }
             }
+        }
+        return lifetime;
+    }
+
+    /**
+     * @return the Cookie request header value for the session endpoint or {@code null} if there
+     * are no cookies
+     */
+    private String cookieHeader() throws IOException {
+        try {
+            Map<String, List<String>> requestCookieHeaders = cookieManager.get(sessionRequestUrl
+                    .toURI(), Collections.<String, List<String>>emptyMap());
+            List<String> cookies = requestCookieHeaders.get("Cookie");
+            if (cookies != null && !cookies.isEmpty()) {
+                return listToSemicolonSeparatedString(cookies);
+            }
+            logger.finest("No cookie values to set.");
+        } catch (URISyntaxException e) {
+            logger.log(Level.SEVERE, "Failed to convert session URL to URI for cookie " +
+                    "retrieval.");
+        }
+        return null;
+    }
+
+    /**
+     * Renew the session on the background thread if it has not been renewed since the renewal
+     * was scheduled.
+     */
+    void renewProactively(Session scheduledFor) {
+        List<HttpConnectionRequestInterceptor> requestInterceptors = renewalRequestInterceptors;
+        List<HttpConnectionResponseInterceptor> responseInterceptors = renewalResponseInterceptors;
+        if (session != scheduledFor || requestInterceptors == null) {
+            return;
+        }
+        Renewal mine = new Renewal();
+        if (!renewal.compareAndSet(null, mine)) {
+            // A request is already renewing the session
+            return;
+        }
+        try {
+            if (session == scheduledFor) {
+                // Session requests copy their interceptors from the context's connection
+                HttpConnection template = Http.GET(sessionRequestUrl);
+                template.requestInterceptors.addAll(requestInterceptors);
+                template.responseInterceptors.addAll(responseInterceptors);
+                renewSession(new HttpConnectionInterceptorContext(template), true);
+            }
+        } catch (Exception e) {
+            // The session will be renewed when it expires instead
+            logger.log(Level.WARNING, "Failed to renew session in the background.", e);
         } finally {
-            sessionLock.readLock().unlock();
+            renewal.set(null);
+            mine.done.countDown();
         }
     }
 
+    /**
+     * @return the number of successful session renewals
+     */
+    public long getRenewalCount() {
+        return renewals.get();
+    }
+
+    /**
+     * @return the number of successful session renewals made in the background before the
+     * session expired
+     */
+    public long getProactiveRenewalCount() {
+        return proactiveRenewals.get();
+    }
+
+    /**
+     * @return the number of failed session renewals
+     */
+    public long getRenewalFailureCount() {
+        return renewalFailures.get();
+    }
+
+    /**
+     * @return the time taken by the most recent successful session renewal in milliseconds
+     */
+    public long getLastRenewalLatencyMillis() {
+        return lastRenewalLatency.get();
+    }
+
+    /**
+     * @return the longest time taken by a successful session renewal in milliseconds
+     */
+    public long getMaxRenewalLatencyMillis() {
+        return maxRenewalLatency.get();
+    }
+
+    /**
+     * @return the total time taken by successful session renewals in milliseconds
+     */
+    public long getTotalRenewalLatencyMillis() {
+        return totalRenewalLatency.get();
+    }
+
     HttpConnection makeSessionRequest(URL url, byte[] payload, String contentMimeType,
                                       HttpConnectionInterceptorContext context) {
 
@@ -183,40 +463,26 @@ public abstract class CookieInterceptorBase implements HttpConnectionRequestInte
 
     @Override
     public HttpConnectionInterceptorContext interceptRequest(HttpConnectionInterceptorContext context) {
+        Session current = session;
         // Set the sessionId for this request
-        context.setState(this, sessionStateName, sessionId);
+        context.setState(this, sessionStateName, current.id);
         HttpURLConnection connection = context.connection.getConnection();
         try {
-            // First time we will have no cookies
-            if (cookieManager.getCookieStore().getCookies().isEmpty()) {
+            // First time we will have no cookies, or the session may have expired
+            if (current.cookieHeader == null || current.isExpired()) {
                 requestCookie(context);
+                current = session;
             }
 
-            // Debug logging
-            if (logger.isLoggable(Level.FINEST)) {
-                logger.finest("Attempt to add cookie to request.");
-                logger.finest("Cookies are stored for URIs: " + cookieManager.getCookieStore()
-                        .getURIs());
-            }
-
-            // Apply any saved cookies to the request
-            Map<String, List<String>> requestCookieHeaders = cookieManager.get(connection
-                    .getURL().toURI(), connection.getRequestProperties());
-            for (Map.Entry<String, List<String>> requestCookieHeader :
-                    requestCookieHeaders.entrySet()) {
-                List<String> cookies = requestCookieHeader.getValue();
-                if (cookies != null && !cookies.isEmpty()) {
-                    connection.setRequestProperty(requestCookieHeader.getKey(),
-                            listToSemicolonSeparatedString(cookies));
-                } else {
-                    logger.finest("No cookie values to set.");
-                }
+            // Apply the session cookies to the request
+            if (current.cookieHeader != null) {
+                logger.finest("Adding cookie to request.");
+                connection.setRequestProperty("Cookie", current.cookieHeader);
+            } else {
+                logger.finest("No cookie values to set.");
             }
         } catch (IOException e) {
             throw wrapIOException("Failed to read stored cookies for", connection, e);
-        } catch (URISyntaxException e) {
-            logger.log(Level.SEVERE, "Failed to convert request URL to URI for cookie " +
-                    "retrieval.");
         }
         return context;
     }
@@ -226,13 +492,23 @@ public abstract class CookieInterceptorBase implements HttpConnectionRequestInte
         HttpURLConnection connection = context.connection.getConnection();
         try {
             int statusCode = connection.getResponseCode();
-            boolean renew = shouldRenew(connection, statusCode);
+            boolean renew = shouldRenew(context.connection, statusCode);
             if (!renew && statusCode == HttpURLConnection.HTTP_UNAUTHORIZED) {
                 renew = true;
                 Utils.consumeAndCloseStream(connection.getErrorStream());
             } else {
                 // Store any cookies provided on the response
                 storeCookiesFromResponse(connection);
+                if (cookieLifetime(connection) != NO_COOKIES) {
+                    // The server refreshed the session cookie, publish the new value
+                    publishLock.lock();
+                    try {
+                        Session current = session;
+                        publishSession(current.id, connection, current.limit);
+                    } finally {
+                        publishLock.unlock();
+                    }
+                }
             }
             if (renew) {
                 requestCookie(context);
@@ -244,7 +520,7 @@ public abstract class CookieInterceptorBase implements HttpConnectionRequestInte
         return context;
     }
 
-    protected boolean shouldRenew(HttpURLConnection connection, int statusCode) {
+    protected boolean shouldRenew(HttpConnection connection, int statusCode) {
         return false;
     }
 
@@ -278,4 +554,66 @@ public abstract class CookieInterceptorBase implements HttpConnectionRequestInte
         String errorMsg = (conn == null) ? msg : msg + " " + conn.getURL().toString();
         return new HttpConnectionInterceptorException(new IOException(errorMsg, e));
     }
+
+    /**
+     * An immutable snapshot of the current session.
+     */
+    static final class Session {
+
+        final UUID id;
+        final String cookieHeader;
+        final long expires;
+        final long limit;
+
+        Session(UUID id, String cookieHeader, long expires, long limit) {
+            this.id = id;
+            this.cookieHeader = cookieHeader;
+            this.expires = expires;
+            this.limit = limit;
+        }
+
+        boolean isExpired() {
+            return expires != Long.MAX_VALUE && System.currentTimeMillis() >= expires;
+        }
+    }
+
+    /**
+     * A session renewal in progress, other requests that need a session wait for it to finish.
+     */
+    private static final class Renewal {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        void await() throws InterruptedIOException {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for session renewal");
+            }
+        }
+    }
+
+    /**
+     * A background renewal of a session. Only weakly references the interceptor so that pending
+     * renewals do not keep discarded clients alive.
+     */
+    private static final class ProactiveRenewal implements Runnable {
+
+        private final WeakReference<CookieInterceptorBase> interceptor;
+        private final Session scheduledFor;
+
+        ProactiveRenewal(CookieInterceptorBase interceptor, Session scheduledFor) {
+            this.interceptor = new WeakReference<CookieInterceptorBase>(interceptor);
+            this.scheduledFor = scheduledFor;
+        }
+
+        @Override
+        public void run() {
+            CookieInterceptorBase i = interceptor.get();
+            if (i != null) {
+                i.renewProactively(scheduledFor);
+            }
+        }
+    }
 }
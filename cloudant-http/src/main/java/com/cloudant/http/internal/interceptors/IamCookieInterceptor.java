@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019, 2021 IBM Corp. All rights reserved.
+ * Copyright © 2019, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -22,6 +22,8 @@ import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Extends CookieInterceptorBase with support for API key to token exchange with an IAM server and
@@ -30,6 +32,8 @@ import java.util.Locale;
 public class IamCookieInterceptor extends CookieInterceptorBase {
 
     public static final String IAM_TOKEN_SERVER_URL_PROPERTY_KEY = "com.cloudant.client.iamserver";
+    // Use a regex to avoid a dependency on a JSON library
+    private static final Pattern EXPIRES_IN = Pattern.compile("\"expires_in\"\\s*:\\s*(\\d+)");
     public final URL iamServerUrl;
     private final byte[] tokenRequestPayload;
 
@@ -69,7 +73,8 @@ public class IamCookieInterceptor extends CookieInterceptorBase {
 
     /**
      * Exchanges an IAM API key with the IAM server to get a JSON token that can subsequently be
-     * passed to Cloudant's _iam_session endpoint.
+     * passed to Cloudant's _iam_session endpoint. The session lifetime is limited to the
+     * {@code expires_in} lifetime of the token.
      *
      * @param context interceptor context
      * @return the IAM token exchange JSON response
@@ -79,7 +84,12 @@ public class IamCookieInterceptor extends CookieInterceptorBase {
         HttpConnection tokenConn = super.makeSessionRequest(iamServerUrl, tokenRequestPayload,
                 "application/x-www-form-urlencoded", context);
         try {
-            return tokenConn.responseAsBytes();
+            byte[] token = tokenConn.responseAsBytes();
+            Matcher expiresIn = EXPIRES_IN.matcher(new String(token, "UTF-8"));
+            if (expiresIn.find()) {
+                limitSessionLifetime(Long.parseLong(expiresIn.group(1)));
+            }
+            return token;
         } catch (IOException e) {
             throw wrapIOException("Error reading token response body from",
                     tokenConn.getConnection(), e);
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.http.internal.jdk;
+
+import com.cloudant.http.HttpConnection;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * This class should only reflectively try to load the {@code java.net.http} connection factory,
+ * which is only present in the Java 11 version of this multi-release jar, and then provide a
+ * boolean answer to {@link #isJdkHttpUsable()} and create instances of the factory. Referencing
+ * the factory class directly would break loading on earlier Java versions.
+ */
+public class JdkHttpHelper {
+
+    private static final Logger log = Logger.getLogger(JdkHttpHelper.class.getCanonicalName());
+    private static final String FACTORY_CLASS = "com.cloudant.http.internal.jdk" +
+            ".JdkHttpClientHttpUrlConnectionFactory";
+    private final static Class<?> factoryClass;
+
+    static {
+        Class<?> jdkFactoryClass;
+        try {
+            Class.forName("java.net.http.HttpClient");
+            jdkFactoryClass = Class.forName(FACTORY_CLASS);
+        } catch (Throwable t) {
+            log.fine("Failed to load java.net.http: " + t.getMessage());
+            jdkFactoryClass = null;
+        }
+        factoryClass = jdkFactoryClass;
+    }
+
+    /**
+     * @return {@code true} if running on Java 11 or later with the Java 11 version of the
+     * connection factory available
+     */
+    public static boolean isJdkHttpUsable() {
+        return factoryClass != null;
+    }
+
+    /**
+     * @return a new connection factory that sends requests with a {@code java.net.http.HttpClient}
+     * @throws IllegalStateException if {@link #isJdkHttpUsable()} is {@code false}
+     */
+    public static HttpConnection.HttpUrlConnectionFactory newConnectionFactory() {
+        return newConnectionFactory(null);
+    }
+
+    /**
+     * @param executor the executor for the {@code HttpClient}'s asynchronous work, or
+     *                 {@code null} to use a pool of daemon threads owned by the factory
+     * @return a new connection factory that sends requests with a {@code java.net.http.HttpClient}
+     * @throws IllegalStateException if {@link #isJdkHttpUsable()} is {@code false}
+     */
+    public static HttpConnection.HttpUrlConnectionFactory newConnectionFactory(
+            Executor executor) {
+        if (factoryClass == null) {
+            throw new IllegalStateException("java.net.http is not available.");
+        }
+        try {
+            if (executor == null) {
+                return (HttpConnection.HttpUrlConnectionFactory) factoryClass.newInstance();
+            }
+            return (HttpConnection.HttpUrlConnectionFactory) factoryClass.getConstructor
+                    (Executor.class).newInstance(executor);
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.http.internal.ok;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the connections opened by an OkHttp client and how long each call waited to acquire a
+ * connection, either from the pool or by opening a new one. If HTTP/2 streams are limited the
+ * wait includes the time waiting for a stream.
+ */
+public class ConnectionMetrics implements EventListener.Factory {
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong acquireNanos = new AtomicLong();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    // null unless the number of concurrent HTTP/2 streams is limited
+    private volatile StreamLimiter streamLimiter = null;
+
+    @Override
+    public EventListener create(Call call) {
+        return new Listener();
+    }
+
+    /**
+     * @return number of calls that acquired a connection
+     */
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    /**
+     * @return total time calls waited to acquire a connection in nanoseconds
+     */
+    public long getAcquireNanos() {
+        return acquireNanos.get();
+    }
+
+    /**
+     * @return the longest time a call waited to acquire a connection in nanoseconds
+     */
+    public long getMaxAcquireNanos() {
+        return maxAcquireNanos.get();
+    }
+
+    /**
+     * @return number of new connections opened
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    void setStreamLimiter(StreamLimiter streamLimiter) {
+        this.streamLimiter = streamLimiter;
+    }
+
+    private void acquired(long nanos) {
+        acquisitions.incrementAndGet();
+        acquireNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxAcquireNanos.get())) {
+            if (maxAcquireNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * A listener for a single call, so that the call's start time can be kept in a field.
+     */
+    private final class Listener extends EventListener {
+
+        private long start;
+        private boolean acquired = false;
+        private Semaphore stream = null;
+
+        @Override
+        public void callStart(Call call) {
+            start = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                               Protocol protocol) {
+            connectionsOpened.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            StreamLimiter limiter = streamLimiter;
+            if (limiter != null) {
+                stream = limiter.acquire(connection);
+            }
+            // Only the first acquisition of a call waits for the request to be sent
+            if (!acquired) {
+                acquired = true;
+                acquired(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void connectionReleased(Call call, Connection connection) {
+            if (stream != null) {
+                stream.release();
+                stream = null;
+            }
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2015, 2016 IBM Corp. All rights reserved.
+ * Copyright © 2015, 2026 IBM Corp. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
  * except in compliance with the License. You may obtain a copy of the License at
@@ -16,16 +16,21 @@ package com.cloudant.http.internal.ok;
 
 import com.cloudant.http.internal.DefaultHttpUrlConnectionFactory;
 
+import okhttp3.ConnectionPool;
 import okhttp3.ConnectionSpec;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import okhttp3.OkUrlFactory;
+import okhttp3.Protocol;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.PasswordAuthentication;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -38,7 +43,11 @@ public class OkHttpClientHttpUrlConnectionFactory extends DefaultHttpUrlConnecti
             .class.getName());
 
     private final OkHttpClient.Builder clientBuilder = new OkHttpClient().newBuilder();
-    private OkUrlFactory factory = null;
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+    // Volatile so that the pool can be replaced while connections are being opened
+    private volatile OkUrlFactory factory = null;
+    // false if the dispatcher's executor was supplied and must not be shut down
+    private boolean ownsExecutor = true;
 
     public OkHttpClientHttpUrlConnectionFactory() {
         clientBuilder.connectionSpecs(Arrays.asList(
@@ -49,14 +58,113 @@ public class OkHttpClientHttpUrlConnectionFactory extends DefaultHttpUrlConnecti
                                 .allEnabledCipherSuites()
                                 .build() // for https
                 }));
+        clientBuilder.eventListenerFactory(metrics);
     }
 
     @Override
     public HttpURLConnection openConnection(URL url) throws IOException {
-        if (factory == null) {
-            factory = new OkUrlFactory(clientBuilder.build());
+        return getFactory().open(url);
+    }
+
+    private OkUrlFactory getFactory() {
+        OkUrlFactory current = factory;
+        if (current == null) {
+            synchronized (this) {
+                if (factory == null) {
+                    factory = new OkUrlFactory(clientBuilder.build());
+                }
+                current = factory;
+            }
         }
-        return factory.open(url);
+        return current;
+    }
+
+    /**
+     * Use HTTP/2 and limit the number of concurrent streams of the client. OkHttp multiplexes
+     * every request to a host over a single connection, so the limit is for the whole client.
+     * Must be called before the first connection is opened.
+     * <p>
+     * For https connections HTTP/2 is negotiated with ALPN, falling back to HTTP/1.1 if either
+     * the JVM or the server does not support it. For http connections HTTP/2 is used with prior
+     * knowledge, without an upgrade, so the server must support cleartext HTTP/2.
+     * </p>
+     *
+     * @param maxConcurrentStreams the maximum number of requests in flight
+     * @param priorKnowledge       {@code true} to use cleartext HTTP/2 without negotiation
+     * @param maxWait              how long a request waits for a stream before failing with an
+     *                             {@link java.io.InterruptedIOException}
+     * @param maxWaitUnit          the unit of the maximum wait
+     * @since 2.21.0
+     */
+    public void setHttp2(int maxConcurrentStreams, boolean priorKnowledge, long maxWait,
+                         TimeUnit maxWaitUnit) {
+        clientBuilder.protocols(priorKnowledge ? Collections.singletonList(Protocol
+                .H2_PRIOR_KNOWLEDGE) : Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        metrics.setStreamLimiter(new StreamLimiter(maxConcurrentStreams, maxWaitUnit.toNanos
+                (maxWait)));
+        logger.config(String.format("Configured HTTP/2 with %d concurrent streams",
+                maxConcurrentStreams));
+    }
+
+    /**
+     * Send the requests with threads of an executor instead of the client's own pool. Must be
+     * called before the first connection is opened. The executor is not shut down with the
+     * factory.
+     *
+     * @param executor the executor to send requests with
+     * @since 2.21.0
+     */
+    public void setExecutor(ExecutorService executor) {
+        clientBuilder.dispatcher(new Dispatcher(executor));
+        ownsExecutor = false;
+    }
+
+    /**
+     * Replace the connection pool, for example to change its size while connections are in use.
+     * New connections are opened from the new pool and the idle connections of the old pool are
+     * closed. Connections in use when the pool is replaced are returned to the old pool when they
+     * are released, where new requests do not reuse them, and are closed once they have been idle
+     * for the keep alive duration of the old pool.
+     *
+     * @param maxIdleConnections the maximum number of idle connections to keep
+     * @param keepAlive          how long to keep an idle connection
+     * @param keepAliveUnit      the unit of the keep alive duration
+     * @since 2.21.0
+     */
+    public synchronized void setConnectionPool(int maxIdleConnections, long keepAlive, TimeUnit
+            keepAliveUnit) {
+        ConnectionPool pool = new ConnectionPool(maxIdleConnections, keepAlive, keepAliveUnit);
+        clientBuilder.connectionPool(pool);
+        OkUrlFactory previous = factory;
+        if (previous != null) {
+            factory = new OkUrlFactory(previous.client().newBuilder().connectionPool(pool)
+                    .build());
+            previous.client().connectionPool().evictAll();
+        }
+    }
+
+    /**
+     * @return the number of open connections, both idle and in use
+     * @since 2.21.0
+     */
+    public int getConnectionCount() {
+        return getFactory().client().connectionPool().connectionCount();
+    }
+
+    /**
+     * @return the number of idle connections in the pool
+     * @since 2.21.0
+     */
+    public int getIdleConnectionCount() {
+        return getFactory().client().connectionPool().idleConnectionCount();
+    }
+
+    /**
+     * @return the connection and acquisition counters of this factory's client
+     * @since 2.21.0
+     */
+    public ConnectionMetrics getConnectionMetrics() {
+        return metrics;
     }
 
     @Override
@@ -80,8 +188,11 @@ public class OkHttpClientHttpUrlConnectionFactory extends DefaultHttpUrlConnecti
     @Override
     public void shutdown() {
         try {
-            factory.client().dispatcher().executorService().shutdown();
-            factory.client().dispatcher().executorService().awaitTermination(5, TimeUnit.MINUTES);
+            if (ownsExecutor) {
+                factory.client().dispatcher().executorService().shutdown();
+                factory.client().dispatcher().executorService().awaitTermination(5, TimeUnit
+                        .MINUTES);
+            }
             // Evict all the connections
             factory.client().connectionPool().evictAll();
         } catch (InterruptedException e) {
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.http.internal.ok;
+
+import okhttp3.Connection;
+import okhttp3.Protocol;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of concurrent HTTP/2 streams of a client.
+ * <p>
+ * OkHttp multiplexes requests onto an HTTP/2 connection up to the limit advertised by the server,
+ * which is often much higher than a client would choose. OkHttp always reuses a single
+ * multiplexed connection to a host, so the limit is for the whole client rather than for each
+ * connection. A permit is acquired when a call is given a connection, before the request is sent,
+ * and released when OkHttp releases the connection from the call, after the response body has
+ * been read or closed. HTTP/1.1 connections carry a single request at a time and are not limited.
+ * </p>
+ * <p>
+ * A call waits for a permit for at most the maximum wait, then fails with an
+ * {@link InterruptedIOException}, so that a response that is never closed cannot block every
+ * other request.
+ * </p>
+ * <p>
+ * The permits are acquired from {@link ConnectionMetrics}' event listener because
+ * {@code OkUrlFactory} replaces any interceptors configured on the client.
+ * </p>
+ */
+class StreamLimiter {
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+
+    /**
+     * @param maxConcurrentStreams the maximum number of streams in flight
+     * @param maxWaitNanos         how long a call waits for a stream
+     */
+    StreamLimiter(int maxConcurrentStreams, long maxWaitNanos) {
+        this.permits = new Semaphore(maxConcurrentStreams);
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Wait for a stream. Event listeners cannot declare exceptions, so a call that does not get
+     * a stream is failed by throwing the {@link InterruptedIOException} unchecked. OkHttp
+     * handles it like any other I/O failure of the call, releasing the connection without
+     * closing it and without retrying the request.
+     *
+     * @param connection the connection the call has been given
+     * @return the semaphore to release when the call releases the connection, or {@code null} if
+     * the connection is not limited
+     */
+    Semaphore acquire(Connection connection) {
+        if (connection.protocol() == Protocol.HTTP_1_0 || connection.protocol() == Protocol
+                .HTTP_1_1) {
+            return null;
+        }
+        try {
+            if (permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                return permits;
+            }
+            StreamLimiter.<RuntimeException>throwUnchecked(new InterruptedIOException("Timed " +
+                    "out waiting for an HTTP/2 stream."));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            StreamLimiter.<RuntimeException>throwUnchecked(new InterruptedIOException
+                    ("Interrupted waiting for an HTTP/2 stream."));
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> void throwUnchecked(Exception e) throws E {
+        throw (E) e;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.http.internal.jdk;
+
+import com.cloudant.http.internal.DefaultHttpUrlConnectionFactory;
+
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.logging.Logger;
+
+/**
+ * Provides HttpUrlConnections that send their requests with a {@link HttpClient}, which pools
+ * connections and negotiates HTTP/2 for https URLs.
+ * <p>
+ * The client is built when the first connection is sent, using that connection's connect
+ * timeout; connect timeouts set on later connections are not applied separately. The read
+ * timeout of each connection bounds the time until its response headers are received and the
+ * time each read of the response body waits for data.
+ * </p>
+ * <p>
+ * {@link HttpClient} takes an {@code SSLContext} rather than a socket factory, so the connections
+ * are not {@code HttpsURLConnection}s and cannot have a custom socket factory or hostname
+ * verifier.
+ * </p>
+ */
+public class JdkHttpClientHttpUrlConnectionFactory extends DefaultHttpUrlConnectionFactory {
+
+    private static final Logger logger = Logger.getLogger(JdkHttpClientHttpUrlConnectionFactory
+            .class.getName());
+
+    private final Executor executor;
+    // The executor created by this factory, null if the executor was supplied
+    private final ExecutorService ownExecutor;
+    // Times out reads of response bodies, which HttpClient does not
+    private final ScheduledExecutorService timer = newTimer();
+    private volatile PasswordAuthentication proxyAuthentication = null;
+    private volatile HttpClient client = null;
+
+    /**
+     * Run the client's asynchronous work on a pool of daemon threads.
+     */
+    public JdkHttpClientHttpUrlConnectionFactory() {
+        this.ownExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "cloudant-http-client");
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor = ownExecutor;
+    }
+
+    /**
+     * @param executor the executor for the client's asynchronous work, it is not shut down with
+     *                 the factory
+     */
+    public JdkHttpClientHttpUrlConnectionFactory(Executor executor) {
+        this.executor = executor;
+        this.ownExecutor = null;
+    }
+
+    private static ScheduledExecutorService newTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "cloudant-http-client-timeout");
+            t.setDaemon(true);
+            return t;
+        });
+        // Most reads finish in time, so do not keep their cancelled timeouts queued
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    @Override
+    public HttpURLConnection openConnection(URL url) throws IOException {
+        return new JdkHttpURLConnection(url, this);
+    }
+
+    /**
+     * @param connectTimeout the connect timeout in milliseconds if the client is built, 0 for none
+     * @return the client that sends the requests
+     */
+    HttpClient client(int connectTimeout) {
+        HttpClient current = client;
+        if (current == null) {
+            synchronized (this) {
+                if (client == null) {
+                    HttpClient.Builder builder = HttpClient.newBuilder()
+                            .executor(executor)
+                            .followRedirects(HttpClient.Redirect.NEVER);
+                    if (connectTimeout > 0) {
+                        builder.connectTimeout(Duration.ofMillis(connectTimeout));
+                    }
+                    if (proxy != null) {
+                        builder.proxy(ProxySelector.of((InetSocketAddress) proxy.address()));
+                        final PasswordAuthentication credentials = proxyAuthentication;
+                        if (credentials != null) {
+                            builder.authenticator(new Authenticator() {
+                                @Override
+                                protected PasswordAuthentication getPasswordAuthentication() {
+                                    return (getRequestorType() == RequestorType.PROXY) ?
+                                            credentials : null;
+                                }
+                            });
+                        }
+                    }
+                    client = builder.build();
+                }
+                current = client;
+            }
+        }
+        return current;
+    }
+
+    ScheduledExecutorService timer() {
+        return timer;
+    }
+
+    boolean isProxied() {
+        return proxy != null;
+    }
+
+    @Override
+    public void setProxyAuthentication(PasswordAuthentication proxyAuthentication) {
+        this.proxyAuthentication = proxyAuthentication;
+        logger.config("Configured HTTP proxy authentication");
+    }
+
+    @Override
+    public void shutdown() {
+        timer.shutdownNow();
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.http.internal.jdk;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A {@link HttpURLConnection} that sends its request asynchronously with a {@link HttpClient}.
+ * <p>
+ * A request with a body is sent when the output stream is opened, so the body is streamed to
+ * the server as it is written; other requests are sent when the response is first needed. The
+ * response body is streamed from the client. The read timeout applies both to waiting for the
+ * response headers and to each read of the response body.
+ * </p>
+ */
+final class JdkHttpURLConnection extends HttpURLConnection {
+
+    // Headers that HttpClient sets itself and does not allow to be set
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length",
+            "date", "expect", "from", "host", "origin", "referer", "upgrade", "via", "warning");
+
+    private static final Map<Integer, String> REASON_PHRASES = new HashMap<>();
+
+    static {
+        // HttpClient does not expose the reason phrase, which is not sent at all over HTTP/2
+        REASON_PHRASES.put(200, "OK");
+        REASON_PHRASES.put(201, "Created");
+        REASON_PHRASES.put(202, "Accepted");
+        REASON_PHRASES.put(204, "No Content");
+        REASON_PHRASES.put(206, "Partial Content");
+        REASON_PHRASES.put(304, "Not Modified");
+        REASON_PHRASES.put(400, "Bad Request");
+        REASON_PHRASES.put(401, "Unauthorized");
+        REASON_PHRASES.put(403, "Forbidden");
+        REASON_PHRASES.put(404, "Not Found");
+        REASON_PHRASES.put(405, "Method Not Allowed");
+        REASON_PHRASES.put(409, "Conflict");
+        REASON_PHRASES.put(412, "Precondition Failed");
+        REASON_PHRASES.put(413, "Request Entity Too Large");
+        REASON_PHRASES.put(415, "Unsupported Media Type");
+        REASON_PHRASES.put(416, "Requested Range Not Satisfiable");
+        REASON_PHRASES.put(429, "Too Many Requests");
+        REASON_PHRASES.put(500, "Internal Server Error");
+        REASON_PHRASES.put(502, "Bad Gateway");
+        REASON_PHRASES.put(503, "Service Unavailable");
+        REASON_PHRASES.put(504, "Gateway Timeout");
+    }
+
+    private final JdkHttpClientHttpUrlConnectionFactory factory;
+
+    private volatile CompletableFuture<HttpResponse<InputStream>> exchange;
+    private volatile HttpResponse<InputStream> response;
+    private Map<String, List<String>> headerFields;
+    private List<Map.Entry<String, String>> headerList;
+    private boolean bodyRead = false;
+
+    JdkHttpURLConnection(URL url, JdkHttpClientHttpUrlConnectionFactory factory) {
+        super(url);
+        this.factory = factory;
+    }
+
+    @Override
+    public void connect() throws IOException {
+        // The request is sent, and the connection marked as connected, when the body is written
+        // or the response is read
+    }
+
+    @Override
+    public synchronized OutputStream getOutputStream() throws IOException {
+        if (!doOutput) {
+            throw new ProtocolException("Cannot write output when doOutput is false");
+        }
+        if (exchange != null) {
+            throw new ProtocolException("Cannot write output after reading input");
+        }
+        RequestBodyPipe pipe = new RequestBodyPipe();
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofInputStream(() -> pipe.in);
+        long length = (fixedContentLengthLong != -1) ? fixedContentLengthLong :
+                fixedContentLength;
+        if (length == 0) {
+            body = HttpRequest.BodyPublishers.noBody();
+        } else if (length > 0) {
+            body = HttpRequest.BodyPublishers.fromPublisher(body, length);
+        }
+        pipe.setExchange(send(body));
+        return pipe.out;
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> send(HttpRequest.BodyPublisher body)
+            throws IOException {
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid request URL " + url, e);
+        }
+        request.method(method, body);
+        if ("http".equals(url.getProtocol())) {
+            // Do not try to upgrade cleartext connections to HTTP/2
+            request.version(HttpClient.Version.HTTP_1_1);
+        }
+        if (getReadTimeout() > 0) {
+            request.timeout(Duration.ofMillis((long) getReadTimeout() + getConnectTimeout()));
+        }
+        for (Map.Entry<String, List<String>> property : getRequestProperties().entrySet()) {
+            if (property.getKey() == null || RESTRICTED_HEADERS.contains(property.getKey()
+                    .toLowerCase(Locale.ENGLISH))) {
+                continue;
+            }
+            for (String value : property.getValue()) {
+                request.header(property.getKey(), value);
+            }
+        }
+        connected = true;
+        CompletableFuture<HttpResponse<InputStream>> sent = factory.client(getConnectTimeout())
+                .sendAsync(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        exchange = sent;
+        return sent;
+    }
+
+    private HttpResponse<InputStream> response() throws IOException {
+        HttpResponse<InputStream> r = response;
+        if (r != null) {
+            return r;
+        }
+        CompletableFuture<HttpResponse<InputStream>> sent;
+        synchronized (this) {
+            sent = (exchange == null) ? send(HttpRequest.BodyPublishers.noBody()) : exchange;
+        }
+        // Wait without holding the lock so that a blocked thread does not pin its carrier
+        try {
+            r = sent.get();
+        } catch (InterruptedException e) {
+            sent.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the response");
+        } catch (CancellationException e) {
+            throw new IOException("Request cancelled", e);
+        } catch (ExecutionException e) {
+            throw toIOException(e.getCause());
+        }
+        synchronized (this) {
+            if (response == null) {
+                responseCode = r.statusCode();
+                responseMessage = REASON_PHRASES.getOrDefault(responseCode, "");
+                response = r;
+            }
+            return response;
+        }
+    }
+
+    private static IOException toIOException(Throwable cause) {
+        // Use the same exceptions as HttpURLConnection for timeouts
+        if (cause instanceof HttpConnectTimeoutException) {
+            SocketTimeoutException e = new SocketTimeoutException("connect timed out");
+            e.initCause(cause);
+            return e;
+        } else if (cause instanceof HttpTimeoutException) {
+            SocketTimeoutException e = new SocketTimeoutException("Read timed out");
+            e.initCause(cause);
+            return e;
+        } else if (cause instanceof IOException) {
+            return (IOException) cause;
+        } else {
+            return new IOException(cause);
+        }
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        return response().statusCode();
+    }
+
+    @Override
+    public String getResponseMessage() throws IOException {
+        response();
+        return responseMessage;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        HttpResponse<InputStream> r = response();
+        if (r.statusCode() >= 400) {
+            if (r.statusCode() == HTTP_NOT_FOUND || r.statusCode() == HTTP_GONE) {
+                throw new FileNotFoundException(url.toString());
+            }
+            throw new IOException("Server returned HTTP response code: " + r.statusCode() +
+                    " for URL: " + url);
+        }
+        return body(r);
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        try {
+            HttpResponse<InputStream> r = response();
+            return (r.statusCode() >= 400) ? body(r) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private synchronized InputStream body(HttpResponse<InputStream> r) {
+        bodyRead = true;
+        return (getReadTimeout() > 0) ? new TimedInputStream(r.body(), factory.timer(),
+                getReadTimeout()) : r.body();
+    }
+
+    private void headers() {
+        HttpResponse<InputStream> r;
+        try {
+            r = response();
+        } catch (IOException e) {
+            r = null;
+        }
+        synchronized (this) {
+            if (headerFields == null) {
+                if (r == null) {
+                    headerFields = Collections.emptyMap();
+                    headerList = Collections.emptyList();
+                } else {
+                    parseHeaders(r);
+                }
+            }
+        }
+    }
+
+    private void parseHeaders(HttpResponse<InputStream> r) {
+        Map<String, List<String>> fields = new LinkedHashMap<>();
+        List<Map.Entry<String, String>> list = new ArrayList<>();
+        // Like HttpURLConnection the status line has a null key
+        String statusLine = ((r.version() == HttpClient.Version.HTTP_2) ? "HTTP/2" : "HTTP/1.1")
+                + " " + r.statusCode() + " " + responseMessage;
+        fields.put(null, Collections.singletonList(statusLine));
+        list.add(new AbstractMap.SimpleImmutableEntry<String, String>(null, statusLine));
+        for (Map.Entry<String, List<String>> header : r.headers().map().entrySet()) {
+            fields.put(header.getKey(), header.getValue());
+            for (String value : header.getValue()) {
+                list.add(new AbstractMap.SimpleImmutableEntry<>(header.getKey(), value));
+            }
+        }
+        headerFields = Collections.unmodifiableMap(fields);
+        headerList = list;
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+        if (name == null) {
+            return getHeaderField(0);
+        }
+        try {
+            List<String> values = response().headers().allValues(name);
+            // Like HttpURLConnection return the last value of a repeated header
+            return values.isEmpty() ? null : values.get(values.size() - 1);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+        headers();
+        synchronized (this) {
+            return headerFields;
+        }
+    }
+
+    @Override
+    public String getHeaderFieldKey(int n) {
+        headers();
+        synchronized (this) {
+            return (n >= 0 && n < headerList.size()) ? headerList.get(n).getKey() : null;
+        }
+    }
+
+    @Override
+    public String getHeaderField(int n) {
+        headers();
+        synchronized (this) {
+            return (n >= 0 && n < headerList.size()) ? headerList.get(n).getValue() : null;
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        CompletableFuture<HttpResponse<InputStream>> sent = exchange;
+        if (sent == null) {
+            return;
+        }
+        if (!sent.isDone()) {
+            sent.cancel(true);
+            return;
+        }
+        synchronized (this) {
+            // Closing an unread body releases the stream or connection it was using
+            if (response != null && !bodyRead) {
+                try {
+                    response.body().close();
+                } catch (IOException e) {
+                    // Already closed
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return factory.isProxied();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.http.internal.jdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes a request body written by the caller's thread to the {@code HttpClient} thread that
+ * sends it, so that the body is streamed rather than buffered. At most {@link #CAPACITY} writes
+ * are buffered before the writer waits for the body to be sent.
+ */
+final class RequestBodyPipe {
+
+    static final int CAPACITY = 16;
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(CAPACITY);
+    // The exchange the body is for, so the writer stops waiting if it fails
+    private volatile Future<?> exchange;
+
+    final OutputStream out = new OutputStream() {
+
+        private boolean closed = false;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("The request body has been closed");
+            }
+            if (len > 0) {
+                put(Arrays.copyOfRange(b, off, off + len));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                put(END);
+            }
+        }
+    };
+
+    final InputStream in = new InputStream() {
+
+        private byte[] chunk;
+        private int position;
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) == -1) ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (chunk == END) {
+                return -1;
+            }
+            if (chunk == null || position == chunk.length) {
+                try {
+                    chunk = chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted reading the request body");
+                }
+                position = 0;
+                if (chunk == END) {
+                    return -1;
+                }
+            }
+            int read = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, read);
+            position += read;
+            return read;
+        }
+    };
+
+    void setExchange(Future<?> exchange) {
+        this.exchange = exchange;
+    }
+
+    private void put(byte[] chunk) throws IOException {
+        try {
+            while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                Future<?> current = exchange;
+                if (current != null && current.isDone()) {
+                    throw new IOException("The request finished before its body was sent");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted writing the request body");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2026 IBM Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.cloudant.http.internal.jdk;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies a read timeout to a response body from {@code HttpClient}, which only times out
+ * waiting for the response headers. If a read does not complete within the timeout the body is
+ * closed, which releases the blocked reader, and the read fails with a
+ * {@link SocketTimeoutException} like a {@code HttpURLConnection} read.
+ */
+final class TimedInputStream extends FilterInputStream {
+
+    private final ScheduledExecutorService timer;
+    private final long readTimeout;
+    private volatile boolean timedOut = false;
+
+    /**
+     * @param in          the response body
+     * @param timer       the scheduler for the timeouts
+     * @param readTimeout the read timeout in milliseconds
+     */
+    TimedInputStream(InputStream in, ScheduledExecutorService timer, long readTimeout) {
+        super(in);
+        this.timer = timer;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ScheduledFuture<?> timeout = schedule();
+        try {
+            return super.read();
+        } finally {
+            finish(timeout);
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ScheduledFuture<?> timeout = schedule();
+        try {
+            return super.read(b, off, len);
+        } finally {
+            finish(timeout);
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        ScheduledFuture<?> timeout = schedule();
+        try {
+            return super.skip(n);
+        } finally {
+            finish(timeout);
+        }
+    }
+
+    private ScheduledFuture<?> schedule() throws IOException {
+        if (timedOut) {
+            throw new SocketTimeoutException("Read timed out");
+        }
+        return timer.schedule(() -> {
+            timedOut = true;
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }, readTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private void finish(ScheduledFuture<?> timeout) throws IOException {
+        timeout.cancel(false);
+        // The closed body may have ended the read normally, so report the timeout instead
+        if (timedOut) {
+            throw new SocketTimeoutException("Read timed out");
+        }
+    }
+}